@@ -0,0 +1,53 @@
+package benchmark;
+
+import dto.Book;
+import org.openjdk.jmh.annotations.*;
+import util.PKLAnalyzer;
+import util.PMIAnalyzer;
+import util.QualityPhrasesMiner;
+import util.TFIDFAnalyzer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    @Param({Corpora.SYNTHETIC, Corpora.REAL})
+    public String corpus;
+
+    @Param({"1000", "10000", "100000"})
+    public int words;
+
+    private Book book;
+
+    @Setup
+    public void setUp() throws IOException {
+        book = Corpora.book(corpus, words);
+    }
+
+    @Benchmark
+    public String pmi() {
+        return PMIAnalyzer.getInstance().calculatePMI(book);
+    }
+
+    @Benchmark
+    public String pkl() {
+        return PKLAnalyzer.getInstance().calculatePKL(book);
+    }
+
+    @Benchmark
+    public String qualityPhrases() {
+        return QualityPhrasesMiner.getInstance().mineQualityPhrases(book);
+    }
+
+    @Benchmark
+    public String tfidf() {
+        return TFIDFAnalyzer.getInstance().calculateTFIDF(book);
+    }
+}
@@ -0,0 +1,124 @@
+package benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Flattened benchmark results: for every benchmark and parameter combination,
+ * the primary score (lower is better, all benchmarks run in AverageTime mode)
+ * and the normalized allocation rate in bytes per operation.
+ */
+final class BaselineReport {
+
+    private static final String SCORE = ".score";
+    private static final String ALLOCATION = ".alloc";
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private final Map<String, Double> values;
+
+    private BaselineReport(Map<String, Double> values) {
+        this.values = values;
+    }
+
+    static BaselineReport of(Collection<RunResult> results) {
+        Map<String, Double> values = new TreeMap<>();
+        for (RunResult result : results) {
+            String key = key(result.getParams());
+            values.put(key + SCORE, result.getPrimaryResult().getScore());
+            // JMH declares the secondary results with a raw Result type.
+            for (String label : result.getSecondaryResults().keySet()) {
+                // Older JMH versions prefix profiler metrics with a middle dot.
+                if (label.endsWith(ALLOCATION_METRIC)) {
+                    Result<?> secondary = result.getSecondaryResults().get(label);
+                    values.put(key + ALLOCATION, secondary.getScore());
+                }
+            }
+        }
+        return new BaselineReport(values);
+    }
+
+    static BaselineReport load(Path file) throws IOException {
+        Map<String, Double> values = new TreeMap<>();
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            for (String name : properties.stringPropertyNames()) {
+                values.put(name, Double.parseDouble(properties.getProperty(name)));
+            }
+        }
+        return new BaselineReport(values);
+    }
+
+    void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        values.forEach((name, value) -> properties.setProperty(name, Double.toString(value)));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, "ArabicNotepad benchmark baseline");
+        }
+    }
+
+    /**
+     * Prints one line per metric with the change against the baseline and
+     * returns how many metrics got worse by more than the threshold.
+     */
+    int compareTo(BaselineReport baseline, double thresholdPercent, PrintStream out) {
+        int regressions = 0;
+        out.println();
+        out.printf("%-70s %14s %14s %9s%n", "Metric", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            Double previous = baseline.values.get(entry.getKey());
+            double current = entry.getValue();
+            if (previous == null || previous == 0) {
+                out.printf("%-70s %14s %14.3f %9s%n", entry.getKey(), "-", current, "new");
+                continue;
+            }
+            double change = (current - previous) / previous * 100;
+            boolean regression = change > thresholdPercent;
+            if (regression) {
+                regressions++;
+            }
+            out.printf("%-70s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), previous, current, change,
+                    regression ? "  REGRESSION" : "");
+        }
+        if (baseline.values.isEmpty()) {
+            out.println("No baseline found; run with -Dbenchmark.saveBaseline=true to record one.");
+        } else {
+            out.printf("%d regression(s) over %.1f%%.%n", regressions, thresholdPercent);
+        }
+        return regressions;
+    }
+
+    private static String key(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        if (!params.getParamsKeys().isEmpty()) {
+            key.append('[');
+            for (String name : params.getParamsKeys()) {
+                if (key.charAt(key.length() - 1) != '[') {
+                    key.append(',');
+                }
+                key.append(name).append('=').append(params.getParam(name));
+            }
+            key.append(']');
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+
+/**
+ * Runs the benchmarks with the GC profiler and compares the results against
+ * a saved baseline. Standard JMH arguments (include regex, -f, -wi, ...) are
+ * passed through.
+ *
+ * System properties:
+ * benchmark.baseline       baseline file (default benchmarks/baseline.properties)
+ * benchmark.saveBaseline   write this run's results as the new baseline
+ * benchmark.threshold      allowed slowdown/extra allocation in percent (default 10)
+ * benchmark.failOnRegression  exit with status 1 when a regression is found
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path baseline = Paths.get(System.getProperty("benchmark.baseline", "benchmarks/baseline.properties"));
+        Path resultFile = Paths.get(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        BaselineReport report = BaselineReport.of(results);
+        int regressions = report.compareTo(BaselineReport.load(baseline), threshold, System.out);
+
+        if (Boolean.getBoolean("benchmark.saveBaseline")) {
+            report.save(baseline);
+            System.out.println("Baseline written to " + baseline.toAbsolutePath());
+        }
+        if (regressions > 0 && Boolean.getBoolean("benchmark.failOnRegression")) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import dto.Book;
+import dto.Page;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a folder of synthetic books in the format LocalStorageBookDAO
+ * imports: an idauthor line followed by text that paginates into the requested
+ * number of pages.
+ */
+final class BookFolderGenerator {
+
+    private BookFolderGenerator() {
+    }
+
+    static List<Path> generate(Path directory, int books, int pagesPerBook) throws IOException {
+        Files.createDirectories(directory);
+        int wordsPerBook = pagesPerBook * Corpora.LINES_PER_PAGE * Corpora.WORDS_PER_LINE;
+        List<Path> files = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            String title = String.format("book-%05d", i);
+            Book book = Corpora.syntheticBook(title, wordsPerBook, i);
+            Path file = directory.resolve(title + ".txt");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("**idauthor**: benchmark\n");
+                for (Page page : book.getPages()) {
+                    writer.write(page.getContent());
+                    writer.write('\n');
+                }
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (var paths = Files.walk(directory)) {
+            for (Path path : paths.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
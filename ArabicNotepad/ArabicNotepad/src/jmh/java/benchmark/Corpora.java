@@ -0,0 +1,169 @@
+package benchmark;
+
+import dto.Book;
+import dto.Page;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark inputs of a given size in words. "synthetic" draws words from a
+ * Zipf-distributed pseudo-Arabic vocabulary. "real" tiles the words of the
+ * books found in benchmark.corpus.dir (default: test-data and exported).
+ * Text is laid out in lines and pages the same way LocalStorageBookDAO
+ * paginates imported files.
+ */
+final class Corpora {
+
+    static final String SYNTHETIC = "synthetic";
+    static final String REAL = "real";
+
+    static final int WORDS_PER_LINE = 12;
+    static final int LINES_PER_PAGE = 20;
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final long SEED = 20241019L;
+
+    private static final String LETTERS = "ابتثجحخدذرزسشصضطظعغفقكلمنهويءةىؤئ";
+    private static final String[] DIACRITICS = {"َ", "ُ", "ِ", "ْ", "ّ"};
+    private static final String[] STOPWORDS = {"و", "في", "على", "من", "إلى", "عن", "ما", "مع"};
+
+    private Corpora() {
+    }
+
+    static Book book(String corpus, int words) throws IOException {
+        return paginate(corpus + "-" + words, words(corpus, words));
+    }
+
+    /**
+     * A synthetic book whose text depends on the seed, so that generated books
+     * have distinct content hashes.
+     */
+    static Book syntheticBook(String title, int words, long seed) {
+        return paginate(title, syntheticWords(words, seed));
+    }
+
+    private static Book paginate(String title, List<String> tokens) {
+        List<Page> pages = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        int line = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            content.append(tokens.get(i));
+            boolean endOfLine = (i + 1) % WORDS_PER_LINE == 0 || i + 1 == tokens.size();
+            if (!endOfLine) {
+                content.append(' ');
+                continue;
+            }
+            content.append('\n');
+            if (++line == LINES_PER_PAGE || i + 1 == tokens.size()) {
+                pages.add(new Page(pages.size() + 1, 1, pages.size() + 1, content.toString().trim()));
+                content.setLength(0);
+                line = 0;
+            }
+        }
+        return new Book(1, title, null, "benchmark", pages);
+    }
+
+    static String text(String corpus, int words) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (Page page : book(corpus, words).getPages()) {
+            text.append(page.getContent()).append("\n\n");
+        }
+        return text.toString();
+    }
+
+    private static List<String> words(String corpus, int count) throws IOException {
+        return switch (corpus) {
+            case SYNTHETIC -> syntheticWords(count, SEED);
+            case REAL -> realWords(count);
+            default -> throw new IllegalArgumentException("Unknown corpus: " + corpus);
+        };
+    }
+
+    private static List<String> syntheticWords(int count, long seed) {
+        Random vocabularyRandom = new Random(SEED);
+        String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(vocabularyRandom);
+        }
+
+        double[] cumulative = new double[VOCABULARY_SIZE];
+        double total = 0;
+        for (int rank = 0; rank < VOCABULARY_SIZE; rank++) {
+            total += 1.0 / Math.pow(rank + 1, 1.1);
+            cumulative[rank] = total;
+        }
+
+        Random random = new Random(seed);
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(8) == 0) {
+                words.add(STOPWORDS[random.nextInt(STOPWORDS.length)]);
+                continue;
+            }
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            words.add(vocabulary[Math.min(index < 0 ? -index - 1 : index, VOCABULARY_SIZE - 1)]);
+        }
+        return words;
+    }
+
+    private static String randomWord(Random random) {
+        int length = 3 + random.nextInt(5);
+        StringBuilder word = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            if (random.nextInt(4) == 0) {
+                word.append(DIACRITICS[random.nextInt(DIACRITICS.length)]);
+            }
+        }
+        return word.toString();
+    }
+
+    private static List<String> realWords(int count) throws IOException {
+        List<String> source = new ArrayList<>();
+        for (Path directory : corpusDirectories()) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                        if (line.startsWith("**idauthor**:")) {
+                            continue;
+                        }
+                        for (String word : line.trim().split("\\s+")) {
+                            if (!word.isEmpty()) {
+                                source.add(word);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (source.isEmpty()) {
+            throw new IllegalStateException("No real corpus found in " + corpusDirectories()
+                    + "; set -Dbenchmark.corpus.dir to a folder of books.");
+        }
+
+        List<String> words = new ArrayList<>(count);
+        while (words.size() < count) {
+            words.addAll(source.subList(0, Math.min(source.size(), count - words.size())));
+        }
+        return words;
+    }
+
+    private static List<Path> corpusDirectories() {
+        String configured = System.getProperty("benchmark.corpus.dir");
+        if (configured != null && !configured.isBlank()) {
+            return List.of(Paths.get(configured));
+        }
+        return List.of(Paths.get("test-data"), Paths.get("exported"));
+    }
+}
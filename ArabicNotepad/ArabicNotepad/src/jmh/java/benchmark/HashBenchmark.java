@@ -0,0 +1,34 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import util.FileUtil;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({Corpora.SYNTHETIC, Corpora.REAL})
+    public String corpus;
+
+    @Param({"1000", "10000", "100000"})
+    public int words;
+
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        text = Corpora.text(corpus, words);
+    }
+
+    @Benchmark
+    public String sha256() {
+        return FileUtil.calculateSHA256(text);
+    }
+}
@@ -0,0 +1,337 @@
+package benchmark;
+
+import bl.BookFacadeImpl;
+import common.BinaryBookFacadeClient;
+import common.BinaryBookServer;
+import common.RemoteBookFacade;
+import common.RemoteBookFacadeImpl;
+import config.ConfigurationManager;
+import config.EnvironmentManager;
+import dao.MySQLBookDAO;
+import dto.Book;
+import dto.BookSummary;
+import dto.Page;
+import dto.PageEdit;
+import dto.PagePatch;
+import dto.PagePatchResult;
+import ui.RemoteBookCache;
+import util.LatencyHistogram;
+
+import java.io.Closeable;
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load test for BookServer. Each simulated client behaves like a
+ * RemoteArabicNotepadUI session: it registers a RemoteBookCache, then loops
+ * over list, open, type-and-save (a page patch, rebased once on conflict),
+ * search and analyze, picked by weight, with exponentially distributed think
+ * times in between. Unless benchmark.host is set, the server runs in this
+ * JVM on the embedded SQL stand-in (see SqlStandIn), seeded with synthetic
+ * books. Prints throughput and latency percentiles per operation.
+ *
+ * Run with:
+ * mvn -P benchmark compile exec:exec -Dbenchmark.main=benchmark.LoadGenerator
+ *     -Dbenchmark.jvmArgs="-Dbenchmark.clients=50 -Dbenchmark.transport=binary"
+ * exec:exec starts a separate JVM, so the properties below only reach it
+ * through benchmark.jvmArgs; -D options given to Maven directly are ignored,
+ * and exec:java would run the application's main class instead.
+ *
+ * System properties:
+ * benchmark.clients     simulated clients (default 50)
+ * benchmark.duration    measured seconds (default 60)
+ * benchmark.warmup      unmeasured seconds before that (default 10)
+ * benchmark.thinkMs     mean think time between operations in ms (default 500)
+ * benchmark.mix         operation weights (default list=10,open=20,save=45,search=20,analyze=5)
+ * benchmark.analysis    analysis method used by analyze (default TF-IDF)
+ * benchmark.books       books seeded into the embedded server (default 20)
+ * benchmark.pages       pages per seeded book (default 10)
+ * benchmark.transport   rmi or binary (default rmi)
+ * benchmark.host        BookServer to load instead of an embedded one
+ * benchmark.rmiPort     its RMI registry port (default 1099)
+ * benchmark.binaryPort  its binary transport port (default 1100); the server
+ *                       must run with -Dserver.binary.enabled=true
+ */
+public final class LoadGenerator {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 50);
+    private static final int DURATION_SECONDS = Integer.getInteger("benchmark.duration", 60);
+    private static final int WARMUP_SECONDS = Integer.getInteger("benchmark.warmup", 10);
+    private static final int THINK_MILLIS = Integer.getInteger("benchmark.thinkMs", 500);
+    private static final String MIX = System.getProperty("benchmark.mix", "list=10,open=20,save=45,search=20,analyze=5");
+    private static final String ANALYSIS = System.getProperty("benchmark.analysis", "TF-IDF");
+    private static final int BOOKS = Integer.getInteger("benchmark.books", 20);
+    private static final int PAGES = Integer.getInteger("benchmark.pages", 10);
+    private static final String TRANSPORT = System.getProperty("benchmark.transport", "rmi");
+    private static final String HOST = System.getProperty("benchmark.host", "");
+
+    private static final String[] FALLBACK_SEARCH_WORDS = {"في", "على", "من", "إلى"};
+
+    enum Operation {
+        LIST, OPEN, SAVE, SEARCH, ANALYZE
+    }
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final LongAdder conflicts = new LongAdder();
+    private final Operation[] weighted;
+    private final String host;
+    private final int rmiPort;
+    private final int binaryPort;
+    private volatile boolean measuring;
+    private volatile boolean stopped;
+
+    private LoadGenerator(Operation[] weighted, String host, int rmiPort, int binaryPort) {
+        this.weighted = weighted;
+        this.host = host;
+        this.rmiPort = rmiPort;
+        this.binaryPort = binaryPort;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Operation[] weighted = parseMix(MIX);
+        LoadGenerator generator;
+        SqlStandIn sql = null;
+        BinaryBookServer binaryServer = null;
+        BookFacadeImpl localFacade = null;
+        if (HOST.isBlank()) {
+            ConfigurationManager.getInstance(EnvironmentManager.getCurrentEnvironment());
+            sql = SqlStandIn.open();
+            sql.reset();
+            localFacade = new BookFacadeImpl(new MySQLBookDAO(sql::openConnection, Integer.getInteger("db.pool.size", 4)));
+            for (int i = 0; i < BOOKS; i++) {
+                localFacade.insertBook(Corpora.syntheticBook(String.format("load-%04d", i),
+                        PAGES * Corpora.LINES_PER_PAGE * Corpora.WORDS_PER_LINE, i));
+            }
+            RemoteBookFacadeImpl remoteFacade = new RemoteBookFacadeImpl(localFacade);
+            int rmiPort = freePort();
+            Registry registry = LocateRegistry.createRegistry(rmiPort);
+            registry.rebind("RemoteBookFacade", remoteFacade);
+            binaryServer = new BinaryBookServer(remoteFacade, 0);
+            binaryServer.start();
+            generator = new LoadGenerator(weighted, "localhost", rmiPort, binaryServer.getPort());
+            System.out.printf("Embedded server: %d books x %d pages on the SQL stand-in%n", BOOKS, PAGES);
+        } else {
+            generator = new LoadGenerator(weighted, HOST, Integer.getInteger("benchmark.rmiPort", 1099),
+                    Integer.getInteger("benchmark.binaryPort", 1100));
+            System.out.printf("Server: %s%n", HOST);
+        }
+
+        try {
+            generator.run();
+        } finally {
+            if (binaryServer != null) {
+                binaryServer.close();
+            }
+            if (localFacade != null) {
+                localFacade.shutdown();
+            }
+            if (sql != null) {
+                sql.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        System.out.printf("%d clients over %s, think time %d ms, mix %s; %d s warm-up + %d s measured%n",
+                CLIENTS, TRANSPORT, THINK_MILLIS, MIX, WARMUP_SECONDS, DURATION_SECONDS);
+        List<Thread> clients = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            Session session = new Session(i);
+            // Sessions block inside synchronized RMI and cache code, which would pin virtual threads.
+            clients.add(Thread.ofPlatform().daemon().name("load-client-" + i).start(session::run));
+        }
+
+        TimeUnit.SECONDS.sleep(WARMUP_SECONDS);
+        measuring = true;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(DURATION_SECONDS);
+        measuring = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stopped = true;
+        for (Thread client : clients) {
+            client.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        report(seconds);
+    }
+
+    private void report(double seconds) {
+        System.out.printf("%-10s %10s %10s %8s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/sec", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            long count = histogram.count();
+            total += count;
+            System.out.printf("%-10s %10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.name().toLowerCase(),
+                    count,
+                    count / seconds,
+                    errors.get(operation).sum(),
+                    histogram.percentileNanos(50) / 1e6,
+                    histogram.percentileNanos(90) / 1e6,
+                    histogram.percentileNanos(99) / 1e6,
+                    histogram.percentileNanos(100) / 1e6);
+        }
+        System.out.printf("%-10s %10d %10.1f    (%d save conflicts rebased)%n", "total", total, total / seconds,
+                conflicts.sum());
+    }
+
+    private RemoteBookFacade connect() throws Exception {
+        if ("binary".equalsIgnoreCase(TRANSPORT)) {
+            return new BinaryBookFacadeClient(host, binaryPort);
+        }
+        return (RemoteBookFacade) LocateRegistry.getRegistry(host, rmiPort).lookup("RemoteBookFacade");
+    }
+
+    /** One simulated user: an open book, the catalog it last saw, and its own random sequence. */
+    private final class Session {
+        final Random random;
+        RemoteBookFacade facade;
+        RemoteBookCache cache;
+        List<BookSummary> catalog = List.of();
+        Book book;
+
+        Session(int index) {
+            this.random = new Random(index);
+        }
+
+        void run() {
+            try {
+                facade = connect();
+                cache = new RemoteBookCache(facade);
+                cache.register();
+            } catch (Exception e) {
+                System.err.println(Thread.currentThread().getName() + " could not connect: " + e);
+                return;
+            }
+            try {
+                // Spread the first requests over one think time instead of a thundering herd.
+                TimeUnit.MILLISECONDS.sleep(random.nextInt(Math.max(1, THINK_MILLIS)));
+                while (!stopped) {
+                    perform(weighted[random.nextInt(weighted.length)]);
+                    think();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                cache.close();
+                if (facade instanceof Closeable closeable) {
+                    try {
+                        closeable.close();
+                    } catch (Exception e) {
+                        // Shutting down anyway.
+                    }
+                }
+            }
+        }
+
+        private void perform(Operation operation) {
+            if (operation != Operation.LIST && catalog.isEmpty()) {
+                operation = Operation.LIST;
+            } else if ((operation == Operation.SAVE || operation == Operation.ANALYZE) && book == null) {
+                operation = Operation.OPEN;
+            }
+            boolean measured = measuring;
+            long start = System.nanoTime();
+            try {
+                switch (operation) {
+                    case LIST -> catalog = cache.getSummaries();
+                    case OPEN -> book = cache.getBook(catalog.get(random.nextInt(catalog.size())).getTitle());
+                    case SAVE -> save();
+                    case SEARCH -> facade.searchBooksByContent(searchWord());
+                    case ANALYZE -> facade.performAnalysis(book, ANALYSIS);
+                }
+                if (measured) {
+                    latencies.get(operation).record(System.nanoTime() - start);
+                }
+            } catch (Exception e) {
+                if (measured) {
+                    errors.get(operation).increment();
+                }
+            }
+        }
+
+        private void save() throws Exception {
+            List<Page> pages = book.getPages();
+            if (pages == null || pages.isEmpty()) {
+                return;
+            }
+            Page page = pages.get(random.nextInt(pages.size()));
+            for (int attempt = 0; attempt < 2; attempt++) {
+                String content = page.getContent() == null ? "" : page.getContent();
+                PagePatch patch = new PagePatch(book.getId(), page.getId(), page.getVersion(),
+                        List.of(new PageEdit(content.length(), 0, " " + searchWord())));
+                PagePatchResult result = facade.applyPagePatch(patch);
+                switch (result.getStatus()) {
+                    case APPLIED -> {
+                        page.setContent(patch.applyTo(content));
+                        page.setVersion(result.getVersion());
+                        return;
+                    }
+                    case CONFLICT -> {
+                        conflicts.increment();
+                        page.setContent(result.getContent());
+                        page.setVersion(result.getVersion());
+                    }
+                    case REJECTED -> throw new IllegalStateException("Patch rejected: " + patch);
+                }
+            }
+        }
+
+        private String searchWord() {
+            if (book != null && book.getPages() != null && !book.getPages().isEmpty()) {
+                String content = book.getPages().get(random.nextInt(book.getPages().size())).getContent();
+                String[] words = content == null ? new String[0] : content.split("\\s+");
+                if (words.length > 0 && !words[0].isEmpty()) {
+                    return words[random.nextInt(words.length)];
+                }
+            }
+            return FALLBACK_SEARCH_WORDS[random.nextInt(FALLBACK_SEARCH_WORDS.length)];
+        }
+
+        private void think() throws InterruptedException {
+            if (THINK_MILLIS > 0) {
+                double delay = -Math.log(1 - random.nextDouble()) * THINK_MILLIS;
+                TimeUnit.MILLISECONDS.sleep((long) Math.min(delay, 10.0 * THINK_MILLIS));
+            }
+        }
+    }
+
+    private static Operation[] parseMix(String mix) {
+        List<Operation> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Bad benchmark.mix entry '" + entry + "', expected name=weight");
+            }
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) {
+                weighted.add(operation);
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("benchmark.mix has no positive weights: " + mix);
+        }
+        return weighted.toArray(new Operation[0]);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
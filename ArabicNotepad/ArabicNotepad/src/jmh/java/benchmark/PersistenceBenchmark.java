@@ -0,0 +1,200 @@
+package benchmark;
+
+import bl.BookService;
+import config.ConfigurationManager;
+import config.EnvironmentManager;
+import dao.LocalStorageBookDAO;
+import dao.MySQLBookDAO;
+import dto.Book;
+import dto.Page;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Throughput benchmark for the import and persistence path: LocalStorageBookDAO
+ * parsing, BookService.importBook, and the MySQLBookDAO add/get/update/delete
+ * cycle against an embedded SQL stand-in (see SqlStandIn). Each scenario reports
+ * books/sec, pages/sec, per-operation latency percentiles and allocation rate.
+ *
+ * Run with: mvn -P benchmark compile exec:exec -Dbenchmark.main=benchmark.PersistenceBenchmark
+ * (pass the properties below through -Dbenchmark.jvmArgs="-Dbenchmark.books=1000 ...").
+ *
+ * System properties:
+ * benchmark.books         number of generated books (default 200)
+ * benchmark.pages         pages per generated book (default 20)
+ * benchmark.rounds        measured rounds per scenario (default 5)
+ * benchmark.warmupRounds  unmeasured warm-up rounds per scenario (default 2)
+ */
+public final class PersistenceBenchmark {
+
+    private static final int BOOKS = Integer.getInteger("benchmark.books", 200);
+    private static final int PAGES = Integer.getInteger("benchmark.pages", 20);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+    private static final int WARMUP_ROUNDS = Integer.getInteger("benchmark.warmupRounds", 2);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private PersistenceBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfigurationManager.getInstance(EnvironmentManager.getCurrentEnvironment());
+
+        Path folder = Files.createTempDirectory("arabicnotepad-books");
+        try (SqlStandIn sql = SqlStandIn.open()) {
+            List<Path> files = BookFolderGenerator.generate(folder, BOOKS, PAGES);
+            LocalStorageBookDAO localStorage = new LocalStorageBookDAO();
+            MySQLBookDAO bookDAO = new MySQLBookDAO(sql.getConnection());
+            BookService bookService = new BookService(bookDAO);
+            try {
+                List<String> titles = files.stream()
+                        .map(file -> file.getFileName().toString().replace(".txt", ""))
+                        .toList();
+
+                System.out.printf("%d books x %d pages, %d warm-up + %d measured rounds%n", BOOKS, PAGES, WARMUP_ROUNDS, ROUNDS);
+                System.out.printf("%-22s %10s %10s %9s %9s %9s %10s %10s%n",
+                        "Scenario", "books/s", "pages/s", "p50 ms", "p99 ms", "max ms", "alloc MB/s", "KB/book");
+
+                run("local.parseBook", () -> { }, measurement -> {
+                    for (Path file : files) {
+                        Book book = measurement.time(() -> localStorage.getBookByName(file.toString()));
+                        measurement.count(1, book.getPages().size());
+                    }
+                });
+
+                run("service.importFolder", sql::reset, measurement -> {
+                    measurement.time(() -> {
+                        bookService.importBook(folder.toString());
+                        return null;
+                    });
+                    measurement.count(BOOKS, (long) BOOKS * PAGES);
+                });
+
+                run("service.importBook", sql::reset, measurement -> {
+                    for (Path file : files) {
+                        measurement.time(() -> {
+                            bookService.importBook(file.toString());
+                            return null;
+                        });
+                        measurement.count(1, PAGES);
+                    }
+                });
+
+                run("sql.getBookByName", () -> ensureImported(sql, bookService, folder), measurement -> {
+                    for (String title : titles) {
+                        Book book = measurement.time(() -> bookDAO.getBookByName(title));
+                        measurement.count(1, book.getPages().size());
+                    }
+                });
+
+                run("sql.updateBook", () -> ensureImported(sql, bookService, folder), measurement -> {
+                    for (String title : titles) {
+                        Book book = bookDAO.getBookByName(title);
+                        for (Page page : book.getPages()) {
+                            page.setContent(page.getContent() + " ");
+                        }
+                        measurement.time(() -> bookDAO.updateBook(book));
+                        measurement.count(1, book.getPages().size());
+                    }
+                });
+
+                run("sql.deleteBook", () -> ensureImported(sql, bookService, folder), measurement -> {
+                    for (String title : titles) {
+                        measurement.time(() -> bookDAO.deleteBook(title));
+                        measurement.count(1, PAGES);
+                    }
+                });
+            } finally {
+                bookService.shutdown();
+            }
+        } finally {
+            BookFolderGenerator.delete(folder);
+        }
+    }
+
+    private static void ensureImported(SqlStandIn sql, BookService bookService, Path folder) throws Exception {
+        sql.reset();
+        bookService.importBook(folder.toString());
+    }
+
+    private static void run(String scenario, Setup setup, Round round) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            setup.run();
+            round.run(new Measurement());
+        }
+
+        Measurement total = new Measurement();
+        for (int i = 0; i < ROUNDS; i++) {
+            setup.run();
+            round.run(total);
+        }
+        total.print(scenario);
+    }
+
+    @FunctionalInterface
+    private interface Setup {
+        void run() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Round {
+        void run(Measurement measurement) throws Exception;
+    }
+
+    private static final class Measurement {
+        private long[] latencies = new long[1024];
+        private int operations;
+        private long books;
+        private long pages;
+        private long elapsedNanos;
+        private long allocatedBytes;
+
+        <T> T time(Callable<T> operation) throws Exception {
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            T result = operation.call();
+            long elapsed = System.nanoTime() - start;
+            allocatedBytes += THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            elapsedNanos += elapsed;
+            if (operations == latencies.length) {
+                latencies = Arrays.copyOf(latencies, operations * 2);
+            }
+            latencies[operations++] = elapsed;
+            return result;
+        }
+
+        void count(long books, long pages) {
+            this.books += books;
+            this.pages += pages;
+        }
+
+        void print(String scenario) {
+            long[] sorted = Arrays.copyOf(latencies, operations);
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%-22s %10.1f %10.1f %9.3f %9.3f %9.3f %10.1f %10.1f%n",
+                    scenario,
+                    books / seconds,
+                    pages / seconds,
+                    percentile(sorted, 0.50) / 1e6,
+                    percentile(sorted, 0.99) / 1e6,
+                    (sorted.length == 0 ? 0 : sorted[sorted.length - 1]) / 1e6,
+                    allocatedBytes / seconds / (1024 * 1024),
+                    books == 0 ? 0 : allocatedBytes / 1024.0 / books);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
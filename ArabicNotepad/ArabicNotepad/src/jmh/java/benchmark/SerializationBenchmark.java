@@ -0,0 +1,116 @@
+package benchmark;
+
+import dto.Book;
+import dto.Page;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java serialization cost of a whole Book as sent over RMI. "compact" is
+ * the Externalizable dto.Book; "default" is a field-for-field copy using
+ * default serialization, i.e. the format before Book became Externalizable.
+ * The wireBytes counter reports the serialized size. The compression
+ * threshold can be changed per run with
+ * -jvmArgsAppend -Ddto.compression.threshold=<bytes>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({Corpora.SYNTHETIC, Corpora.REAL})
+    public String corpus;
+
+    @Param({"1000", "10000", "100000"})
+    public int words;
+
+    @Param({"compact", "default"})
+    public String format;
+
+    private Object book;
+    private byte[] serialized;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+        public long wireBytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        Book source = Corpora.book(corpus, words);
+        book = "default".equals(format) ? DefaultBook.of(source) : source;
+        serialized = serialize(book);
+    }
+
+    @Benchmark
+    public byte[] serialize(WireSize size) throws IOException {
+        byte[] bytes = serialize(book);
+        size.wireBytes += bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return in.readObject();
+        }
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    static final class DefaultBook implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int id;
+        private String title;
+        private String hash;
+        private String idauthor;
+        private List<DefaultPage> pages;
+
+        static DefaultBook of(Book book) {
+            DefaultBook copy = new DefaultBook();
+            copy.id = book.getId();
+            copy.title = book.getTitle();
+            copy.hash = book.getHash();
+            copy.idauthor = book.getIdauthor();
+            copy.pages = new ArrayList<>();
+            for (Page page : book.getPages()) {
+                DefaultPage pageCopy = new DefaultPage();
+                pageCopy.id = page.getId();
+                pageCopy.bookId = page.getBookId();
+                pageCopy.pageNumber = page.getPageNumber();
+                pageCopy.content = page.getContent();
+                copy.pages.add(pageCopy);
+            }
+            return copy;
+        }
+    }
+
+    static final class DefaultPage implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private int id;
+        private int bookId;
+        private int pageNumber;
+        private String content;
+    }
+}
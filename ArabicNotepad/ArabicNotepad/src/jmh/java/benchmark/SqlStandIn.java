@@ -0,0 +1,94 @@
+package benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Embedded H2 database in MySQL mode with the book/book_pages schema and the
+ * UpdatePageContent procedure, so MySQLBookDAO can be benchmarked without a
+ * server. Set benchmark.sql.url (plus .user/.password) to use a real MySQL
+ * instance; its schema is then used as-is.
+ */
+final class SqlStandIn implements AutoCloseable {
+
+    private static final String DEFAULT_URL = "jdbc:h2:mem:arabicnotepad;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Connection connection;
+    private final boolean embedded;
+
+    private SqlStandIn(String url, String user, String password, boolean embedded) throws SQLException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.connection = DriverManager.getConnection(url, user, password);
+        this.embedded = embedded;
+    }
+
+    static SqlStandIn open() throws SQLException {
+        String url = System.getProperty("benchmark.sql.url");
+        if (url == null || url.isBlank()) {
+            SqlStandIn standIn = new SqlStandIn(DEFAULT_URL, "sa", "", true);
+            standIn.createSchema();
+            return standIn;
+        }
+        return new SqlStandIn(url, System.getProperty("benchmark.sql.user"), System.getProperty("benchmark.sql.password"), false);
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    /** A further connection to the same database, for a MySQLBookDAO pool. */
+    Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    void reset() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM book_pages");
+            statement.executeUpdate("DELETE FROM book");
+        }
+    }
+
+    private void createSchema() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS book ("
+                    + "idbook INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "title VARCHAR(255) NOT NULL, "
+                    + "hash VARCHAR(64), "
+                    + "idauthor VARCHAR(255))");
+            statement.execute("CREATE TABLE IF NOT EXISTS book_pages ("
+                    + "idpage INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "idbook INT NOT NULL, "
+                    + "page_number INT NOT NULL, "
+                    + "content LONGTEXT)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_book_title ON book(title)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_book_hash ON book(hash)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_pages_book ON book_pages(idbook)");
+            statement.execute("CREATE ALIAS IF NOT EXISTS UpdatePageContent FOR \"benchmark.SqlStandIn.updatePageContent\"");
+        }
+    }
+
+    public static void updatePageContent(Connection connection, int pageId, String content) throws SQLException {
+        try (var statement = connection.prepareStatement("UPDATE book_pages SET content = ? WHERE idpage = ?")) {
+            statement.setString(1, content);
+            statement.setInt(2, pageId);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (embedded) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+            }
+        }
+        connection.close();
+    }
+}
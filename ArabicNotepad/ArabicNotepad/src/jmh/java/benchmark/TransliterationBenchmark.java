@@ -0,0 +1,48 @@
+package benchmark;
+
+import dto.Book;
+import org.openjdk.jmh.annotations.*;
+import util.TransliterationUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransliterationBenchmark {
+
+    @Param({Corpora.SYNTHETIC, Corpora.REAL})
+    public String corpus;
+
+    @Param({"1000", "10000", "100000"})
+    public int words;
+
+    private Book book;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        book = Corpora.book(corpus, words);
+        text = Corpora.text(corpus, words);
+    }
+
+    @Benchmark
+    public String table() {
+        return TransliterationUtil.getInstance().translateToRomanEnglish(text);
+    }
+
+    @Benchmark
+    public String icu() {
+        return TransliterationUtil.getInstance().translateToRomanEnglishWithIcu(text);
+    }
+
+    @Benchmark
+    public void streamBook() throws IOException {
+        TransliterationUtil.getInstance().transliterateBook(book, Writer.nullWriter());
+    }
+}
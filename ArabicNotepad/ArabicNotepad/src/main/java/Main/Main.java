@@ -8,6 +8,7 @@ import config.ConfigurationManagerRemote;
 import java.net.MalformedURLException;
 import ui.ArabicNotepadUI;
 import ui.RemoteArabicNotepadUI;
+import util.WordAnalyzer;
 
 import javax.swing.*;
 import java.rmi.Naming;
@@ -47,6 +48,7 @@ public class Main {
     }
 
     private static void startLocalClient(Environment env) {
+        WordAnalyzer.getInstance().warmUp();
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
             logger.info("Set Look and Feel to system default.");
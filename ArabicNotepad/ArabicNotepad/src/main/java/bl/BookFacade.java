@@ -1,22 +1,36 @@
 package bl;
 
 import dto.Book;
+import dto.BookSummary;
 import java.util.List;
+import java.util.Map;
 import dto.Page;
+import dto.PagePatch;
+import dto.PagePatchResult;
 
 public interface BookFacade {
     List<Book> getBookList(String filepath);
+    List<BookSummary> getBookSummaries();
     Book getBookByName(String value);
     void insertBook(Book book);
-    void updateBook(Book book);
+    boolean updateBook(Book book);
     void deleteBook(String value);
     void importBook(String path);
+    void importBook(String path, JobProgress progress);
+    BookUpload openUpload(String title);
     boolean exportBook(String title);
     boolean exportBook(Book book);
     String transliterate(String arabictext);
+    boolean exportTransliteratedBook(String title);
     List<String> searchBooksByContent(String searchText);
     void addPageByBookTitle(String title, Page page);   
+    PagePatchResult applyPagePatch(PagePatch patch);
     String performAnalysis(Book book, String analysisMethod);
+    String performCorpusAnalysis(String analysisMethod);
+    String performCorpusAnalysis(String analysisMethod, JobProgress progress);
     String analyzeWord(String selectedWord);   
+    Map<String, String> analyzeWords(List<String> words);
     boolean isDatabaseConnected();
+    void addConnectionListener(DatabaseHealthMonitor.Listener listener);
+    void shutdown();
 }
@@ -2,9 +2,13 @@ package bl;
 
 import dao.BookDAO;
 import dto.Book;
+import dto.BookSummary;
 
 import java.util.List;
+import java.util.Map;
 import dto.Page;
+import dto.PagePatch;
+import dto.PagePatchResult;
 
 public class BookFacadeImpl implements BookFacade {
 
@@ -19,6 +23,16 @@ public class BookFacadeImpl implements BookFacade {
         bookService.importBook(path);
     }
 
+    @Override
+    public void importBook(String path, JobProgress progress) {
+        bookService.importBook(path, progress);
+    }
+
+    @Override
+    public BookUpload openUpload(String title) {
+        return bookService.openUpload(title);
+    }
+
     @Override
     public void insertBook(Book book) {
         bookService.insertEmptyBookIntoDB(book);
@@ -29,19 +43,29 @@ public class BookFacadeImpl implements BookFacade {
         return bookService.getBookListFromDB();
     }
 
+    @Override
+    public List<BookSummary> getBookSummaries() {
+        return bookService.getBookSummaries();
+    }
+
     @Override
     public Book getBookByName(String value) {
         return bookService.getBookByName(value);
     }
 
     @Override
-    public void updateBook(Book book) {
+    public boolean updateBook(Book book) {
         if (bookService.isDatabaseConnected()) {
-            bookService.updateBook(book);
-        } else {
-            bookService.exportBook(book);
+            if (bookService.updateBook(book)) {
+                return true;
+            }
+            // The cached state can be up to db.health.probe.ms old; only fall
+            // back to a local export if the database really went away.
+            if (bookService.recheckDatabaseConnection()) {
+                return false;
+            }
         }
-
+        return bookService.exportBook(book);
     }
 
     @Override
@@ -69,17 +93,32 @@ public class BookFacadeImpl implements BookFacade {
     public String transliterate(String arabictext) {
         return bookService.translateToRomanEnglish(arabictext);
     }
+
+    @Override
+    public boolean exportTransliteratedBook(String title) {
+        return bookService.exportTransliteratedBook(title);
+    }
     
     @Override
     public String analyzeWord(String selectedWord) {
         return bookService.analyzeWord(selectedWord);
     }
 
+    @Override
+    public Map<String, String> analyzeWords(List<String> words) {
+        return bookService.analyzeWords(words);
+    }
+
     @Override
     public List<String> searchBooksByContent(String searchText) {
         return bookService.searchBooksByContent(searchText);
     }
 
+    @Override
+    public PagePatchResult applyPagePatch(PagePatch patch) {
+        return bookService.applyPagePatch(patch);
+    }
+
     @Override
     public void addPageByBookTitle(String title, Page page) {
         Book book = bookService.getBookByName(title);
@@ -95,9 +134,29 @@ public class BookFacadeImpl implements BookFacade {
         return bookService.performAnalysis(book, analysisMethod);
     }
 
+    @Override
+    public String performCorpusAnalysis(String analysisMethod) {
+        return bookService.performCorpusAnalysis(analysisMethod);
+    }
+
+    @Override
+    public String performCorpusAnalysis(String analysisMethod, JobProgress progress) {
+        return bookService.performCorpusAnalysis(analysisMethod, progress);
+    }
+
     @Override
     public boolean isDatabaseConnected() {
         return bookService.isDatabaseConnected();
     }
 
+    @Override
+    public void addConnectionListener(DatabaseHealthMonitor.Listener listener) {
+        bookService.addConnectionListener(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        bookService.shutdown();
+    }
+
 }
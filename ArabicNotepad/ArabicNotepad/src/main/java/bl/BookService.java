@@ -1,44 +1,78 @@
 package bl;
 
 import config.ConfigurationManager;
+import config.DBConfig;
 import config.Environment;
 import config.UserConfig;
 import dao.BookDAO;
 import dao.LocalStorageBookDAO;
 import dto.Book;
+import dto.BookSummary;
 import dto.Page;
+import dto.PagePatch;
+import dto.PagePatchResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import util.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 public class BookService {
 
     private static final int BATCH_SIZE = 50;
+    private static final long APPROXIMATE_PAIR_THRESHOLD = Long.getLong("analysis.approximate.threshold", 2_000_000L);
+    private static final int SEARCH_CACHE_ENTRIES = Integer.getInteger("search.cache.entries", 128);
     private static final Logger logger = LoggerFactory.getLogger(BookService.class);
 
     private final BookDAO bookDAO;
-    private final LocalStorageBookDAO localStorageBookDAO;
+    private final BookDAO localStorageBookDAO;
+    private final DatabaseHealthMonitor healthMonitor;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
     private final ConfigurationManager configManager;
     private UserConfig userConfig;
     private final String userId;
     private Environment currentEnvironment;
 
-    private QualityPhrasesMiner qualityPhrasesMiner;
-    private PMIAnalyzer pmiAnalyzer;
-    private PKLAnalyzer pklAnalyzer;
-    private TFIDFAnalyzer tfidfAnalyzer;
-    private WordAnalyzer wordAnalyzer;
-    private TransliterationUtil transliterationUtil;
+    private volatile QualityPhrasesMiner qualityPhrasesMiner;
+    private volatile PMIAnalyzer pmiAnalyzer;
+    private volatile PKLAnalyzer pklAnalyzer;
+    private volatile TFIDFAnalyzer tfidfAnalyzer;
+    private volatile WordAnalyzer wordAnalyzer;
+    private volatile TransliterationUtil transliterationUtil;
+
+    // Edit version and a hash of the stored content per page id, kept in
+    // memory only. Versions start at an epoch taken from the clock when the
+    // service starts, so after a restart every version a client still holds
+    // is older than any current one and its patch is answered with a
+    // conflict instead of being applied to the wrong base.
+    private final long versionEpoch = System.currentTimeMillis() * 1000;
+    private final Map<Integer, PageState> pageStates = new ConcurrentHashMap<>();
+    private final Object pageUpdateLock = new Object();
+
+    // Titles of uploads not yet committed. Their rows already exist, but they
+    // are left out of the catalog and searches until the upload completes.
+    private final Set<String> openUploads = ConcurrentHashMap.newKeySet();
+
+    // Content search results by query; emptied by every write. A search that
+    // overlaps a write is not cached, since it may have read either side of it.
+    private final LruCache<String, List<String>> searchCache = new LruCache<>(SEARCH_CACHE_ENTRIES);
+    private final AtomicLong searchGeneration = new AtomicLong();
 
     public BookService(BookDAO bookDAO) {
         this.bookDAO = bookDAO;
-        this.localStorageBookDAO = new LocalStorageBookDAO();
+        this.localStorageBookDAO = metrics.instrument(BookDAO.class, new LocalStorageBookDAO(), "dao.local");
         this.configManager = ConfigurationManager.getInstance();
         try {
             this.currentEnvironment = configManager.getCurrentEnvironment();
@@ -51,6 +85,8 @@ public class BookService {
             java.util.logging.Logger.getLogger(BookService.class.getName()).log(Level.SEVERE, null, ex);
         }
         this.userId = userConfig.getUserId();
+        this.healthMonitor = new DatabaseHealthMonitor(bookDAO, this::getDbConfig);
+        this.healthMonitor.start();
 
         logger.info("Initializing BookService in {} environment.", currentEnvironment);
     }
@@ -99,7 +135,9 @@ public class BookService {
 
 
     private void addBookWithLogging(Book book) {
-        if (bookDAO.addBook(book, true)) {
+        boolean added = bookDAO.addBook(book, true);
+        invalidateSearches();
+        if (added) {
             logger.info("Successfully added book to DB: {}", book.getTitle());
         } else {
             logger.warn("Failed to add book to DB: {}", book.getTitle());
@@ -124,6 +162,25 @@ public class BookService {
     }
 
     public void importBook(String path) {
+        importBook(path, JobProgress.NONE);
+    }
+
+    /**
+     * Imports a file or every book in a folder, reporting one unit of progress
+     * per book and the titles imported so far as the partial result. On
+     * cancellation the import stops after the current batch; books already
+     * added stay in the database.
+     */
+    public void importBook(String path, JobProgress progress) {
+        long start = System.nanoTime();
+        try {
+            importPath(path, progress);
+        } finally {
+            metrics.recordSince("service.importBook", start);
+        }
+    }
+
+    private void importPath(String path, JobProgress progress) {
         File file = new File(path);
 
         if (file.isDirectory()) {
@@ -132,11 +189,15 @@ public class BookService {
                 logger.warn("No books found in local storage for the directory: {}", path);
                 return;
             }
-            importBooksInBatches(books);
+            importBooksInBatches(books, progress);
         } else if (file.isFile()) {
             Book book = localStorageBookDAO.getBookByName(file.getAbsolutePath());
             if (book != null) {
-                processSingleBook(book);
+                progress.update(0, 1, "Importing '" + book.getTitle() + "'");
+                if (processSingleBook(book)) {
+                    progress.partialResult(book.getTitle());
+                }
+                progress.update(1, 1, "Imported '" + book.getTitle() + "'");
             } else {
                 logger.warn("No book found in local storage with name: {}", file.getName());
             }
@@ -146,8 +207,10 @@ public class BookService {
     }
 
     
-    private void importBooksInBatches(List<Book> books) {
+    private void importBooksInBatches(List<Book> books, JobProgress progress) {
         List<Book> batch = new ArrayList<>();
+        StringBuilder imported = new StringBuilder();
+        int done = 0;
 
         for (Book book : books) {
             try {
@@ -155,7 +218,12 @@ public class BookService {
                 batch.add(book);
 
                 if (batch.size() == BATCH_SIZE) {
-                    processBatch(batch);
+                    if (progress.isCancelled()) {
+                        logger.info("Import cancelled after {} of {} books.", done, books.size());
+                        return;
+                    }
+                    done += processBatch(batch, imported, progress);
+                    progress.update(done, books.size(), "Imported " + done + " of " + books.size() + " books");
                     batch.clear();
                 }
             } catch (Exception e) {
@@ -163,36 +231,68 @@ public class BookService {
             }
         }
 
-        if (!batch.isEmpty()) {
-            processBatch(batch);
+        if (!batch.isEmpty() && !progress.isCancelled()) {
+            done += processBatch(batch, imported, progress);
+            progress.update(done, books.size(), "Imported " + done + " of " + books.size() + " books");
         }
     }
 
     
-    private void processBatch(List<Book> batch) {
+    private int processBatch(List<Book> batch, StringBuilder imported, JobProgress progress) {
         logger.info("Processing batch of size: {}", batch.size());
+        int added = 0;
 
         for (Book book : batch) {
             if (!bookDAO.isHashExists(book.getHash())) {
                 addBookWithLogging(book);
+                imported.append(book.getTitle()).append('\n');
+                added++;
+                metrics.counter("service.importBook.added").increment();
             } else {
                 logger.info("Book already exists in DB, skipping: {}", book.getTitle());
             }
         }
+        if (added > 0) {
+            progress.partialResult(imported.toString());
+        }
+        return batch.size();
     }
 
     
-    private void processSingleBook(Book book) {
+    private boolean processSingleBook(Book book) {
         try {
             setAuthorIdIfNecessary(book);
             if (!bookDAO.isHashExists(book.getHash())) {
                 addBookWithLogging(book);
-            } else {
-                logger.info("Book already exists in DB, skipping: {}", book.getTitle());
+                return true;
             }
+            logger.info("Book already exists in DB, skipping: {}", book.getTitle());
         } catch (Exception e) {
             logger.error("Failed to import book: {}", book.getTitle(), e);
         }
+        return false;
+    }
+
+    /**
+     * Starts a chunked upload of a book under the given title. Books without
+     * an author line are attributed to the current user.
+     */
+    public BookUpload openUpload(String title) {
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("An uploaded book needs a title");
+        }
+        if (!bookDAO.supportsPageIds()) {
+            logger.warn("Refusing upload of '{}': the book store cannot add pages to a stored book.", title);
+            throw new IllegalStateException("Uploads need the database; the book store cannot add pages by id");
+        }
+        if (bookDAO.getBookByName(title) != null) {
+            throw new IllegalArgumentException("A book titled '" + title + "' already exists");
+        }
+        if (!openUploads.add(title)) {
+            throw new IllegalStateException("'" + title + "' is already being uploaded");
+        }
+        logger.info("Opening upload for book '{}'.", title);
+        return new BookUpload(bookDAO, title, userId, this::invalidateSearches, () -> openUploads.remove(title));
     }
 
     
@@ -212,6 +312,7 @@ public class BookService {
     
     public List<Book> getBookListFromDB() {
         List<Book> books = bookDAO.getAllBooks(null);
+        books.removeIf(book -> openUploads.contains(book.getTitle()));
         if (books.isEmpty()) {
             logger.info("No books found in the database.");
         } else {
@@ -220,13 +321,34 @@ public class BookService {
         return books;
     }
 
+    public List<BookSummary> getBookSummaries() {
+        List<Book> books = bookDAO.getAllBooks(null);
+        List<BookSummary> summaries = new ArrayList<>(books.size());
+        for (Book book : books) {
+            if (!openUploads.contains(book.getTitle())) {
+                summaries.add(BookSummary.of(book));
+            }
+        }
+        logger.info("Retrieved {} book summaries from the database.", summaries.size());
+        return summaries;
+    }
+
     
     public Book getBookByName(String title) {
+        if (openUploads.contains(title)) {
+            logger.info("Book '{}' is still being uploaded.", title);
+            return null;
+        }
         Book book = bookDAO.getBookByName(title);
         if (book == null) {
             logger.warn("No book found with title: {}", title);
         } else {
             logger.info("Retrieved book from DB: {}", book.getTitle());
+            if (book.getPages() != null) {
+                for (Page page : book.getPages()) {
+                    page.setVersion(versionOf(page.getId()));
+                }
+            }
         }
         return book;
     }
@@ -245,6 +367,7 @@ public class BookService {
             return deleted;
         } else {
             boolean deleted = bookDAO.deleteBook(value);
+            invalidateSearches();
             if (deleted) {
                 logger.info("Deleted book from DB: {}", value);
             } else {
@@ -283,8 +406,42 @@ public class BookService {
     }
 
     
+    /**
+     * Saves every page of the book. Pages with ids must carry the version
+     * they were read at; if any of them has been changed since, nothing is
+     * saved and false is returned, so the caller can reload and merge.
+     */
     public boolean updateBook(Book book) {
-        boolean updated = bookDAO.updateBook(book);
+        boolean updated;
+        synchronized (pageUpdateLock) {
+            List<Page> pages = book.getPages() == null ? List.of() : book.getPages();
+            if (bookDAO.supportsPageIds()) {
+                for (Page page : pages) {
+                    if (page.getId() > 0 && page.getVersion() != versionOf(page.getId())) {
+                        logger.info("Version conflict saving book '{}': page {} is at version {}, not {}.",
+                                book.getTitle(), page.getId(), versionOf(page.getId()), page.getVersion());
+                        return false;
+                    }
+                }
+            }
+            updated = bookDAO.updateBook(book);
+            invalidateSearches();
+            if (updated) {
+                // Only pages whose text changed get a new version, so clients
+                // editing other pages of the book do not see false conflicts.
+                for (Page page : pages) {
+                    if (page.getId() <= 0) {
+                        continue;
+                    }
+                    long hash = contentHash(page.getContent());
+                    PageState state = pageStates.get(page.getId());
+                    if (state == null || state.contentHash() != hash) {
+                        pageStates.put(page.getId(), new PageState(versionOf(page.getId()) + 1, hash));
+                    }
+                    page.setVersion(versionOf(page.getId()));
+                }
+            }
+        }
         if (updated) {
             logger.info("Book '{}' was updated successfully.", book.getTitle());
         } else {
@@ -293,15 +450,86 @@ public class BookService {
         return updated;
     }
 
+    /**
+     * Applies a patch to the stored page if it was made against the current
+     * version; otherwise returns the current content so the client can rebase.
+     */
+    public PagePatchResult applyPagePatch(PagePatch patch) {
+        if (!bookDAO.supportsPageIds()) {
+            logger.warn("Cannot apply {}: the book store has no page ids, so whole books must be saved.", patch);
+            return PagePatchResult.rejected();
+        }
+        synchronized (pageUpdateLock) {
+            Page page = bookDAO.getPageById(patch.getPageId());
+            if (page == null || page.getBookId() != patch.getBookId()) {
+                logger.warn("Cannot apply {}: page not found.", patch);
+                return PagePatchResult.rejected();
+            }
+
+            long version = versionOf(page.getId());
+            if (patch.getBaseVersion() != version) {
+                logger.info("Version conflict for {}: page is at version {}.", patch, version);
+                return PagePatchResult.conflict(version, page.getContent());
+            }
+
+            String content;
+            try {
+                content = patch.applyTo(page.getContent());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Cannot apply {}: {}", patch, e.getMessage());
+                return PagePatchResult.conflict(version, page.getContent());
+            }
+
+            if (!bookDAO.updatePageContent(page.getId(), content)) {
+                logger.error("Failed to store patched content of page {}.", page.getId());
+                return PagePatchResult.rejected();
+            }
+            invalidateSearches();
+            long newVersion = version + 1;
+            pageStates.put(page.getId(), new PageState(newVersion, contentHash(content)));
+            logger.debug("Applied {}; page is now at version {}.", patch, newVersion);
+            return PagePatchResult.applied(newVersion);
+        }
+    }
+
+    private long versionOf(int pageId) {
+        PageState state = pageStates.get(pageId);
+        return state == null ? versionEpoch : state.version();
+    }
+
+    private static long contentHash(String content) {
+        return content == null ? 0 : CountMinSketch.hash(content);
+    }
+
+    private record PageState(long version, long contentHash) {
+    }
+
    
+    /** The cached state kept by the health monitor; cheap enough for every save. */
     public boolean isDatabaseConnected() {
-        boolean connected = bookDAO.isDatabaseConnected();
-        if (connected) {
-            logger.info("Database connection is active.");
-        } else {
-            logger.warn("Database connection is inactive.");
+        return healthMonitor.isConnected();
+    }
+
+    /** Probes the database now; used after a write failed while it looked connected. */
+    public boolean recheckDatabaseConnection() {
+        return healthMonitor.recheck();
+    }
+
+    public void addConnectionListener(DatabaseHealthMonitor.Listener listener) {
+        healthMonitor.addListener(listener);
+    }
+
+    /** Stops the background health probe; the service must not be used afterwards. */
+    public void shutdown() {
+        healthMonitor.stop();
+    }
+
+    private DBConfig getDbConfig() {
+        try {
+            return configManager.getDbConfig();
+        } catch (RemoteException e) {
+            throw new IllegalStateException("Could not load the database configuration", e);
         }
-        return connected;
     }
 
     
@@ -312,15 +540,75 @@ public class BookService {
     }
 
     
+    public boolean exportTransliteratedBook(String bookTitle) {
+        Book book = bookDAO.getBookByName(bookTitle);
+        if (book == null) {
+            logger.warn("No book found in SQL DB with title: {}", bookTitle);
+            return false;
+        }
+
+        String storagePath;
+        try {
+            storagePath = configManager.getLocalConfig().getStoragePath();
+        } catch (RemoteException ex) {
+            logger.error("Could not resolve storage path for transliterated export of '{}'.", bookTitle, ex);
+            return false;
+        }
+
+        File directory = new File(storagePath);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File target = new File(directory, book.getTitle() + ".latin.md");
+        try (Writer writer = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8)) {
+            getTransliterationUtil().transliterateBook(book, writer);
+        } catch (IOException e) {
+            logger.error("Failed to export transliterated book '{}'.", bookTitle, e);
+            return false;
+        }
+        logger.info("Exported transliterated book '{}' to {}", bookTitle, target.getAbsolutePath());
+        return true;
+    }
+
     public List<String> searchBooksByContent(String searchText) {
+        List<String> cached = searchCache.get(searchText);
+        if (cached != null) {
+            metrics.counter("service.search.cache.hits").increment();
+            logger.debug("Found {} cached results for the search text '{}'.", cached.size(), searchText);
+            return withoutOpenUploads(cached);
+        }
+        metrics.counter("service.search.cache.misses").increment();
+        long generation = searchGeneration.get();
         List<String> results = bookDAO.searchBooksByContent(searchText);
+        synchronized (searchCache) {
+            if (searchGeneration.get() == generation) {
+                searchCache.put(searchText, List.copyOf(results));
+            }
+        }
         logger.info("Found {} books matching the search text '{}'.", results.size(), searchText);
-        return results;
+        return withoutOpenUploads(results);
+    }
+
+    // Search results read "Title: <title>, Sentence: ..."; see MySQLBookDAO.searchBooksByContent.
+    private List<String> withoutOpenUploads(List<String> results) {
+        List<String> visible = new ArrayList<>(results);
+        for (String title : openUploads) {
+            visible.removeIf(result -> result.startsWith("Title: " + title + ", "));
+        }
+        return visible;
+    }
+
+    /** Drops cached search results; called after anything that may change stored text. */
+    void invalidateSearches() {
+        synchronized (searchCache) {
+            searchGeneration.incrementAndGet();
+            searchCache.clear();
+        }
     }
     
     public List<String> searchBooksByTitle(String searchText)
     {
-        List<String> results = bookDAO.searchBooksByContent(searchText);
+        List<String> results = withoutOpenUploads(bookDAO.searchBooksByContent(searchText));
         logger.info("Found {} books matchning the search text '{}.", results.size(), searchText);
         return results;
     }
@@ -329,6 +617,7 @@ public class BookService {
         Book book = getBookByName(title);
         if (book != null) {
             boolean added = bookDAO.addPage(book.getId(), page);
+            invalidateSearches();
             if (added) {
                 logger.info("Added page to book '{}'.", title);
             } else {
@@ -354,24 +643,68 @@ public class BookService {
     }
 
      public String performAnalysis(Book book, String analysisMethod) {
-        logger.info("Starting analysis '{}' for book '{}'.", analysisMethod, book.getTitle());
+        return performAnalysis(book, analysisMethod, TopKCollector.DEFAULT_K);
+    }
+
+    public String performAnalysis(Book book, String analysisMethod, int topK) {
+        logger.info("Starting analysis '{}' (top {}) for book '{}'.", analysisMethod, topK, book.getTitle());
+        long start = System.nanoTime();
         String result;
 
         switch (analysisMethod) {
-            case "Paper" -> result = getQualityPhrasesMiner().mineQualityPhrases(book);
-            case "PMI" -> result = getPmiAnalyzer().calculatePMI(book);
-            case "PKL" -> result = getPklAnalyzer().calculatePKL(book);
-            case "TF-IDF" -> result = getTfidfAnalyzer().calculateTFIDF(book);
+            case "Paper" -> result = getQualityPhrasesMiner().mineQualityPhrases(book, topK);
+            case "PMI" -> result = useApproximateCounting(book)
+                    ? getPmiAnalyzer().calculatePMIApproximate(book, topK, new ApproximatePairCounter())
+                    : getPmiAnalyzer().calculatePMI(book, topK);
+            case "PKL" -> result = useApproximateCounting(book)
+                    ? getPklAnalyzer().calculatePKLApproximate(book, topK, new ApproximatePairCounter())
+                    : getPklAnalyzer().calculatePKL(book, topK);
+            case "TF-IDF" -> result = getTfidfAnalyzer().calculateTFIDF(book, topK);
             default -> {
                 logger.error("Unknown analysis method: {}", analysisMethod);
                 throw new IllegalArgumentException("Unknown analysis method: " + analysisMethod);
             }
         }
+        metrics.recordSince("analysis." + analysisMethod, start);
         logger.info("Completed analysis '{}' for book '{}'.", analysisMethod, book.getTitle());
         return result;
     }
 
+    private boolean useApproximateCounting(Book book) {
+        long pairSpace = ApproximatePairCounter.estimatePairSpace(book);
+        if (pairSpace > APPROXIMATE_PAIR_THRESHOLD) {
+            logger.info("Book '{}' has up to {} word pairs; using approximate pair counting.", book.getTitle(), pairSpace);
+            return true;
+        }
+        return false;
+    }
+
+    public String performCorpusAnalysis(String analysisMethod) {
+        return performCorpusAnalysis(analysisMethod, TopKCollector.DEFAULT_K);
+    }
+
+    public String performCorpusAnalysis(String analysisMethod, JobProgress progress) {
+        return performCorpusAnalysis(analysisMethod, TopKCollector.DEFAULT_K, progress);
+    }
+
+    public String performCorpusAnalysis(String analysisMethod, int topK) {
+        return performCorpusAnalysis(analysisMethod, topK, JobProgress.NONE);
+    }
+
+    public String performCorpusAnalysis(String analysisMethod, int topK, JobProgress progress) {
+        logger.info("Starting library-wide analysis '{}' (top {}).", analysisMethod, topK);
+        long start = System.nanoTime();
+        String result = new CorpusAnalysisJob(bookDAO).run(analysisMethod, topK, progress);
+        metrics.recordSince("analysis.corpus." + analysisMethod, start);
+        logger.info("Completed library-wide analysis '{}'.", analysisMethod);
+        return result;
+    }
+
     String analyzeWord(String word) {
         return getWordAnalyzer().analyzeWord(word);
     }
+
+    public Map<String, String> analyzeWords(List<String> words) {
+        return getWordAnalyzer().analyzeWords(words);
+    }
 }
@@ -0,0 +1,150 @@
+package bl;
+
+import dao.BookDAO;
+import dao.StreamingBookParser;
+import dto.Book;
+import dto.BookSummary;
+import dto.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A book arriving in chunks. Pages are inserted as soon as they are complete,
+ * so neither side ever holds the whole book: the book row is created with the
+ * first page and gets its hash on {@link #commit()}. If the content turns out
+ * to duplicate an existing book, or the upload is aborted, what was inserted
+ * is deleted again by id, so another book with the same title is never
+ * touched. {@code onClosed} runs once the upload is committed or discarded;
+ * until then BookService keeps the book out of its catalog and searches.
+ * Not thread-safe; callers serialize access.
+ */
+public class BookUpload {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookUpload.class);
+
+    private final BookDAO bookDAO;
+    private final String title;
+    private final String defaultAuthor;
+    private final StreamingBookParser parser;
+    private final Runnable onStoredChange;
+    private final Runnable onClosed;
+    private Book book;
+    private boolean failed;
+    private boolean closed;
+
+    public BookUpload(BookDAO bookDAO, String title, String defaultAuthor, Runnable onStoredChange, Runnable onClosed) {
+        this.bookDAO = bookDAO;
+        this.title = title;
+        this.defaultAuthor = defaultAuthor;
+        this.onStoredChange = onStoredChange;
+        this.onClosed = onClosed;
+        this.parser = new StreamingBookParser(this::insertPage);
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public long getBytesReceived() {
+        return parser.getBytesRead();
+    }
+
+    public void append(byte[] chunk) {
+        checkOpen();
+        parser.append(chunk, 0, chunk.length);
+        if (failed) {
+            abort();
+            throw new IllegalStateException("Could not store uploaded book '" + title + "'");
+        }
+    }
+
+    /**
+     * Finishes the upload. Returns the stored book, or null if a book with the
+     * same content already exists, in which case nothing is kept.
+     */
+    public BookSummary commit() {
+        checkOpen();
+        String hash = parser.finish();
+        if (failed) {
+            abort();
+            throw new IllegalStateException("Could not store uploaded book '" + title + "'");
+        }
+        closed = true;
+        try {
+            return store(hash);
+        } finally {
+            onClosed.run();
+        }
+    }
+
+    private BookSummary store(String hash) {
+        if (book == null && !createBook()) {
+            throw new IllegalStateException("Could not store uploaded book '" + title + "'");
+        }
+        // The book row itself has no hash yet, so this only finds other books.
+        if (bookDAO.isHashExists(hash)) {
+            logger.info("Uploaded book '{}' duplicates an existing book; discarding it.", title);
+            bookDAO.deleteBookById(book.getId());
+            onStoredChange.run();
+            return null;
+        }
+        book.setHash(hash);
+        if (!bookDAO.updateBookHash(book.getId(), hash)) {
+            bookDAO.deleteBookById(book.getId());
+            onStoredChange.run();
+            throw new IllegalStateException("Could not store uploaded book '" + title + "'");
+        }
+        onStoredChange.run();
+        logger.info("Uploaded book '{}': {} pages, {} bytes.", title, parser.getPageCount(), parser.getBytesRead());
+        return BookSummary.of(book);
+    }
+
+    /** Discards the upload and anything already inserted for it. */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (book != null) {
+                bookDAO.deleteBookById(book.getId());
+                onStoredChange.run();
+                logger.info("Aborted upload of '{}' after {} bytes.", title, parser.getBytesRead());
+            }
+        } finally {
+            onClosed.run();
+        }
+    }
+
+    private void insertPage(Page page) {
+        if (failed) {
+            return;
+        }
+        if (book == null && !createBook()) {
+            return;
+        }
+        page.setBookId(book.getId());
+        if (!bookDAO.addPage(book.getId(), page)) {
+            failed = true;
+        }
+    }
+
+    private boolean createBook() {
+        String author = parser.getIdauthor();
+        book = new Book();
+        book.setTitle(title);
+        book.setIdauthor(author == null || author.isEmpty() ? defaultAuthor : author);
+        if (!bookDAO.addBook(book, false)) {
+            book = null;
+            failed = true;
+            return false;
+        }
+        return true;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Upload of '" + title + "' is already closed");
+        }
+    }
+}
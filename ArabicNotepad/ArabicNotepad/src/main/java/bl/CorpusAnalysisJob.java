@@ -0,0 +1,753 @@
+package bl;
+
+import dao.BookDAO;
+import dto.Book;
+import dto.Page;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.ArabicTokenizer;
+import util.Counter;
+import util.MetricsRegistry;
+import util.NGramKeys;
+import util.OffHeapCountTable;
+import util.OffHeapVocabulary;
+import util.PKLAnalyzer;
+import util.PMIAnalyzer;
+import util.QualityPhrasesMiner;
+import util.StringIntMap;
+import util.TopKCollector;
+
+/**
+ * Map-reduce PMI/PKL/phrase analysis over every book known to a BookDAO.
+ * <p>
+ * Books are streamed one at a time out of the DAO and counted by worker
+ * threads into per-thread shards. Word, pair and phrase counts are spilled to
+ * sorted run files whenever a shard exceeds its share of the memory budget,
+ * which is checked after every page and every row of a page's pairs. The
+ * reduce step k-way merges all runs and scores each merged count straight
+ * into a {@link TopKCollector}.
+ * <p>
+ * With off-heap storage each shard keeps its vocabulary and n-gram counts
+ * in an {@link OffHeapVocabulary} and an {@link OffHeapCountTable} keyed by
+ * packed token ids instead of heap maps, so large jobs leave the heap, and GC
+ * pauses for interactive requests, almost untouched. An off-heap shard over
+ * its budget spills its counts to the same sorted runs. If nothing spilled,
+ * the reduce step remaps shard ids onto one global off-heap vocabulary; if
+ * something did, or the global tables would not fit in the budget, it merges
+ * on disk like the heap path. -Dcorpus.storage picks heap, offheap, or auto
+ * (the default), which uses off-heap storage once the catalog holds
+ * corpus.offheap.min.books books.
+ */
+public class CorpusAnalysisJob {
+
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = Long.getLong("corpus.memory.budget.mb", 256L) * 1024 * 1024;
+    public static final String DEFAULT_STORAGE = System.getProperty("corpus.storage", "auto");
+    public static final int OFF_HEAP_MIN_BOOKS = Integer.getInteger("corpus.offheap.min.books", 500);
+
+    private static final Logger logger = LoggerFactory.getLogger(CorpusAnalysisJob.class);
+    private static final int QUEUE_CAPACITY = 16;
+    private static final Book END_OF_STREAM = new Book();
+    private static final Counter SPILLS = MetricsRegistry.getInstance().counter("corpus.spill.files");
+
+    private final BookDAO bookDAO;
+    private final int threads;
+    private final long memoryBudgetBytes;
+    private final Path spillDirectory;
+    private final Storage storage;
+
+    public CorpusAnalysisJob(BookDAO bookDAO) {
+        this(bookDAO, Runtime.getRuntime().availableProcessors(), DEFAULT_MEMORY_BUDGET_BYTES, null,
+                Storage.of(DEFAULT_STORAGE));
+    }
+
+    public CorpusAnalysisJob(BookDAO bookDAO, int threads, long memoryBudgetBytes, Path spillDirectory) {
+        this(bookDAO, threads, memoryBudgetBytes, spillDirectory, Storage.HEAP);
+    }
+
+    public CorpusAnalysisJob(BookDAO bookDAO, int threads, long memoryBudgetBytes, Path spillDirectory, boolean offHeap) {
+        this(bookDAO, threads, memoryBudgetBytes, spillDirectory, offHeap ? Storage.OFF_HEAP : Storage.HEAP);
+    }
+
+    private CorpusAnalysisJob(BookDAO bookDAO, int threads, long memoryBudgetBytes, Path spillDirectory, Storage storage) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.bookDAO = bookDAO;
+        this.threads = threads;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.spillDirectory = spillDirectory;
+        this.storage = storage;
+    }
+
+    public String run(String analysisMethod, int topK) {
+        return run(analysisMethod, topK, JobProgress.NONE);
+    }
+
+    /**
+     * As {@link #run(String, int)}, reporting one unit of progress per book
+     * counted. Cancellation is checked between books and ends the run with a
+     * {@link CancellationException}.
+     */
+    public String run(String analysisMethod, int topK, JobProgress progress) {
+        Metric metric = Metric.of(analysisMethod);
+        List<Book> catalog = bookDAO.getAllBooks(null);
+        boolean offHeap = storage == Storage.OFF_HEAP
+                || (storage == Storage.AUTO && catalog.size() >= OFF_HEAP_MIN_BOOKS);
+        Path spillDir = null;
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Shard> shards = new ArrayList<>();
+
+        try {
+            spillDir = spillDirectory != null ? Files.createDirectories(spillDirectory)
+                    : Files.createTempDirectory("corpus-analysis");
+            BlockingQueue<Book> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            long shardBudget = Math.max(1, memoryBudgetBytes / threads);
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Shard shard = offHeap ? new OffHeapShard(metric, shardBudget, spillDir) : new CorpusShard(metric, shardBudget, spillDir);
+                shards.add(shard);
+                futures.add(workers.submit(() -> {
+                    shard.consume(queue);
+                    return null;
+                }));
+            }
+
+            int books = produce(queue, catalog, futures, progress);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            logger.info("Counted {} books for corpus '{}' analysis across {} {} shards.", books, analysisMethod, threads,
+                    offHeap ? "off-heap" : "heap");
+            progress.update(books, books, "Merging counts from " + threads + " shards");
+
+            return offHeap ? reduceOffHeap(metric, shards, topK, spillDir) : reduce(metric, shards, topK);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Corpus analysis interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Corpus analysis failed", e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corpus analysis failed", e);
+        } finally {
+            workers.shutdownNow();
+            for (Shard shard : shards) {
+                shard.release();
+            }
+            if (spillDir != null && spillDirectory == null) {
+                try {
+                    Files.deleteIfExists(spillDir);
+                } catch (IOException e) {
+                    logger.warn("Could not delete spill directory {}", spillDir, e);
+                }
+            }
+        }
+    }
+
+    private int produce(BlockingQueue<Book> queue, List<Book> catalog, List<Future<?>> futures, JobProgress progress)
+            throws InterruptedException {
+        int count = 0;
+        try {
+            int seen = 0;
+            for (Book entry : catalog) {
+                if (progress.isCancelled()) {
+                    throw new CancellationException("Corpus analysis cancelled after " + count + " books");
+                }
+                progress.update(seen++, catalog.size(), "Counting '" + entry.getTitle() + "'");
+                Book book = entry.getPages() != null ? entry : bookDAO.getBookByName(entry.getTitle());
+                if (book == null || book.getPages() == null) {
+                    continue;
+                }
+                if (!handOff(queue, book, futures)) {
+                    break; // every worker has stopped; future.get() will surface why
+                }
+                count++;
+            }
+        } finally {
+            for (int i = 0; i < threads; i++) {
+                if (!handOff(queue, END_OF_STREAM, futures)) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean handOff(BlockingQueue<Book> queue, Book book, List<Future<?>> futures) throws InterruptedException {
+        while (!queue.offer(book, 100, TimeUnit.MILLISECONDS)) {
+            if (futures.stream().allMatch(Future::isDone)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String reduce(Metric metric, List<Shard> shards, int topK) throws IOException {
+        StringIntMap wordCounts = new StringIntMap();
+        long totalWords = 0;
+        List<CountRun> runs = new ArrayList<>();
+        for (Shard shard : shards) {
+            runs.addAll(shard.openRuns(wordCounts));
+            totalWords += shard.totalWords;
+        }
+
+        TopKCollector<String> top = new TopKCollector<>(topK);
+        if (metric == Metric.PHRASES) {
+            mergeRuns(runs, (phrase, frequency) -> {
+                if (frequency >= QualityPhrasesMiner.MIN_OCCURRENCES) {
+                    top.offer(phrase, frequency);
+                }
+            });
+            return QualityPhrasesMiner.getInstance().formatTopPhrases(top);
+        }
+
+        if (totalWords == 0) {
+            return "No valid words found in the library to calculate " + metric.label + ".";
+        }
+        long total = totalWords;
+        mergeRuns(runs, (pair, pairCount) -> {
+            int separator = pair.indexOf('|');
+            int countA = wordCounts.get(pair.substring(0, separator));
+            int countB = wordCounts.get(pair.substring(separator + 1));
+            if (countA > 0 && countB > 0) {
+                double score = metric == Metric.PMI
+                        ? PMIAnalyzer.score(pairCount, countA, countB, total)
+                        : PKLAnalyzer.score(pairCount, countA, countB, total);
+                top.offer(pair, score);
+            }
+        });
+        return metric == Metric.PMI
+                ? PMIAnalyzer.getInstance().formatTopPairs(top, topK)
+                : PKLAnalyzer.getInstance().formatTopPairs(top, topK);
+    }
+
+    /**
+     * Merges off-heap shards into one global off-heap vocabulary and count
+     * table while that fits in the memory budget. Once a shard has spilled, or
+     * the next merge could push the global tables past the budget, the counts
+     * still in memory go to run files instead and are merged on disk.
+     */
+    private String reduceOffHeap(Metric metric, List<Shard> shards, int topK, Path spillDir) throws IOException {
+        if (shards.stream().anyMatch(Shard::hasSpilled)) {
+            logger.info("Off-heap shards spilled during counting; merging corpus counts on disk.");
+            return reduce(metric, shards, topK);
+        }
+        OffHeapShard merged = new OffHeapShard(metric, memoryBudgetBytes, spillDir);
+        try {
+            List<Shard> pending = new ArrayList<>(shards);
+            while (!pending.isEmpty()) {
+                long pendingBytes = 0;
+                for (Shard shard : pending) {
+                    pendingBytes += shard.estimatedBytes();
+                }
+                // Merging a shard grows the global tables by at most that shard's own size.
+                OffHeapShard next = (OffHeapShard) pending.get(0);
+                if (merged.estimatedBytes() + pendingBytes + next.estimatedBytes() > memoryBudgetBytes) {
+                    logger.info("Global off-heap counts would exceed the {} byte budget; merging corpus counts on disk.",
+                            memoryBudgetBytes);
+                    pending.add(merged);
+                    return reduce(metric, pending, topK);
+                }
+                merged.mergeFrom(next);
+                next.release();
+                pending.remove(0);
+            }
+            logger.info("Merged corpus counts off-heap: {} terms, {} keys, {} bytes.", merged.vocabulary.size(),
+                    merged.counts.size(), merged.estimatedBytes());
+            return merged.score(topK);
+        } finally {
+            merged.release();
+        }
+    }
+
+    private static void mergeRuns(List<CountRun> runs, MergedCountConsumer consumer) throws IOException {
+        PriorityQueue<CountRun> heads = new PriorityQueue<>((a, b) -> a.key().compareTo(b.key()));
+        for (CountRun run : runs) {
+            if (run.advance()) {
+                heads.add(run);
+            } else {
+                run.close();
+            }
+        }
+
+        try {
+            while (!heads.isEmpty()) {
+                CountRun run = heads.poll();
+                String key = run.key();
+                long count = run.count();
+                advanceOrClose(run, heads);
+                while (!heads.isEmpty() && heads.peek().key().equals(key)) {
+                    CountRun same = heads.poll();
+                    count += same.count();
+                    advanceOrClose(same, heads);
+                }
+                consumer.accept(key, count);
+            }
+        } finally {
+            for (CountRun run : heads) {
+                run.close();
+            }
+        }
+    }
+
+    private static void advanceOrClose(CountRun run, PriorityQueue<CountRun> heads) throws IOException {
+        if (run.advance()) {
+            heads.add(run);
+        } else {
+            run.close();
+        }
+    }
+
+    private enum Metric {
+        PMI("PMI"), PKL("PKL"), PHRASES("quality phrases");
+
+        final String label;
+
+        Metric(String label) {
+            this.label = label;
+        }
+
+        static Metric of(String analysisMethod) {
+            return switch (analysisMethod) {
+                case "Paper" -> PHRASES;
+                case "PMI" -> PMI;
+                case "PKL" -> PKL;
+                default -> throw new IllegalArgumentException("Corpus analysis not supported for: " + analysisMethod);
+            };
+        }
+    }
+
+    @FunctionalInterface
+    private interface MergedCountConsumer {
+        void accept(String key, long count);
+    }
+
+    private interface CountRun {
+        boolean advance() throws IOException;
+
+        String key();
+
+        int count();
+
+        void close() throws IOException;
+    }
+
+    private enum Storage {
+        HEAP, OFF_HEAP, AUTO;
+
+        static Storage of(String storage) {
+            return switch (storage.toLowerCase()) {
+                case "heap" -> HEAP;
+                case "offheap" -> OFF_HEAP;
+                case "auto" -> AUTO;
+                default -> throw new IllegalArgumentException("Unknown corpus.storage: " + storage);
+            };
+        }
+    }
+
+    /**
+     * One worker's counts. Whenever they outgrow the shard's budget they are
+     * written to sorted run files and counting starts afresh.
+     */
+    private abstract static class Shard {
+        final Metric metric;
+        final long budgetBytes;
+        private final Path spillDir;
+        private final List<Path> spillFiles = new ArrayList<>();
+        private final List<Path> wordSpillFiles = new ArrayList<>();
+        long totalWords;
+
+        Shard(Metric metric, long budgetBytes, Path spillDir) {
+            this.metric = metric;
+            this.budgetBytes = budgetBytes;
+            this.spillDir = spillDir;
+        }
+
+        void consume(BlockingQueue<Book> queue) throws InterruptedException, IOException {
+            Book book;
+            while ((book = queue.take()) != END_OF_STREAM) {
+                for (Page page : book.getPages()) {
+                    String content = page.getContent();
+                    if (content != null && !content.isEmpty()) {
+                        countPage(content);
+                        spillIfOverBudget();
+                    }
+                }
+            }
+        }
+
+        abstract void countPage(String content) throws IOException;
+
+        abstract long estimatedBytes();
+
+        /** Writes the counts held in memory to run files and empties them. */
+        abstract void spill() throws IOException;
+
+        final void spillIfOverBudget() throws IOException {
+            if (estimatedBytes() > budgetBytes) {
+                spill();
+            }
+        }
+
+        final boolean hasSpilled() {
+            return !spillFiles.isEmpty() || !wordSpillFiles.isEmpty();
+        }
+
+        final void writeRuns(StringIntMap counts, StringIntMap words) throws IOException {
+            if (!counts.isEmpty()) {
+                spillFiles.add(writeRun(counts, "run-"));
+            }
+            if (!words.isEmpty()) {
+                wordSpillFiles.add(writeRun(words, "words-"));
+            }
+        }
+
+        private Path writeRun(StringIntMap map, String prefix) throws IOException {
+            Path file = Files.createTempFile(spillDir, prefix, ".bin");
+            String[] sortedKeys = map.sortedKeys();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (String key : sortedKeys) {
+                    out.writeUTF(key);
+                    out.writeInt(map.get(key));
+                }
+            }
+            SPILLS.increment();
+            logger.debug("Spilled {} partial counts to {}", sortedKeys.length, file);
+            return file;
+        }
+
+        /**
+         * Adds all of this shard's word counts to wordCounts and opens its
+         * pair or phrase counts as sorted runs. Scoring looks words up at
+         * random, so the reduce step needs them all in memory again.
+         */
+        List<CountRun> openRuns(StringIntMap wordCounts) throws IOException {
+            for (Path file : wordSpillFiles) {
+                FileRun run = new FileRun(file);
+                try {
+                    while (run.advance()) {
+                        wordCounts.add(run.key(), run.count());
+                    }
+                } finally {
+                    run.close();
+                }
+            }
+            List<CountRun> runs = new ArrayList<>();
+            for (Path file : spillFiles) {
+                runs.add(new FileRun(file));
+            }
+            return runs;
+        }
+
+        void release() {
+            spillFiles.addAll(wordSpillFiles);
+            wordSpillFiles.clear();
+            for (Path file : spillFiles) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Could not delete spill file {}", file, e);
+                }
+            }
+            spillFiles.clear();
+        }
+    }
+
+    private static final class CorpusShard extends Shard {
+        private StringIntMap words = new StringIntMap();
+        private StringIntMap counts = new StringIntMap();
+
+        CorpusShard(Metric metric, long budgetBytes, Path spillDir) {
+            super(metric, budgetBytes, spillDir);
+        }
+
+        @Override
+        void countPage(String content) throws IOException {
+            if (metric == Metric.PHRASES) {
+                List<String> tokens = ArabicTokenizer.tokenizePhraseTokens(content);
+                QualityPhrasesMiner.forEachPhrase(tokens, phrase -> counts.add(phrase, 1));
+                return;
+            }
+
+            List<String> tokens = ArabicTokenizer.tokenizeWords(content);
+            for (String word : tokens) {
+                words.add(word, 1);
+            }
+            totalWords += tokens.size();
+            for (int i = 0; i < tokens.size(); i++) {
+                for (int j = i + 1; j < tokens.size(); j++) {
+                    counts.add(ArabicTokenizer.makePair(tokens.get(i), tokens.get(j)), 1);
+                }
+                // Pairs grow quadratically with the page, so one page alone can blow the budget.
+                spillIfOverBudget();
+            }
+        }
+
+        @Override
+        long estimatedBytes() {
+            return counts.estimatedBytes() + words.estimatedBytes();
+        }
+
+        @Override
+        void spill() throws IOException {
+            writeRuns(counts, words);
+            counts = new StringIntMap();
+            words = new StringIntMap();
+        }
+
+        @Override
+        List<CountRun> openRuns(StringIntMap wordCounts) throws IOException {
+            wordCounts.addAll(words);
+            List<CountRun> runs = super.openRuns(wordCounts);
+            if (!counts.isEmpty()) {
+                runs.add(new MemoryRun(counts));
+            }
+            return runs;
+        }
+    }
+
+    private static final class OffHeapShard extends Shard {
+        private OffHeapVocabulary vocabulary = new OffHeapVocabulary();
+        private OffHeapCountTable words = new OffHeapCountTable();
+        private OffHeapCountTable counts = new OffHeapCountTable();
+        private final int[] ids = new int[NGramKeys.MAX_LENGTH];
+
+        OffHeapShard(Metric metric, long budgetBytes, Path spillDir) {
+            super(metric, budgetBytes, spillDir);
+        }
+
+        @Override
+        void countPage(String content) throws IOException {
+            if (metric == Metric.PHRASES) {
+                int[] tokens = toIds(ArabicTokenizer.tokenizePhraseTokens(content));
+                for (int length = QualityPhrasesMiner.MIN_PHRASE_LENGTH; length <= QualityPhrasesMiner.MAX_PHRASE_LENGTH; length++) {
+                    for (int i = 0; i <= tokens.length - length; i++) {
+                        System.arraycopy(tokens, i, ids, 0, length);
+                        counts.add(NGramKeys.packHigh(ids, length), NGramKeys.packLow(ids, length), 1);
+                    }
+                }
+                return;
+            }
+
+            int[] tokens = toIds(ArabicTokenizer.tokenizeWords(content));
+            for (int id : tokens) {
+                words.add(0, id, 1);
+            }
+            totalWords += tokens.length;
+            for (int i = 0; i < tokens.length; i++) {
+                for (int j = i + 1; j < tokens.length; j++) {
+                    counts.add(0, NGramKeys.pair(tokens[i], tokens[j]), 1);
+                }
+                if (estimatedBytes() > budgetBytes) {
+                    // The rest of the page still refers to the current ids, so
+                    // carry its words over into the fresh vocabulary.
+                    String[] terms = new String[tokens.length];
+                    for (int t = 0; t < tokens.length; t++) {
+                        terms[t] = vocabulary.term(tokens[t]);
+                    }
+                    spill();
+                    tokens = toIds(List.of(terms));
+                }
+            }
+        }
+
+        private int[] toIds(List<String> tokens) {
+            int[] tokenIds = new int[tokens.size()];
+            for (int i = 0; i < tokenIds.length; i++) {
+                tokenIds[i] = NGramKeys.checkId(vocabulary.add(tokens.get(i)));
+            }
+            return tokenIds;
+        }
+
+        @Override
+        long estimatedBytes() {
+            return vocabulary.estimatedBytes() + words.estimatedBytes() + counts.estimatedBytes();
+        }
+
+        @Override
+        void spill() throws IOException {
+            StringIntMap wordRun = new StringIntMap();
+            words.forEach((high, low, count) -> wordRun.add(vocabulary.term((int) low), Math.toIntExact(count)));
+            StringIntMap countRun = new StringIntMap();
+            counts.forEach((high, low, count) -> countRun.add(keyOf(high, low), Math.toIntExact(count)));
+            writeRuns(countRun, wordRun);
+            closeTables();
+            vocabulary = new OffHeapVocabulary();
+            words = new OffHeapCountTable();
+            counts = new OffHeapCountTable();
+        }
+
+        @Override
+        List<CountRun> openRuns(StringIntMap wordCounts) throws IOException {
+            spill();
+            return super.openRuns(wordCounts);
+        }
+
+        /** Adds another shard's counts, remapping its token ids onto this vocabulary. */
+        void mergeFrom(OffHeapShard shard) {
+            int[] globalIds = new int[shard.vocabulary.size()];
+            for (int id = 0; id < globalIds.length; id++) {
+                globalIds[id] = NGramKeys.checkId(vocabulary.add(shard.vocabulary.term(id)));
+            }
+            shard.words.forEach((high, low, count) -> words.add(0, globalIds[(int) low], count));
+            shard.counts.forEach((high, low, count) -> {
+                if (metric == Metric.PHRASES) {
+                    int length = NGramKeys.unpack(high, low, ids);
+                    for (int i = 0; i < length; i++) {
+                        ids[i] = globalIds[ids[i]];
+                    }
+                    counts.add(NGramKeys.packHigh(ids, length), NGramKeys.packLow(ids, length), count);
+                } else {
+                    counts.add(0, NGramKeys.pair(globalIds[(int) (low >>> 32)], globalIds[(int) low]), count);
+                }
+            });
+            totalWords += shard.totalWords;
+        }
+
+        String score(int topK) {
+            TopKCollector<String> top = new TopKCollector<>(topK);
+            if (metric == Metric.PHRASES) {
+                counts.forEach((high, low, frequency) -> {
+                    if (frequency >= QualityPhrasesMiner.MIN_OCCURRENCES && top.wouldAccept(frequency)) {
+                        top.offer(keyOf(high, low), frequency);
+                    }
+                });
+                return QualityPhrasesMiner.getInstance().formatTopPhrases(top);
+            }
+
+            if (totalWords == 0) {
+                return "No valid words found in the library to calculate " + metric.label + ".";
+            }
+            long total = totalWords;
+            counts.forEach((high, low, pairCount) -> {
+                long countA = words.get(0, (int) (low >>> 32));
+                long countB = words.get(0, (int) low);
+                if (countA > 0 && countB > 0) {
+                    double score = metric == Metric.PMI
+                            ? PMIAnalyzer.score(pairCount, countA, countB, total)
+                            : PKLAnalyzer.score(pairCount, countA, countB, total);
+                    if (top.wouldAccept(score)) {
+                        top.offer(keyOf(high, low), score);
+                    }
+                }
+            });
+            return metric == Metric.PMI
+                    ? PMIAnalyzer.getInstance().formatTopPairs(top, topK)
+                    : PKLAnalyzer.getInstance().formatTopPairs(top, topK);
+        }
+
+        // The same key the heap shards count under: "a|b" for pairs, space-separated words for phrases.
+        private String keyOf(long high, long low) {
+            if (metric != Metric.PHRASES) {
+                return ArabicTokenizer.makePair(vocabulary.term((int) (low >>> 32)), vocabulary.term((int) low));
+            }
+            int length = NGramKeys.unpack(high, low, ids);
+            StringBuilder phrase = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    phrase.append(' ');
+                }
+                phrase.append(vocabulary.term(ids[i]));
+            }
+            return phrase.toString();
+        }
+
+        private void closeTables() {
+            vocabulary.close();
+            words.close();
+            counts.close();
+        }
+
+        @Override
+        void release() {
+            closeTables();
+            super.release();
+        }
+    }
+
+    private static final class MemoryRun implements CountRun {
+        private final StringIntMap counts;
+        private final String[] keys;
+        private int index = -1;
+
+        MemoryRun(StringIntMap counts) {
+            this.counts = counts;
+            this.keys = counts.sortedKeys();
+        }
+
+        @Override
+        public boolean advance() {
+            return ++index < keys.length;
+        }
+
+        @Override
+        public String key() {
+            return keys[index];
+        }
+
+        @Override
+        public int count() {
+            return counts.get(keys[index]);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class FileRun implements CountRun {
+        private final DataInputStream in;
+        private String key;
+        private int count;
+
+        FileRun(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+
+        @Override
+        public boolean advance() throws IOException {
+            try {
+                key = in.readUTF();
+                count = in.readInt();
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public String key() {
+            return key;
+        }
+
+        @Override
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
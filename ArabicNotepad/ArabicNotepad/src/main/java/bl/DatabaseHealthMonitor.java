@@ -0,0 +1,169 @@
+package bl;
+
+import config.DBConfig;
+import dao.BookDAO;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.MetricsRegistry;
+
+/**
+ * Keeps a cached view of whether the database is reachable, so callers can
+ * ask on every save without a round trip. A background thread probes every
+ * {@code db.health.probe.ms}; while the database is down it also tries to
+ * reconnect, backing off exponentially up to {@code db.health.backoff.max.ms}.
+ * Listeners hear about every transition, on the probe thread.
+ */
+public class DatabaseHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseHealthMonitor.class);
+
+    static final long PROBE_MILLIS = Long.getLong("db.health.probe.ms", 5_000L);
+    static final long MAX_BACKOFF_MILLIS = Long.getLong("db.health.backoff.max.ms", 60_000L);
+
+    public interface Listener {
+        void connectionChanged(boolean connected);
+    }
+
+    private final BookDAO bookDAO;
+    private final Supplier<DBConfig> dbConfig;
+    private final long probeMillis;
+    private final long maxBackoffMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private volatile boolean connected;
+    // Only touched by the probe thread, or under this before it starts.
+    private long backoffMillis;
+    private long nextReconnectAt;
+    private ScheduledExecutorService prober;
+
+    public DatabaseHealthMonitor(BookDAO bookDAO, Supplier<DBConfig> dbConfig) {
+        this(bookDAO, dbConfig, PROBE_MILLIS, MAX_BACKOFF_MILLIS);
+    }
+
+    public DatabaseHealthMonitor(BookDAO bookDAO, Supplier<DBConfig> dbConfig, long probeMillis, long maxBackoffMillis) {
+        this.bookDAO = bookDAO;
+        this.dbConfig = dbConfig;
+        this.probeMillis = Math.max(1, probeMillis);
+        this.maxBackoffMillis = Math.max(this.probeMillis, maxBackoffMillis);
+        this.backoffMillis = this.probeMillis;
+    }
+
+    /** Probes once so the cached state is meaningful, then keeps probing in the background. */
+    public synchronized void start() {
+        if (prober != null) {
+            return;
+        }
+        connected = bookDAO.isDatabaseConnected();
+        logger.info("Database is {} at startup.", connected ? "reachable" : "unreachable");
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probe, probeMillis, probeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (prober != null) {
+            prober.shutdownNow();
+            prober = null;
+        }
+    }
+
+    /**
+     * Probes now rather than at the next scheduled probe, for callers that
+     * just saw a database call fail, and returns the fresh state. The probe
+     * runs on the probe thread; if the monitor is stopped the cached state
+     * is returned as is.
+     */
+    public boolean recheck() {
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = prober;
+        }
+        if (current != null) {
+            try {
+                current.submit(this::probe).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | RejectedExecutionException e) {
+                logger.debug("Database recheck did not run", e);
+            }
+        }
+        return connected;
+    }
+
+    /** The state seen by the last probe; never touches the database. */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void probe() {
+        try {
+            boolean reachable = bookDAO.isDatabaseConnected();
+            if (!reachable && System.currentTimeMillis() >= nextReconnectAt) {
+                reachable = reconnect();
+            }
+            if (reachable) {
+                backoffMillis = probeMillis;
+                nextReconnectAt = 0;
+            }
+            setConnected(reachable);
+        } catch (RuntimeException e) {
+            logger.warn("Database health probe failed", e);
+            setConnected(false);
+        }
+    }
+
+    private boolean reconnect() {
+        metrics.counter("db.reconnect.attempts").increment();
+        try {
+            if (bookDAO.connect(dbConfig.get()) && bookDAO.isDatabaseConnected()) {
+                logger.info("Reconnected to the database.");
+                return true;
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Reconnect attempt failed", e);
+        }
+        nextReconnectAt = System.currentTimeMillis() + backoffMillis;
+        logger.warn("Could not reconnect to the database; next attempt in {} ms.", backoffMillis);
+        backoffMillis = Math.min(maxBackoffMillis, backoffMillis * 2);
+        return false;
+    }
+
+    private void setConnected(boolean reachable) {
+        if (connected == reachable) {
+            return;
+        }
+        connected = reachable;
+        metrics.counter(reachable ? "db.health.up" : "db.health.down").increment();
+        if (reachable) {
+            logger.info("Database connection restored.");
+        } else {
+            logger.warn("Database connection lost.");
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.connectionChanged(reachable);
+            } catch (RuntimeException e) {
+                logger.warn("Connection listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package bl;
+
+/**
+ * Handed to long-running operations so they can report how far they are and
+ * stop early when the caller cancels. Implementations must be thread-safe.
+ */
+public interface JobProgress {
+
+    JobProgress NONE = new JobProgress() {
+        @Override
+        public void update(int done, int total, String message) {
+        }
+
+        @Override
+        public void partialResult(String result) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /** Total may be 0 when it is not known yet. */
+    void update(int done, int total, String message);
+
+    /** Replaces what the job has produced so far. */
+    void partialResult(String result);
+
+    boolean isCancelled();
+}
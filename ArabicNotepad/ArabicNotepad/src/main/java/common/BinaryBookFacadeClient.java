@@ -0,0 +1,479 @@
+package common;
+
+import common.BinaryProtocol.Frame;
+import common.BinaryProtocol.Op;
+import dto.Book;
+import dto.BookSummary;
+import dto.JobStatus;
+import dto.Page;
+import dto.PagePatch;
+import dto.PagePatchResult;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ui.ArabicNotepadClient;
+
+/**
+ * {@link RemoteBookFacade} over the binary transport, a drop-in for the RMI
+ * stub. All threads share one connection: each call is written as soon as it
+ * is made and waits only for its own response, so concurrent calls are
+ * pipelined instead of queuing behind each other. A lost connection fails
+ * the calls in flight and is reopened by the next call; callbacks are then
+ * unknown to the server, which clients notice when renewing their lease.
+ * Callbacks are delivered one at a time, in order, off the reading thread.
+ */
+public class BinaryBookFacadeClient implements RemoteBookFacade, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryBookFacadeClient.class);
+
+    static final int CONNECT_TIMEOUT_MILLIS = Integer.getInteger("client.binary.connect.timeout.ms", 5_000);
+
+    private final String host;
+    private final int port;
+    private final AtomicInteger callbackIds = new AtomicInteger();
+    private final Map<ArabicNotepadClient, Integer> callbackIdsByClient = new ConcurrentHashMap<>();
+    private final Map<Integer, ArabicNotepadClient> clientsByCallbackId = new ConcurrentHashMap<>();
+    private final ExecutorService callbackDelivery = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "binary-callbacks");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guarded by this
+    private Connection connection;
+    private boolean closed;
+
+    /** Connects straight away, so a wrong host or port fails here rather than on the first call. */
+    public BinaryBookFacadeClient(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        connection();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (connection != null) {
+            connection.close(new RemoteException("Client closed"));
+            connection = null;
+        }
+        callbackDelivery.shutdown();
+    }
+
+    private synchronized Connection connection() throws IOException {
+        if (closed) {
+            throw new RemoteException("Client closed");
+        }
+        if (connection == null || connection.closed) {
+            connection = new Connection(host, port);
+        }
+        return connection;
+    }
+
+    private <T> T call(Op op, BinaryProtocol.Reader<T> result, Arguments arguments) throws RemoteException {
+        CompletableFuture<byte[]> response;
+        try {
+            response = connection().send(op, arguments);
+        } catch (RemoteException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RemoteException("Could not reach " + host + ":" + port, e);
+        }
+        byte[] body;
+        try {
+            body = response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while waiting for '" + op + "'.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RemoteException remote ? remote : new RemoteException("Call '" + op + "' failed.", cause);
+        }
+        try {
+            return result.read(new DataInputStream(new ByteArrayInputStream(body)));
+        } catch (IOException e) {
+            throw new RemoteException("Malformed response to '" + op + "'.", e);
+        }
+    }
+
+    private void run(Op op, Arguments arguments) throws RemoteException {
+        call(op, in -> null, arguments);
+    }
+
+    private int callbackId(ArabicNotepadClient client) {
+        if (client == null) {
+            return 0;
+        }
+        return callbackIdsByClient.computeIfAbsent(client, key -> {
+            int id = callbackIds.incrementAndGet();
+            clientsByCallbackId.put(id, key);
+            return id;
+        });
+    }
+
+    @Override
+    public List<Book> getBookList(String filepath) throws RemoteException {
+        return call(Op.GET_BOOK_LIST, in -> BinaryProtocol.readList(in, BinaryProtocol::readBook),
+                out -> BinaryProtocol.writeString(out, filepath));
+    }
+
+    @Override
+    public List<BookSummary> getBookSummaries() throws RemoteException {
+        return call(Op.GET_BOOK_SUMMARIES, in -> BinaryProtocol.readList(in, BinaryProtocol::readSummary), out -> {
+        });
+    }
+
+    @Override
+    public Book getBookByName(String value) throws RemoteException {
+        return call(Op.GET_BOOK_BY_NAME, BinaryProtocol::readBook, out -> BinaryProtocol.writeString(out, value));
+    }
+
+    @Override
+    public void insertBook(Book book) throws RemoteException {
+        run(Op.INSERT_BOOK, out -> BinaryProtocol.writeBook(out, book));
+    }
+
+    @Override
+    public Map<Integer, Long> updateBook(Book book) throws RemoteException {
+        return call(Op.UPDATE_BOOK, in -> {
+            List<Integer> pageIds = BinaryProtocol.readList(in, BinaryProtocol::readInt);
+            List<Long> versions = BinaryProtocol.readList(in, BinaryProtocol::readLong);
+            Map<Integer, Long> results = new LinkedHashMap<>();
+            for (int i = 0; i < pageIds.size(); i++) {
+                results.put(pageIds.get(i), versions.get(i));
+            }
+            return results;
+        }, out -> BinaryProtocol.writeBook(out, book));
+    }
+
+    @Override
+    public void deleteBook(String value) throws RemoteException {
+        run(Op.DELETE_BOOK, out -> BinaryProtocol.writeString(out, value));
+    }
+
+    @Override
+    public void importBook(String path) throws RemoteException {
+        run(Op.IMPORT_BOOK, out -> BinaryProtocol.writeString(out, path));
+    }
+
+    @Override
+    public long openUpload(String title) throws RemoteException {
+        return call(Op.OPEN_UPLOAD, BinaryProtocol::readLong, out -> BinaryProtocol.writeString(out, title));
+    }
+
+    @Override
+    public void uploadChunk(long uploadId, int sequence, byte[] chunk) throws RemoteException {
+        run(Op.UPLOAD_CHUNK, out -> {
+            BinaryProtocol.writeLong(out, uploadId);
+            BinaryProtocol.writeInt(out, sequence);
+            BinaryProtocol.writeBytes(out, chunk);
+        });
+    }
+
+    @Override
+    public BookSummary commitUpload(long uploadId) throws RemoteException {
+        return call(Op.COMMIT_UPLOAD, BinaryProtocol::readSummary, out -> BinaryProtocol.writeLong(out, uploadId));
+    }
+
+    @Override
+    public void abortUpload(long uploadId) throws RemoteException {
+        run(Op.ABORT_UPLOAD, out -> BinaryProtocol.writeLong(out, uploadId));
+    }
+
+    @Override
+    public boolean exportBook(String title) throws RemoteException {
+        return call(Op.EXPORT_BOOK_BY_TITLE, DataInput::readBoolean, out -> BinaryProtocol.writeString(out, title));
+    }
+
+    @Override
+    public boolean exportBook(Book book) throws RemoteException {
+        return call(Op.EXPORT_BOOK, DataInput::readBoolean, out -> BinaryProtocol.writeBook(out, book));
+    }
+
+    @Override
+    public String transliterate(String arabictext) throws RemoteException {
+        return call(Op.TRANSLITERATE, BinaryProtocol::readString, out -> BinaryProtocol.writeString(out, arabictext));
+    }
+
+    @Override
+    public boolean exportTransliteratedBook(String title) throws RemoteException {
+        return call(Op.EXPORT_TRANSLITERATED_BOOK, DataInput::readBoolean,
+                out -> BinaryProtocol.writeString(out, title));
+    }
+
+    @Override
+    public List<String> searchBooksByContent(String searchText) throws RemoteException {
+        return call(Op.SEARCH_BOOKS_BY_CONTENT, in -> BinaryProtocol.readList(in, BinaryProtocol::readString),
+                out -> BinaryProtocol.writeString(out, searchText));
+    }
+
+    @Override
+    public void addPageByBookTitle(String title, Page page) throws RemoteException {
+        run(Op.ADD_PAGE_BY_BOOK_TITLE, out -> {
+            BinaryProtocol.writeString(out, title);
+            BinaryProtocol.writePage(out, page);
+        });
+    }
+
+    @Override
+    public PagePatchResult applyPagePatch(PagePatch patch) throws RemoteException {
+        return call(Op.APPLY_PAGE_PATCH, BinaryProtocol::readPatchResult, out -> BinaryProtocol.writePatch(out, patch));
+    }
+
+    @Override
+    public String performAnalysis(Book book, String analysisMethod) throws RemoteException {
+        return call(Op.PERFORM_ANALYSIS, BinaryProtocol::readString, out -> {
+            BinaryProtocol.writeBook(out, book);
+            BinaryProtocol.writeString(out, analysisMethod);
+        });
+    }
+
+    @Override
+    public String performCorpusAnalysis(String analysisMethod) throws RemoteException {
+        return call(Op.PERFORM_CORPUS_ANALYSIS, BinaryProtocol::readString,
+                out -> BinaryProtocol.writeString(out, analysisMethod));
+    }
+
+    @Override
+    public String analyzeWord(String selectedWord) throws RemoteException {
+        return call(Op.ANALYZE_WORD, BinaryProtocol::readString, out -> BinaryProtocol.writeString(out, selectedWord));
+    }
+
+    @Override
+    public Map<String, String> analyzeWords(List<String> words) throws RemoteException {
+        return call(Op.ANALYZE_WORDS, in -> {
+            List<String> keys = BinaryProtocol.readList(in, BinaryProtocol::readString);
+            List<String> analyses = BinaryProtocol.readList(in, BinaryProtocol::readString);
+            Map<String, String> results = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                results.put(keys.get(i), analyses.get(i));
+            }
+            return results;
+        }, out -> BinaryProtocol.writeList(out, words, BinaryProtocol::writeString));
+    }
+
+    @Override
+    public long submitImport(String path, ArabicNotepadClient listener) throws RemoteException {
+        return call(Op.SUBMIT_IMPORT, BinaryProtocol::readLong, out -> {
+            BinaryProtocol.writeString(out, path);
+            BinaryProtocol.writeInt(out, callbackId(listener));
+        });
+    }
+
+    @Override
+    public long submitAnalysis(Book book, String analysisMethod, ArabicNotepadClient listener) throws RemoteException {
+        return call(Op.SUBMIT_ANALYSIS, BinaryProtocol::readLong, out -> {
+            BinaryProtocol.writeBook(out, book);
+            BinaryProtocol.writeString(out, analysisMethod);
+            BinaryProtocol.writeInt(out, callbackId(listener));
+        });
+    }
+
+    @Override
+    public long submitCorpusAnalysis(String analysisMethod, ArabicNotepadClient listener) throws RemoteException {
+        return call(Op.SUBMIT_CORPUS_ANALYSIS, BinaryProtocol::readLong, out -> {
+            BinaryProtocol.writeString(out, analysisMethod);
+            BinaryProtocol.writeInt(out, callbackId(listener));
+        });
+    }
+
+    @Override
+    public JobStatus getJobStatus(long jobId) throws RemoteException {
+        return call(Op.GET_JOB_STATUS, BinaryProtocol::readJobStatus, out -> BinaryProtocol.writeLong(out, jobId));
+    }
+
+    @Override
+    public boolean cancelJob(long jobId) throws RemoteException {
+        return call(Op.CANCEL_JOB, DataInput::readBoolean, out -> BinaryProtocol.writeLong(out, jobId));
+    }
+
+    @Override
+    public boolean isDatabaseConnected() throws RemoteException {
+        return call(Op.IS_DATABASE_CONNECTED, DataInput::readBoolean, out -> {
+        });
+    }
+
+    @Override
+    public void registerClient(ArabicNotepadClient client) throws RemoteException {
+        run(Op.REGISTER_CLIENT, out -> BinaryProtocol.writeInt(out, callbackId(client)));
+    }
+
+    @Override
+    public boolean renewLease(ArabicNotepadClient client) throws RemoteException {
+        return call(Op.RENEW_LEASE, DataInput::readBoolean, out -> BinaryProtocol.writeInt(out, callbackId(client)));
+    }
+
+    @Override
+    public void unregisterClient(ArabicNotepadClient client) throws RemoteException {
+        run(Op.UNREGISTER_CLIENT, out -> BinaryProtocol.writeInt(out, callbackId(client)));
+    }
+
+    @Override
+    public boolean ping() throws RemoteException {
+        return call(Op.PING, DataInput::readBoolean, out -> {
+        });
+    }
+
+    private void deliver(DataInputStream in) throws IOException {
+        ArabicNotepadClient client = clientsByCallbackId.get(BinaryProtocol.readInt(in));
+        byte kind = in.readByte();
+        Callback callback = switch (kind) {
+            case BinaryProtocol.PUSH_REGISTERED -> {
+                boolean result = in.readBoolean();
+                yield target -> target.onRegisterClient(result);
+            }
+            case BinaryProtocol.PUSH_BOOK_CHANGED -> {
+                var event = BinaryProtocol.readEvent(in);
+                yield target -> target.onBookChanged(event);
+            }
+            case BinaryProtocol.PUSH_JOB_UPDATE -> {
+                JobStatus status = BinaryProtocol.readJobStatus(in);
+                yield target -> target.onJobUpdate(status);
+            }
+            default -> throw new IOException("Unknown push kind " + kind);
+        };
+        if (client == null) {
+            return;
+        }
+        callbackDelivery.execute(() -> {
+            try {
+                callback.deliver(client);
+            } catch (RemoteException | RuntimeException e) {
+                logger.warn("Client callback failed", e);
+            }
+        });
+    }
+
+    private interface Arguments {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Callback {
+        void deliver(ArabicNotepadClient client) throws RemoteException;
+    }
+
+    private final class Connection {
+        final Socket socket;
+        final OutputStream out;
+        final ReentrantLock writeLock = new ReentrantLock();
+        final Map<Integer, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+        final AtomicInteger requestIds = new AtomicInteger();
+        volatile boolean closed;
+
+        Connection(String host, int port) throws IOException {
+            socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                out = new BufferedOutputStream(socket.getOutputStream());
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                new DataOutputStream(out).writeInt(BinaryProtocol.MAGIC);
+                out.flush();
+                if (in.readInt() != BinaryProtocol.MAGIC) {
+                    throw new IOException(host + ":" + port + " does not speak the binary book protocol");
+                }
+                Thread reader = new Thread(() -> read(in), "binary-reader");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            logger.info("Connected to binary book server at {}:{}", host, port);
+        }
+
+        CompletableFuture<byte[]> send(Op op, Arguments arguments) throws IOException {
+            int requestId = requestIds.incrementAndGet();
+            if (requestId == 0) {
+                requestId = requestIds.incrementAndGet(); // 0 marks pushes
+            }
+            Frame frame = BinaryProtocol.frame(requestId, (byte) op.ordinal());
+            arguments.write(frame.data);
+            byte[] bytes = frame.toFrame();
+
+            CompletableFuture<byte[]> response = new CompletableFuture<>();
+            pending.put(requestId, response);
+            writeLock.lock();
+            try {
+                if (closed) {
+                    throw new RemoteException("Connection to " + host + ":" + port + " is closed");
+                }
+                out.write(bytes);
+                out.flush();
+            } catch (IOException e) {
+                pending.remove(requestId);
+                close(new RemoteException("Connection to " + host + ":" + port + " lost", e));
+                throw e;
+            } finally {
+                writeLock.unlock();
+            }
+            return response;
+        }
+
+        private void read(DataInputStream in) {
+            RemoteException failure = new RemoteException("Connection to " + host + ":" + port + " closed by the server");
+            try {
+                byte[] frame;
+                while ((frame = BinaryProtocol.readFrame(in)) != null) {
+                    DataInputStream body = new DataInputStream(new ByteArrayInputStream(frame));
+                    int requestId = body.readInt();
+                    byte status = body.readByte();
+                    if (status == BinaryProtocol.STATUS_PUSH) {
+                        deliver(body);
+                        continue;
+                    }
+                    CompletableFuture<byte[]> response = pending.remove(requestId);
+                    if (response == null) {
+                        logger.warn("Response to unknown request {}", requestId);
+                    } else if (status == BinaryProtocol.STATUS_OK) {
+                        response.complete(body.readAllBytes());
+                    } else {
+                        response.completeExceptionally(new RemoteException(BinaryProtocol.readString(body)));
+                    }
+                }
+            } catch (IOException e) {
+                if (!closed) {
+                    failure = new RemoteException("Connection to " + host + ":" + port + " lost", e);
+                }
+            }
+            close(failure);
+        }
+
+        void close(RemoteException failure) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Error closing binary connection", e);
+            }
+            for (CompletableFuture<byte[]> response : pending.values()) {
+                response.completeExceptionally(failure);
+            }
+            pending.clear();
+            logger.info("Binary connection to {}:{} closed: {}", host, port, failure.getMessage());
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package common;
+
+import common.BinaryProtocol.Frame;
+import common.BinaryProtocol.Op;
+import dto.Book;
+import dto.BookChangeEvent;
+import dto.JobStatus;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ui.ArabicNotepadClient;
+import util.MetricsRegistry;
+
+/**
+ * Serves a {@link RemoteBookFacade} over {@link BinaryProtocol}. Each
+ * connection is read by its own virtual thread and each request runs on a
+ * virtual thread of its own, so a slow call does not hold up the requests
+ * pipelined behind it; at most {@code server.binary.inflight} requests per
+ * connection run at once, after which the connection is not read further.
+ * Callbacks a client registers live as long as its connection.
+ */
+public class BinaryBookServer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryBookServer.class);
+
+    static final int MAX_IN_FLIGHT = Integer.getInteger("server.binary.inflight", 64);
+
+    private final RemoteBookFacade facade;
+    private final ServerSocket serverSocket;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private volatile boolean closed;
+
+    /** Listens on the loopback interface only. */
+    public BinaryBookServer(RemoteBookFacade facade, int port) throws IOException {
+        this(facade, InetAddress.getLoopbackAddress(), port);
+    }
+
+    public BinaryBookServer(RemoteBookFacade facade, InetAddress address, int port) throws IOException {
+        this.facade = facade;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(address, port));
+    }
+
+    public void start() {
+        Thread.ofVirtual().name("binary-accept").start(this::acceptLoop);
+        logger.info("Binary transport listening on {}.", serverSocket.getLocalSocketAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing the server socket", e);
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread.ofVirtual().name("binary-conn-" + socket.getRemoteSocketAddress()).start(connection::serve);
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("Error accepting a binary connection", e);
+                }
+            }
+        }
+    }
+
+    private final class Connection {
+        final Socket socket;
+        final OutputStream out;
+        // Not synchronized: that would pin the virtual carrier thread while writing.
+        final ReentrantLock writeLock = new ReentrantLock();
+        final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        final Map<Integer, ConnectionClient> callbacks = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        void serve() {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+                if (in.readInt() != BinaryProtocol.MAGIC) {
+                    logger.warn("Rejected binary connection from {}: bad handshake", socket.getRemoteSocketAddress());
+                    return;
+                }
+                write(intBytes(BinaryProtocol.MAGIC));
+                logger.info("Binary client connected from {}.", socket.getRemoteSocketAddress());
+                byte[] request;
+                while ((request = BinaryProtocol.readFrame(in)) != null) {
+                    inFlight.acquire();
+                    byte[] frame = request;
+                    Thread.ofVirtual().start(() -> {
+                        try {
+                            handle(frame);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            } catch (SocketException e) {
+                logger.debug("Binary connection from {} closed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.warn("Dropping binary connection from {}", socket.getRemoteSocketAddress(), e);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        void handle(byte[] request) {
+            int requestId = 0;
+            Op op = null;
+            long start = System.nanoTime();
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+                requestId = in.readInt();
+                op = Op.of(in.readByte());
+                Frame response = BinaryProtocol.frame(requestId, BinaryProtocol.STATUS_OK);
+                dispatch(op, in, response.data);
+                write(response.toFrame());
+            } catch (IOException | RuntimeException e) {
+                fail(requestId, op, e);
+            } finally {
+                if (op != null) {
+                    metrics.recordSince("binary." + op.name().toLowerCase(), start);
+                }
+            }
+        }
+
+        private void fail(int requestId, Op op, Exception error) {
+            if (!(error instanceof RemoteException)) {
+                logger.warn("Binary call {} failed", op, error);
+            }
+            try {
+                Frame response = BinaryProtocol.frame(requestId, BinaryProtocol.STATUS_ERROR);
+                String message = error.getMessage();
+                BinaryProtocol.writeString(response.data, message != null ? message : error.getClass().getSimpleName());
+                write(response.toFrame());
+            } catch (IOException e) {
+                logger.debug("Could not report failure of {} to the client", op, e);
+            }
+        }
+
+        private void dispatch(Op op, DataInputStream in, DataOutputStream out) throws IOException {
+            switch (op) {
+                case GET_BOOK_LIST -> BinaryProtocol.writeList(out, facade.getBookList(BinaryProtocol.readString(in)),
+                        BinaryProtocol::writeBook);
+                case GET_BOOK_SUMMARIES -> BinaryProtocol.writeList(out, facade.getBookSummaries(),
+                        BinaryProtocol::writeSummary);
+                case GET_BOOK_BY_NAME -> BinaryProtocol.writeBook(out, facade.getBookByName(BinaryProtocol.readString(in)));
+                case INSERT_BOOK -> facade.insertBook(BinaryProtocol.readBook(in));
+                case UPDATE_BOOK -> {
+                    Map<Integer, Long> versions = facade.updateBook(BinaryProtocol.readBook(in));
+                    BinaryProtocol.writeList(out, new ArrayList<>(versions.keySet()), BinaryProtocol::writeInt);
+                    BinaryProtocol.writeList(out, new ArrayList<>(versions.values()), BinaryProtocol::writeLong);
+                }
+                case DELETE_BOOK -> facade.deleteBook(BinaryProtocol.readString(in));
+                case IMPORT_BOOK -> facade.importBook(BinaryProtocol.readString(in));
+                case OPEN_UPLOAD -> BinaryProtocol.writeLong(out, facade.openUpload(BinaryProtocol.readString(in)));
+                case UPLOAD_CHUNK -> facade.uploadChunk(BinaryProtocol.readLong(in), BinaryProtocol.readInt(in),
+                        BinaryProtocol.readBytes(in));
+                case COMMIT_UPLOAD -> BinaryProtocol.writeSummary(out, facade.commitUpload(BinaryProtocol.readLong(in)));
+                case ABORT_UPLOAD -> facade.abortUpload(BinaryProtocol.readLong(in));
+                case EXPORT_BOOK_BY_TITLE -> out.writeBoolean(facade.exportBook(BinaryProtocol.readString(in)));
+                case EXPORT_BOOK -> out.writeBoolean(facade.exportBook(BinaryProtocol.readBook(in)));
+                case TRANSLITERATE -> BinaryProtocol.writeString(out, facade.transliterate(BinaryProtocol.readString(in)));
+                case EXPORT_TRANSLITERATED_BOOK -> out.writeBoolean(facade.exportTransliteratedBook(BinaryProtocol.readString(in)));
+                case SEARCH_BOOKS_BY_CONTENT -> BinaryProtocol.writeList(out,
+                        facade.searchBooksByContent(BinaryProtocol.readString(in)), BinaryProtocol::writeString);
+                case ADD_PAGE_BY_BOOK_TITLE -> facade.addPageByBookTitle(BinaryProtocol.readString(in), BinaryProtocol.readPage(in));
+                case APPLY_PAGE_PATCH -> BinaryProtocol.writePatchResult(out, facade.applyPagePatch(BinaryProtocol.readPatch(in)));
+                case PERFORM_ANALYSIS -> {
+                    Book book = BinaryProtocol.readBook(in);
+                    BinaryProtocol.writeString(out, facade.performAnalysis(book, BinaryProtocol.readString(in)));
+                }
+                case PERFORM_CORPUS_ANALYSIS -> BinaryProtocol.writeString(out,
+                        facade.performCorpusAnalysis(BinaryProtocol.readString(in)));
+                case ANALYZE_WORD -> BinaryProtocol.writeString(out, facade.analyzeWord(BinaryProtocol.readString(in)));
+                case ANALYZE_WORDS -> {
+                    Map<String, String> analyses = facade.analyzeWords(BinaryProtocol.readList(in, BinaryProtocol::readString));
+                    BinaryProtocol.writeList(out, new ArrayList<>(analyses.keySet()), BinaryProtocol::writeString);
+                    BinaryProtocol.writeList(out, new ArrayList<>(analyses.values()), BinaryProtocol::writeString);
+                }
+                case SUBMIT_IMPORT -> {
+                    String path = BinaryProtocol.readString(in);
+                    BinaryProtocol.writeLong(out, facade.submitImport(path, callback(BinaryProtocol.readInt(in))));
+                }
+                case SUBMIT_ANALYSIS -> {
+                    Book book = BinaryProtocol.readBook(in);
+                    String method = BinaryProtocol.readString(in);
+                    BinaryProtocol.writeLong(out, facade.submitAnalysis(book, method, callback(BinaryProtocol.readInt(in))));
+                }
+                case SUBMIT_CORPUS_ANALYSIS -> {
+                    String method = BinaryProtocol.readString(in);
+                    BinaryProtocol.writeLong(out, facade.submitCorpusAnalysis(method, callback(BinaryProtocol.readInt(in))));
+                }
+                case GET_JOB_STATUS -> BinaryProtocol.writeJobStatus(out, facade.getJobStatus(BinaryProtocol.readLong(in)));
+                case CANCEL_JOB -> out.writeBoolean(facade.cancelJob(BinaryProtocol.readLong(in)));
+                case IS_DATABASE_CONNECTED -> out.writeBoolean(facade.isDatabaseConnected());
+                case REGISTER_CLIENT -> facade.registerClient(callback(BinaryProtocol.readInt(in)));
+                case RENEW_LEASE -> out.writeBoolean(facade.renewLease(callback(BinaryProtocol.readInt(in))));
+                case UNREGISTER_CLIENT -> {
+                    ConnectionClient client = callbacks.remove(BinaryProtocol.readInt(in));
+                    if (client != null) {
+                        facade.unregisterClient(client);
+                    }
+                }
+                case PING -> out.writeBoolean(facade.ping());
+            }
+        }
+
+        private ConnectionClient callback(int callbackId) {
+            return callbackId == 0 ? null : callbacks.computeIfAbsent(callbackId, id -> new ConnectionClient(this, id));
+        }
+
+        void write(byte[] frame) throws IOException {
+            writeLock.lock();
+            try {
+                out.write(frame);
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void close() {
+            if (!connections.remove(this)) {
+                return;
+            }
+            for (ConnectionClient client : callbacks.values()) {
+                try {
+                    facade.unregisterClient(client);
+                } catch (RemoteException | RuntimeException e) {
+                    logger.debug("Could not unregister a binary client", e);
+                }
+            }
+            callbacks.clear();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Error closing binary connection", e);
+            }
+        }
+    }
+
+    /** A client callback that is delivered as a push frame on the connection that registered it. */
+    private static final class ConnectionClient implements ArabicNotepadClient {
+        final Connection connection;
+        final int callbackId;
+
+        ConnectionClient(Connection connection, int callbackId) {
+            this.connection = connection;
+            this.callbackId = callbackId;
+        }
+
+        @Override
+        public void onRegisterClient(boolean result) throws RemoteException {
+            push(BinaryProtocol.PUSH_REGISTERED, out -> out.writeBoolean(result));
+        }
+
+        @Override
+        public void onBookChanged(BookChangeEvent event) throws RemoteException {
+            push(BinaryProtocol.PUSH_BOOK_CHANGED, out -> BinaryProtocol.writeEvent(out, event));
+        }
+
+        @Override
+        public void onJobUpdate(JobStatus status) throws RemoteException {
+            push(BinaryProtocol.PUSH_JOB_UPDATE, out -> BinaryProtocol.writeJobStatus(out, status));
+        }
+
+        private void push(byte kind, Payload payload) throws RemoteException {
+            try {
+                Frame frame = BinaryProtocol.frame(0, BinaryProtocol.STATUS_PUSH);
+                BinaryProtocol.writeInt(frame.data, callbackId);
+                frame.data.writeByte(kind);
+                payload.write(frame.data);
+                connection.write(frame.toFrame());
+            } catch (IOException e) {
+                throw new RemoteException("Binary client is unreachable", e);
+            }
+        }
+    }
+
+    private interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+}
@@ -0,0 +1,331 @@
+package common;
+
+import dto.Book;
+import dto.BookChangeEvent;
+import dto.BookSummary;
+import dto.JobStatus;
+import dto.Page;
+import dto.PageEdit;
+import dto.PagePatch;
+import dto.PagePatchResult;
+import dto.WireFormat;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Framing and encodings of the binary transport, the alternative to RMI
+ * served by {@link BinaryBookServer} and used by {@link BinaryBookFacadeClient}.
+ * Both sides open with {@link #MAGIC}; after that every frame is an int
+ * length followed by that many bytes:
+ * <pre>
+ *   request:  int requestId, byte op, arguments
+ *   response: int requestId, byte OK, result  |  int requestId, byte ERROR, message
+ *   push:     int 0, byte PUSH, varint callbackId, byte kind, payload
+ * </pre>
+ * Requests are answered in completion order, not arrival order, so a client
+ * can keep many requests in flight on one connection. Integers are varints
+ * and books and pages use their Externalizable encoding (see dto.WireFormat).
+ */
+final class BinaryProtocol {
+
+    /** "ANB1": Arabic Notepad binary, version 1. */
+    static final int MAGIC = 0x414E4231;
+    static final int MAX_FRAME_BYTES = Integer.getInteger("binary.frame.max.bytes", 64 << 20);
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+    static final byte STATUS_PUSH = 2;
+
+    static final byte PUSH_REGISTERED = 0;
+    static final byte PUSH_BOOK_CHANGED = 1;
+    static final byte PUSH_JOB_UPDATE = 2;
+
+    /** One per RemoteBookFacade operation; encoded as its ordinal, so only append. */
+    enum Op {
+        GET_BOOK_LIST, GET_BOOK_SUMMARIES, GET_BOOK_BY_NAME, INSERT_BOOK, UPDATE_BOOK, DELETE_BOOK,
+        IMPORT_BOOK, OPEN_UPLOAD, UPLOAD_CHUNK, COMMIT_UPLOAD, ABORT_UPLOAD, EXPORT_BOOK_BY_TITLE,
+        EXPORT_BOOK, TRANSLITERATE, EXPORT_TRANSLITERATED_BOOK, SEARCH_BOOKS_BY_CONTENT,
+        ADD_PAGE_BY_BOOK_TITLE, APPLY_PAGE_PATCH, PERFORM_ANALYSIS, PERFORM_CORPUS_ANALYSIS, ANALYZE_WORD,
+        SUBMIT_IMPORT, SUBMIT_ANALYSIS, SUBMIT_CORPUS_ANALYSIS, GET_JOB_STATUS, CANCEL_JOB,
+        IS_DATABASE_CONNECTED, REGISTER_CLIENT, RENEW_LEASE, UNREGISTER_CLIENT, PING, ANALYZE_WORDS;
+
+        private static final Op[] VALUES = values();
+
+        static Op of(byte code) throws StreamCorruptedException {
+            if (code < 0 || code >= VALUES.length) {
+                throw new StreamCorruptedException("Unknown operation " + code);
+            }
+            return VALUES[code];
+        }
+    }
+
+    interface Writer<T> {
+        void write(DataOutput out, T value) throws IOException;
+    }
+
+    interface Reader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    private BinaryProtocol() {
+    }
+
+    /** Reads one frame, or returns null at a clean end of stream. */
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+        if (length <= 0 || length > MAX_FRAME_BYTES) {
+            throw new StreamCorruptedException("Frame length " + length + " outside 1.." + MAX_FRAME_BYTES);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    /** A buffer whose first four bytes are reserved for the frame length. */
+    static Frame frame(int requestId, byte head) throws IOException {
+        Frame frame = new Frame();
+        frame.data.writeInt(0);
+        frame.data.writeInt(requestId);
+        frame.data.writeByte(head);
+        return frame;
+    }
+
+    static final class Frame extends ByteArrayOutputStream {
+        final DataOutputStream data = new DataOutputStream(this);
+
+        /** The finished frame, length prefix included. */
+        byte[] toFrame() throws IOException {
+            data.flush();
+            int length = count - 4;
+            if (length > MAX_FRAME_BYTES) {
+                throw new StreamCorruptedException("Frame of " + length + " bytes exceeds " + MAX_FRAME_BYTES);
+            }
+            buf[0] = (byte) (length >>> 24);
+            buf[1] = (byte) (length >>> 16);
+            buf[2] = (byte) (length >>> 8);
+            buf[3] = (byte) length;
+            return toByteArray();
+        }
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        WireFormat.writeText(out, value);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return WireFormat.readString(in);
+    }
+
+    static void writeInt(DataOutput out, int value) throws IOException {
+        WireFormat.writeVarInt(out, value);
+    }
+
+    static int readInt(DataInput in) throws IOException {
+        return WireFormat.readVarInt(in);
+    }
+
+    static void writeLong(DataOutput out, long value) throws IOException {
+        WireFormat.writeVarLong(out, value);
+    }
+
+    static long readLong(DataInput in) throws IOException {
+        return WireFormat.readVarLong(in);
+    }
+
+    static void writeBytes(DataOutput out, byte[] value) throws IOException {
+        if (value == null) {
+            WireFormat.writeVarInt(out, 0);
+            return;
+        }
+        WireFormat.writeVarInt(out, value.length + 1);
+        out.write(value);
+    }
+
+    static byte[] readBytes(DataInput in) throws IOException {
+        int length = WireFormat.readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        checkLength(length);
+        return WireFormat.readBytes(in, length);
+    }
+
+    static <T> void writeList(DataOutput out, List<T> values, Writer<T> writer) throws IOException {
+        if (values == null) {
+            WireFormat.writeVarInt(out, 0);
+            return;
+        }
+        WireFormat.writeVarInt(out, values.size() + 1);
+        for (T value : values) {
+            writer.write(out, value);
+        }
+    }
+
+    static <T> List<T> readList(DataInput in, Reader<T> reader) throws IOException {
+        int size = WireFormat.readVarInt(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        checkLength(size);
+        List<T> values = new ArrayList<>(Math.min(size, 1024));
+        for (int i = 0; i < size; i++) {
+            values.add(reader.read(in));
+        }
+        return values;
+    }
+
+    static void writeBook(DataOutput out, Book book) throws IOException {
+        out.writeBoolean(book != null);
+        if (book != null) {
+            book.writeTo(out);
+        }
+    }
+
+    static Book readBook(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Book book = new Book();
+        book.readFrom(in);
+        return book;
+    }
+
+    static void writePage(DataOutput out, Page page) throws IOException {
+        out.writeBoolean(page != null);
+        if (page != null) {
+            page.writeTo(out);
+        }
+    }
+
+    static Page readPage(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Page page = new Page();
+        page.readFrom(in);
+        return page;
+    }
+
+    static void writeSummary(DataOutput out, BookSummary summary) throws IOException {
+        out.writeBoolean(summary != null);
+        if (summary != null) {
+            WireFormat.writeVarInt(out, summary.getId());
+            WireFormat.writeString(out, summary.getTitle());
+            WireFormat.writeString(out, summary.getHash());
+            WireFormat.writeString(out, summary.getIdauthor());
+        }
+    }
+
+    static BookSummary readSummary(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return new BookSummary(WireFormat.readVarInt(in), WireFormat.readString(in),
+                WireFormat.readString(in), WireFormat.readString(in));
+    }
+
+    static void writePatch(DataOutput out, PagePatch patch) throws IOException {
+        WireFormat.writeVarInt(out, patch.getBookId());
+        WireFormat.writeVarInt(out, patch.getPageId());
+        WireFormat.writeVarLong(out, patch.getBaseVersion());
+        writeList(out, patch.getEdits(), (data, edit) -> {
+            WireFormat.writeVarInt(data, edit.getOffset());
+            WireFormat.writeVarInt(data, edit.getDeleteLength());
+            WireFormat.writeText(data, edit.getInsert());
+        });
+    }
+
+    static PagePatch readPatch(DataInput in) throws IOException {
+        int bookId = WireFormat.readVarInt(in);
+        int pageId = WireFormat.readVarInt(in);
+        long baseVersion = WireFormat.readVarLong(in);
+        List<PageEdit> edits = readList(in, data -> new PageEdit(WireFormat.readVarInt(data),
+                WireFormat.readVarInt(data), WireFormat.readString(data)));
+        return new PagePatch(bookId, pageId, baseVersion, edits == null ? List.of() : edits);
+    }
+
+    static void writePatchResult(DataOutput out, PagePatchResult result) throws IOException {
+        out.writeByte(result.getStatus().ordinal());
+        WireFormat.writeVarLong(out, result.getVersion());
+        WireFormat.writeText(out, result.getContent());
+    }
+
+    static PagePatchResult readPatchResult(DataInput in) throws IOException {
+        PagePatchResult.Status status = enumOf(PagePatchResult.Status.values(), in.readByte());
+        long version = WireFormat.readVarLong(in);
+        String content = WireFormat.readString(in);
+        return switch (status) {
+            case APPLIED -> PagePatchResult.applied(version);
+            case CONFLICT -> PagePatchResult.conflict(version, content);
+            case REJECTED -> PagePatchResult.rejected();
+        };
+    }
+
+    static void writeJobStatus(DataOutput out, JobStatus status) throws IOException {
+        out.writeBoolean(status != null);
+        if (status == null) {
+            return;
+        }
+        WireFormat.writeVarLong(out, status.getJobId());
+        WireFormat.writeString(out, status.getDescription());
+        out.writeByte(status.getState().ordinal());
+        WireFormat.writeVarLong(out, status.getRevision());
+        WireFormat.writeVarInt(out, status.getDone());
+        WireFormat.writeVarInt(out, status.getTotal());
+        WireFormat.writeString(out, status.getMessage());
+        WireFormat.writeText(out, status.getResult());
+    }
+
+    static JobStatus readJobStatus(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long jobId = WireFormat.readVarLong(in);
+        String description = WireFormat.readString(in);
+        JobStatus.State state = enumOf(JobStatus.State.values(), in.readByte());
+        long revision = WireFormat.readVarLong(in);
+        int done = WireFormat.readVarInt(in);
+        int total = WireFormat.readVarInt(in);
+        String message = WireFormat.readString(in);
+        String result = WireFormat.readString(in);
+        return new JobStatus(jobId, description, state, revision, done, total, message, result);
+    }
+
+    static void writeEvent(DataOutput out, BookChangeEvent event) throws IOException {
+        WireFormat.writeVarLong(out, event.getSequence());
+        out.writeByte(event.getType().ordinal());
+        WireFormat.writeString(out, event.getTitle());
+        WireFormat.writeVarInt(out, event.getBookId());
+    }
+
+    static BookChangeEvent readEvent(DataInput in) throws IOException {
+        long sequence = WireFormat.readVarLong(in);
+        BookChangeEvent.Type type = enumOf(BookChangeEvent.Type.values(), in.readByte());
+        return new BookChangeEvent(sequence, type, WireFormat.readString(in), WireFormat.readVarInt(in));
+    }
+
+    private static <E extends Enum<E>> E enumOf(E[] values, byte code) throws StreamCorruptedException {
+        if (code < 0 || code >= values.length) {
+            throw new StreamCorruptedException("Unknown " + values[0].getDeclaringClass().getSimpleName() + " " + code);
+        }
+        return values[code];
+    }
+
+    // A corrupt length must not make the reader allocate gigabytes.
+    private static void checkLength(int length) throws StreamCorruptedException {
+        if (length > MAX_FRAME_BYTES) {
+            throw new StreamCorruptedException("Length " + length + " exceeds the frame limit");
+        }
+    }
+}
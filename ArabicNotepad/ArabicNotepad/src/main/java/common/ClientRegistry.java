@@ -0,0 +1,209 @@
+package common;
+
+import dto.BookChangeEvent;
+import dto.JobStatus;
+import java.rmi.RemoteException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ui.ArabicNotepadClient;
+
+/**
+ * Connected clients and their leases. A client stays registered while it
+ * renews its lease; callbacks (registration, book events, job updates) are queued per
+ * client and delivered by a
+ * virtual thread per client, so a slow or hung client only delays itself.
+ * A client whose queue overflows, whose callback fails or whose lease
+ * expires is dropped; it finds out on its next renewal and re-registers.
+ */
+public class ClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientRegistry.class);
+
+    static final long LEASE_MILLIS = Long.getLong("server.client.lease.ms", 60_000L);
+    static final int QUEUE_CAPACITY = Integer.getInteger("server.client.queue", 256);
+
+    private final Map<ArabicNotepadClient, Session> sessions = new ConcurrentHashMap<>();
+    private final ThreadFactory deliveryThreads = Thread.ofVirtual().name("client-callback-", 0).factory();
+    private final ScheduledExecutorService reaper;
+    private final long leaseMillis;
+    private final int queueCapacity;
+    private long sequence;
+
+    public ClientRegistry() {
+        this(LEASE_MILLIS, QUEUE_CAPACITY);
+    }
+
+    public ClientRegistry(long leaseMillis, int queueCapacity) {
+        this.leaseMillis = leaseMillis;
+        this.queueCapacity = queueCapacity;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "client-lease-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leaseMillis / 2);
+        reaper.scheduleAtFixedRate(this::expireLeases, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers the client and queues its onRegisterClient(true) ahead of any
+     * event; synchronized with {@link #publish} for that. The acknowledgement
+     * is delivered like every other callback, so the caller never waits on
+     * the client.
+     */
+    public synchronized void register(ArabicNotepadClient client) {
+        Session session = new Session(client);
+        Session previous = sessions.put(client, session);
+        session.enqueue(new Callback(Boolean.TRUE, target -> target.onRegisterClient(true)));
+        if (previous != null) {
+            previous.close();
+        }
+        logger.info("Client registered; {} connected.", sessions.size());
+    }
+
+    public void unregister(ArabicNotepadClient client) {
+        Session session = sessions.remove(client);
+        if (session != null) {
+            session.close();
+            logger.info("Client unregistered; {} connected.", sessions.size());
+        }
+    }
+
+    /**
+     * Extends the client's lease. Returns false if the client is no longer
+     * registered, in which case it must register again.
+     */
+    public boolean renew(ArabicNotepadClient client) {
+        Session session = sessions.get(client);
+        if (session == null) {
+            return false;
+        }
+        session.expiresAt = System.currentTimeMillis() + leaseMillis;
+        return true;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Numbers the event and queues it for every client without blocking;
+     * synchronized so all clients see events in the same order.
+     */
+    public synchronized void publish(BookChangeEvent.Type type, String title, int bookId) {
+        BookChangeEvent event = new BookChangeEvent(++sequence, type, title, bookId);
+        for (Session session : sessions.values()) {
+            session.enqueue(new Callback(event, client -> client.onBookChanged(event)));
+        }
+    }
+
+    /**
+     * Queues a job update for one client. Returns false if the client is not
+     * registered; it can still poll the job.
+     */
+    public boolean sendJobUpdate(ArabicNotepadClient client, JobStatus status) {
+        Session session = sessions.get(client);
+        if (session == null) {
+            return false;
+        }
+        session.enqueue(new Callback(status, target -> target.onJobUpdate(status)));
+        return true;
+    }
+
+    public void shutdown() {
+        reaper.shutdownNow();
+        for (ArabicNotepadClient client : sessions.keySet()) {
+            unregister(client);
+        }
+    }
+
+    private void expireLeases() {
+        long now = System.currentTimeMillis();
+        for (Session session : sessions.values()) {
+            if (session.expiresAt < now) {
+                drop(session, "lease expired");
+            }
+        }
+    }
+
+    private void drop(Session session, String reason) {
+        if (sessions.remove(session.client, session)) {
+            session.close();
+            logger.warn("Dropped client ({}); {} connected.", reason, sessions.size());
+        }
+    }
+
+    private final class Session {
+        final ArabicNotepadClient client;
+        final BlockingQueue<Callback> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile long expiresAt = System.currentTimeMillis() + leaseMillis;
+        volatile boolean closed;
+
+        Session(ArabicNotepadClient client) {
+            this.client = client;
+        }
+
+        void enqueue(Callback callback) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(callback)) {
+                drop(this, "event queue full");
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                deliveryThreads.newThread(this::drain).start();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Callback callback;
+                while (!closed && (callback = queue.poll()) != null) {
+                    try {
+                        callback.delivery.deliver(client);
+                    } catch (RemoteException | RuntimeException e) {
+                        logger.debug("Callback failed for {}", callback.payload, e);
+                        drop(this, "callback failed: " + e.getMessage());
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An event queued after the last poll but before the flag was
+                // cleared would otherwise wait for the next publish.
+                if (closed || queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    private interface Delivery {
+        void deliver(ArabicNotepadClient client) throws RemoteException;
+    }
+
+    private static final class Callback {
+        final Object payload;
+        final Delivery delivery;
+
+        Callback(Object payload, Delivery delivery) {
+            this.payload = payload;
+            this.delivery = delivery;
+        }
+    }
+}
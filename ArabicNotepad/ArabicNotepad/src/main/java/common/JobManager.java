@@ -0,0 +1,238 @@
+package common;
+
+import bl.JobProgress;
+import dto.JobStatus;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ui.ArabicNotepadClient;
+
+/**
+ * Runs long operations (imports, analyses) as jobs on a bounded pool so the
+ * RMI call that starts one returns a job id at once. Clients follow a job by
+ * polling {@link #getStatus} or through {@link ArabicNotepadClient#onJobUpdate},
+ * which is sent at most every {@code server.jobs.update.ms} while the job
+ * runs and always when it finishes. Finished jobs are kept for
+ * {@code server.jobs.retention.ms} so a client can still collect the result.
+ */
+public class JobManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobManager.class);
+
+    static final long RETENTION_MILLIS = Long.getLong("server.jobs.retention.ms", 15 * 60_000L);
+    static final long UPDATE_INTERVAL_MILLIS = Long.getLong("server.jobs.update.ms", 250L);
+
+    public interface Task {
+        /** Returns the job's result, or null to keep the last partial result. */
+        String run(JobProgress progress) throws Exception;
+    }
+
+    private final ExecutorService pool;
+    private final ClientRegistry clients;
+    private final long retentionMillis;
+    private final long updateIntervalMillis;
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    public JobManager(ExecutorService pool, ClientRegistry clients) {
+        this(pool, clients, RETENTION_MILLIS, UPDATE_INTERVAL_MILLIS);
+    }
+
+    public JobManager(ExecutorService pool, ClientRegistry clients, long retentionMillis, long updateIntervalMillis) {
+        this.pool = pool;
+        this.clients = clients;
+        this.retentionMillis = retentionMillis;
+        this.updateIntervalMillis = updateIntervalMillis;
+    }
+
+    /**
+     * Queues the task and returns its job id. The listener, if not null, must
+     * be registered with the client registry to receive updates.
+     *
+     * @throws RejectedExecutionException if the pool and its queue are full
+     */
+    public long submit(String description, ArabicNotepadClient listener, Task task) {
+        purgeFinished();
+        Job job = new Job(ids.incrementAndGet(), description, listener, task);
+        jobs.put(job.id, job);
+        try {
+            job.future = pool.submit(job::run);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+        logger.info("Queued job {} '{}'.", job.id, description);
+        return job.id;
+    }
+
+    /** Returns the job's current status, or null if it is unknown or expired. */
+    public JobStatus getStatus(long jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? null : job.snapshot();
+    }
+
+    /**
+     * Cancels a queued or running job. A running job stops at its next
+     * progress check; whatever it produced until then stays available as the
+     * partial result. Returns false if the job is unknown or already finished.
+     */
+    public boolean cancel(long jobId) {
+        Job job = jobs.get(jobId);
+        return job != null && job.cancel();
+    }
+
+    private void purgeFinished() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.finishedBefore(cutoff));
+    }
+
+    private final class Job implements JobProgress {
+        final long id;
+        final String description;
+        final ArabicNotepadClient listener;
+        final Task task;
+        volatile Future<?> future;
+
+        // Guarded by this
+        private JobStatus.State state = JobStatus.State.QUEUED;
+        private long revision;
+        private int done;
+        private int total;
+        private String message = "Waiting for a free worker";
+        private String result;
+        private long finishedAt;
+        private long lastSentAt;
+
+        Job(long id, String description, ArabicNotepadClient listener, Task task) {
+            this.id = id;
+            this.description = description;
+            this.listener = listener;
+            this.task = task;
+        }
+
+        void run() {
+            synchronized (this) {
+                if (state != JobStatus.State.QUEUED) {
+                    return;
+                }
+                state = JobStatus.State.RUNNING;
+                message = "Started";
+                revision++;
+            }
+            send(true);
+            try {
+                String output = task.run(this);
+                finish(JobStatus.State.SUCCEEDED, "Completed", output);
+            } catch (CancellationException e) {
+                finish(JobStatus.State.CANCELLED, "Cancelled", null);
+            } catch (Exception e) {
+                if (isCancelled() || Thread.currentThread().isInterrupted()) {
+                    finish(JobStatus.State.CANCELLED, "Cancelled", null);
+                } else {
+                    logger.error("Job {} '{}' failed", id, description, e);
+                    finish(JobStatus.State.FAILED, String.valueOf(e.getMessage()), null);
+                }
+            } catch (Error e) {
+                finish(JobStatus.State.FAILED, e.toString(), null);
+                throw e;
+            }
+        }
+
+        boolean cancel() {
+            synchronized (this) {
+                if (state.isFinished()) {
+                    return false;
+                }
+                markFinished(JobStatus.State.CANCELLED, "Cancelled", null);
+            }
+            Future<?> running = future;
+            if (running != null) {
+                running.cancel(true);
+            }
+            logger.info("Cancelled job {} '{}'.", id, description);
+            send(true);
+            return true;
+        }
+
+        @Override
+        public void update(int done, int total, String message) {
+            synchronized (this) {
+                if (state.isFinished()) {
+                    return;
+                }
+                this.done = done;
+                this.total = total;
+                this.message = message;
+                revision++;
+            }
+            send(false);
+        }
+
+        @Override
+        public synchronized void partialResult(String result) {
+            if (!state.isFinished()) {
+                this.result = result;
+                revision++;
+            }
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return state == JobStatus.State.CANCELLED;
+        }
+
+        synchronized boolean finishedBefore(long cutoff) {
+            return finishedAt != 0 && finishedAt < cutoff;
+        }
+
+        synchronized JobStatus snapshot() {
+            return new JobStatus(id, description, state, revision, done, total, message, result);
+        }
+
+        private void finish(JobStatus.State finalState, String finalMessage, String output) {
+            synchronized (this) {
+                if (state.isFinished()) {
+                    return; // cancelled while the task was still running
+                }
+                markFinished(finalState, finalMessage, output);
+            }
+            logger.info("Job {} '{}' {}.", id, description, finalState);
+            send(true);
+        }
+
+        private void markFinished(JobStatus.State finalState, String finalMessage, String output) {
+            state = finalState;
+            message = finalMessage;
+            if (output != null) {
+                result = output;
+            }
+            if (finalState == JobStatus.State.SUCCEEDED) {
+                done = Math.max(done, total);
+            }
+            finishedAt = System.currentTimeMillis();
+            revision++;
+        }
+
+        private void send(boolean force) {
+            if (listener == null) {
+                return;
+            }
+            JobStatus status;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (!force && now - lastSentAt < updateIntervalMillis) {
+                    return;
+                }
+                lastSentAt = now;
+                status = snapshot();
+            }
+            clients.sendJobUpdate(listener, status);
+        }
+    }
+}
@@ -2,25 +2,46 @@ package common;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 import dto.Book;
+import dto.BookSummary;
+import dto.JobStatus;
 import dto.Page;
+import dto.PagePatch;
+import dto.PagePatchResult;
 import java.util.List;
+import java.util.Map;
 import ui.ArabicNotepadClient;
 
 public interface RemoteBookFacade extends Remote {
     List<Book> getBookList(String filepath) throws RemoteException;
+    List<BookSummary> getBookSummaries() throws RemoteException;
     Book getBookByName(String value) throws RemoteException;
     void insertBook(Book book) throws RemoteException;
-    void updateBook(Book book) throws RemoteException;
+    Map<Integer, Long> updateBook(Book book) throws RemoteException;
     void deleteBook(String value) throws RemoteException;
     void importBook(String path) throws RemoteException;
+    long openUpload(String title) throws RemoteException;
+    void uploadChunk(long uploadId, int sequence, byte[] chunk) throws RemoteException;
+    BookSummary commitUpload(long uploadId) throws RemoteException;
+    void abortUpload(long uploadId) throws RemoteException;
     boolean exportBook(String title) throws RemoteException;
     boolean exportBook(Book book) throws RemoteException;
     String transliterate(String arabictext) throws RemoteException;
+    boolean exportTransliteratedBook(String title) throws RemoteException;
     List<String> searchBooksByContent(String searchText) throws RemoteException;
     void addPageByBookTitle(String title, Page page) throws RemoteException;
+    PagePatchResult applyPagePatch(PagePatch patch) throws RemoteException;
     String performAnalysis(Book book, String analysisMethod) throws RemoteException;
+    String performCorpusAnalysis(String analysisMethod) throws RemoteException;
     String analyzeWord(String selectedWord) throws RemoteException;
+    Map<String, String> analyzeWords(List<String> words) throws RemoteException;
+    long submitImport(String path, ArabicNotepadClient listener) throws RemoteException;
+    long submitAnalysis(Book book, String analysisMethod, ArabicNotepadClient listener) throws RemoteException;
+    long submitCorpusAnalysis(String analysisMethod, ArabicNotepadClient listener) throws RemoteException;
+    JobStatus getJobStatus(long jobId) throws RemoteException;
+    boolean cancelJob(long jobId) throws RemoteException;
     boolean isDatabaseConnected() throws RemoteException;
     void registerClient(ArabicNotepadClient client) throws RemoteException;
+    boolean renewLease(ArabicNotepadClient client) throws RemoteException;
+    void unregisterClient(ArabicNotepadClient client) throws RemoteException;
     boolean ping() throws RemoteException;
 }
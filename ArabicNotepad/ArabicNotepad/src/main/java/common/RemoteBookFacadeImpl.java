@@ -3,22 +3,112 @@ package common;
 import bl.BookFacade;
 import java.rmi.server.UnicastRemoteObject;
 import dto.Book;
+import dto.BookChangeEvent;
+import dto.BookSummary;
+import dto.JobStatus;
 import dto.Page;
+import dto.PagePatch;
+import dto.PagePatchResult;
 import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ui.ArabicNotepadClient;
+import util.MetricsRegistry;
 
 public class RemoteBookFacadeImpl extends UnicastRemoteObject implements RemoteBookFacade {
     
+    private static final int SLOW_CALL_THREADS = Integer.getInteger("server.slowcalls.threads",
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int SLOW_CALL_QUEUE = Integer.getInteger("server.slowcalls.queue", 16);
+
     private final BookFacade bookFacade;
-    private ArabicNotepadClient client;
+    private final ThreadPoolExecutor slowCalls;
+    private final ClientRegistry clientRegistry = new ClientRegistry();
+    private final JobManager jobManager;
+    private final UploadManager uploadManager = new UploadManager();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
     private static final Logger logger = LoggerFactory.getLogger(RemoteBookFacadeImpl.class);
 
     public RemoteBookFacadeImpl(BookFacade bookFacade) throws RemoteException {
         super();
-        this.bookFacade = bookFacade;
+        // Times every call the remote methods make into the business layer, per method name.
+        this.bookFacade = metrics.instrument(BookFacade.class, bookFacade, "remote");
+        AtomicInteger threadCount = new AtomicInteger();
+        this.slowCalls = new ThreadPoolExecutor(SLOW_CALL_THREADS, SLOW_CALL_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(SLOW_CALL_QUEUE), runnable -> {
+                    Thread thread = new Thread(runnable, "slow-call-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.slowCalls.allowCoreThreadTimeOut(true);
+        this.jobManager = new JobManager(slowCalls, clientRegistry);
+    }
+
+    /**
+     * Tells every registered client that a book changed so it can drop its
+     * cached copy. Delivery is asynchronous (see ClientRegistry), so clients
+     * never delay the write that caused the event.
+     */
+    private void publishChange(BookChangeEvent.Type type, String title, int bookId) {
+        clientRegistry.publish(type, title, bookId);
+    }
+
+    /**
+     * Runs a long call (analysis, import) on the bounded slow-call pool so it
+     * cannot tie up the RMI threads serving quick calls like getBookList or
+     * ping. When every worker is busy and the queue is full the call is
+     * refused straight away instead of piling up on the server.
+     */
+    private <T> T runSlowCall(String name, Callable<T> call) throws RemoteException {
+        Future<T> future;
+        try {
+            future = slowCalls.submit(call);
+        } catch (RejectedExecutionException e) {
+            metrics.counter("remote.slowcalls.rejected").increment();
+            logger.warn("Rejected '{}': {} slow calls running, {} queued.", name, slowCalls.getActiveCount(), slowCalls.getQueue().size());
+            throw new RemoteException("Server is busy, please retry '" + name + "' later.");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while waiting for '" + name + "'.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RemoteException("Call '" + name + "' failed.", cause);
+        }
+    }
+
+    /**
+     * Starts a job on the same slow-call pool, so blocking calls and jobs
+     * share one limit, and returns its id without waiting for it.
+     */
+    private long submitJob(String name, ArabicNotepadClient listener, JobManager.Task task) throws RemoteException {
+        try {
+            return jobManager.submit(name, listener, task);
+        } catch (RejectedExecutionException e) {
+            metrics.counter("remote.slowcalls.rejected").increment();
+            logger.warn("Rejected job '{}': {} slow calls running, {} queued.", name, slowCalls.getActiveCount(), slowCalls.getQueue().size());
+            throw new RemoteException("Server is busy, please retry '" + name + "' later.");
+        }
     }
 
     @Override
@@ -26,6 +116,11 @@ public class RemoteBookFacadeImpl extends UnicastRemoteObject implements RemoteB
         return bookFacade.getBookList(filepath);
     }
 
+    @Override
+    public List<BookSummary> getBookSummaries() throws RemoteException {
+        return bookFacade.getBookSummaries();
+    }
+
     @Override
     public Book getBookByName(String value) throws RemoteException {
         return bookFacade.getBookByName(value);
@@ -34,22 +129,77 @@ public class RemoteBookFacadeImpl extends UnicastRemoteObject implements RemoteB
     @Override
     public void insertBook(Book book) throws RemoteException {
         bookFacade.insertBook(book);
-        
+        publishChange(BookChangeEvent.Type.INSERTED, book.getTitle(), book.getId());
     }
 
     @Override
-    public void updateBook(Book book) throws RemoteException {
-        bookFacade.updateBook(book);
+    public Map<Integer, Long> updateBook(Book book) throws RemoteException {
+        if (!bookFacade.updateBook(book)) {
+            throw new RemoteException("Could not save book '" + book.getTitle() + "'");
+        }
+        publishChange(BookChangeEvent.Type.UPDATED, book.getTitle(), book.getId());
+        Map<Integer, Long> versions = new LinkedHashMap<>();
+        if (book.getPages() != null) {
+            for (Page page : book.getPages()) {
+                if (page.getId() > 0) {
+                    versions.put(page.getId(), page.getVersion());
+                }
+            }
+        }
+        return versions;
     }
 
     @Override
     public void deleteBook(String title) throws RemoteException {
         bookFacade.deleteBook(title);
+        publishChange(BookChangeEvent.Type.DELETED, title, 0);
     }
 
     @Override
     public void importBook(String path) throws RemoteException {
-        bookFacade.importBook(path);
+        runSlowCall("importBook", () -> {
+            bookFacade.importBook(path);
+            return null;
+        });
+        publishChange(BookChangeEvent.Type.CATALOG_CHANGED, null, 0);
+    }
+
+    @Override
+    public long openUpload(String title) throws RemoteException {
+        try {
+            return uploadManager.register(bookFacade.openUpload(title));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new RemoteException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void uploadChunk(long uploadId, int sequence, byte[] chunk) throws RemoteException {
+        try {
+            uploadManager.append(uploadId, sequence, chunk);
+            metrics.counter("remote.upload.bytes").add(chunk.length);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new RemoteException(e.getMessage());
+        }
+    }
+
+    @Override
+    public BookSummary commitUpload(long uploadId) throws RemoteException {
+        BookSummary summary;
+        try {
+            summary = uploadManager.commit(uploadId);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new RemoteException(e.getMessage());
+        }
+        if (summary != null) {
+            publishChange(BookChangeEvent.Type.INSERTED, summary.getTitle(), summary.getId());
+        }
+        return summary;
+    }
+
+    @Override
+    public void abortUpload(long uploadId) throws RemoteException {
+        uploadManager.abort(uploadId);
     }
 
     @Override
@@ -67,6 +217,11 @@ public class RemoteBookFacadeImpl extends UnicastRemoteObject implements RemoteB
         return bookFacade.transliterate(arabictext);
     }
 
+    @Override
+    public boolean exportTransliteratedBook(String title) throws RemoteException {
+        return runSlowCall("exportTransliteratedBook", () -> bookFacade.exportTransliteratedBook(title));
+    }
+
     @Override
     public List<String> searchBooksByContent(String searchText) throws RemoteException {
         return bookFacade.searchBooksByContent(searchText);
@@ -75,17 +230,74 @@ public class RemoteBookFacadeImpl extends UnicastRemoteObject implements RemoteB
     @Override
     public void addPageByBookTitle(String title, Page page) throws RemoteException {
         bookFacade.addPageByBookTitle(title, page);
+        publishChange(BookChangeEvent.Type.UPDATED, title, 0);
+    }
+
+    @Override
+    public PagePatchResult applyPagePatch(PagePatch patch) throws RemoteException {
+        PagePatchResult result = bookFacade.applyPagePatch(patch);
+        metrics.counter("remote.applyPagePatch." + result.getStatus().name().toLowerCase()).increment();
+        if (result.getStatus() == PagePatchResult.Status.APPLIED) {
+            publishChange(BookChangeEvent.Type.UPDATED, null, patch.getBookId());
+        }
+        return result;
     }
 
     @Override
     public String performAnalysis(Book book, String analysisMethod) throws RemoteException {
-        return bookFacade.performAnalysis(book, analysisMethod);
+        return runSlowCall("performAnalysis", () -> bookFacade.performAnalysis(book, analysisMethod));
+    }
+
+    @Override
+    public String performCorpusAnalysis(String analysisMethod) throws RemoteException {
+        return runSlowCall("performCorpusAnalysis", () -> bookFacade.performCorpusAnalysis(analysisMethod));
     }
 
     @Override
     public String analyzeWord(String selectedWord) throws RemoteException {
         return bookFacade.analyzeWord(selectedWord);
     }
+
+    @Override
+    public Map<String, String> analyzeWords(List<String> words) throws RemoteException {
+        return runSlowCall("analyzeWords", () -> bookFacade.analyzeWords(words));
+    }
+
+    @Override
+    public long submitImport(String path, ArabicNotepadClient listener) throws RemoteException {
+        return submitJob("Import " + path, listener, progress -> {
+            try {
+                bookFacade.importBook(path, progress);
+            } finally {
+                publishChange(BookChangeEvent.Type.CATALOG_CHANGED, null, 0);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public long submitAnalysis(Book book, String analysisMethod, ArabicNotepadClient listener) throws RemoteException {
+        return submitJob(analysisMethod + " analysis of '" + book.getTitle() + "'", listener, progress -> {
+            progress.update(0, 1, "Analysing '" + book.getTitle() + "'");
+            return bookFacade.performAnalysis(book, analysisMethod);
+        });
+    }
+
+    @Override
+    public long submitCorpusAnalysis(String analysisMethod, ArabicNotepadClient listener) throws RemoteException {
+        return submitJob(analysisMethod + " library analysis", listener,
+                progress -> bookFacade.performCorpusAnalysis(analysisMethod, progress));
+    }
+
+    @Override
+    public JobStatus getJobStatus(long jobId) throws RemoteException {
+        return jobManager.getStatus(jobId);
+    }
+
+    @Override
+    public boolean cancelJob(long jobId) throws RemoteException {
+        return jobManager.cancel(jobId);
+    }
      
     @Override
     public boolean isDatabaseConnected() throws RemoteException {
@@ -94,14 +306,20 @@ public class RemoteBookFacadeImpl extends UnicastRemoteObject implements RemoteB
 
     @Override
     public void registerClient(ArabicNotepadClient client) throws RemoteException {
-        try {
-            this.client = client;
-            client.onRegisterClient(true);
-            logger.info("Client registered successfully");
-        } catch (RemoteException e) {
-            logger.error("Error registering client", e);
-            client.onRegisterClient(false);
-        }
+        // The acknowledgement goes through the client's callback queue; if it
+        // fails the client is dropped and re-registers on its next renewal.
+        clientRegistry.register(client);
+        logger.info("Client registered successfully");
+    }
+
+    @Override
+    public boolean renewLease(ArabicNotepadClient client) throws RemoteException {
+        return clientRegistry.renew(client);
+    }
+
+    @Override
+    public void unregisterClient(ArabicNotepadClient client) throws RemoteException {
+        clientRegistry.unregister(client);
     }
     
      @Override
@@ -0,0 +1,185 @@
+package common;
+
+import bl.BookUpload;
+import dto.BookSummary;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Open chunked uploads, keyed by upload id. Chunks must arrive in sequence;
+ * resending the last chunk (after a lost reply) is ignored, anything else out
+ * of order fails the call. Uploads idle for longer than
+ * {@code server.upload.idle.ms} are aborted, which deletes what they stored.
+ */
+public class UploadManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadManager.class);
+
+    public static final int MAX_CHUNK_BYTES = Integer.getInteger("server.upload.chunk.max.bytes", 1 << 20);
+    static final int MAX_UPLOADS = Integer.getInteger("server.upload.sessions", 16);
+    static final long IDLE_MILLIS = Long.getLong("server.upload.idle.ms", 5 * 60_000L);
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final Set<String> titles = ConcurrentHashMap.newKeySet();
+    private final AtomicLong ids = new AtomicLong();
+    private final ScheduledExecutorService reaper;
+    private final int maxUploads;
+    private final long idleMillis;
+
+    public UploadManager() {
+        this(MAX_UPLOADS, IDLE_MILLIS);
+    }
+
+    public UploadManager(int maxUploads, long idleMillis) {
+        this.maxUploads = maxUploads;
+        this.idleMillis = idleMillis;
+        this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleMillis / 2);
+        reaper.scheduleAtFixedRate(this::abortIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a freshly opened upload and returns its id.
+     *
+     * @throws IllegalStateException if too many uploads are open or the same
+     *         title is already being uploaded
+     */
+    public synchronized long register(BookUpload upload) {
+        if (sessions.size() >= maxUploads) {
+            upload.abort();
+            throw new IllegalStateException("Too many uploads in progress, please retry later");
+        }
+        if (!titles.add(upload.getTitle())) {
+            upload.abort();
+            throw new IllegalStateException("'" + upload.getTitle() + "' is already being uploaded");
+        }
+        long id = ids.incrementAndGet();
+        sessions.put(id, new Session(upload));
+        return id;
+    }
+
+    public void append(long uploadId, int sequence, byte[] chunk) {
+        if (chunk == null || chunk.length > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("Chunks must be at most " + MAX_CHUNK_BYTES + " bytes");
+        }
+        Session session = require(uploadId);
+        synchronized (session) {
+            checkOpen(uploadId, session);
+            if (sequence == session.nextSequence - 1) {
+                logger.debug("Ignoring resent chunk {} of upload {}", sequence, uploadId);
+                return;
+            }
+            if (sequence != session.nextSequence) {
+                throw new IllegalStateException("Expected chunk " + session.nextSequence + " of upload " + uploadId
+                        + " but got " + sequence);
+            }
+            try {
+                session.upload.append(chunk);
+            } catch (RuntimeException e) {
+                session.upload.abort();
+                close(uploadId, session);
+                throw e;
+            }
+            session.nextSequence++;
+            session.lastActive = System.currentTimeMillis();
+        }
+    }
+
+    /** Returns the stored book, or null if its content duplicates an existing book. */
+    public BookSummary commit(long uploadId) {
+        Session session = require(uploadId);
+        synchronized (session) {
+            checkOpen(uploadId, session);
+            try {
+                return session.upload.commit();
+            } catch (RuntimeException e) {
+                // No-op if commit already cleaned up; otherwise drops the stored pages.
+                session.upload.abort();
+                throw e;
+            } finally {
+                close(uploadId, session);
+            }
+        }
+    }
+
+    public void abort(long uploadId) {
+        Session session = sessions.get(uploadId);
+        if (session == null) {
+            return;
+        }
+        synchronized (session) {
+            if (!session.closed) {
+                session.upload.abort();
+                close(uploadId, session);
+            }
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void shutdown() {
+        reaper.shutdownNow();
+        for (Long uploadId : sessions.keySet()) {
+            abort(uploadId);
+        }
+    }
+
+    private void abortIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        for (Map.Entry<Long, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            synchronized (session) {
+                if (!session.closed && session.lastActive < cutoff) {
+                    logger.warn("Upload {} of '{}' idle for over {} ms; aborting.", entry.getKey(), session.upload.getTitle(), idleMillis);
+                    session.upload.abort();
+                    close(entry.getKey(), session);
+                }
+            }
+        }
+    }
+
+    private Session require(long uploadId) {
+        Session session = sessions.get(uploadId);
+        if (session == null) {
+            throw new IllegalStateException("Unknown or expired upload " + uploadId);
+        }
+        return session;
+    }
+
+    private static void checkOpen(long uploadId, Session session) {
+        if (session.closed) {
+            throw new IllegalStateException("Unknown or expired upload " + uploadId);
+        }
+    }
+
+    private void close(long uploadId, Session session) {
+        session.closed = true;
+        sessions.remove(uploadId, session);
+        titles.remove(session.upload.getTitle());
+    }
+
+    private static final class Session {
+        final BookUpload upload;
+        // Guarded by this
+        int nextSequence;
+        long lastActive = System.currentTimeMillis();
+        boolean closed;
+
+        Session(BookUpload upload) {
+            this.upload = upload;
+        }
+    }
+}
@@ -34,12 +34,29 @@ public class RemoteConfig {
         return parsePort(properties.getProperty("rmi.port", "1099"));
     }
 
+    /** How the remote client reaches the book facade: "rmi" (default) or "binary". */
+    public String getTransport() {
+        return properties.getProperty("transport", "rmi").trim();
+    }
+
+    public boolean isBinaryTransport() {
+        return "binary".equalsIgnoreCase(getTransport());
+    }
+
+    public int getBinaryPort() {
+        return parsePort(properties.getProperty("binary.port", "1100"), 1100);
+    }
+
     private int parsePort(String port) {
+        return parsePort(port, 1099);
+    }
+
+    private int parsePort(String port, int defaultPort) {
         try {
-            return Integer.parseInt(port);
+            return Integer.parseInt(port.trim());
         } catch (NumberFormatException e) {
-            logger.warn("Invalid RMI port '{}', defaulting to 1099", port);
-            return 1099;
+            logger.warn("Invalid port '{}', defaulting to {}", port, defaultPort);
+            return defaultPort;
         }
     }
 }
@@ -17,6 +17,9 @@ public interface BookDAO {
 
     boolean deleteBook(String title);
 
+    /** Deletes the book with the given id and its pages. */
+    boolean deleteBookById(int bookId);
+
     boolean isHashExists(String hash);
 
     boolean connect(DBConfig dbConfig);
@@ -30,4 +33,18 @@ public interface BookDAO {
     public List<Page> getPagesByBookTitle(String title);
 
     public void deletePagesByBookTitle(String title);
+
+    public Page getPageById(int pageId);
+
+    public boolean updatePageContent(int pageId, String content);
+
+    public boolean updateBookHash(int bookId, String hash);
+
+    /**
+     * Whether pages have stable ids, so single pages can be read, patched and
+     * appended. Page patches and chunked uploads need this.
+     */
+    default boolean supportsPageIds() {
+        return true;
+    }
 }
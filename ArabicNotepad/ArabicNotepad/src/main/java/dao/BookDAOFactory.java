@@ -5,6 +5,7 @@ import config.DBConfig;
 import config.Environment;
 import config.EnvironmentManager;
 import java.rmi.RemoteException;
+import util.MetricsRegistry;
 
 public class BookDAOFactory {
 
@@ -22,14 +23,14 @@ public class BookDAOFactory {
     public static BookDAO createBookDAO() {
         String dbType = dbConfig.getProperty("type");
         if ("mysql".equalsIgnoreCase(dbType)) {
-            return new MySQLBookDAO(dbConfig);
+            return MetricsRegistry.getInstance().instrument(BookDAO.class, new MySQLBookDAO(dbConfig), "dao.mysql");
         } else if ("mongodb".equalsIgnoreCase(dbType)) {
             // return new MongoDBBookDAO(dbConfig); 
             throw new UnsupportedOperationException("MongoDB support is not implemented yet.");
         }
         else if("test".equalsIgnoreCase(dbType))
         {
-            return new InMemoryBookDAO();
+            return MetricsRegistry.getInstance().instrument(BookDAO.class, new InMemoryBookDAO(), "dao.memory");
         }
         else {
             throw new UnsupportedOperationException("Unsupported database type: " + dbType);
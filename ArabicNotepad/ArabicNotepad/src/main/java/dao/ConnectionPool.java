@@ -0,0 +1,127 @@
+package dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small JDBC connection pool for MySQLBookDAO. Connections are opened on
+ * demand up to a fixed size and handed out one caller at a time, so a long
+ * import or corpus scan holds only its own connection while quick lookups
+ * run on another. {@link #borrow()} returns a wrapper whose close() gives
+ * the connection back instead of closing it; a connection that turns out to
+ * be closed is dropped and reopened on the next borrow.
+ */
+final class ConnectionPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    static final int DEFAULT_SIZE = Integer.getInteger("db.pool.size", 4);
+    static final long WAIT_MILLIS = Long.getLong("db.pool.wait.ms", 30_000);
+
+    private final MySQLBookDAO.ConnectionSource source;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    ConnectionPool(MySQLBookDAO.ConnectionSource source, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + size);
+        }
+        this.source = source;
+        this.permits = new Semaphore(size, true);
+    }
+
+    Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("No database connection free after " + WAIT_MILLIS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        Connection connection;
+        try {
+            connection = idle.poll();
+            if (connection == null || connection.isClosed()) {
+                connection = source.open();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return lease(connection);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    private Connection lease(Connection connection) {
+        AtomicBoolean returned = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        if (returned.compareAndSet(false, true)) {
+                            giveBack(connection);
+                        }
+                        yield null;
+                    }
+                    case "isClosed" -> returned.get() || connection.isClosed();
+                    default -> {
+                        if (returned.get()) {
+                            throw new SQLException("Connection already returned to the pool");
+                        }
+                        try {
+                            yield method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    private void giveBack(Connection connection) {
+        try {
+            if (closed || connection.isClosed()) {
+                closeQuietly(connection);
+            } else {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                idle.add(connection);
+            }
+        } catch (SQLException e) {
+            logger.warn("Dropping a pooled connection that could not be reset", e);
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.debug("Error closing a pooled connection", e);
+        }
+    }
+}
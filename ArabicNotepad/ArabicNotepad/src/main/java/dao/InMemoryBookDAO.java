@@ -0,0 +1,217 @@
+package dao;
+
+import config.DBConfig;
+import dto.Book;
+import dto.Page;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A BookDAO that keeps books in memory, for the "test" database type and for
+ * unit tests. It behaves like the MySQL store where callers can tell: titles
+ * are unique, ids are generated on insert, pages get their own ids, and every
+ * read returns copies, so changing a returned book does not change the store.
+ */
+public class InMemoryBookDAO implements BookDAO {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryBookDAO.class);
+
+    private final Map<Integer, Book> books = new LinkedHashMap<>();
+    private final Map<Integer, Page> pages = new LinkedHashMap<>();
+    private int nextBookId = 1;
+    private int nextPageId = 1;
+
+    @Override
+    public synchronized List<Book> getAllBooks(String path) {
+        List<Book> bookList = new ArrayList<>(books.size());
+        for (Book book : books.values()) {
+            bookList.add(new Book(book.getId(), book.getTitle(), book.getHash(), book.getIdauthor(), null));
+        }
+        return bookList;
+    }
+
+    @Override
+    public synchronized Book getBookByName(String name) {
+        Book book = findByTitle(name);
+        if (book == null) {
+            return null;
+        }
+        return new Book(book.getId(), book.getTitle(), book.getHash(), book.getIdauthor(), pagesOf(book.getId()));
+    }
+
+    @Override
+    public synchronized boolean addBook(Book book, boolean isDbDown) {
+        if (findByTitle(book.getTitle()) != null) {
+            logger.warn("A book titled '{}' is already stored.", book.getTitle());
+            return false;
+        }
+        book.setId(nextBookId++);
+        books.put(book.getId(), new Book(book.getId(), book.getTitle(), book.getHash(), book.getIdauthor(), null));
+        if (book.getPages() != null) {
+            for (Page page : book.getPages()) {
+                page.setBookId(book.getId());
+                addPage(book.getId(), page);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean updateBook(Book book) {
+        Book stored = books.get(book.getId());
+        if (stored == null) {
+            logger.warn("No book found with id: {}", book.getId());
+            return false;
+        }
+        stored.setTitle(book.getTitle());
+        stored.setIdauthor(book.getIdauthor());
+        if (book.getPages() != null) {
+            for (Page page : book.getPages()) {
+                if (!updatePageContent(page.getId(), page.getContent())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean deleteBook(String title) {
+        Book book = findByTitle(title);
+        if (book == null) {
+            logger.warn("No book found with title: {}", title);
+            return false;
+        }
+        pages.values().removeIf(page -> page.getBookId() == book.getId());
+        books.remove(book.getId());
+        return true;
+    }
+
+    @Override
+    public synchronized boolean deleteBookById(int bookId) {
+        if (books.remove(bookId) == null) {
+            logger.warn("No book found with id: {}", bookId);
+            return false;
+        }
+        pages.values().removeIf(page -> page.getBookId() == bookId);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isHashExists(String hash) {
+        return books.values().stream().anyMatch(book -> hash != null && hash.equals(book.getHash()));
+    }
+
+    @Override
+    public boolean connect(DBConfig dbConfig) {
+        return true;
+    }
+
+    @Override
+    public boolean isDatabaseConnected() {
+        return true;
+    }
+
+    @Override
+    public synchronized List<String> searchBooksByContent(String searchText) {
+        String needle = searchText.toLowerCase();
+        List<String> titles = new ArrayList<>();
+        for (Book book : books.values()) {
+            boolean matches = pages.values().stream().anyMatch(page -> page.getBookId() == book.getId()
+                    && page.getContent() != null && page.getContent().toLowerCase().contains(needle));
+            if (matches) {
+                titles.add(book.getTitle());
+            }
+        }
+        return titles;
+    }
+
+    @Override
+    public synchronized boolean addPage(int bookId, Page page) {
+        if (!books.containsKey(bookId)) {
+            logger.warn("No book found with id: {}", bookId);
+            return false;
+        }
+        Page stored = copyOf(page);
+        stored.setId(nextPageId++);
+        stored.setBookId(bookId);
+        pages.put(stored.getId(), stored);
+        return true;
+    }
+
+    @Override
+    public synchronized List<Page> getPagesByBookTitle(String title) {
+        Book book = findByTitle(title);
+        return book == null ? new ArrayList<>() : pagesOf(book.getId());
+    }
+
+    @Override
+    public synchronized void deletePagesByBookTitle(String title) {
+        Book book = findByTitle(title);
+        if (book != null) {
+            pages.values().removeIf(page -> page.getBookId() == book.getId());
+        }
+    }
+
+    @Override
+    public synchronized Page getPageById(int pageId) {
+        Page page = pages.get(pageId);
+        return page == null ? null : copyOf(page);
+    }
+
+    @Override
+    public synchronized boolean updatePageContent(int pageId, String content) {
+        Page page = pages.get(pageId);
+        if (page == null) {
+            logger.warn("No page found with id: {}", pageId);
+            return false;
+        }
+        page.setContent(content);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean updateBookHash(int bookId, String hash) {
+        Book book = books.get(bookId);
+        if (book == null) {
+            return false;
+        }
+        book.setHash(hash);
+        return true;
+    }
+
+    /** Removes every book and page. */
+    public synchronized void clear() {
+        books.clear();
+        pages.clear();
+    }
+
+    private Book findByTitle(String title) {
+        for (Book book : books.values()) {
+            if (book.getTitle().equals(title)) {
+                return book;
+            }
+        }
+        return null;
+    }
+
+    private List<Page> pagesOf(int bookId) {
+        List<Page> bookPages = new ArrayList<>();
+        for (Page page : pages.values()) {
+            if (page.getBookId() == bookId) {
+                bookPages.add(copyOf(page));
+            }
+        }
+        bookPages.sort(Comparator.comparingInt(Page::getPageNumber));
+        return bookPages;
+    }
+
+    private static Page copyOf(Page page) {
+        return new Page(page.getId(), page.getBookId(), page.getPageNumber(), page.getContent());
+    }
+}
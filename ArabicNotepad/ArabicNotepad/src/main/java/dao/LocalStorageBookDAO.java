@@ -10,6 +10,10 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,7 +24,7 @@ import util.FileUtil;
 
 public class LocalStorageBookDAO implements BookDAO {
 
-    private static final int MAX_LINES_PER_PAGE = 20;
+    static final int MAX_LINES_PER_PAGE = 20;
     private static final Logger logger = LoggerFactory.getLogger(LocalStorageBookDAO.class);
     
     private LocalConfig localConfig;
@@ -203,12 +207,8 @@ public class LocalStorageBookDAO implements BookDAO {
         }
 
         File bookFile = new File(directory, book.getTitle() + ".md");
-        try (FileWriter writer = new FileWriter(bookFile, false)) {
-            writer.write("**idauthor**: " + book.getIdauthor() + "\n");
-
-            for (Page page : book.getPages()) {
-                writer.write(page.getContent() + "\n\n");
-            }
+        try {
+            writeBookFile(bookFile, book);
         } catch (IOException e) {
             logger.error("Error writing book to local storage: {}", book.getTitle(), e);
             return false;
@@ -220,13 +220,8 @@ public class LocalStorageBookDAO implements BookDAO {
     public boolean updateBook(Book book) {
         File bookFile = new File(localConfig.getStoragePath(), book.getTitle() + ".md");
         if (bookFile.exists()) {
-            try (FileWriter writer = new FileWriter(bookFile, false)) {
-                writer.write("**idauthor**: " + book.getIdauthor() + "\n");
-
-                for (Page page : book.getPages()) {
-                    writer.write(page.getContent() + "\n\n");
-                }
-
+            try {
+                writeBookFile(bookFile, book);
                 logger.info("Successfully updated book in local storage: {}", book.getTitle());
                 return true;
             } catch (IOException e) {
@@ -262,6 +257,11 @@ public class LocalStorageBookDAO implements BookDAO {
         }
     }
 
+    @Override
+    public boolean deleteBookById(int bookId) {
+        throw new UnsupportedOperationException("Local book files have no book ids; delete them by path");
+    }
+
     @Override
     public boolean isHashExists(String hash) {
         return false;
@@ -301,6 +301,53 @@ public class LocalStorageBookDAO implements BookDAO {
         
     }
 
+    // Book files are split into pages when read, so pages have no ids to address.
+    @Override
+    public boolean supportsPageIds() {
+        return false;
+    }
+
+    @Override
+    public Page getPageById(int pageId) {
+        throw new UnsupportedOperationException("Local book files have no page ids");
+    }
+
+    @Override
+    public boolean updatePageContent(int pageId, String content) {
+        throw new UnsupportedOperationException("Local book files have no page ids");
+    }
+
+    @Override
+    public boolean updateBookHash(int bookId, String hash) {
+        throw new UnsupportedOperationException("Local book files have no book ids; the hash is computed on read");
+    }
+
+    /**
+     * Writes the book next to its file and moves it into place, so a reader
+     * on another RMI thread sees either the old or the new book and never a
+     * half-written one. No DAO-wide lock is taken; the last writer wins.
+     */
+    private static void writeBookFile(File bookFile, Book book) throws IOException {
+        Path target = bookFile.toPath();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), bookFile.getName(), ".tmp");
+        try {
+            try (FileWriter writer = new FileWriter(temp.toFile(), false)) {
+                writer.write("**idauthor**: " + book.getIdauthor() + "\n");
+
+                for (Page page : book.getPages()) {
+                    writer.write(page.getContent() + "\n\n");
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     private String getAllPagesContent(List<Page> pages) {
         StringBuilder sb = new StringBuilder();
         for (Page page : pages) {
@@ -12,12 +12,21 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public final class MySQLBookDAO implements BookDAO {
 
-    private Connection connection;
+    /** Opens a new JDBC connection for the pool. */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    // Each call borrows its own connection, so a slow import or corpus scan
+    // does not hold up lookups made by other RMI threads.
+    private volatile ConnectionPool pool;
     private static final Logger logger = LoggerFactory.getLogger(MySQLBookDAO.class);
 
     public MySQLBookDAO(DBConfig dbConfig) {
@@ -34,12 +43,25 @@ public final class MySQLBookDAO implements BookDAO {
         }
     }
 
+    /** Uses one existing connection; calls take turns on it. */
+    public MySQLBookDAO(Connection connection) {
+        this(() -> connection, 1);
+    }
+
+    public MySQLBookDAO(ConnectionSource source, int poolSize) {
+        this.pool = new ConnectionPool(source, poolSize);
+    }
+
     @Override
     public boolean isDatabaseConnected() {
         boolean isConnected = false;
         String testQuery = "SELECT 1";
+        if (pool == null) {
+            return false;
+        }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(testQuery); ResultSet rs = pstmt.executeQuery()) {
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(testQuery);
+                ResultSet rs = pstmt.executeQuery()) {
             if (rs.next()) {
                 isConnected = true;
             }
@@ -57,7 +79,15 @@ public final class MySQLBookDAO implements BookDAO {
             String url = dbConfig.getProperty("url");
             String user = dbConfig.getProperty("username");
             String password = dbConfig.getProperty("password");
-            connection = DriverManager.getConnection(url, user, password);
+            // Open one connection up front so a bad configuration fails here, as before.
+            Connection first = DriverManager.getConnection(url, user, password);
+            AtomicBoolean handedOut = new AtomicBoolean();
+            ConnectionPool previous = pool;
+            pool = new ConnectionPool(() -> handedOut.compareAndSet(false, true)
+                    ? first : DriverManager.getConnection(url, user, password), ConnectionPool.DEFAULT_SIZE);
+            if (previous != null) {
+                previous.close();
+            }
             logger.info("Successfully connected to the database.");
         } catch (SQLException e) {
             logger.error("Failed to connect to the database", e);
@@ -69,26 +99,28 @@ public final class MySQLBookDAO implements BookDAO {
     @Override
     public boolean addBook(Book book, boolean isDbDown) {
         String sql = "INSERT INTO book (title, hash, idauthor) VALUES (?, ?, ?)";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, book.getTitle());
-            pstmt.setString(2, book.getHash());
-            pstmt.setString(3, book.getIdauthor());
-            pstmt.executeUpdate();
-
-            try (ResultSet rs = pstmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    int generatedId = rs.getInt(1);
-                    book.setId(generatedId);
-                } else {
-                    logger.error("Failed to retrieve generated book ID for: {}", book.getTitle());
-                    return false;
+        try (Connection connection = pool.borrow()) {
+            try (PreparedStatement pstmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setString(1, book.getTitle());
+                pstmt.setString(2, book.getHash());
+                pstmt.setString(3, book.getIdauthor());
+                pstmt.executeUpdate();
+
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        int generatedId = rs.getInt(1);
+                        book.setId(generatedId);
+                    } else {
+                        logger.error("Failed to retrieve generated book ID for: {}", book.getTitle());
+                        return false;
+                    }
                 }
             }
 
             if (book.getPages() != null && !book.getPages().isEmpty()) {
                 for (Page page : book.getPages()) {
                     page.setBookId(book.getId());
-                    if (!addPage(book.getId(), page)) {
+                    if (!addPage(connection, book.getId(), page)) {
                         logger.warn("Failed to add page {} for book: {}", page.getPageNumber(), book.getTitle());
                     }
                 }
@@ -104,7 +136,8 @@ public final class MySQLBookDAO implements BookDAO {
     public List<Book> getAllBooks(String path) {
         List<Book> bookList = new ArrayList<>();
         String sql = "SELECT idbook, title, hash, idauthor FROM book";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql); ResultSet rs = pstmt.executeQuery()) {
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(sql);
+                ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 Book book = new Book();
                 book.setId(rs.getInt("idbook"));
@@ -122,7 +155,7 @@ public final class MySQLBookDAO implements BookDAO {
     @Override
     public Book getBookByName(String title) {
         String sql = "SELECT * FROM book WHERE title = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, title);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -132,7 +165,7 @@ public final class MySQLBookDAO implements BookDAO {
                 book.setHash(rs.getString("hash"));
                 book.setIdauthor(rs.getString("idauthor"));
 
-                List<Page> pages = getPagesByBookTitle(book.getTitle());
+                List<Page> pages = getPagesByBookTitle(connection, book.getTitle());
                 book.setPages(pages);
                 return book;
             }
@@ -147,7 +180,7 @@ public final class MySQLBookDAO implements BookDAO {
         String updateSql = "UPDATE book SET title = ?, idauthor = ? WHERE idbook = ?";
         String callUpdatePageSql = "{CALL UpdatePageContent(?, ?)}"; // Call the stored procedure
 
-        try {
+        try (Connection connection = pool.borrow()) {
            
             try (PreparedStatement pstmtUpdate = connection.prepareStatement(updateSql)) {
                 pstmtUpdate.setString(1, book.getTitle());
@@ -185,20 +218,21 @@ public final class MySQLBookDAO implements BookDAO {
 
     @Override
     public boolean deleteBook(String title) {
-        
-        deletePagesByBookTitle(title);
-
         String deleteSql = "DELETE FROM book WHERE title = ?";
 
-        try (PreparedStatement pstmtDelete = connection.prepareStatement(deleteSql)) {
-            pstmtDelete.setString(1, title);
-            int rowsAffected = pstmtDelete.executeUpdate();
-            if (rowsAffected > 0) {
-                logger.info("Successfully deleted book with title: {}", title);
-                return true;
-            } else {
-                logger.warn("No book found with title: {}", title);
-                return false;
+        try (Connection connection = pool.borrow()) {
+            deletePagesByBookTitle(connection, title);
+
+            try (PreparedStatement pstmtDelete = connection.prepareStatement(deleteSql)) {
+                pstmtDelete.setString(1, title);
+                int rowsAffected = pstmtDelete.executeUpdate();
+                if (rowsAffected > 0) {
+                    logger.info("Successfully deleted book with title: {}", title);
+                    return true;
+                } else {
+                    logger.warn("No book found with title: {}", title);
+                    return false;
+                }
             }
         } catch (SQLException e) {
             logger.error("Error deleting book: {}", title, e);
@@ -206,8 +240,41 @@ public final class MySQLBookDAO implements BookDAO {
         }
     }
 
+    @Override
+    public boolean deleteBookById(int bookId) {
+        String deletePagesSql = "DELETE FROM book_pages WHERE idbook = ?";
+        String deleteSql = "DELETE FROM book WHERE idbook = ?";
+
+        try (Connection connection = pool.borrow()) {
+            try (PreparedStatement pstmtPages = connection.prepareStatement(deletePagesSql)) {
+                pstmtPages.setInt(1, bookId);
+                pstmtPages.executeUpdate();
+            }
+            try (PreparedStatement pstmtDelete = connection.prepareStatement(deleteSql)) {
+                pstmtDelete.setInt(1, bookId);
+                if (pstmtDelete.executeUpdate() > 0) {
+                    logger.info("Successfully deleted book with id: {}", bookId);
+                    return true;
+                }
+                logger.warn("No book found with id: {}", bookId);
+                return false;
+            }
+        } catch (SQLException e) {
+            logger.error("Error deleting book with id: {}", bookId, e);
+            return false;
+        }
+    }
+
     @Override
     public void deletePagesByBookTitle(String title) {
+        try (Connection connection = pool.borrow()) {
+            deletePagesByBookTitle(connection, title);
+        } catch (SQLException e) {
+            logger.error("Error deleting pages for book title: {}", title, e);
+        }
+    }
+
+    private void deletePagesByBookTitle(Connection connection, String title) {
         String sqlGetBookId = "SELECT idbook FROM book WHERE title = ?";
         String deleteSql = "DELETE FROM book_pages WHERE idbook = ?";
 
@@ -234,7 +301,7 @@ public final class MySQLBookDAO implements BookDAO {
     @Override
     public boolean isHashExists(String hash) {
         String sql = "SELECT COUNT(*) FROM book WHERE hash = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, hash);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -248,6 +315,15 @@ public final class MySQLBookDAO implements BookDAO {
 
     @Override
     public boolean addPage(int bookId, Page page) {
+        try (Connection connection = pool.borrow()) {
+            return addPage(connection, bookId, page);
+        } catch (SQLException e) {
+            logger.error("Error adding page to book ID: {}", bookId, e);
+            return false;
+        }
+    }
+
+    private boolean addPage(Connection connection, int bookId, Page page) {
         String sql = "INSERT INTO book_pages (idbook, page_number, content) VALUES (?, ?, ?)";
         try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setInt(1, bookId);
@@ -263,6 +339,15 @@ public final class MySQLBookDAO implements BookDAO {
 
     @Override
     public List<Page> getPagesByBookTitle(String title) {
+        try (Connection connection = pool.borrow()) {
+            return getPagesByBookTitle(connection, title);
+        } catch (SQLException e) {
+            logger.error("Error retrieving pages for book title: {}", title, e);
+            return new ArrayList<>();
+        }
+    }
+
+    private List<Page> getPagesByBookTitle(Connection connection, String title) {
         List<Page> pageList = new ArrayList<>();
         String sqlGetBookId = "SELECT idbook FROM book WHERE title = ?";
         String sqlGetPages = "SELECT * FROM book_pages WHERE idbook = ? ORDER BY page_number ASC";
@@ -297,6 +382,53 @@ public final class MySQLBookDAO implements BookDAO {
         return pageList;
     }
 
+    @Override
+    public Page getPageById(int pageId) {
+        String sql = "SELECT * FROM book_pages WHERE idpage = ?";
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setInt(1, pageId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                Page page = new Page();
+                page.setId(rs.getInt("idpage"));
+                page.setBookId(rs.getInt("idbook"));
+                page.setPageNumber(rs.getInt("page_number"));
+                page.setContent(rs.getString("content"));
+                return page;
+            }
+        } catch (SQLException e) {
+            logger.error("Error retrieving page with ID: {}", pageId, e);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean updatePageContent(int pageId, String content) {
+        String callUpdatePageSql = "{CALL UpdatePageContent(?, ?)}";
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(callUpdatePageSql)) {
+            pstmt.setInt(1, pageId);
+            pstmt.setString(2, content);
+            pstmt.execute();
+            return true;
+        } catch (SQLException e) {
+            logger.error("Error updating page with ID: {}", pageId, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean updateBookHash(int bookId, String hash) {
+        String sql = "UPDATE book SET hash = ? WHERE idbook = ?";
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(sql)) {
+            pstmt.setString(1, hash);
+            pstmt.setInt(2, bookId);
+            return pstmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logger.error("Error updating hash of book ID: {}", bookId, e);
+            return false;
+        }
+    }
+
     @Override
     public List<String> searchBooksByContent(String searchText) {
         List<String> searchResults = new ArrayList<>();
@@ -305,7 +437,7 @@ public final class MySQLBookDAO implements BookDAO {
                 + "JOIN book_pages bp ON b.idbook = bp.idbook "
                 + "WHERE bp.content LIKE ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (Connection connection = pool.borrow(); PreparedStatement pstmt = connection.prepareStatement(sql)) {
             pstmt.setString(1, "%" + searchText + "%");
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
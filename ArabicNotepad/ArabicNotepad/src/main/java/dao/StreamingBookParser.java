@@ -0,0 +1,171 @@
+package dao;
+
+import dto.Page;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Consumer;
+import util.FileUtil;
+
+/**
+ * Parses a book file fed in arbitrary byte chunks, producing the same pages,
+ * author and hash as {@link LocalStorageBookDAO#getBookByName} would for the
+ * whole file. UTF-8 sequences and lines may span chunks; only the current
+ * line and the page being filled are held in memory, and each completed page
+ * is handed to the sink straight away. A line longer than
+ * {@code upload.line.max.chars} fails the parse, so a file without line
+ * breaks cannot grow the line buffer without bound.
+ */
+public class StreamingBookParser {
+
+    private static final String ID_AUTHOR_PREFIX = "**idauthor**: ";
+    public static final int MAX_LINE_CHARS = Integer.getInteger("upload.line.max.chars", 1 << 20);
+
+    private final Consumer<Page> pageSink;
+    private final int maxLineChars;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final MessageDigest digest;
+    // At most three bytes of a UTF-8 sequence cut off by the end of a chunk.
+    private final ByteBuffer carry = ByteBuffer.allocate(8);
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder content = new StringBuilder();
+    private boolean lineStarted;
+    private boolean afterCarriageReturn;
+    private boolean firstLineSeen;
+    private String idauthor;
+    private int lineCount;
+    private int pageNumber = 1;
+    private long bytesRead;
+    private boolean finished;
+
+    public StreamingBookParser(Consumer<Page> pageSink) {
+        this(pageSink, MAX_LINE_CHARS);
+    }
+
+    public StreamingBookParser(Consumer<Page> pageSink, int maxLineChars) {
+        this.pageSink = pageSink;
+        this.maxLineChars = maxLineChars;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not found", e);
+        }
+    }
+
+    public void append(byte[] chunk, int offset, int length) {
+        if (finished) {
+            throw new IllegalStateException("Parser already finished");
+        }
+        bytesRead += length;
+        ByteBuffer input;
+        if (carry.position() > 0) {
+            carry.flip();
+            input = ByteBuffer.allocate(carry.remaining() + length);
+            input.put(carry).put(chunk, offset, length).flip();
+            carry.clear();
+        } else {
+            input = ByteBuffer.wrap(chunk, offset, length);
+        }
+        CharBuffer chars = CharBuffer.allocate(input.remaining());
+        decoder.decode(input, chars, false);
+        carry.put(input);
+        consume(chars.flip());
+    }
+
+    /**
+     * Flushes the last line and page. Returns the book hash, computed the same
+     * way as for books read from local storage.
+     */
+    public String finish() {
+        if (finished) {
+            throw new IllegalStateException("Parser already finished");
+        }
+        finished = true;
+        carry.flip();
+        CharBuffer chars = CharBuffer.allocate(carry.remaining() + 2);
+        decoder.decode(carry, chars, true);
+        decoder.flush(chars);
+        consume(chars.flip());
+        if (lineStarted) {
+            endLine();
+        }
+        if (content.length() > 0) {
+            emitPage();
+        }
+        return FileUtil.toHexString(digest.digest());
+    }
+
+    /** Author from the first line, or null if the file does not name one. */
+    public String getIdauthor() {
+        return idauthor;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public int getPageCount() {
+        return pageNumber - 1;
+    }
+
+    // Line breaks follow BufferedReader.readLine: \n, \r or \r\n.
+    private void consume(CharBuffer chars) {
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (afterCarriageReturn) {
+                afterCarriageReturn = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            if (c == '\n' || c == '\r') {
+                afterCarriageReturn = c == '\r';
+                endLine();
+            } else {
+                if (line.length() >= maxLineChars) {
+                    throw new IllegalArgumentException("A line is longer than " + maxLineChars + " characters");
+                }
+                line.append(c);
+                lineStarted = true;
+            }
+        }
+    }
+
+    private void endLine() {
+        String text = line.toString();
+        line.setLength(0);
+        lineStarted = false;
+        if (!firstLineSeen) {
+            firstLineSeen = true;
+            if (text.startsWith(ID_AUTHOR_PREFIX)) {
+                idauthor = text.substring(ID_AUTHOR_PREFIX.length()).trim();
+            }
+            return;
+        }
+        if (!text.isEmpty()) {
+            content.append(text).append(System.lineSeparator());
+            lineCount++;
+            if (lineCount >= LocalStorageBookDAO.MAX_LINES_PER_PAGE) {
+                emitPage();
+            }
+        } else if (content.length() > 0) {
+            content.append(System.lineSeparator());
+        }
+    }
+
+    private void emitPage() {
+        Page page = new Page();
+        page.setPageNumber(pageNumber++);
+        page.setContent(content.toString().trim());
+        content.setLength(0);
+        lineCount = 0;
+        digest.update((page.getContent() + "\n").getBytes(StandardCharsets.UTF_8));
+        pageSink.accept(page);
+    }
+}
@@ -1,12 +1,26 @@
 package dto;
 
-import java.io.Serializable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class Book implements Serializable {
+/**
+ * A book and, when loaded, its pages. Serialized with a hand-written
+ * Externalizable format (see WireFormat) instead of default serialization:
+ * pages are written inline without per-object class descriptors, strings as
+ * UTF-8, and long page text is Deflate-compressed.
+ */
+public class Book implements Externalizable {
     
     private static final long serialVersionUID = 1L;
+    private static final byte WIRE_VERSION = 2;
 
     private int id;
     private String title;
@@ -64,6 +78,62 @@ public class Book implements Serializable {
         this.pages = pages;
     }
 
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    /** Writes the same bytes as {@link #writeExternal}, for streams that are not object streams. */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(WIRE_VERSION);
+        WireFormat.writeVarInt(out, id);
+        WireFormat.writeString(out, title);
+        WireFormat.writeString(out, hash);
+        WireFormat.writeString(out, idauthor);
+        if (pages == null) {
+            WireFormat.writeVarInt(out, 0);
+            return;
+        }
+        WireFormat.writeVarInt(out, pages.size() + 1);
+        for (Page page : pages) {
+            out.writeBoolean(page != null);
+            if (page != null) {
+                page.writeFields(out);
+            }
+        }
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != WIRE_VERSION) {
+            throw new InvalidClassException(Book.class.getName(), "Unsupported wire version " + version);
+        }
+        id = WireFormat.readVarInt(in);
+        title = WireFormat.readString(in);
+        hash = WireFormat.readString(in);
+        idauthor = WireFormat.readString(in);
+        int pageCount = WireFormat.readVarInt(in) - 1;
+        if (pageCount < 0) {
+            pages = null;
+            return;
+        }
+        // The count comes off the wire; let the list grow as pages arrive.
+        pages = new ArrayList<>(Math.min(pageCount, 1024));
+        for (int i = 0; i < pageCount; i++) {
+            Page page = null;
+            if (in.readBoolean()) {
+                page = new Page();
+                page.readFields(in);
+            }
+            pages.add(page);
+        }
+    }
+
     @Override
     public String toString() {
         return "Book{" +
@@ -0,0 +1,59 @@
+package dto;
+
+import java.io.Serializable;
+
+/**
+ * Pushed by the server to registered clients after a write, so that they can
+ * drop cached copies. Sequence numbers increase by one per event; a gap
+ * means the client missed events and should discard its whole cache.
+ */
+public final class BookChangeEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        INSERTED, UPDATED, DELETED,
+        /** Several books may have changed (e.g. a folder import). */
+        CATALOG_CHANGED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final String title;
+    private final int bookId;
+
+    public BookChangeEvent(long sequence, Type type, String title, int bookId) {
+        this.sequence = sequence;
+        this.type = type;
+        this.title = title;
+        this.bookId = bookId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /** Title of the changed book, or null if only the id is known. */
+    public String getTitle() {
+        return title;
+    }
+
+    /** Id of the changed book, or 0 if only the title is known. */
+    public int getBookId() {
+        return bookId;
+    }
+
+    @Override
+    public String toString() {
+        return "BookChangeEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", title='" + title + '\'' +
+                ", bookId=" + bookId +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Catalog entry for a book: identity and author only, never its pages.
+ * Used for book list screens so refreshing the catalog does not ship page
+ * content; the full {@link Book} is fetched when a book is opened.
+ */
+public final class BookSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+    private final String title;
+    private final String hash;
+    private final String idauthor;
+
+    public BookSummary(int id, String title, String hash, String idauthor) {
+        this.id = id;
+        this.title = title;
+        this.hash = hash;
+        this.idauthor = idauthor;
+    }
+
+    public static BookSummary of(Book book) {
+        return new BookSummary(book.getId(), book.getTitle(), book.getHash(), book.getIdauthor());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getIdauthor() {
+        return idauthor;
+    }
+
+    @Override
+    public String toString() {
+        return "BookSummary{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", idauthor='" + idauthor + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BookSummary)) return false;
+        BookSummary summary = (BookSummary) o;
+        return id == summary.id && Objects.equals(title, summary.title);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title);
+    }
+}
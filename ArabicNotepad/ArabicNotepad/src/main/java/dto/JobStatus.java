@@ -0,0 +1,100 @@
+package dto;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of a server-side job (import, analysis) as seen by a client,
+ * either polled with getJobStatus or pushed through the client callback.
+ * Every change produces a new snapshot with a higher revision.
+ */
+public final class JobStatus implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final long jobId;
+    private final String description;
+    private final State state;
+    private final long revision;
+    private final int done;
+    private final int total;
+    private final String message;
+    private final String result;
+
+    public JobStatus(long jobId, String description, State state, long revision,
+                     int done, int total, String message, String result) {
+        this.jobId = jobId;
+        this.description = description;
+        this.state = state;
+        this.revision = revision;
+        this.done = done;
+        this.total = total;
+        this.message = message;
+        this.result = result;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    /** Number of work units, or 0 while the job does not know yet. */
+    public int getTotal() {
+        return total;
+    }
+
+    /** Latest progress line, or the error message once the job has failed. */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The job's output: final once it has succeeded, what has been produced
+     * so far while it runs or after it was cancelled, null if nothing yet.
+     */
+    public String getResult() {
+        return result;
+    }
+
+    public int getPercent() {
+        if (state == State.SUCCEEDED) {
+            return 100;
+        }
+        return total > 0 ? (int) Math.min(100, done * 100L / total) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "JobStatus{" +
+                "jobId=" + jobId +
+                ", description='" + description + '\'' +
+                ", state=" + state +
+                ", revision=" + revision +
+                ", done=" + done +
+                ", total=" + total +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
@@ -1,16 +1,24 @@
 package dto;
 
-import java.io.Serializable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.Objects;
 
-public class Page implements Serializable {
+public class Page implements Externalizable {
     
     private static final long serialVersionUID = 1L;
+    private static final byte WIRE_VERSION = 2;
     
     private int id;
     private int bookId;
     private int pageNumber;
     private String content;
+    private long version;
    
     public Page() {}
 
@@ -53,6 +61,59 @@ public class Page implements Serializable {
         this.content = content;
     }
 
+    /**
+     * Server-assigned edit version of the content, used as the base of
+     * {@link PagePatch}es; advanced on every successful update.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        readFrom(in);
+    }
+
+    /** Writes the same bytes as {@link #writeExternal}, for streams that are not object streams. */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(WIRE_VERSION);
+        writeFields(out);
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != WIRE_VERSION) {
+            throw new InvalidClassException(Page.class.getName(), "Unsupported wire version " + version);
+        }
+        readFields(in);
+    }
+
+    // Pages inside a Book are written inline under the book's version byte.
+    void writeFields(DataOutput out) throws IOException {
+        WireFormat.writeVarInt(out, id);
+        WireFormat.writeVarInt(out, bookId);
+        WireFormat.writeVarInt(out, pageNumber);
+        WireFormat.writeVarLong(out, version);
+        WireFormat.writeText(out, content);
+    }
+
+    void readFields(DataInput in) throws IOException {
+        id = WireFormat.readVarInt(in);
+        bookId = WireFormat.readVarInt(in);
+        pageNumber = WireFormat.readVarInt(in);
+        version = WireFormat.readVarLong(in);
+        content = WireFormat.readString(in);
+    }
+
     @Override
     public String toString() {
         return "Page{" +
@@ -0,0 +1,51 @@
+package dto;
+
+import java.io.Serializable;
+
+/**
+ * One text edit on a page: delete {@code deleteLength} chars at
+ * {@code offset}, then insert {@code insert} there. Offsets are in UTF-16
+ * chars of the text as it is after the preceding edits of the same patch.
+ */
+public final class PageEdit implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int offset;
+    private final int deleteLength;
+    private final String insert;
+
+    public PageEdit(int offset, int deleteLength, String insert) {
+        this.offset = offset;
+        this.deleteLength = deleteLength;
+        this.insert = insert == null ? "" : insert;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getDeleteLength() {
+        return deleteLength;
+    }
+
+    public String getInsert() {
+        return insert;
+    }
+
+    public void applyTo(StringBuilder text) {
+        if (offset < 0 || deleteLength < 0 || offset + deleteLength > text.length()) {
+            throw new IllegalArgumentException("Edit " + this + " does not fit text of length " + text.length());
+        }
+        text.replace(offset, offset + deleteLength, insert);
+    }
+
+    @Override
+    public String toString() {
+        return "PageEdit{" +
+                "offset=" + offset +
+                ", deleteLength=" + deleteLength +
+                ", insertLength=" + insert.length() +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Edits to one page, based on the page version the client last saw. The
+ * server applies the patch only if that version is still current.
+ */
+public final class PagePatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int bookId;
+    private final int pageId;
+    private final long baseVersion;
+    private final List<PageEdit> edits;
+
+    public PagePatch(int bookId, int pageId, long baseVersion, List<PageEdit> edits) {
+        this.bookId = bookId;
+        this.pageId = pageId;
+        this.baseVersion = baseVersion;
+        this.edits = List.copyOf(edits);
+    }
+
+    public int getBookId() {
+        return bookId;
+    }
+
+    public int getPageId() {
+        return pageId;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public List<PageEdit> getEdits() {
+        return edits;
+    }
+
+    public String applyTo(String content) {
+        StringBuilder text = new StringBuilder(content == null ? "" : content);
+        for (PageEdit edit : edits) {
+            edit.applyTo(text);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "PagePatch{" +
+                "bookId=" + bookId +
+                ", pageId=" + pageId +
+                ", baseVersion=" + baseVersion +
+                ", edits=" + edits.size() +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package dto;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of applying a {@link PagePatch}. On a version conflict the
+ * server's current content and version are returned so the client can
+ * rebase its pending changes.
+ */
+public final class PagePatchResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Status {
+        APPLIED, CONFLICT, REJECTED
+    }
+
+    private final Status status;
+    private final long version;
+    private final String content;
+
+    private PagePatchResult(Status status, long version, String content) {
+        this.status = status;
+        this.version = version;
+        this.content = content;
+    }
+
+    public static PagePatchResult applied(long version) {
+        return new PagePatchResult(Status.APPLIED, version, null);
+    }
+
+    public static PagePatchResult conflict(long version, String content) {
+        return new PagePatchResult(Status.CONFLICT, version, content);
+    }
+
+    public static PagePatchResult rejected() {
+        return new PagePatchResult(Status.REJECTED, -1, null);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "PagePatchResult{" +
+                "status=" + status +
+                ", version=" + version +
+                '}';
+    }
+}
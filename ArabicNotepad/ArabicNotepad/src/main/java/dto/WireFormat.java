@@ -0,0 +1,221 @@
+package dto;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Field encoding shared by the Externalizable DTOs and the binary transport
+ * (common.BinaryProtocol). Strings are written as
+ * a marker byte and varint-prefixed UTF-8 (no 64 KB limit as with writeUTF).
+ * Page text at or above dto.compression.threshold bytes of UTF-8 is
+ * Deflate-compressed when that makes it smaller; 0 or less disables it.
+ * Lengths read off the wire are untrusted: no field may exceed
+ * dto.field.max.bytes, and buffers grow only as the bytes actually arrive.
+ */
+public final class WireFormat {
+
+    static final int COMPRESSION_THRESHOLD = Integer.getInteger("dto.compression.threshold", 4096);
+    public static final int MAX_FIELD_BYTES = Integer.getInteger("dto.field.max.bytes", 64 << 20);
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private static final int READ_CHUNK_BYTES = 64 << 10;
+    // Deflate cannot shrink data by more than about 1032:1.
+    private static final int MAX_DEFLATE_RATIO = 1032;
+
+    private static final byte NULL = 0;
+    private static final byte PLAIN = 1;
+    private static final byte DEFLATED = 2;
+
+    // Deflater/Inflater hold native zlib state that is costly to set up, so a
+    // few are kept for reuse. Requests run on short-lived virtual threads,
+    // which would never reuse a per-thread instance, so this is a shared
+    // pool; instances it has no room for are ended at once.
+    private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private WireFormat() {
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(PLAIN);
+        writeBytes(out, bytes, bytes.length);
+    }
+
+    public static void writeText(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (COMPRESSION_THRESHOLD > 0 && bytes.length >= COMPRESSION_THRESHOLD) {
+            byte[] compressed = new byte[bytes.length];
+            int compressedLength = deflate(bytes, compressed);
+            if (compressedLength > 0) {
+                out.writeByte(DEFLATED);
+                writeVarInt(out, bytes.length);
+                writeBytes(out, compressed, compressedLength);
+                return;
+            }
+        }
+        out.writeByte(PLAIN);
+        writeBytes(out, bytes, bytes.length);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        byte marker = in.readByte();
+        return switch (marker) {
+            case NULL -> null;
+            case PLAIN -> new String(readBytes(in), StandardCharsets.UTF_8);
+            case DEFLATED -> {
+                int length = checkLength(readVarInt(in));
+                byte[] compressed = readBytes(in);
+                if (length / MAX_DEFLATE_RATIO > compressed.length) {
+                    throw new StreamCorruptedException(compressed.length + " compressed bytes cannot hold " + length);
+                }
+                yield new String(inflate(compressed, length), StandardCharsets.UTF_8);
+            }
+            default -> throw new StreamCorruptedException("Unknown string marker: " + marker);
+        };
+    }
+
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    public static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    private static void writeBytes(DataOutput out, byte[] bytes, int length) throws IOException {
+        writeVarInt(out, length);
+        out.write(bytes, 0, length);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        return readBytes(in, readVarInt(in));
+    }
+
+    /**
+     * Reads {@code length} bytes announced by the sender. The buffer starts
+     * small and grows as bytes arrive, so a bogus length ends in an
+     * EOFException instead of a huge allocation.
+     */
+    public static byte[] readBytes(DataInput in, int length) throws IOException {
+        checkLength(length);
+        byte[] bytes = new byte[Math.min(length, READ_CHUNK_BYTES)];
+        int read = 0;
+        while (read < length) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            int n = bytes.length - read;
+            in.readFully(bytes, read, n);
+            read += n;
+        }
+        return bytes;
+    }
+
+    private static int checkLength(int length) throws StreamCorruptedException {
+        if (length < 0 || length > MAX_FIELD_BYTES) {
+            throw new StreamCorruptedException("Length " + length + " outside 0.." + MAX_FIELD_BYTES);
+        }
+        return length;
+    }
+
+    /**
+     * Returns the compressed length, or -1 when the output would not be
+     * smaller than the input.
+     */
+    private static int deflate(byte[] input, byte[] output) {
+        Deflater deflater = DEFLATERS.poll();
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            int length = deflater.deflate(output);
+            return deflater.finished() && length < input.length ? length : -1;
+        } finally {
+            deflater.reset();
+            if (!DEFLATERS.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    private static byte[] inflate(byte[] input, int length) throws IOException {
+        Inflater inflater = INFLATERS.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        try {
+            inflater.setInput(input);
+            byte[] output = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(output, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length || !inflater.finished()) {
+                throw new StreamCorruptedException("Truncated compressed text");
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Corrupt compressed text: " + e.getMessage());
+        } finally {
+            inflater.reset();
+            if (!INFLATERS.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+}
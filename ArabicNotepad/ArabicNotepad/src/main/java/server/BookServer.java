@@ -1,21 +1,31 @@
 package server;
 
 import bl.BookFacadeImpl;
+import common.BinaryBookServer;
 import common.RemoteBookFacadeImpl;
 import config.ConfigurationManager;
 import config.ConfigurationManagerRemote;
 import config.Environment;
 import config.EnvironmentManager;
+import config.RemoteConfig;
 import dao.BookDAOFactory;
+import java.io.IOException;
+import java.net.InetAddress;
 import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.util.logging.Level;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.MetricsRegistry;
+import util.WordAnalyzer;
 
 public class BookServer {
     private static final Logger logger = LoggerFactory.getLogger(BookServer.class);
+    // The binary transport has no authentication, so it is off unless asked
+    // for, and then only listens on server.binary.host (loopback by default).
+    private static final boolean BINARY_ENABLED = Boolean.getBoolean("server.binary.enabled");
+    private static final String BINARY_HOST = System.getProperty("server.binary.host", "localhost");
     
     public static void main(String[] args) {
         Environment env = EnvironmentManager.getCurrentEnvironment();
@@ -27,6 +37,7 @@ public class BookServer {
         }
         
         try {
+            WordAnalyzer.getInstance().warmUp();
             var bookDAO = BookDAOFactory.createBookDAO();
             var localFacade = new BookFacadeImpl(bookDAO);
             var remoteFacade = new RemoteBookFacadeImpl(localFacade);
@@ -36,10 +47,25 @@ public class BookServer {
             logger.info("Server started and ConfigurationManager bound to registry.");
             registry.rebind("RemoteBookFacade", remoteFacade);
             logger.info("Server started and RemoteBookFacade bound to registry.");
+            if (BINARY_ENABLED) {
+                startBinaryTransport(remoteFacade);
+            }
+            MetricsRegistry.getInstance().startReporting();
             System.out.println("Server started...");           
         } catch (RemoteException e) {
             System.err.println("Server error: " + e.getMessage());
              logger.error("An error occurred while starting the server.", e);
         }
     }
+
+    private static void startBinaryTransport(RemoteBookFacadeImpl remoteFacade) {
+        int port = new RemoteConfig().getBinaryPort();
+        try {
+            BinaryBookServer binaryServer = new BinaryBookServer(remoteFacade, InetAddress.getByName(BINARY_HOST), port);
+            binaryServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(binaryServer::close, "binary-shutdown"));
+        } catch (IOException e) {
+            logger.error("Could not start the binary transport on {}:{}; only RMI is available.", BINARY_HOST, port, e);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package test;
+
+import dto.Book;
+import dto.Page;
+import org.junit.jupiter.api.*;
+import util.ApproximatePairCounter;
+import util.CountMinSketch;
+import util.PKLAnalyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApproximatePairCounterTest {
+
+    @Test
+    void testSketchNeverUnderestimates() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        Map<Long, Integer> truth = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            long key = CountMinSketch.hash("key" + random.nextInt(2_000));
+            truth.merge(key, 1, Integer::sum);
+            sketch.add(key, 1);
+        }
+
+        for (Map.Entry<Long, Integer> entry : truth.entrySet()) {
+            int estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "Count-Min estimates must not undercount");
+        }
+        assertEquals(50_000, sketch.getTotal());
+    }
+
+    @Test
+    void testApproximatePklMatchesExactWhenAllPairsFit() {
+        List<Page> pages = new ArrayList<>();
+        pages.add(new Page(1, 1, 1, "العلم نور والجهل ظلام العلم نور"));
+        pages.add(new Page(2, 1, 2, "طلب العلم فريضة على كل مسلم والعلم نور"));
+        Book book = new Book(1, "Book Title", "hash123", "author1", pages);
+
+        String exact = PKLAnalyzer.getInstance().calculatePKL(book, 1);
+        String approximate = PKLAnalyzer.getInstance().calculatePKLApproximate(book, 1,
+                new ApproximatePairCounter(0.0001, 0.01, 1_000));
+
+        assertTrue(approximate.startsWith(exact), "With room for every pair the approximate result should be exact");
+    }
+
+    @Test
+    void testEstimatePairSpace() {
+        List<Page> pages = new ArrayList<>();
+        pages.add(new Page(1, 1, 1, "a b c d"));
+        pages.add(new Page(2, 1, 2, "  e   f "));
+        Book book = new Book(1, "Book Title", "hash123", "author1", pages);
+
+        assertEquals(6 + 1, ApproximatePairCounter.estimatePairSpace(book));
+    }
+}
@@ -0,0 +1,143 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import ui.AutosaveEngine;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutosaveEngineTest {
+
+    private final BlockingQueue<Map<Integer, String>> saves = new LinkedBlockingQueue<>();
+    private final CountDownLatch writerBusy = new CountDownLatch(1);
+    private final CountDownLatch releaseWriter = new CountDownLatch(1);
+    private final BlockingQueue<String> savedSnapshots = new LinkedBlockingQueue<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private volatile boolean blockWriter;
+    // Stands in for the document the UI edits; only touched on the event dispatch thread.
+    private String document = "";
+    private AutosaveEngine<String> engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new AutosaveEngine<>("test", () -> {
+            assertTrue(SwingUtilities.isEventDispatchThread(), "Snapshots must be taken on the EDT");
+            return document;
+        }, (pages, snapshot) -> {
+            if (blockWriter) {
+                writerBusy.countDown();
+                releaseWriter.await(5, TimeUnit.SECONDS);
+            }
+            if (failuresLeft.getAndDecrement() > 0) {
+                return false;
+            }
+            saves.add(pages);
+            savedSnapshots.add(snapshot);
+            return true;
+        }, 50);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        releaseWriter.countDown();
+        SwingUtilities.invokeAndWait(engine::close);
+    }
+
+    @Test
+    void testEditsWithinIdleWindowAreSavedOnce() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            engine.markDirty(0, "a");
+            engine.markDirty(0, "ab");
+            engine.markDirty(1, "x");
+            engine.markDirty(0, "abc");
+        });
+
+        assertEquals(Map.of(0, "abc", 1, "x"), saves.poll(5, TimeUnit.SECONDS));
+        assertNull(saves.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testEditsDuringSlowSaveAreMergedAndLatestWins() throws Exception {
+        blockWriter = true;
+        SwingUtilities.invokeAndWait(() -> {
+            engine.markDirty(0, "first");
+            engine.flush();
+        });
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+        // The writer is now busy with "first"; these queue up behind it.
+        SwingUtilities.invokeAndWait(() -> {
+            engine.markDirty(0, "second");
+            engine.flush();
+            engine.markDirty(0, "third");
+            engine.markDirty(2, "other");
+            engine.flush();
+        });
+        releaseWriter.countDown();
+
+        assertEquals(Map.of(0, "first"), saves.poll(5, TimeUnit.SECONDS));
+        assertEquals(Map.of(0, "third", 2, "other"), saves.poll(5, TimeUnit.SECONDS));
+        assertNull(saves.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testSnapshotIsTakenWhenPagesAreHandedOver() throws Exception {
+        blockWriter = true;
+        SwingUtilities.invokeAndWait(() -> {
+            document = "v1";
+            engine.markDirty(0, "v1");
+            engine.flush();
+            // Later edits on the EDT must not leak into the snapshot being saved.
+            document = "v2";
+        });
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+        releaseWriter.countDown();
+
+        assertEquals("v1", savedSnapshots.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testRejectedSaveIsRetriedWithoutNewEdits() throws Exception {
+        failuresLeft.set(1);
+        SwingUtilities.invokeAndWait(() -> {
+            document = "page one";
+            engine.markDirty(1, "page one");
+            engine.flush();
+        });
+        assertNull(saves.poll(200, TimeUnit.MILLISECONDS), "The rejected save is not reported as stored");
+
+        assertEquals(Map.of(1, "page one"), saves.poll(5, TimeUnit.SECONDS));
+        assertEquals("page one", savedSnapshots.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testAwaitSavedReportsPagesThatKeepFailing() throws Exception {
+        failuresLeft.set(Integer.MAX_VALUE);
+        SwingUtilities.invokeAndWait(() -> {
+            engine.markDirty(1, "lost?");
+            engine.flush();
+        });
+
+        assertFalse(engine.awaitSaved(300), "Pages whose saves fail are still unsaved");
+
+        failuresLeft.set(0);
+        assertTrue(engine.awaitSaved(5_000), "The next retry stores them");
+        assertEquals(Map.of(1, "lost?"), saves.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCloseFlushesPendingEdits() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            engine.markDirty(3, "unsaved");
+            engine.close();
+        });
+
+        assertEquals(Map.of(3, "unsaved"), saves.poll(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,174 @@
+package test;
+
+import common.BinaryBookFacadeClient;
+import common.BinaryBookServer;
+import dto.Book;
+import dto.BookChangeEvent;
+import dto.JobStatus;
+import dto.Page;
+import dto.PageEdit;
+import dto.PagePatch;
+import dto.PagePatchResult;
+import org.junit.jupiter.api.*;
+import ui.ArabicNotepadClient;
+
+import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTransportTest {
+
+    private final CountDownLatch releaseSlowCall = new CountDownLatch(1);
+    private BinaryBookServer server;
+    private BinaryBookFacadeClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FakeRemoteBookFacade facade = new FakeRemoteBookFacade() {
+            @Override
+            public Book getBookByName(String value) {
+                return new Book(7, value, "hash", "author",
+                        List.of(new Page(1, 7, 1, "العلم نور"), new Page(2, 7, 2, "x".repeat(10_000))));
+            }
+
+            @Override
+            public List<String> searchBooksByContent(String searchText) throws RemoteException {
+                if ("slow".equals(searchText)) {
+                    try {
+                        releaseSlowCall.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RemoteException("Interrupted", e);
+                    }
+                }
+                return List.of("Title: A, Sentence: " + searchText);
+            }
+
+            @Override
+            public Map<Integer, Long> updateBook(Book book) {
+                Map<Integer, Long> versions = new LinkedHashMap<>();
+                book.getPages().forEach(page -> versions.put(page.getId(), page.getVersion() + 1));
+                return versions;
+            }
+
+            @Override
+            public PagePatchResult applyPagePatch(PagePatch patch) {
+                return PagePatchResult.conflict(3, patch.applyTo("abc"));
+            }
+
+            @Override
+            public void deleteBook(String value) throws RemoteException {
+                throw new RemoteException("No such book: " + value);
+            }
+
+            @Override
+            public void registerClient(ArabicNotepadClient callback) throws RemoteException {
+                callback.onRegisterClient(true);
+                callback.onBookChanged(new BookChangeEvent(1, BookChangeEvent.Type.INSERTED, "كتاب", 9));
+                callback.onJobUpdate(new JobStatus(4, "import", JobStatus.State.RUNNING, 2, 1, 3, "working", null));
+            }
+
+            @Override
+            public Map<String, String> analyzeWords(List<String> words) {
+                Map<String, String> analyses = new LinkedHashMap<>();
+                words.forEach(word -> analyses.put(word, "Root: " + word));
+                return analyses;
+            }
+
+            @Override
+            public boolean ping() {
+                return true;
+            }
+        };
+        server = new BinaryBookServer(facade, 0);
+        server.start();
+        client = new BinaryBookFacadeClient("localhost", server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlowCall.countDown();
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void testRoundTripsBooksAndPatches() throws Exception {
+        assertTrue(client.ping());
+
+        Book book = client.getBookByName("كتاب");
+        assertEquals("كتاب", book.getTitle());
+        assertEquals(2, book.getPages().size());
+        assertEquals("العلم نور", book.getPages().get(0).getContent());
+        assertEquals(10_000, book.getPages().get(1).getContent().length());
+
+        book.getPages().get(0).setVersion(5);
+        assertEquals(Map.of(1, 6L, 2, 1L), client.updateBook(book));
+
+        PagePatchResult result = client.applyPagePatch(new PagePatch(7, 1, 2, List.of(new PageEdit(1, 1, "XY"))));
+        assertEquals(PagePatchResult.Status.CONFLICT, result.getStatus());
+        assertEquals(3, result.getVersion());
+        assertEquals("aXYc", result.getContent());
+
+        Map<String, String> analyses = client.analyzeWords(List.of("قلم", "كتاب"));
+        assertEquals(List.of("قلم", "كتاب"), List.copyOf(analyses.keySet()));
+        assertEquals("Root: كتاب", analyses.get("كتاب"));
+    }
+
+    @Test
+    void testSlowCallDoesNotBlockPipelinedCalls() throws Exception {
+        CompletableFuture<List<String>> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return client.searchBooksByContent("slow");
+            } catch (RemoteException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(List.of("Title: A, Sentence: fast"), client.searchBooksByContent("fast"));
+        assertFalse(slow.isDone());
+
+        releaseSlowCall.countDown();
+        assertEquals(List.of("Title: A, Sentence: slow"), slow.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testServerErrorsSurfaceAsRemoteExceptions() {
+        RemoteException error = assertThrows(RemoteException.class, () -> client.deleteBook("missing"));
+        assertTrue(error.getMessage().contains("No such book: missing"), error.getMessage());
+        assertThrows(RemoteException.class, () -> client.exportBook("anything"));
+    }
+
+    @Test
+    void testCallbacksArePushedInOrder() throws Exception {
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        client.registerClient(new ArabicNotepadClient() {
+            @Override
+            public void onRegisterClient(boolean result) {
+                received.add(result);
+            }
+
+            @Override
+            public void onBookChanged(BookChangeEvent event) {
+                received.add(event.getTitle());
+            }
+
+            @Override
+            public void onJobUpdate(JobStatus status) {
+                received.add(status.getMessage());
+            }
+        });
+
+        assertEquals(Boolean.TRUE, received.poll(5, TimeUnit.SECONDS));
+        assertEquals("كتاب", received.poll(5, TimeUnit.SECONDS));
+        assertEquals("working", received.poll(5, TimeUnit.SECONDS));
+    }
+}
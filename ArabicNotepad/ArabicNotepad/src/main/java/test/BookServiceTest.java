@@ -4,6 +4,9 @@ import bl.BookService;
 import dao.InMemoryBookDAO;
 import dto.Book;
 import dto.Page;
+import dto.PageEdit;
+import dto.PagePatch;
+import dto.PagePatchResult;
 import org.junit.jupiter.api.*;
 
 import java.util.List;
@@ -23,6 +26,9 @@ class BookServiceTest {
 
     @AfterEach
     void tearDown() {
+        if (bookService != null) {
+            bookService.shutdown();
+        }
         bookDAO.clear(); // Clear data after each test
     }
 
@@ -96,4 +102,30 @@ class BookServiceTest {
         assertEquals(1, results.size(), "Search should return one matching book");
         assertEquals("Book Title", results.get(0), "Matching book title should be returned");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testWholeBookSaveWithStaleVersionIsRefused() {
+        Book book = new Book(1, "Book Title", "hash123", "author1", null);
+        bookService.insertEmptyBookIntoDB(book);
+        bookService.addPage(book.getTitle(), new Page(0, book.getId(), 1, "abc"));
+        bookService.addPage(book.getTitle(), new Page(0, book.getId(), 2, "def"));
+
+        Book stale = bookService.getBookByName("Book Title");
+        Page first = stale.getPages().get(0);
+        PagePatchResult patched = bookService.applyPagePatch(
+                new PagePatch(book.getId(), first.getId(), first.getVersion(), List.of(new PageEdit(1, 1, "X"))));
+        assertEquals(PagePatchResult.Status.APPLIED, patched.getStatus());
+
+        first.setContent("abc!");
+        assertFalse(bookService.updateBook(stale), "A save based on an older version must not overwrite the patch");
+        assertEquals("aXc", bookService.getBookByName("Book Title").getPages().get(0).getContent());
+
+        Book current = bookService.getBookByName("Book Title");
+        long firstVersion = current.getPages().get(0).getVersion();
+        long secondVersion = current.getPages().get(1).getVersion();
+        current.getPages().get(1).setContent("def!");
+        assertTrue(bookService.updateBook(current));
+        assertEquals(firstVersion, current.getPages().get(0).getVersion(), "Unchanged pages keep their version");
+        assertEquals(secondVersion + 1, current.getPages().get(1).getVersion());
+    }
+}
@@ -0,0 +1,106 @@
+package test;
+
+import dto.Book;
+import dto.Page;
+import dto.WireFormat;
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookWireFormatTest {
+
+    @Test
+    void testRoundTripsBookWithPages() throws Exception {
+        List<Page> pages = new ArrayList<>();
+        pages.add(new Page(11, 3, 1, "العلم نور والجهل ظلام"));
+        pages.add(new Page(12, 3, 2, null));
+        Book book = new Book(3, "كتاب", "hash123", "author1", pages);
+
+        Book copy = roundTrip(book);
+
+        assertEquals(book, copy);
+        assertEquals("hash123", copy.getHash());
+        assertEquals("author1", copy.getIdauthor());
+        assertEquals(2, copy.getPages().size());
+        assertEquals("العلم نور والجهل ظلام", copy.getPages().get(0).getContent());
+        assertEquals(pages.get(1), copy.getPages().get(1));
+        assertNull(copy.getPages().get(1).getContent());
+    }
+
+    @Test
+    void testKeepsNullPageList() throws Exception {
+        Book copy = roundTrip(new Book(1, "Title", null, null, null));
+
+        assertNull(copy.getPages());
+        assertNull(copy.getHash());
+    }
+
+    @Test
+    void testCompressesLongPages() throws Exception {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 20_000) {
+            content.append("طلب العلم فريضة على كل مسلم\n");
+        }
+        Book book = new Book(1, "Long", "h", "a", List.of(new Page(1, 1, 1, content.toString())));
+
+        byte[] bytes = serialize(book);
+        Book copy = deserialize(bytes);
+
+        assertTrue(bytes.length < content.toString().getBytes(StandardCharsets.UTF_8).length / 2,
+                "Repetitive page text should be sent compressed");
+        assertEquals(content.toString(), copy.getPages().get(0).getContent());
+    }
+
+    @Test
+    void testLengthsOffTheWireAreNotTrusted() throws Exception {
+        assertThrows(StreamCorruptedException.class, () -> readString(1, Integer.MAX_VALUE),
+                "A length past the field limit is refused");
+        assertThrows(EOFException.class, () -> readString(1, 50 << 20, 'a', 'b'),
+                "A short frame ends before the announced bytes are allocated");
+        assertThrows(StreamCorruptedException.class, () -> readString(2, 60 << 20, 3, 1, 2, 3),
+                "Three compressed bytes cannot inflate to 60 MB");
+    }
+
+    // A string marker, a varint and raw bytes, as a hostile sender could write them.
+    private static String readString(int marker, int length, int... rest) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(marker);
+        WireFormat.writeVarInt(out, length);
+        for (int b : rest) {
+            out.writeByte(b);
+        }
+        return WireFormat.readString(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static Book roundTrip(Book book) throws Exception {
+        return deserialize(serialize(book));
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Book deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Book) in.readObject();
+        }
+    }
+}
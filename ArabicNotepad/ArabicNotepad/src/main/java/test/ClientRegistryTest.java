@@ -0,0 +1,124 @@
+package test;
+
+import common.ClientRegistry;
+import dto.BookChangeEvent;
+import dto.JobStatus;
+import org.junit.jupiter.api.*;
+import ui.ArabicNotepadClient;
+
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRegistryTest {
+
+    private ClientRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ClientRegistry(60_000, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void testDeliversEventsInOrderAndDropsFailingClient() throws Exception {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        ArabicNotepadClient healthy = new TestClient() {
+            @Override
+            public void onBookChanged(BookChangeEvent event) {
+                received.add(event.getSequence());
+            }
+        };
+        ArabicNotepadClient broken = new TestClient() {
+            @Override
+            public void onBookChanged(BookChangeEvent event) throws RemoteException {
+                throw new ConnectException("client went away");
+            }
+        };
+        registry.register(healthy);
+        registry.register(broken);
+
+        for (int i = 1; i <= 20; i++) {
+            registry.publish(BookChangeEvent.Type.UPDATED, "Book", i);
+        }
+        waitUntil(() -> received.size() == 20 && registry.size() == 1);
+
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i + 1, (long) received.get(i));
+        }
+        assertTrue(registry.renew(healthy));
+        assertFalse(registry.renew(broken), "A client whose callback failed must register again");
+    }
+
+    @Test
+    void testExpiredLeaseDropsClient() throws Exception {
+        registry.shutdown();
+        registry = new ClientRegistry(100, 64);
+        ArabicNotepadClient client = new TestClient();
+        registry.register(client);
+
+        waitUntil(() -> registry.size() == 0);
+
+        assertFalse(registry.renew(client));
+    }
+
+    @Test
+    void testRegistrationIsAcknowledgedFromTheCallbackQueue() throws Exception {
+        Thread caller = Thread.currentThread();
+        List<Boolean> acknowledgements = new CopyOnWriteArrayList<>();
+        List<Thread> ackThreads = new CopyOnWriteArrayList<>();
+        ArabicNotepadClient client = new TestClient() {
+            @Override
+            public void onRegisterClient(boolean result) {
+                acknowledgements.add(result);
+                ackThreads.add(Thread.currentThread());
+            }
+        };
+        ArabicNotepadClient unreachable = new TestClient() {
+            @Override
+            public void onRegisterClient(boolean result) throws RemoteException {
+                acknowledgements.add(result);
+                throw new ConnectException("client went away");
+            }
+        };
+
+        registry.register(client);
+        registry.register(unreachable);
+        waitUntil(() -> acknowledgements.size() == 2 && registry.size() == 1);
+
+        assertEquals(List.of(true, true), acknowledgements, "A client whose acknowledgement failed is not called again");
+        assertNotSame(caller, ackThreads.get(0));
+        assertTrue(registry.renew(client));
+        assertFalse(registry.renew(unreachable));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not reached within 5 seconds");
+    }
+
+    private static class TestClient implements ArabicNotepadClient {
+        @Override
+        public void onRegisterClient(boolean result) throws RemoteException {
+        }
+
+        @Override
+        public void onBookChanged(BookChangeEvent event) throws RemoteException {
+        }
+
+        @Override
+        public void onJobUpdate(JobStatus status) throws RemoteException {
+        }
+    }
+}
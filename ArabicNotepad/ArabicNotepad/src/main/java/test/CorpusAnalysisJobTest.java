@@ -0,0 +1,115 @@
+package test;
+
+import bl.CorpusAnalysisJob;
+import dao.InMemoryBookDAO;
+import dto.Book;
+import dto.Page;
+import org.junit.jupiter.api.*;
+import util.MetricsRegistry;
+import util.PKLAnalyzer;
+import util.PMIAnalyzer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusAnalysisJobTest {
+
+    private static final int ALL = 10_000;
+    private static final String[] WORDS = {"كتاب", "قلم", "مدرسة", "علم", "نور", "بيت", "طالب", "درس"};
+
+    private final List<Book> books = new ArrayList<>();
+    private final InMemoryBookDAO bookDAO = new InMemoryBookDAO();
+    private Path spillDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        int seed = 7;
+        for (int b = 0; b < 4; b++) {
+            List<Page> pages = new ArrayList<>();
+            for (int p = 0; p < 3; p++) {
+                StringBuilder content = new StringBuilder();
+                for (int w = 0; w < 12; w++) {
+                    seed = seed * 31 + 11 & 0xFFFF;
+                    content.append(WORDS[seed % WORDS.length]).append(' ');
+                }
+                // A phrase every page shares, so the phrase runs have something above MIN_OCCURRENCES.
+                content.append("العلم نور");
+                pages.add(new Page(b * 10 + p, b, p + 1, content.toString()));
+            }
+            books.add(new Book(b, "book-" + b, "hash-" + b, "author", pages));
+        }
+        books.forEach(book -> bookDAO.addBook(book, false));
+        spillDir = Files.createTempDirectory("corpus-job-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count(), "Spill files should be deleted after the run");
+        }
+        Files.deleteIfExists(spillDir);
+    }
+
+    @Test
+    void testTinyBudgetSpillsAndMergesToSameResult() {
+        long spillsBefore = MetricsRegistry.getInstance().counter("corpus.spill.files").getCount();
+        for (String method : List.of("PMI", "PKL", "Paper")) {
+            String inMemory = new CorpusAnalysisJob(bookDAO, 2, Long.MAX_VALUE, spillDir).run(method, ALL);
+            String spilled = new CorpusAnalysisJob(bookDAO, 2, 1, spillDir).run(method, ALL);
+            assertTrue(entries(inMemory).size() > 2, inMemory);
+            assertEquals(entries(inMemory), entries(spilled), method);
+        }
+        assertTrue(MetricsRegistry.getInstance().counter("corpus.spill.files").getCount() > spillsBefore);
+    }
+
+    @Test
+    void testMatchesSingleBookAnalysisOfWholeCorpus() {
+        List<Page> allPages = new ArrayList<>();
+        books.forEach(book -> allPages.addAll(book.getPages()));
+        Book corpus = new Book(99, "corpus", "hash", "author", allPages);
+
+        assertEquals(entries(PMIAnalyzer.getInstance().calculatePMI(corpus, ALL)),
+                entries(new CorpusAnalysisJob(bookDAO, 3, 1, spillDir).run("PMI", ALL)));
+        assertEquals(entries(PKLAnalyzer.getInstance().calculatePKL(corpus, ALL)),
+                entries(new CorpusAnalysisJob(bookDAO, 3, 1, spillDir).run("PKL", ALL)));
+    }
+
+    @Test
+    void testOffHeapShardsMatchHeapShards() {
+        for (String method : List.of("PMI", "PKL", "Paper")) {
+            String heap = new CorpusAnalysisJob(bookDAO, 2, Long.MAX_VALUE, spillDir, false).run(method, ALL);
+            String offHeap = new CorpusAnalysisJob(bookDAO, 2, Long.MAX_VALUE, spillDir, true).run(method, ALL);
+            assertEquals(entries(heap), entries(offHeap), method);
+        }
+    }
+
+    @Test
+    void testOffHeapCountsSpillToDiskWhenOverBudget() {
+        long spillsBefore = MetricsRegistry.getInstance().counter("corpus.spill.files").getCount();
+        for (String method : List.of("PMI", "PKL", "Paper")) {
+            String heap = new CorpusAnalysisJob(bookDAO, 2, Long.MAX_VALUE, spillDir, false).run(method, ALL);
+            // Every page outgrows a one-byte budget, so the shards spill while counting.
+            String shardsSpilled = new CorpusAnalysisJob(bookDAO, 2, 1, spillDir, true).run(method, ALL);
+            // An off-heap shard starts at about 140 KB: both shards fit their half, but not the global merge too.
+            String mergeSpilled = new CorpusAnalysisJob(bookDAO, 2, 400_000, spillDir, true).run(method, ALL);
+            assertEquals(entries(heap), entries(shardsSpilled), method);
+            assertEquals(entries(heap), entries(mergeSpilled), method);
+        }
+        assertTrue(MetricsRegistry.getInstance().counter("corpus.spill.files").getCount() > spillsBefore);
+    }
+
+    // Equal scores may be listed in any order, so compare the ranked lines without their rank.
+    static List<String> entries(String result) {
+        return Arrays.stream(result.split("\n"))
+                .map(line -> line.replaceFirst("^\\d+\\.\\s*", ""))
+                .sorted()
+                .toList();
+    }
+}
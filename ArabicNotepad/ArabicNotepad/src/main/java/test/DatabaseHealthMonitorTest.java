@@ -0,0 +1,103 @@
+package test;
+
+import bl.DatabaseHealthMonitor;
+import config.DBConfig;
+import dao.BookDAO;
+import dao.InMemoryBookDAO;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseHealthMonitorTest {
+
+    private final AtomicBoolean reachable = new AtomicBoolean(true);
+    private final AtomicBoolean reconnectSucceeds = new AtomicBoolean(false);
+    private final AtomicInteger probes = new AtomicInteger();
+    private final AtomicInteger reconnects = new AtomicInteger();
+    private final BlockingQueue<Boolean> events = new LinkedBlockingQueue<>();
+    private BookDAO bookDAO;
+    private DatabaseHealthMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        bookDAO = new InMemoryBookDAO() {
+            @Override
+            public boolean isDatabaseConnected() {
+                probes.incrementAndGet();
+                return reachable.get();
+            }
+
+            @Override
+            public boolean connect(DBConfig dbConfig) {
+                reconnects.incrementAndGet();
+                if (!reconnectSucceeds.get()) {
+                    throw new RuntimeException("Failed to connect to the database");
+                }
+                reachable.set(true);
+                return true;
+            }
+        };
+        monitor = new DatabaseHealthMonitor(bookDAO, () -> null, 10, 80);
+        monitor.addListener(events::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    void testReadsCachedStateWithoutProbing() {
+        monitor.start();
+        int probesAfterStart = probes.get();
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(monitor.isConnected());
+        }
+        assertTrue(probes.get() - probesAfterStart < 1000);
+    }
+
+    @Test
+    void testReportsLossAndRecovery() throws InterruptedException {
+        monitor.start();
+
+        reachable.set(false);
+        assertEquals(Boolean.FALSE, events.poll(5, TimeUnit.SECONDS));
+        assertFalse(monitor.isConnected());
+
+        reconnectSucceeds.set(true);
+        assertEquals(Boolean.TRUE, events.poll(5, TimeUnit.SECONDS));
+        assertTrue(monitor.isConnected());
+    }
+
+    @Test
+    void testRecheckSeesLossBeforeNextScheduledProbe() {
+        monitor.stop();
+        monitor = new DatabaseHealthMonitor(bookDAO, () -> null, 60_000, 60_000);
+        monitor.start();
+
+        reachable.set(false);
+        assertTrue(monitor.isConnected(), "The cached state lags until the next probe");
+        assertFalse(monitor.recheck());
+        assertFalse(monitor.isConnected());
+    }
+
+    @Test
+    void testBacksOffBetweenReconnectAttempts() throws InterruptedException {
+        reachable.set(false);
+        monitor.start();
+
+        Thread.sleep(400);
+
+        // Probing every 10 ms for 400 ms, with waits of 10, 20, 40, 80, 80... ms between attempts.
+        assertTrue(probes.get() > 20, "probes: " + probes.get());
+        assertTrue(reconnects.get() <= 10, "reconnects: " + reconnects.get());
+        assertTrue(reconnects.get() >= 2, "reconnects: " + reconnects.get());
+    }
+}
@@ -0,0 +1,182 @@
+package test;
+
+import common.RemoteBookFacade;
+import dto.Book;
+import dto.BookSummary;
+import dto.JobStatus;
+import dto.Page;
+import dto.PagePatch;
+import dto.PagePatchResult;
+import ui.ArabicNotepadClient;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A RemoteBookFacade whose every call fails. Tests override only the calls
+ * they expect, so an unexpected call fails loudly and a renamed method stops
+ * the test from compiling.
+ */
+class FakeRemoteBookFacade implements RemoteBookFacade {
+
+    @Override
+    public List<Book> getBookList(String filepath) throws RemoteException {
+        throw new UnsupportedOperationException("getBookList");
+    }
+
+    @Override
+    public List<BookSummary> getBookSummaries() throws RemoteException {
+        throw new UnsupportedOperationException("getBookSummaries");
+    }
+
+    @Override
+    public Book getBookByName(String value) throws RemoteException {
+        throw new UnsupportedOperationException("getBookByName");
+    }
+
+    @Override
+    public void insertBook(Book book) throws RemoteException {
+        throw new UnsupportedOperationException("insertBook");
+    }
+
+    @Override
+    public Map<Integer, Long> updateBook(Book book) throws RemoteException {
+        throw new UnsupportedOperationException("updateBook");
+    }
+
+    @Override
+    public void deleteBook(String value) throws RemoteException {
+        throw new UnsupportedOperationException("deleteBook");
+    }
+
+    @Override
+    public void importBook(String path) throws RemoteException {
+        throw new UnsupportedOperationException("importBook");
+    }
+
+    @Override
+    public long openUpload(String title) throws RemoteException {
+        throw new UnsupportedOperationException("openUpload");
+    }
+
+    @Override
+    public void uploadChunk(long uploadId, int sequence, byte[] chunk) throws RemoteException {
+        throw new UnsupportedOperationException("uploadChunk");
+    }
+
+    @Override
+    public BookSummary commitUpload(long uploadId) throws RemoteException {
+        throw new UnsupportedOperationException("commitUpload");
+    }
+
+    @Override
+    public void abortUpload(long uploadId) throws RemoteException {
+        throw new UnsupportedOperationException("abortUpload");
+    }
+
+    @Override
+    public boolean exportBook(String title) throws RemoteException {
+        throw new UnsupportedOperationException("exportBook");
+    }
+
+    @Override
+    public boolean exportBook(Book book) throws RemoteException {
+        throw new UnsupportedOperationException("exportBook");
+    }
+
+    @Override
+    public String transliterate(String arabictext) throws RemoteException {
+        throw new UnsupportedOperationException("transliterate");
+    }
+
+    @Override
+    public boolean exportTransliteratedBook(String title) throws RemoteException {
+        throw new UnsupportedOperationException("exportTransliteratedBook");
+    }
+
+    @Override
+    public List<String> searchBooksByContent(String searchText) throws RemoteException {
+        throw new UnsupportedOperationException("searchBooksByContent");
+    }
+
+    @Override
+    public void addPageByBookTitle(String title, Page page) throws RemoteException {
+        throw new UnsupportedOperationException("addPageByBookTitle");
+    }
+
+    @Override
+    public PagePatchResult applyPagePatch(PagePatch patch) throws RemoteException {
+        throw new UnsupportedOperationException("applyPagePatch");
+    }
+
+    @Override
+    public String performAnalysis(Book book, String analysisMethod) throws RemoteException {
+        throw new UnsupportedOperationException("performAnalysis");
+    }
+
+    @Override
+    public String performCorpusAnalysis(String analysisMethod) throws RemoteException {
+        throw new UnsupportedOperationException("performCorpusAnalysis");
+    }
+
+    @Override
+    public String analyzeWord(String selectedWord) throws RemoteException {
+        throw new UnsupportedOperationException("analyzeWord");
+    }
+
+    @Override
+    public Map<String, String> analyzeWords(List<String> words) throws RemoteException {
+        throw new UnsupportedOperationException("analyzeWords");
+    }
+
+    @Override
+    public long submitImport(String path, ArabicNotepadClient listener) throws RemoteException {
+        throw new UnsupportedOperationException("submitImport");
+    }
+
+    @Override
+    public long submitAnalysis(Book book, String analysisMethod, ArabicNotepadClient listener) throws RemoteException {
+        throw new UnsupportedOperationException("submitAnalysis");
+    }
+
+    @Override
+    public long submitCorpusAnalysis(String analysisMethod, ArabicNotepadClient listener) throws RemoteException {
+        throw new UnsupportedOperationException("submitCorpusAnalysis");
+    }
+
+    @Override
+    public JobStatus getJobStatus(long jobId) throws RemoteException {
+        throw new UnsupportedOperationException("getJobStatus");
+    }
+
+    @Override
+    public boolean cancelJob(long jobId) throws RemoteException {
+        throw new UnsupportedOperationException("cancelJob");
+    }
+
+    @Override
+    public boolean isDatabaseConnected() throws RemoteException {
+        throw new UnsupportedOperationException("isDatabaseConnected");
+    }
+
+    @Override
+    public void registerClient(ArabicNotepadClient client) throws RemoteException {
+        throw new UnsupportedOperationException("registerClient");
+    }
+
+    @Override
+    public boolean renewLease(ArabicNotepadClient client) throws RemoteException {
+        throw new UnsupportedOperationException("renewLease");
+    }
+
+    @Override
+    public void unregisterClient(ArabicNotepadClient client) throws RemoteException {
+        throw new UnsupportedOperationException("unregisterClient");
+    }
+
+    @Override
+    public boolean ping() throws RemoteException {
+        throw new UnsupportedOperationException("ping");
+    }
+}
@@ -0,0 +1,56 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.InBookSearchIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InBookSearchIndexTest {
+
+    private InBookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InBookSearchIndex();
+        index.load(List.of(
+                "العلم نور والجهل ظلام",
+                "طلب الْعِلْمُ فريضة",
+                "no Arabic here",
+                "أحمد قرأ العلم ثم العلم"));
+    }
+
+    @Test
+    void testFindsEveryMatchInPageOrder() {
+        List<InBookSearchIndex.Match> matches = index.search("العلم");
+
+        assertEquals(4, matches.size());
+        assertEquals(List.of(0, 1, 3, 3), matches.stream().map(InBookSearchIndex.Match::getPageIndex).toList());
+        assertEquals(0, matches.get(0).getStart());
+        assertEquals(5, matches.get(0).getEnd());
+        assertTrue(matches.get(2).getStart() < matches.get(3).getStart());
+    }
+
+    @Test
+    void testIgnoresDiacriticsAndMapsBackToOriginalText() {
+        String page = "طلب الْعِلْمُ فريضة";
+        InBookSearchIndex.Match match = index.search("العلم").get(1);
+
+        assertEquals("الْعِلْمُ", page.substring(match.getStart(), match.getEnd()));
+        assertEquals(1, index.search("احمد").size(), "Hamza forms of alef should match a plain alef");
+        assertEquals(1, index.search("ARABIC").size(), "Latin text should match regardless of case");
+    }
+
+    @Test
+    void testUpdatedPagesAreReindexed() {
+        index.updatePage(2, "العلم");
+        index.updatePage(0, "نور");
+        index.updatePage(4, "صفحة جديدة فيها العلم");
+
+        assertEquals(List.of(1, 2, 3, 3, 4), index.search("العلم").stream().map(InBookSearchIndex.Match::getPageIndex).toList());
+        assertEquals(5, index.getPageCount());
+        assertTrue(index.search("ظلام").isEmpty());
+        assertTrue(index.search("  ").isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package test;
+
+import dto.Book;
+import dto.Page;
+import org.junit.jupiter.api.*;
+import util.IncrementalBookAnalyzer;
+import util.PKLAnalyzer;
+import util.QualityPhrasesMiner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalBookAnalyzerTest {
+
+    private Book book;
+    private IncrementalBookAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        List<Page> pages = new ArrayList<>();
+        pages.add(new Page(1, 1, 1, "العلم نور والجهل ظلام"));
+        pages.add(new Page(2, 1, 2, "طلب العلم فريضة على كل مسلم"));
+        book = new Book(1, "Book Title", "hash123", "author1", pages);
+
+        analyzer = new IncrementalBookAnalyzer();
+        for (int i = 0; i < pages.size(); i++) {
+            analyzer.updatePage(i, pages.get(i).getContent());
+        }
+    }
+
+    @Test
+    void testMatchesFullAnalysisAfterEdit() {
+        String edited = "العلم نور العلم نور والعمل به";
+        book.getPages().get(1).setContent(edited);
+        analyzer.updatePage(1, edited);
+
+        assertEquals(PKLAnalyzer.getInstance().calculatePKL(book, 1), analyzer.calculatePKL(1),
+                "Live PKL should match a full recomputation");
+        assertEquals(QualityPhrasesMiner.getInstance().mineQualityPhrases(book, 1), analyzer.mineQualityPhrases(1),
+                "Live phrases should match a full recomputation");
+    }
+
+    @Test
+    void testRemovingAllPagesClearsCounts() {
+        analyzer.removePage(0);
+        analyzer.removePage(1);
+
+        assertEquals("No content available in the book to calculate PMI.", analyzer.calculatePMI(5));
+        assertEquals("No high-quality phrases found.", analyzer.mineQualityPhrases(5));
+    }
+}
@@ -0,0 +1,141 @@
+package test;
+
+import common.ClientRegistry;
+import common.JobManager;
+import dto.BookChangeEvent;
+import dto.JobStatus;
+import org.junit.jupiter.api.*;
+import ui.ArabicNotepadClient;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobManagerTest {
+
+    private ThreadPoolExecutor pool;
+    private ClientRegistry registry;
+    private JobManager jobManager;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+        registry = new ClientRegistry(60_000, 64);
+        jobManager = new JobManager(pool, registry, 60_000, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        registry.shutdown();
+    }
+
+    @Test
+    void testReportsProgressAndResultToListener() throws Exception {
+        List<JobStatus> updates = new CopyOnWriteArrayList<>();
+        ArabicNotepadClient client = new TestClient() {
+            @Override
+            public void onJobUpdate(JobStatus status) {
+                updates.add(status);
+            }
+        };
+        registry.register(client);
+
+        long jobId = jobManager.submit("count", client, progress -> {
+            for (int i = 1; i <= 3; i++) {
+                progress.update(i, 3, "Step " + i);
+            }
+            return "done";
+        });
+        waitUntil(() -> !updates.isEmpty() && updates.get(updates.size() - 1).getState().isFinished());
+
+        JobStatus last = updates.get(updates.size() - 1);
+        assertEquals(JobStatus.State.SUCCEEDED, last.getState());
+        assertEquals("done", last.getResult());
+        assertEquals(100, last.getPercent());
+        assertTrue(updates.stream().anyMatch(status -> "Step 2".equals(status.getMessage())));
+        for (int i = 1; i < updates.size(); i++) {
+            assertTrue(updates.get(i).getRevision() > updates.get(i - 1).getRevision());
+        }
+        assertEquals(last.getRevision(), jobManager.getStatus(jobId).getRevision());
+    }
+
+    @Test
+    void testCancelKeepsPartialResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        long jobId = jobManager.submit("import", null, progress -> {
+            progress.partialResult("first book");
+            started.countDown();
+            while (!progress.isCancelled()) {
+                Thread.sleep(5);
+            }
+            return "never seen";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(jobManager.cancel(jobId));
+        assertFalse(jobManager.cancel(jobId), "A finished job cannot be cancelled again");
+
+        JobStatus status = jobManager.getStatus(jobId);
+        assertEquals(JobStatus.State.CANCELLED, status.getState());
+        assertEquals("first book", status.getResult());
+    }
+
+    @Test
+    void testFailedJobCarriesErrorMessage() throws Exception {
+        long jobId = jobManager.submit("broken", null, progress -> {
+            throw new IllegalArgumentException("Unknown analysis method: X");
+        });
+        waitUntil(() -> jobManager.getStatus(jobId).getState().isFinished());
+
+        JobStatus status = jobManager.getStatus(jobId);
+        assertEquals(JobStatus.State.FAILED, status.getState());
+        assertEquals("Unknown analysis method: X", status.getMessage());
+    }
+
+    @Test
+    void testRejectsWhenPoolIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        JobManager.Task blocked = progress -> {
+            release.await();
+            return null;
+        };
+        jobManager.submit("running", null, blocked);
+        long queued = jobManager.submit("queued", null, blocked);
+
+        assertThrows(RejectedExecutionException.class, () -> jobManager.submit("rejected", null, blocked));
+        assertEquals(JobStatus.State.QUEUED, jobManager.getStatus(queued).getState());
+        assertTrue(jobManager.cancel(queued));
+        release.countDown();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not reached within 5 seconds");
+    }
+
+    private static class TestClient implements ArabicNotepadClient {
+        @Override
+        public void onRegisterClient(boolean result) {
+        }
+
+        @Override
+        public void onBookChanged(BookChangeEvent event) throws RemoteException {
+        }
+
+        @Override
+        public void onJobUpdate(JobStatus status) throws RemoteException {
+        }
+    }
+}
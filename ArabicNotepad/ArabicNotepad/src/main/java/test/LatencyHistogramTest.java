@@ -0,0 +1,51 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.LatencyHistogram;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertEquals(10_000, histogram.count());
+        assertEquals(5_000_000, histogram.percentileNanos(50), 5_000_000 * 0.03);
+        assertEquals(9_900_000, histogram.percentileNanos(99), 9_900_000 * 0.03);
+        assertEquals(10.0, histogram.getMaxMillis(), 1e-9);
+        assertEquals(5.0005, histogram.getMeanMillis(), 1e-9);
+    }
+
+    @Test
+    void testEveryValueLandsNearItsBucket() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (long) Math.exp(random.nextDouble() * 27);
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(value);
+            long reported = histogram.percentileNanos(100);
+            assertTrue(Math.abs(reported - value) <= Math.max(1, value * 0.032),
+                    "Value " + value + " reported as " + reported);
+        }
+    }
+
+    @Test
+    void testResetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.record(-5);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentileNanos(99));
+        assertEquals(0.0, histogram.getMaxMillis());
+    }
+}
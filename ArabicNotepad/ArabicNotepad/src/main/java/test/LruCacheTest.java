@@ -0,0 +1,35 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.LruCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+
+        cache.put("c", "3");
+
+        assertNull(cache.get("b"), "Least recently used entry should be evicted");
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testCountsHitsAndMisses() {
+        LruCache<String, String> cache = new LruCache<>(4);
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -0,0 +1,53 @@
+package test;
+
+import bl.JobProgress;
+import org.junit.jupiter.api.*;
+import util.MetricsRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void testInstrumentTimesCallsAndCountsErrors() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        JobProgress progress = metrics.instrument(JobProgress.class, new JobProgress() {
+            @Override
+            public void update(int done, int total, String message) {
+                if (done > total) {
+                    throw new IllegalArgumentException("done > total");
+                }
+            }
+
+            @Override
+            public void partialResult(String result) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        }, "test.progress");
+
+        progress.update(1, 2, "half way");
+        assertThrows(IllegalArgumentException.class, () -> progress.update(3, 2, "too far"));
+        assertTrue(progress.isCancelled());
+
+        assertEquals(2, metrics.timer("test.progress.update").getCount());
+        assertEquals(1, metrics.counter("test.progress.update.errors").getCount());
+        assertEquals(1, metrics.timer("test.progress.isCancelled").getCount());
+    }
+
+    @Test
+    void testSummaryCoversOnlyTheLastInterval() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.timer("test.summary").record(2_000_000);
+        metrics.summarizeInterval();
+
+        metrics.timer("test.summary").record(4_000_000);
+        String summary = metrics.summarizeInterval();
+
+        assertTrue(summary.contains("test.summary n=1 "), summary);
+        assertFalse(metrics.summarizeInterval().contains("test.summary"));
+    }
+}
@@ -0,0 +1,121 @@
+package test;
+
+import dao.MySQLBookDAO;
+import dto.Book;
+import dto.Page;
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySQLBookDAOTest {
+
+    private final CountDownLatch insertStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseInsert = new CountDownLatch(1);
+    private final AtomicInteger opened = new AtomicInteger();
+    private ExecutorService slowCaller;
+
+    @BeforeEach
+    void setUp() {
+        slowCaller = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseInsert.countDown();
+        slowCaller.shutdown();
+        assertTrue(slowCaller.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFastCallCompletesWhileImportIsRunning() throws Exception {
+        MySQLBookDAO bookDAO = new MySQLBookDAO(this::openConnection, 2);
+
+        Future<Boolean> slow = slowCaller.submit(() -> bookDAO.addBook(
+                new Book(0, "slow", "hash", "author", List.of(new Page(0, 0, 1, "content"))), false));
+        assertTrue(insertStarted.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertEquals(1, bookDAO.getAllBooks(null).size());
+        assertNotNull(bookDAO.getBookByName("any"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertFalse(slow.isDone(), "The import should still be holding its own connection");
+
+        releaseInsert.countDown();
+        assertTrue(slow.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testConnectionsAreReusedAcrossCalls() {
+        MySQLBookDAO bookDAO = new MySQLBookDAO(this::openConnection, 2);
+        releaseInsert.countDown();
+
+        for (int i = 0; i < 10; i++) {
+            bookDAO.getAllBooks(null);
+            bookDAO.getBookByName("any");
+        }
+        assertTrue(bookDAO.addBook(new Book(0, "book", "hash", "author", List.of(new Page(0, 0, 1, "content"))), false));
+
+        assertEquals(1, opened.get());
+    }
+
+    // A JDBC connection whose book insert waits for releaseInsert and whose queries return one row.
+    private Connection openConnection() {
+        opened.incrementAndGet();
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> statement((String) args[0]);
+                    case "getAutoCommit" -> true;
+                    case "isClosed" -> closed[0];
+                    case "close" -> {
+                        closed[0] = true;
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement statement(String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "executeUpdate" -> {
+                        if (sql.startsWith("INSERT INTO book ")) {
+                            insertStarted.countDown();
+                            assertTrue(releaseInsert.await(10, TimeUnit.SECONDS));
+                        }
+                        yield 1;
+                    }
+                    case "executeQuery", "getGeneratedKeys" -> oneRow();
+                    case "setString", "setInt", "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static ResultSet oneRow() {
+        boolean[] read = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        boolean hasRow = !read[0];
+                        read[0] = true;
+                        yield hasRow;
+                    }
+                    case "getInt" -> 1;
+                    case "getString" -> "value";
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
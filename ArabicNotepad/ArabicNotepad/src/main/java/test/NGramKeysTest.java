@@ -0,0 +1,50 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.NGramKeys;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NGramKeysTest {
+
+    @Test
+    void testPackUnpackRoundTrip() {
+        Random random = new Random(5);
+        int[] ids = new int[NGramKeys.MAX_LENGTH];
+        int[] unpacked = new int[NGramKeys.MAX_LENGTH];
+        for (int round = 0; round < 10_000; round++) {
+            int length = 1 + random.nextInt(NGramKeys.MAX_LENGTH);
+            for (int i = 0; i < length; i++) {
+                // Include the largest id so the fields that straddle both words are exercised.
+                ids[i] = round % 7 == 0 ? (1 << 25) - 1 : random.nextInt(1 << 25);
+            }
+            long high = NGramKeys.packHigh(ids, length);
+            long low = NGramKeys.packLow(ids, length);
+
+            assertEquals(length, NGramKeys.unpack(high, low, unpacked));
+            assertArrayEquals(Arrays.copyOf(ids, length), Arrays.copyOf(unpacked, length));
+        }
+    }
+
+    @Test
+    void testDistinctPhrasesGetDistinctKeys() {
+        Set<String> keys = new HashSet<>();
+        int[][] phrases = {{1, 2}, {2, 1}, {1, 2, 0}, {0, 1, 2}, {1, 2, 3, 4, 5}, {1, 2, 3, 4, 6}};
+        for (int[] phrase : phrases) {
+            assertTrue(keys.add(NGramKeys.packHigh(phrase, phrase.length) + ":" + NGramKeys.packLow(phrase, phrase.length)),
+                    Arrays.toString(phrase));
+        }
+    }
+
+    @Test
+    void testPairIsOrderIndependentAndRejectsHugeIds() {
+        assertEquals(NGramKeys.pair(3, 9), NGramKeys.pair(9, 3));
+        assertNotEquals(NGramKeys.pair(3, 9), NGramKeys.pair(3, 8));
+        assertThrows(IllegalStateException.class, () -> NGramKeys.checkId(1 << 25));
+    }
+}
@@ -0,0 +1,42 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.OffHeapCountTable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCountTableTest {
+
+    @Test
+    void testMatchesHashMapAcrossResizes() {
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(11);
+        try (OffHeapCountTable table = new OffHeapCountTable()) {
+            for (int i = 0; i < 100_000; i++) {
+                long high = random.nextInt(50);
+                long low = random.nextInt(2_000);
+                table.add(high, low, 1);
+                expected.merge(high + ":" + low, 1L, Long::sum);
+            }
+
+            assertEquals(expected.size(), table.size());
+            table.forEach((high, low, count) -> assertEquals((long) expected.get(high + ":" + low), count));
+            assertEquals(0, table.get(99, 99), "Absent keys should count zero");
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveDeltas() {
+        try (OffHeapCountTable table = new OffHeapCountTable()) {
+            table.add(1, 2, 3);
+            assertThrows(IllegalArgumentException.class, () -> table.add(1, 2, -3));
+            assertThrows(IllegalArgumentException.class, () -> table.add(4, 5, 0));
+            assertEquals(3, table.get(1, 2));
+            assertEquals(1, table.size());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.OffHeapVocabulary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapVocabularyTest {
+
+    @Test
+    void testAssignsDenseIdsAndRoundTripsTerms() {
+        try (OffHeapVocabulary vocabulary = new OffHeapVocabulary()) {
+            for (int i = 0; i < 5_000; i++) {
+                assertEquals(i, vocabulary.add("كلمة" + i));
+            }
+
+            assertEquals(5_000, vocabulary.size());
+            assertEquals(42, vocabulary.add("كلمة42"), "Adding an existing term should return its id");
+            assertEquals(4_999, vocabulary.idOf("كلمة4999"));
+            assertEquals("كلمة1234", vocabulary.term(1234));
+            assertEquals(-1, vocabulary.idOf("missing"));
+        }
+    }
+}
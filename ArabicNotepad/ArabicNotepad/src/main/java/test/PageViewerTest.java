@@ -0,0 +1,104 @@
+package test;
+
+import dto.Page;
+import org.junit.jupiter.api.*;
+import ui.PageViewer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageViewerTest {
+
+    private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+    private JTextArea textArea;
+    private PageViewer viewer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        List<Page> pages = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            pages.add(new Page(i, 1, i, "page " + i));
+        }
+        SwingUtilities.invokeAndWait(() -> {
+            textArea = new JTextArea();
+            viewer = new PageViewer(textArea, pages, new PageViewer.Listener() {
+                @Override
+                public void onPageLoading(int index, int pageCount) {
+                    events.add("loading " + index);
+                }
+
+                @Override
+                public void onPageShown(int index, int pageCount) {
+                    events.add("shown " + index);
+                }
+            }, 1);
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SwingUtilities.invokeAndWait(viewer::close);
+    }
+
+    @Test
+    void testPageIsDecodedInBackgroundThenShown() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            viewer.showPage(4);
+            assertEquals(-1, viewer.getShownIndex());
+            assertFalse(textArea.isEditable());
+        });
+
+        assertEquals("loading 4", events.poll(5, TimeUnit.SECONDS));
+        assertEquals("shown 4", events.poll(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> {
+            assertEquals(4, viewer.getShownIndex());
+            assertEquals("page 5", textArea.getText());
+            assertTrue(textArea.isEditable());
+        });
+    }
+
+    @Test
+    void testNeighboursArePrefetched() throws Exception {
+        SwingUtilities.invokeAndWait(() -> viewer.showPage(0));
+        assertEquals("loading 0", events.poll(5, TimeUnit.SECONDS));
+        assertEquals("shown 0", events.poll(5, TimeUnit.SECONDS));
+        // Give the prefetch of page 1 time to land on the event thread.
+        Thread.sleep(200);
+
+        SwingUtilities.invokeAndWait(() -> {
+            viewer.showPage(1);
+            assertEquals(1, viewer.getShownIndex());
+            assertEquals("page 2", textArea.getText());
+        });
+        assertEquals("shown 1", events.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testEditsSurvivePagingAwayAndBack() throws Exception {
+        SwingUtilities.invokeAndWait(() -> viewer.showPage(2));
+        assertEquals("shown 2", nextShown());
+        SwingUtilities.invokeAndWait(() -> textArea.append(" edited"));
+
+        SwingUtilities.invokeAndWait(() -> viewer.showPage(3));
+        assertEquals("shown 3", nextShown());
+        SwingUtilities.invokeAndWait(() -> viewer.showPage(2));
+        assertEquals("shown 2", nextShown());
+
+        SwingUtilities.invokeAndWait(() -> assertEquals("page 3 edited", textArea.getText()));
+    }
+
+    private String nextShown() throws InterruptedException {
+        String event;
+        do {
+            event = events.poll(5, TimeUnit.SECONDS);
+        } while (event != null && event.startsWith("loading"));
+        return event;
+    }
+}
@@ -0,0 +1,59 @@
+package test;
+
+import dto.Book;
+import dto.Page;
+import org.junit.jupiter.api.*;
+import ui.ArabicNotepadClient;
+import ui.RemoteBookCache;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteBookCacheTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private RemoteBookCache cache;
+
+    @BeforeEach
+    void setUp() throws RemoteException {
+        FakeRemoteBookFacade facade = new FakeRemoteBookFacade() {
+            @Override
+            public void registerClient(ArabicNotepadClient client) throws RemoteException {
+                client.onRegisterClient(true);
+            }
+
+            @Override
+            public void unregisterClient(ArabicNotepadClient client) {
+            }
+
+            @Override
+            public Book getBookByName(String value) {
+                fetches.incrementAndGet();
+                return new Book(1, value, "hash", "author", List.of(new Page(10, 1, 1, "العلم نور")));
+            }
+        };
+        cache = new RemoteBookCache(facade);
+        cache.register();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    void testEditsToAReturnedBookDoNotReachTheCache() throws RemoteException {
+        Book first = cache.getBook("book");
+        first.getPages().get(0).setContent("unsaved edit");
+
+        Book second = cache.getBook("book");
+        assertEquals("العلم نور", second.getPages().get(0).getContent());
+        second.getPages().get(0).setContent("another unsaved edit");
+
+        assertEquals("العلم نور", cache.getBook("book").getPages().get(0).getContent());
+        assertEquals(1, fetches.get(), "Later reads should still be served from the cache");
+    }
+}
@@ -0,0 +1,96 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import ui.SearchController;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchControllerTest {
+
+    private static final List<String> CORPUS = List.of(
+            "Title: A, Sentence: The quick brown fox",
+            "Title: B, Sentence: A quiet evening",
+            "Title: C, Sentence: Nothing here");
+
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<List<String>> results = new LinkedBlockingQueue<>();
+    private SearchController controller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SearchController.Backend backend = text -> {
+            queries.add(text);
+            return CORPUS.stream().filter(line -> line.toLowerCase().contains(text.toLowerCase())).toList();
+        };
+        SearchController.Listener listener = new SearchController.Listener() {
+            @Override
+            public void onSearchStarted(String text) {
+            }
+
+            @Override
+            public void onResults(String text, List<String> found) {
+                results.add(found);
+            }
+
+            @Override
+            public void onCleared() {
+                results.add(List.of());
+            }
+
+            @Override
+            public void onError(String text, Exception error) {
+                fail("Search for '" + text + "' failed: " + error);
+            }
+        };
+        SwingUtilities.invokeAndWait(() -> controller = new SearchController(backend, listener, 20));
+    }
+
+    private void type(String text) throws Exception {
+        SwingUtilities.invokeAndWait(() -> controller.textChanged(text));
+    }
+
+    private List<String> nextResults() throws InterruptedException {
+        List<String> found = results.poll(5, TimeUnit.SECONDS);
+        assertNotNull(found, "no search results arrived");
+        return found;
+    }
+
+    @Test
+    void testKeystrokesWithinDebounceRunOneSearch() throws Exception {
+        type("q");
+        type("qu");
+        type("qui");
+
+        assertEquals(2, nextResults().size());
+        assertEquals(List.of("qui"), queries);
+    }
+
+    @Test
+    void testPrefixExtensionIsNarrowedLocally() throws Exception {
+        type("qui");
+        assertEquals(2, nextResults().size());
+
+        type("quic");
+        assertEquals(List.of(CORPUS.get(0)), nextResults());
+        assertEquals(List.of("qui"), queries);
+    }
+
+    @Test
+    void testInvalidateForcesNewSearch() throws Exception {
+        type("qui");
+        nextResults();
+
+        controller.invalidate();
+        type("quic");
+        nextResults();
+
+        assertEquals(List.of("qui", "quic"), queries);
+    }
+}
@@ -0,0 +1,95 @@
+package test;
+
+import dao.StreamingBookParser;
+import dto.Page;
+import org.junit.jupiter.api.*;
+import util.FileUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingBookParserTest {
+
+    private static String sampleBook() {
+        StringBuilder text = new StringBuilder("**idauthor**: author7\r\n");
+        for (int i = 1; i <= 45; i++) {
+            text.append("السطر رقم ").append(i).append(" من الكتاب\r\n");
+            if (i % 7 == 0) {
+                text.append("\r\n");
+            }
+        }
+        return text.append("آخر سطر بلا نهاية").toString();
+    }
+
+    @Test
+    void testSplitsPagesEveryTwentyLines() {
+        List<Page> pages = new ArrayList<>();
+        StreamingBookParser parser = new StreamingBookParser(pages::add);
+        byte[] bytes = sampleBook().getBytes(StandardCharsets.UTF_8);
+
+        parser.append(bytes, 0, bytes.length);
+        String hash = parser.finish();
+
+        assertEquals("author7", parser.getIdauthor());
+        assertEquals(3, pages.size());
+        assertTrue(pages.get(0).getContent().startsWith("السطر رقم 1 من الكتاب"));
+        assertTrue(pages.get(2).getContent().endsWith("آخر سطر بلا نهاية"));
+        StringBuilder all = new StringBuilder();
+        for (Page page : pages) {
+            all.append(page.getContent()).append("\n");
+        }
+        assertEquals(FileUtil.calculateSHA256(all.toString()), hash);
+    }
+
+    @Test
+    void testChunkBoundariesDoNotChangeTheResult() {
+        byte[] bytes = sampleBook().getBytes(StandardCharsets.UTF_8);
+        List<Page> expected = new ArrayList<>();
+        StreamingBookParser whole = new StreamingBookParser(expected::add);
+        whole.append(bytes, 0, bytes.length);
+        String expectedHash = whole.finish();
+
+        for (int chunkSize : new int[]{1, 2, 3, 5, 64, 1000}) {
+            List<Page> pages = new ArrayList<>();
+            StreamingBookParser parser = new StreamingBookParser(pages::add);
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                parser.append(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+            }
+            assertEquals(expectedHash, parser.finish(), "chunk size " + chunkSize);
+            assertEquals(expected.size(), pages.size());
+            for (int i = 0; i < pages.size(); i++) {
+                assertEquals(expected.get(i).getContent(), pages.get(i).getContent());
+                assertEquals(i + 1, pages.get(i).getPageNumber());
+            }
+        }
+    }
+
+    @Test
+    void testFirstLineWithoutAuthorIsSkipped() {
+        List<Page> pages = new ArrayList<>();
+        StreamingBookParser parser = new StreamingBookParser(pages::add);
+        byte[] bytes = "عنوان\nنص الصفحة\n".getBytes(StandardCharsets.UTF_8);
+
+        parser.append(bytes, 0, bytes.length);
+        parser.finish();
+
+        assertNull(parser.getIdauthor());
+        assertEquals(1, pages.size());
+        assertEquals("نص الصفحة", pages.get(0).getContent());
+    }
+
+    @Test
+    void testLineLongerThanTheLimitFailsTheParse() {
+        List<Page> pages = new ArrayList<>();
+        StreamingBookParser parser = new StreamingBookParser(pages::add, 8);
+        byte[] first = "a\n12345678\n1234".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "56789".getBytes(StandardCharsets.UTF_8);
+
+        parser.append(first, 0, first.length);
+        assertThrows(IllegalArgumentException.class, () -> parser.append(second, 0, second.length),
+                "A line spanning chunks is limited as a whole");
+    }
+}
@@ -0,0 +1,61 @@
+package test;
+
+import dto.PageEdit;
+import dto.PagePatch;
+import org.junit.jupiter.api.*;
+import util.TextDiff;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextDiffTest {
+
+    @Test
+    void testSingleKeystrokeIsOneSmallEdit() {
+        PageEdit edit = TextDiff.diff("العلم نور", "العلم نورٌ");
+
+        assertEquals(9, edit.getOffset());
+        assertEquals(0, edit.getDeleteLength());
+        assertEquals("ٌ", edit.getInsert());
+    }
+
+    @Test
+    void testPatchReproducesEditedText() {
+        String before = "طلب العلم فريضة على كل مسلم";
+        String after = "طلب المعرفة فريضة على كل إنسان";
+
+        PageEdit edit = TextDiff.diff(before, after);
+
+        assertEquals(after, new PagePatch(1, 1, 0, List.of(edit)).applyTo(before));
+        assertNull(TextDiff.diff(after, after));
+    }
+
+    @Test
+    void testRejectsEditOutsideText() {
+        PagePatch patch = new PagePatch(1, 1, 0, List.of(new PageEdit(5, 10, "x")));
+
+        assertThrows(IllegalArgumentException.class, () -> patch.applyTo("short"));
+    }
+
+    @Test
+    void testRebaseKeepsBothNonOverlappingEdits() {
+        String base = "طلب العلم فريضة على كل مسلم";
+        String local = "طلب العلم النافع فريضة على كل مسلم";
+        String remote = "طلب العلم فريضة على كل إنسان";
+
+        assertEquals("طلب العلم النافع فريضة على كل إنسان", TextDiff.rebase(base, local, remote));
+        assertEquals("طلب العلم النافع فريضة على كل إنسان", TextDiff.rebase(base, remote, local));
+        assertEquals(remote, TextDiff.rebase(base, base, remote));
+        assertEquals(local, TextDiff.rebase(base, local, base));
+    }
+
+    @Test
+    void testRebaseRefusesOverlappingEdits() {
+        String base = "العلم نور";
+
+        assertNull(TextDiff.rebase(base, "العلم ضياء", "العلم شمس"));
+        assertNull(TextDiff.rebase(base, "العلم نور!", "العلم نور؟"), "Two inserts at the same place have no order");
+        assertEquals("العلم ضياء", TextDiff.rebase(base, "العلم ضياء", "العلم ضياء"));
+    }
+}
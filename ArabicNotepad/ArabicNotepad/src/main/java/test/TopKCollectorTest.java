@@ -0,0 +1,66 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.TopKCollector;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKCollectorTest {
+
+    @Test
+    void testKeepsHighestScoresInDescendingOrder() {
+        TopKCollector<String> collector = new TopKCollector<>(3);
+        collector.offer("a", 1.0);
+        collector.offer("b", 5.0);
+        collector.offer("c", 3.0);
+        collector.offer("d", 4.0);
+        collector.offer("e", 2.0);
+
+        List<TopKCollector.Scored<String>> top = collector.toSortedList();
+        assertEquals(3, top.size(), "Only k entries should be retained");
+        assertEquals("b", top.get(0).getItem());
+        assertEquals("d", top.get(1).getItem());
+        assertEquals("c", top.get(2).getItem());
+    }
+
+    @Test
+    void testFewerCandidatesThanK() {
+        TopKCollector<String> collector = new TopKCollector<>(20);
+        collector.offer("only", -1.5);
+
+        List<TopKCollector.Scored<String>> top = collector.toSortedList();
+        assertEquals(1, top.size(), "All candidates should be returned when fewer than k");
+        assertEquals(-1.5, top.get(0).getScore(), 0.0);
+    }
+
+    @Test
+    void testRejectsNaNAndLowScoresOnceFull() {
+        TopKCollector<String> collector = new TopKCollector<>(2);
+        assertFalse(collector.offer("nan", Double.NaN), "NaN scores should never be retained");
+        collector.offer("x", 10.0);
+        collector.offer("y", 9.0);
+        assertFalse(collector.wouldAccept(8.0), "Scores below the current minimum should be rejected");
+        assertTrue(collector.wouldAccept(9.5));
+    }
+
+    @Test
+    void testMatchesFullSort() {
+        Random random = new Random(42);
+        double[] scores = new double[1000];
+        TopKCollector<Integer> collector = new TopKCollector<>(25);
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextDouble();
+            collector.offer(i, scores[i]);
+        }
+
+        double[] sorted = scores.clone();
+        java.util.Arrays.sort(sorted);
+        List<TopKCollector.Scored<Integer>> top = collector.toSortedList();
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(sorted[sorted.length - 1 - i], top.get(i).getScore(), 0.0);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package test;
+
+import dto.Book;
+import dto.Page;
+import org.junit.jupiter.api.*;
+import util.TransliterationUtil;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransliterationUtilTest {
+
+    private static final String ALPHABET = "ابتثجحخدذرزسشصضطظعغفقكلمنهويءةىؤئأإآ"
+            + "ًٌٍَُِّْٕٓٔـ"
+            + " \n.،abc1";
+
+    private final TransliterationUtil util = TransliterationUtil.getInstance();
+
+    @Test
+    void testMatchesIcuRulesOnRandomText() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            String input = text.toString();
+            assertEquals(util.translateToRomanEnglishWithIcu(input), util.translateToRomanEnglish(input),
+                    "Table-driven transliteration should match ICU for: " + input);
+        }
+    }
+
+    @Test
+    void testDiacriticDigraphsAndHamza() {
+        assertEquals("u", util.translateToRomanEnglish("اُ"));
+        assertEquals("i", util.translateToRomanEnglish("ئِ"));
+        assertEquals("'", util.translateToRomanEnglish("ء"));
+    }
+
+    @Test
+    void testTransliterateBookStreamsEveryPage() throws IOException {
+        List<Page> pages = new ArrayList<>();
+        pages.add(new Page(1, 1, 1, "كتاب"));
+        pages.add(new Page(2, 1, 2, "قلم"));
+        Book book = new Book(1, "Book Title", "hash123", "author1", pages);
+
+        StringWriter writer = new StringWriter();
+        util.transliterateBook(book, writer);
+
+        assertEquals("ktab\n\nqlm\n\n", writer.toString());
+    }
+}
@@ -0,0 +1,162 @@
+package test;
+
+import bl.BookUpload;
+import common.UploadManager;
+import dao.InMemoryBookDAO;
+import dao.StreamingBookParser;
+import dto.Book;
+import dto.BookSummary;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadManagerTest {
+
+    private final AtomicInteger closedUploads = new AtomicInteger();
+    private final InMemoryBookDAO bookDAO = new InMemoryBookDAO();
+    private UploadManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new UploadManager(4, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    void testChunksMustArriveInSequenceAndResentChunkIsIgnored() {
+        byte[][] chunks = chunks(sampleBook(), 3);
+        long id = manager.register(upload("new book"));
+
+        manager.append(id, 0, chunks[0]);
+        manager.append(id, 0, chunks[0]);
+        assertThrows(IllegalStateException.class, () -> manager.append(id, 2, chunks[2]));
+        manager.append(id, 1, chunks[1]);
+        manager.append(id, 1, chunks[1]);
+        manager.append(id, 2, chunks[2]);
+        BookSummary summary = manager.commit(id);
+
+        assertNotNull(summary);
+        Book book = bookDAO.getBookByName("new book");
+        assertEquals(2, book.getPages().size(), "Resent chunks must not add pages twice");
+        assertEquals(hashOf(sampleBook()), book.getHash());
+        assertEquals("author7", book.getIdauthor());
+        assertEquals(0, manager.size());
+        assertEquals(1, closedUploads.get());
+        assertThrows(IllegalStateException.class, () -> manager.append(id, 3, chunks[0]));
+    }
+
+    @Test
+    void testSecondUploadOfSameTitleIsRefused() {
+        manager.register(upload("same title"));
+
+        assertThrows(IllegalStateException.class, () -> manager.register(upload("same title")));
+
+        assertEquals(1, manager.size());
+        assertEquals(1, closedUploads.get(), "The refused upload is closed");
+    }
+
+    @Test
+    void testAbortDeletesWhatWasStored() {
+        long id = manager.register(upload("aborted"));
+        manager.append(id, 0, sampleBook());
+        assertFalse(bookDAO.getBookByName("aborted").getPages().isEmpty(), "Complete pages are stored as they arrive");
+
+        manager.abort(id);
+
+        assertNull(bookDAO.getBookByName("aborted"));
+        assertEquals(0, manager.size());
+        assertEquals(1, closedUploads.get());
+    }
+
+    @Test
+    void testIdleUploadIsAbortedAndDeleted() throws InterruptedException {
+        manager.shutdown();
+        manager = new UploadManager(4, 50);
+        long id = manager.register(upload("idle"));
+        manager.append(id, 0, sampleBook());
+        assertNotNull(bookDAO.getBookByName("idle"));
+
+        waitUntil(() -> manager.size() == 0);
+
+        assertNull(bookDAO.getBookByName("idle"));
+        assertEquals(1, closedUploads.get());
+        assertThrows(IllegalStateException.class, () -> manager.append(id, 1, sampleBook()));
+    }
+
+    @Test
+    void testDuplicateContentIsDeletedOnCommit() {
+        bookDAO.addBook(new Book(0, "original", hashOf(sampleBook()), "author7", new ArrayList<>()), false);
+        long id = manager.register(upload("copy"));
+        manager.append(id, 0, sampleBook());
+
+        assertNull(manager.commit(id));
+
+        assertNull(bookDAO.getBookByName("copy"));
+        assertNotNull(bookDAO.getBookByName("original"));
+        assertEquals(1, closedUploads.get());
+    }
+
+    @Test
+    void testOverlongLineAbortsTheUpload() {
+        long id = manager.register(upload("one line"));
+        manager.append(id, 0, sampleBook());
+        byte[] chunk = new byte[UploadManager.MAX_CHUNK_BYTES];
+        Arrays.fill(chunk, (byte) 'x');
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            for (int sequence = 1; sequence <= StreamingBookParser.MAX_LINE_CHARS / chunk.length + 1; sequence++) {
+                manager.append(id, sequence, chunk);
+            }
+        });
+
+        assertNull(bookDAO.getBookByName("one line"), "What was stored before the long line is deleted");
+        assertEquals(0, manager.size());
+        assertEquals(1, closedUploads.get());
+    }
+
+    private BookUpload upload(String title) {
+        return new BookUpload(bookDAO, title, "default-author", () -> { }, closedUploads::incrementAndGet);
+    }
+
+    // 25 lines: the first page is complete, and stored, before the upload is committed.
+    private static byte[] sampleBook() {
+        StringBuilder text = new StringBuilder("**idauthor**: author7\n");
+        for (int i = 1; i <= 25; i++) {
+            text.append("السطر رقم ").append(i).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] chunks(byte[] bytes, int count) {
+        byte[][] chunks = new byte[count][];
+        int size = (bytes.length + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            chunks[i] = Arrays.copyOfRange(bytes, Math.min(bytes.length, i * size), Math.min(bytes.length, (i + 1) * size));
+        }
+        return chunks;
+    }
+
+    private static String hashOf(byte[] bytes) {
+        StreamingBookParser parser = new StreamingBookParser(page -> { });
+        parser.append(bytes, 0, bytes.length);
+        return parser.finish();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not reached within 5 seconds");
+    }
+}
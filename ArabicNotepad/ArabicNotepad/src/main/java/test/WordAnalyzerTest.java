@@ -0,0 +1,77 @@
+package test;
+
+import org.junit.jupiter.api.*;
+import util.WordAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WordAnalyzerTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @Test
+    void testBatchLooksUpEachDistinctWordOnceInOrder() {
+        WordAnalyzer analyzer = new WordAnalyzer(this::lookup);
+
+        Map<String, String> results = analyzer.analyzeWords(List.of("قلم", "كتاب", "قلم", "كـتاب", ""));
+
+        assertEquals(List.of("قلم", "كتاب", "كـتاب", ""), new ArrayList<>(results.keySet()));
+        assertEquals("Root: كتاب", results.get("كـتاب"), "Tatweel is ignored when looking a word up");
+        assertEquals("Error during analysis of word: ", results.get(""));
+        assertEquals(2, lookups.get());
+
+        assertEquals("Root: قلم", analyzer.analyzeWord("قلم"));
+        assertEquals(2, lookups.get(), "Batch results should be cached for single lookups");
+    }
+
+    @Test
+    void testConcurrentCallersNeverOverlapInTheAnalyzer() throws Exception {
+        WordAnalyzer analyzer = new WordAnalyzer(this::lookup);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int caller = t;
+                calls.add(callers.submit(() -> {
+                    List<String> words = new ArrayList<>();
+                    for (int i = 0; i < 20; i++) {
+                        words.add("كلمة" + caller + "-" + i);
+                    }
+                    analyzer.analyzeWords(words);
+                    analyzer.analyzeWord("قلم" + caller);
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(84, lookups.get());
+        assertEquals(1, maxActive.get(), "Only one caller at a time may be inside the analyzer");
+    }
+
+    private String lookup(String word) {
+        lookups.incrementAndGet();
+        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        active.decrementAndGet();
+        return "Root: " + word;
+    }
+}
@@ -1,8 +1,12 @@
 package ui;
 
+import dto.BookChangeEvent;
+import dto.JobStatus;
 import java.rmi.Remote;
 import java.rmi.RemoteException;
 
 public interface ArabicNotepadClient extends Remote {
     void onRegisterClient(boolean result)throws RemoteException;
+    void onBookChanged(BookChangeEvent event) throws RemoteException;
+    void onJobUpdate(JobStatus status) throws RemoteException;
 }
@@ -33,6 +33,7 @@ public class ArabicNotepadUI extends JFrame {
     private static final Logger logger = LoggerFactory.getLogger(ArabicNotepadUI.class);
     private final JPanel mainPanel;
     private final JTextField searchBar;
+    private final SearchController searchController;
     private final JTable bookTable;
     private final BookFacade bookFacade;
     private final BookTableModel bookTableModel;
@@ -71,6 +72,7 @@ public class ArabicNotepadUI extends JFrame {
         bookTableModel = new BookTableModel();
         bookTable = createBookTable();
         searchBar = createSearchBar();
+        searchController = createSearchController();
 
         searchBar.getDocument().addDocumentListener(new DocumentListener() {
             @Override
@@ -92,6 +94,9 @@ public class ArabicNotepadUI extends JFrame {
         mainPanel.add(createTopPanel(), BorderLayout.NORTH);
         mainPanel.add(createCenterPanel(), BorderLayout.CENTER);
         assembleStatusPanel();
+        bookFacade.addConnectionListener(connected -> setStatus(connected
+                ? "Database connection restored."
+                : "Database unreachable; changes will be saved to local storage."));
 
         setContentPane(mainPanel);
         helperRefreshBookList();
@@ -99,42 +104,38 @@ public class ArabicNotepadUI extends JFrame {
         setVisible(true);
     }
 
-    private void handleSearchUpdate() {
-        String searchText = searchBar.getText().trim();
-
-        if (searchText.isEmpty()) {
-            if (!isRefreshing) {
-                helperRefreshBookList();
+    private SearchController createSearchController() {
+        return new SearchController(bookFacade::searchBooksByContent, new SearchController.Listener() {
+            @Override
+            public void onSearchStarted(String text) {
+                setStatus("Searching...");
             }
-        } else {
-            performSearch(searchText);
-        }
-    }
-
-    private void performSearch(String searchText) {
-        setStatus("Searching...");
 
-        SwingWorker<List<String>, Void> worker = new SwingWorker<>() {
             @Override
-            protected List<String> doInBackground() {
-                return bookFacade.searchBooksByContent(searchText);
+            public void onResults(String text, List<String> results) {
+                bookTableModel.setSearchResults(results);
+                setStatus("Search completed. " + results.size() + " result(s) found.");
             }
 
             @Override
-            protected void done() {
-                try {
-                    List<String> searchResults = get();
-                    bookTableModel.setSearchResults(searchResults);
-                    setStatus("Search completed. " + searchResults.size() + " result(s) found.");
-                } catch (InterruptedException | ExecutionException ex) {
-                    setStatus("Error during search: " + ex.getMessage());
-                    logger.error("Error during search", ex);
+            public void onCleared() {
+                if (!isRefreshing) {
+                    helperRefreshBookList();
                 }
             }
-        };
-        worker.execute();
+
+            @Override
+            public void onError(String text, Exception error) {
+                setStatus("Error during search: " + error.getMessage());
+                logger.error("Error during search", error);
+            }
+        });
     }
 
+    private void handleSearchUpdate() {
+        searchController.textChanged(searchBar.getText());
+    }
+    
     private void assembleStatusPanel() {
         progressBar = new JProgressBar();
         progressBar.setStringPainted(true);
@@ -159,6 +160,7 @@ public class ArabicNotepadUI extends JFrame {
         buttonsPanel.add(createButton("Import", this::onImportBookAction));
         buttonsPanel.add(createButton("Create", this::onCreateBookAction));
         buttonsPanel.add(createButton("Analyze", this::onAnalyzeBookAction));
+        buttonsPanel.add(createButton("Analyze Library", this::onAnalyzeLibraryAction));
         buttonsPanel.add(createButton("Delete", this::onDeleteBookAction));
         buttonsPanel.add(createButton("Export", this::onExportBookAction));
 
@@ -351,6 +353,59 @@ public class ArabicNotepadUI extends JFrame {
         }
     }
 
+    private void onAnalyzeLibraryAction(ActionEvent e) {
+        String[] analysisOptions = {
+            "Paper: Mining Quality Phrases from Massive Text Corpora",
+            "PMI: Pointwise Mutual Information",
+            "PKL: Point-wise Kullback-Leibler Divergence"
+        };
+        String selectedOption = (String) JOptionPane.showInputDialog(
+            this,
+            "Choose an analysis method for the whole library:",
+            "Analyze Library",
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            analysisOptions,
+            analysisOptions[0]
+        );
+        if (selectedOption == null) {
+            return;
+        }
+
+        String analysisMethod = selectedOption.split(":")[0].trim();
+        setStatus("Performing library analysis: " + analysisMethod);
+        progressBar.setIndeterminate(true);
+
+        SwingWorker<String, Void> worker = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                return bookFacade.performCorpusAnalysis(analysisMethod);
+            }
+
+            @Override
+            protected void done() {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(0);
+                try {
+                    String result = get();
+                    setStatus("Library analysis complete: " + analysisMethod);
+                    JTextArea resultArea = new JTextArea(result, 20, 50);
+                    resultArea.setEditable(false);
+                    JOptionPane.showMessageDialog(ArabicNotepadUI.this, new JScrollPane(resultArea),
+                            "Library Analysis Result (" + analysisMethod + ")", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException ex) {
+                    setStatus("Error during library analysis: " + ex.getMessage());
+                    logger.error("Error performing library analysis", ex);
+                    JOptionPane.showMessageDialog(ArabicNotepadUI.this,
+                            "An error occurred during library analysis: " + ex.getMessage(),
+                            "Analysis Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
     private void performBatchAnalysis(List<Book> foundBooks, String analysisMethod) {
         setStatus("Performing analysis: " + analysisMethod);
         progressBar.setIndeterminate(true);
@@ -470,6 +525,7 @@ public class ArabicNotepadUI extends JFrame {
     }
 
     public final void helperRefreshBookList() {
+        searchController.invalidate();
         if (!isRefreshing) {
             refreshBookList();
         }
@@ -0,0 +1,196 @@
+package ui;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.swing.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Saves edited pages in the background. Edits mark a page dirty and restart
+ * an idle timer; when typing pauses, the dirty pages and a snapshot of the
+ * document, taken on the event dispatch thread, are handed to a single
+ * writer thread, so saves never run on the event dispatch thread and never
+ * read state the UI is still changing. Pages that change again before the
+ * writer gets to them are merged, and only their latest content and the
+ * latest snapshot are saved. A save that fails or returns false is retried
+ * after a delay that doubles with every failure, from
+ * {@code ui.autosave.retry.ms} up to {@code ui.autosave.retry.max.ms}; edits
+ * made meanwhile go out with the retry. {@link #awaitSaved} tells a closing
+ * window whether anything is still unsaved. {@link #markDirty} and
+ * {@link #flush} must be called on the event dispatch thread.
+ *
+ * @param <S> the snapshot type
+ */
+public class AutosaveEngine<S> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutosaveEngine.class);
+
+    static final int IDLE_MILLIS = Integer.getInteger("ui.autosave.idle.ms", 500);
+    static final long RETRY_MILLIS = Long.getLong("ui.autosave.retry.ms", 1_000L);
+    static final long MAX_RETRY_MILLIS = Long.getLong("ui.autosave.retry.max.ms", 30_000L);
+
+    public interface Saver<S> {
+        /**
+         * Stores the latest content of the given pages, keyed by page index,
+         * using a snapshot taken when they were handed over. Returns false
+         * if nothing was stored.
+         */
+        boolean save(Map<Integer, String> pages, S snapshot) throws Exception;
+    }
+
+    private final Supplier<S> snapshots;
+    private final Saver<S> saver;
+    private final Timer idle;
+    private final ScheduledExecutorService writer;
+    // Edits not yet handed to the writer. Only used on the event dispatch thread.
+    private final Map<Integer, String> dirty = new LinkedHashMap<>();
+    // Handed over but not yet stored; guarded by itself, which is also the
+    // monitor awaitSaved waits on.
+    private final Map<Integer, String> pending = new LinkedHashMap<>();
+    private S pendingSnapshot;
+    private boolean writeScheduled;
+    private boolean writing;
+    // Saves that failed in a row. Only used on the writer.
+    private int failures;
+
+    public AutosaveEngine(String name, Supplier<S> snapshots, Saver<S> saver) {
+        this(name, snapshots, saver, IDLE_MILLIS);
+    }
+
+    public AutosaveEngine(String name, Supplier<S> snapshots, Saver<S> saver, int idleMillis) {
+        this.snapshots = snapshots;
+        this.saver = saver;
+        this.idle = new Timer(idleMillis, e -> flush());
+        this.idle.setRepeats(false);
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "autosave-" + name));
+    }
+
+    public void markDirty(int pageIndex, String content) {
+        dirty.put(pageIndex, content);
+        idle.restart();
+    }
+
+    /** Hands every dirty page to the writer now instead of waiting for the idle window. */
+    public void flush() {
+        idle.stop();
+        boolean edited = !dirty.isEmpty();
+        S snapshot = edited ? snapshots.get() : null;
+        synchronized (pending) {
+            pending.putAll(dirty);
+            dirty.clear();
+            if (edited) {
+                pendingSnapshot = snapshot;
+            }
+            // Without new edits this still writes pages left over from a failed save.
+            if (pending.isEmpty() || writeScheduled) {
+                return;
+            }
+            writeScheduled = true;
+        }
+        try {
+            writer.execute(this::writePending);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Autosave already closed; dropping unsaved pages");
+        }
+    }
+
+    /** Runs a task on the writer, ordered after the saves already handed to it. */
+    public void submit(Runnable task) {
+        flush();
+        writer.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Autosave task failed", e);
+            }
+        });
+    }
+
+    /**
+     * Waits until every page handed to the writer has been stored, for at
+     * most {@code timeoutMillis}. Returns false if some are still unsaved,
+     * for example because saves keep failing. Call {@link #flush} first to
+     * include the latest edits; must not be called on the event dispatch
+     * thread.
+     */
+    public boolean awaitSaved(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (pending) {
+            while (writing || !pending.isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                pending.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Flushes pending changes and lets the writer finish them before it
+     * stops. A save that fails after this is not retried.
+     */
+    public void close() {
+        flush();
+        writer.shutdown();
+    }
+
+    private void writePending() {
+        Map<Integer, String> batch;
+        S snapshot;
+        synchronized (pending) {
+            batch = new LinkedHashMap<>(pending);
+            snapshot = pendingSnapshot;
+            pending.clear();
+            pendingSnapshot = null;
+            writeScheduled = false;
+            writing = true;
+        }
+        boolean saved = false;
+        try {
+            saved = saver.save(batch, snapshot);
+            if (!saved) {
+                logger.error("Autosave of pages {} was not stored", batch.keySet());
+            }
+        } catch (Exception e) {
+            logger.error("Autosave of pages {} failed", batch.keySet(), e);
+        }
+        synchronized (pending) {
+            writing = false;
+            if (saved) {
+                failures = 0;
+                logger.debug("Autosaved pages {}", batch.keySet());
+            } else {
+                // A newer edit of the same page, or a newer snapshot, supersedes the failed one.
+                batch.forEach(pending::putIfAbsent);
+                if (pendingSnapshot == null) {
+                    pendingSnapshot = snapshot;
+                }
+                scheduleRetry();
+            }
+            pending.notifyAll();
+        }
+    }
+
+    // Called on the writer, holding the pending lock.
+    private void scheduleRetry() {
+        long delay = Math.min(MAX_RETRY_MILLIS, RETRY_MILLIS << Math.min(failures++, 20));
+        if (writeScheduled) {
+            return;
+        }
+        try {
+            writer.schedule(this::writePending, delay, TimeUnit.MILLISECONDS);
+            writeScheduled = true;
+            logger.info("Retrying autosave of pages {} in {} ms", pending.keySet(), delay);
+        } catch (RejectedExecutionException e) {
+            logger.error("Autosave closed; pages {} were not saved", pending.keySet());
+        }
+    }
+}
@@ -2,6 +2,9 @@ package ui;
 
 import dto.Book;
 import dto.Page;
+import dto.PageEdit;
+import dto.PagePatch;
+import dto.PagePatchResult;
 import bl.BookFacade;
 
 import javax.swing.*;
@@ -9,10 +12,25 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.InBookSearchIndex;
+import util.IncrementalBookAnalyzer;
+import util.TextDiff;
+import util.TopKCollector;
 
 public class BookUI extends JFrame {
 
@@ -26,14 +44,44 @@ public class BookUI extends JFrame {
     private JTextField searchField;
     private int currentPageIndex;
     private JLabel pageNumberLabel;
+    private JTextField pageField;
+    private PageViewer pageViewer;
+    private final IncrementalBookAnalyzer liveAnalyzer = new IncrementalBookAnalyzer();
+    private final ExecutorService liveAnalysisExecutor = Executors.newSingleThreadExecutor();
+    private final AutosaveEngine<Book> autosave;
+    // Text and version each page was last saved at, by page id. Only used on the autosave writer.
+    private final Map<Integer, String> savedContent = new HashMap<>();
+    private final Map<Integer, Long> savedVersions = new HashMap<>();
+    private static final int CLOSE_WAIT_MILLIS = Integer.getInteger("ui.autosave.close.wait.ms", 5_000);
+    private boolean closing;
+    // Built and queried on searchExecutor, so searches see every earlier page update.
+    private final InBookSearchIndex searchIndex = new InBookSearchIndex();
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private static final Highlighter.HighlightPainter MATCH_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 240, 120));
+    private static final Highlighter.HighlightPainter CURRENT_MATCH_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 170, 40));
+    private List<InBookSearchIndex.Match> matches = List.of();
+    private Map<Integer, List<Integer>> matchesByPage = Map.of();
+    private int currentMatch = -1;
+    private JLabel matchLabel;
 
     public BookUI(Book book, BookFacade bookFacade) {
         this.bookFacade = bookFacade;
         this.book = book;
+        this.autosave = new AutosaveEngine<>(book.getTitle(), this::snapshotBook, this::savePages);
+        if (book.getPages() == null) {
+            book.setPages(new ArrayList<>());
+        }
+        for (Page page : book.getPages()) {
+            savedContent.put(page.getId(), page.getContent());
+            savedVersions.put(page.getId(), page.getVersion());
+        }
 
         this.currentPageIndex = 0;
         initializeUI();
         loadContent();
+        List<String> contents = book.getPages().stream().map(Page::getContent).toList();
+        liveAnalysisExecutor.execute(() -> liveAnalyzer.loadPages(book.getTitle(), contents));
+        searchExecutor.execute(() -> searchIndex.load(contents));
         logger.info("BookUI initialized for book: {}", book.getTitle());
     }
 
@@ -42,7 +90,18 @@ public class BookUI extends JFrame {
         setLayout(new BorderLayout());
         setSize(800, 600);
         setLocationRelativeTo(null);
-        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeWhenSaved();
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                autosave.close();
+            }
+        });
 
         JPanel topPanel = createTopPanel();
         add(topPanel, BorderLayout.NORTH);
@@ -62,22 +121,34 @@ public class BookUI extends JFrame {
 
         searchField = new JTextField(20);
         JButton searchButton = new JButton("Search");
+        JButton previousMatchButton = new JButton("▲");
+        JButton nextMatchButton = new JButton("▼");
+        matchLabel = new JLabel();
+        searchField.addActionListener(e -> performSearch());
         searchButton.addActionListener(e -> performSearch());
+        previousMatchButton.addActionListener(e -> showMatch(currentMatch - 1));
+        nextMatchButton.addActionListener(e -> showMatch(currentMatch + 1));
 
         JButton exportButton = new JButton("Export");
         JButton transliterateButton = new JButton("Transliterate");
         JButton analyzeWordButton = new JButton("Analyze");
+        JButton liveAnalysisButton = new JButton("Live Analysis");
         
 
         exportButton.addActionListener(this::handleExport);
         transliterateButton.addActionListener(this::handleTransliterate);
         analyzeWordButton.addActionListener(this::handleAnalyzeWord); 
+        liveAnalysisButton.addActionListener(this::handleLiveAnalysis);
 
         topPanel.add(searchField);
         topPanel.add(searchButton);
+        topPanel.add(previousMatchButton);
+        topPanel.add(nextMatchButton);
+        topPanel.add(matchLabel);
         topPanel.add(exportButton);
         topPanel.add(transliterateButton);
         topPanel.add(analyzeWordButton);
+        topPanel.add(liveAnalysisButton);
 
         return topPanel;
     }
@@ -98,7 +169,20 @@ public class BookUI extends JFrame {
             }
         });
 
-        contentPanel.add(textArea, BorderLayout.CENTER);
+        pageViewer = new PageViewer(textArea, book.getPages(), new PageViewer.Listener() {
+            @Override
+            public void onPageLoading(int index, int pageCount) {
+                pageNumberLabel.setText(String.format("Loading page %d of %d...", index + 1, pageCount));
+            }
+
+            @Override
+            public void onPageShown(int index, int pageCount) {
+                pageNumberLabel.setText(String.format("Page %d of %d", index + 1, pageCount));
+                highlightMatches(index);
+            }
+        });
+
+        contentPanel.add(new JScrollPane(textArea), BorderLayout.CENTER);
         return contentPanel;
     }
 
@@ -107,24 +191,28 @@ public class BookUI extends JFrame {
 
         leftButton = new JButton("←");
         rightButton = new JButton("→");
-        pageNumberLabel = new JLabel("Page 1 of " + (book.getPages() != null ? book.getPages().size() : 0));
+        pageNumberLabel = new JLabel("Page 1 of " + book.getPages().size());
+        pageField = new JTextField(4);
+        JButton goButton = new JButton("Go");
 
         leftButton.addActionListener(e -> navigatePages(-1));
         rightButton.addActionListener(e -> navigatePages(1));
+        pageField.addActionListener(this::handleJumpToPage);
+        goButton.addActionListener(this::handleJumpToPage);
 
         navigationPanel.add(leftButton);
         navigationPanel.add(pageNumberLabel);
         navigationPanel.add(rightButton);
+        navigationPanel.add(pageField);
+        navigationPanel.add(goButton);
 
         return navigationPanel;
     }
 
     private void loadContent() {
         List<Page> pages = book.getPages();
-        if (pages != null && !pages.isEmpty() && currentPageIndex < pages.size()) {
-            Page currentPage = pages.get(currentPageIndex);
-            textArea.setText(currentPage.getContent());
-            pageNumberLabel.setText(String.format("Page %d of %d", currentPageIndex + 1, pages.size()));
+        if (!pages.isEmpty() && currentPageIndex < pages.size()) {
+            pageViewer.showPage(currentPageIndex);
             logger.info("Loaded content for page {} of book '{}'", currentPageIndex + 1, book.getTitle());
         } else {
             textArea.setText("");
@@ -140,26 +228,96 @@ public class BookUI extends JFrame {
         logger.info("Navigated to page {} of book '{}'", currentPageIndex + 1, book.getTitle());
     }
 
+    private void handleJumpToPage(ActionEvent e) {
+        int pageCount = book.getPages().size();
+        int pageNumber;
+        try {
+            pageNumber = Integer.parseInt(pageField.getText().trim());
+        } catch (NumberFormatException ex) {
+            pageNumber = 0;
+        }
+        if (pageNumber < 1 || pageNumber > pageCount) {
+            JOptionPane.showMessageDialog(this, "Enter a page number between 1 and " + pageCount + ".",
+                    "Go to Page", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        currentPageIndex = pageNumber - 1;
+        loadContent();
+        logger.info("Jumped to page {} of book '{}'", pageNumber, book.getTitle());
+    }
+
     private void updateNavigationState() {
         List<Page> pages = book.getPages();
         leftButton.setEnabled(currentPageIndex > 0);
-        rightButton.setEnabled(pages != null && currentPageIndex < pages.size() - 1);
+        rightButton.setEnabled(currentPageIndex < pages.size() - 1);
     }
 
     private void performSearch() {
         String searchTerm = searchField.getText().trim();
-        List<Page> pages = book.getPages();
-        if (!searchTerm.isEmpty() && pages != null) {
-            for (int i = 0; i < pages.size(); i++) {
-                if (pages.get(i).getContent().contains(searchTerm)) {
-                    currentPageIndex = i;
-                    loadContent();
-                    logger.info("Search term '{}' found on page {} of book '{}'", searchTerm, currentPageIndex + 1, book.getTitle());
-                    return;
-                }
+        if (searchTerm.isEmpty()) {
+            setMatches(searchTerm, List.of());
+            return;
+        }
+        searchExecutor.execute(() -> {
+            List<InBookSearchIndex.Match> found = searchIndex.search(searchTerm);
+            SwingUtilities.invokeLater(() -> setMatches(searchTerm, found));
+        });
+    }
+
+    private void setMatches(String searchTerm, List<InBookSearchIndex.Match> found) {
+        matches = found;
+        matchesByPage = new LinkedHashMap<>();
+        for (int i = 0; i < found.size(); i++) {
+            matchesByPage.computeIfAbsent(found.get(i).getPageIndex(), page -> new ArrayList<>()).add(i);
+        }
+        currentMatch = -1;
+        if (found.isEmpty()) {
+            matchLabel.setText("");
+            highlightMatches(pageViewer.getShownIndex());
+            if (!searchTerm.isEmpty()) {
+                logger.warn("Search term '{}' not found in book '{}'", searchTerm, book.getTitle());
+                JOptionPane.showMessageDialog(this, "No matches found.", "Search", JOptionPane.INFORMATION_MESSAGE);
+            }
+            return;
+        }
+        logger.info("Search term '{}' found {} times in book '{}'", searchTerm, found.size(), book.getTitle());
+        showMatch(0);
+    }
+
+    private void showMatch(int index) {
+        if (matches.isEmpty()) {
+            return;
+        }
+        currentMatch = Math.floorMod(index, matches.size());
+        matchLabel.setText(String.format("%d of %d", currentMatch + 1, matches.size()));
+        int page = matches.get(currentMatch).getPageIndex();
+        if (page == pageViewer.getShownIndex()) {
+            highlightMatches(page);
+        } else {
+            // The page's highlights are drawn once the viewer has shown it.
+            currentPageIndex = page;
+            loadContent();
+        }
+    }
+
+    private void highlightMatches(int pageIndex) {
+        Highlighter highlighter = textArea.getHighlighter();
+        highlighter.removeAllHighlights();
+        int length = textArea.getDocument().getLength();
+        for (int i : matchesByPage.getOrDefault(pageIndex, List.of())) {
+            InBookSearchIndex.Match match = matches.get(i);
+            // Offsets of a page edited since the search may run past its end.
+            if (match.getEnd() > length) {
+                continue;
+            }
+            try {
+                highlighter.addHighlight(match.getStart(), match.getEnd(), i == currentMatch ? CURRENT_MATCH_PAINTER : MATCH_PAINTER);
+            } catch (BadLocationException e) {
+                logger.warn("Cannot highlight {}", match, e);
+            }
+            if (i == currentMatch) {
+                textArea.setCaretPosition(match.getStart());
             }
-            logger.warn("Search term '{}' not found in book '{}'", searchTerm, book.getTitle());
-            JOptionPane.showMessageDialog(this, "No matches found.", "Search", JOptionPane.INFORMATION_MESSAGE);
         }
     }
 
@@ -204,27 +362,184 @@ public class BookUI extends JFrame {
     }
 }
 
-    private void handleRealTimeContentUpdate() {
-        List<Page> pages = book.getPages();
-        if (pages == null) {
-            pages = new ArrayList<>();
-            book.setPages(pages);
+    private void handleLiveAnalysis(ActionEvent e) {
+        String[] analysisOptions = {
+            "Paper: Mining Quality Phrases from Massive Text Corpora",
+            "PMI: Pointwise Mutual Information",
+            "PKL: Point-wise Kullback-Leibler Divergence"
+        };
+        String selectedOption = (String) JOptionPane.showInputDialog(
+            this,
+            "Choose an analysis method:",
+            "Live Analysis",
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            analysisOptions,
+            analysisOptions[0]
+        );
+        if (selectedOption == null) {
+            return;
         }
 
+        String analysisMethod = selectedOption.split(":")[0].trim();
+        liveAnalysisExecutor.execute(() -> {
+            String result = liveAnalyzer.performAnalysis(analysisMethod, TopKCollector.DEFAULT_K);
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, result,
+                    "Live Analysis for '" + book.getTitle() + "'", JOptionPane.INFORMATION_MESSAGE));
+        });
+        logger.info("Requested live '{}' analysis for book '{}'", analysisMethod, book.getTitle());
+    }
+
+    private void handleRealTimeContentUpdate() {
+        List<Page> pages = book.getPages();
+        String text = textArea.getText();
         if (pages.isEmpty()) {
             Page newPage = new Page();
-            newPage.setContent(textArea.getText());
+            newPage.setContent(text);
             pages.add(newPage);
-            bookFacade.addPageByBookTitle(book.getTitle(), newPage);
-            logger.info("Added new page to book '{}'", book.getTitle());
-        } else if (currentPageIndex < pages.size()) {
-            Page currentPage = pages.get(currentPageIndex);
-            currentPage.setContent(textArea.getText());
-            bookFacade.updateBook(book);
-            logger.info("Updated content of page {} in book '{}'", currentPageIndex + 1, book.getTitle());
+            pageViewer.adoptShownDocument(0);
+            searchExecutor.execute(() -> searchIndex.updatePage(0, text));
+            updateNavigationState();
+            updateLiveAnalysis(0, text);
+            autosave.submit(() -> {
+                bookFacade.addPageByBookTitle(book.getTitle(), newPage);
+                logger.info("Added new page to book '{}'", book.getTitle());
+            });
+        } else if (pageViewer.getShownIndex() >= 0) {
+            int index = pageViewer.getShownIndex();
+            Page currentPage = pages.get(index);
+            if (!text.equals(currentPage.getContent())) {
+                currentPage.setContent(text);
+                updateLiveAnalysis(index, text);
+                autosave.markDirty(index, text);
+                searchExecutor.execute(() -> searchIndex.updatePage(index, text));
+            }
         }
     }
 
+    // Runs on the EDT when typing pauses, so the writer never reads pages the UI is changing.
+    private Book snapshotBook() {
+        List<Page> pages = book.getPages();
+        List<Page> snapshot = new ArrayList<>(pages.size());
+        for (Page page : pages) {
+            snapshot.add(new Page(page.getId(), page.getBookId(), page.getPageNumber(), page.getContent()));
+        }
+        return new Book(book.getId(), book.getTitle(), book.getHash(), book.getIdauthor(), snapshot);
+    }
+
+    /**
+     * Runs on the autosave writer. Each changed page is sent as a patch
+     * against the text last saved for it; this window's text wins over a
+     * concurrent change, as it did when the whole book was saved. Only if
+     * the store cannot patch pages, or a page has no id yet, is the whole
+     * book saved instead.
+     */
+    private boolean savePages(Map<Integer, String> changed, Book snapshot) {
+        List<Page> pages = snapshot.getPages();
+        for (int index : changed.keySet()) {
+            Page page = pages.get(index);
+            if (page.getId() <= 0 || !savedContent.containsKey(page.getId()) || !savePage(page)) {
+                return saveWholeBook(snapshot);
+            }
+        }
+        logger.info("Saved pages {} of book '{}'", changed.keySet(), book.getTitle());
+        return true;
+    }
+
+    private boolean savePage(Page page) {
+        int pageId = page.getId();
+        String base = savedContent.get(pageId);
+        long version = savedVersions.getOrDefault(pageId, 0L);
+        // One retry: after a conflict the page is diffed against the stored text.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            PageEdit edit = TextDiff.diff(base, page.getContent());
+            if (edit == null) {
+                return true;
+            }
+            PagePatchResult result = bookFacade.applyPagePatch(new PagePatch(book.getId(), pageId, version, List.of(edit)));
+            switch (result.getStatus()) {
+                case APPLIED -> {
+                    savedContent.put(pageId, page.getContent());
+                    savedVersions.put(pageId, result.getVersion());
+                    return true;
+                }
+                case CONFLICT -> {
+                    base = result.getContent();
+                    version = result.getVersion();
+                    savedContent.put(pageId, base);
+                    savedVersions.put(pageId, version);
+                }
+                case REJECTED -> {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean saveWholeBook(Book snapshot) {
+        for (Page page : snapshot.getPages()) {
+            page.setVersion(savedVersions.getOrDefault(page.getId(), 0L));
+        }
+        if (!bookFacade.updateBook(snapshot)) {
+            return false;
+        }
+        for (Page page : snapshot.getPages()) {
+            savedContent.put(page.getId(), page.getContent());
+            savedVersions.put(page.getId(), page.getVersion());
+        }
+        logger.info("Saved book '{}'", book.getTitle());
+        return true;
+    }
+
+    /**
+     * Saves the last edits before the window goes away. If they are still
+     * unsaved after ui.autosave.close.wait.ms, the user decides whether to
+     * close anyway or keep the window open while saving is retried.
+     */
+    private void closeWhenSaved() {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        autosave.flush();
+        new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() throws InterruptedException {
+                return autosave.awaitSaved(CLOSE_WAIT_MILLIS);
+            }
+
+            @Override
+            protected void done() {
+                closing = false;
+                boolean saved;
+                try {
+                    saved = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    saved = false;
+                }
+                if (saved || JOptionPane.showConfirmDialog(BookUI.this,
+                        "Some edits to '" + book.getTitle() + "' could not be saved yet.\n"
+                                + "Close anyway and lose them? Choose No to keep the window open while saving is retried.",
+                        "Unsaved edits", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
+                    dispose();
+                }
+            }
+        }.execute();
+    }
+
+    private void updateLiveAnalysis(int pageIndex, String content) {
+        liveAnalysisExecutor.execute(() -> liveAnalyzer.updatePage(pageIndex, content));
+    }
+
+    @Override
+    public void dispose() {
+        liveAnalysisExecutor.shutdownNow();
+        pageViewer.close();
+        searchExecutor.shutdownNow();
+        super.dispose();
+    }
+
     public static void showBook(Book book, BookFacade bookFacade) {
         if (book != null) {
             SwingUtilities.invokeLater(() -> {
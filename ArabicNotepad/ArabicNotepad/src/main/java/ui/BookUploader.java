@@ -0,0 +1,71 @@
+package ui;
+
+import common.RemoteBookFacade;
+import dto.BookSummary;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends a local book file to the server in fixed-size chunks, so the file is
+ * never read into memory whole and remote users can import files the server
+ * cannot see. A chunk whose call fails is resent once before the upload is
+ * given up and aborted on the server.
+ */
+final class BookUploader {
+
+    static final int CHUNK_BYTES = Integer.getInteger("client.upload.chunk.bytes", 64 * 1024);
+    private static final Logger logger = LoggerFactory.getLogger(BookUploader.class);
+
+    private BookUploader() {
+    }
+
+    /**
+     * Uploads the file under its name without ".txt", reporting bytes sent so
+     * far. Returns the stored book, or null if the server already has a book
+     * with the same content.
+     */
+    static BookSummary upload(RemoteBookFacade remoteFacade, File file, LongConsumer onProgress) throws IOException {
+        String title = file.getName().replace(".txt", "");
+        long uploadId = remoteFacade.openUpload(title);
+        boolean committed = false;
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[CHUNK_BYTES];
+            long sent = 0;
+            int sequence = 0;
+            int read;
+            while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                byte[] chunk = read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+                sendChunk(remoteFacade, uploadId, sequence++, chunk);
+                sent += read;
+                onProgress.accept(sent);
+            }
+            BookSummary summary = remoteFacade.commitUpload(uploadId);
+            committed = true;
+            return summary;
+        } finally {
+            if (!committed) {
+                try {
+                    remoteFacade.abortUpload(uploadId);
+                } catch (RemoteException e) {
+                    logger.warn("Could not abort upload of '{}'", title, e);
+                }
+            }
+        }
+    }
+
+    private static void sendChunk(RemoteBookFacade remoteFacade, long uploadId, int sequence, byte[] chunk) throws RemoteException {
+        try {
+            remoteFacade.uploadChunk(uploadId, sequence, chunk);
+        } catch (RemoteException e) {
+            logger.warn("Chunk {} of upload {} failed; resending once", sequence, uploadId, e);
+            remoteFacade.uploadChunk(uploadId, sequence, chunk);
+        }
+    }
+}
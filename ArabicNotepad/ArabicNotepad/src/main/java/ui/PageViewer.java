@@ -0,0 +1,155 @@
+package ui;
+
+import dto.Page;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.LruCache;
+
+/**
+ * Shows the pages of a book in a text area one at a time. Each page is
+ * decoded into its own document on a background thread, and a small window
+ * of documents around the current page is kept, so turning to a neighbour
+ * only swaps the text area's document instead of re-inserting the whole
+ * page on the event dispatch thread. A page that is not ready yet is shown
+ * as an empty read-only document until its decode finishes. The shown
+ * document is the page's live copy: edits made in it survive paging away
+ * and back while it stays in the window. All methods must be called on the
+ * event dispatch thread.
+ */
+public class PageViewer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageViewer.class);
+
+    static final int PREFETCH_RADIUS = Integer.getInteger("ui.pages.prefetch", 2);
+
+    public interface Listener {
+        /** The page is requested and its document is being prepared. */
+        void onPageLoading(int index, int pageCount);
+
+        void onPageShown(int index, int pageCount);
+    }
+
+    private final JTextArea textArea;
+    private final List<Page> pages;
+    private final Listener listener;
+    private final int radius;
+    private final LruCache<Integer, Document> window;
+    private final ExecutorService decoder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "page-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int requestedIndex = -1;
+    private int shownIndex = -1;
+
+    public PageViewer(JTextArea textArea, List<Page> pages, Listener listener) {
+        this(textArea, pages, listener, PREFETCH_RADIUS);
+    }
+
+    public PageViewer(JTextArea textArea, List<Page> pages, Listener listener, int radius) {
+        this.textArea = textArea;
+        this.pages = pages;
+        this.listener = listener;
+        this.radius = Math.max(0, radius);
+        // The pages on both sides plus the one being left behind.
+        this.window = new LruCache<>(2 * this.radius + 2);
+    }
+
+    /** Shows the page at the index, or jumps to it if it is far away. */
+    public void showPage(int index) {
+        if (index < 0 || index >= pages.size()) {
+            throw new IndexOutOfBoundsException("Page " + (index + 1) + " of " + pages.size());
+        }
+        requestedIndex = index;
+        Document document = window.get(index);
+        if (document != null) {
+            install(index, document);
+        } else {
+            shownIndex = -1;
+            textArea.setEditable(false);
+            textArea.setDocument(new PlainDocument());
+            listener.onPageLoading(index, pages.size());
+            decode(index, true);
+        }
+        prefetchAround(index);
+    }
+
+    /** Takes the text area's current document as the page at the index, e.g. a page just typed into an empty book. */
+    public void adoptShownDocument(int index) {
+        requestedIndex = index;
+        window.put(index, textArea.getDocument());
+        textArea.setEditable(true);
+        shownIndex = index;
+        listener.onPageShown(index, pages.size());
+    }
+
+    /** The page whose document is in the text area, or -1 while it is loading. */
+    public int getShownIndex() {
+        return shownIndex;
+    }
+
+    public int getRequestedIndex() {
+        return requestedIndex;
+    }
+
+    public void close() {
+        decoder.shutdownNow();
+    }
+
+    private void install(int index, Document document) {
+        shownIndex = index;
+        textArea.setDocument(document);
+        textArea.setCaretPosition(0);
+        textArea.setEditable(true);
+        listener.onPageShown(index, pages.size());
+    }
+
+    private void prefetchAround(int index) {
+        for (int distance = 1; distance <= radius; distance++) {
+            for (int neighbour : new int[]{index + distance, index - distance}) {
+                if (neighbour >= 0 && neighbour < pages.size() && window.get(neighbour) == null) {
+                    decode(neighbour, false);
+                }
+            }
+        }
+    }
+
+    private void decode(int index, boolean show) {
+        String content = pages.get(index).getContent();
+        try {
+            decoder.execute(() -> {
+                Document document = new PlainDocument();
+                try {
+                    document.insertString(0, content == null ? "" : content, null);
+                } catch (BadLocationException e) {
+                    logger.error("Failed to decode page {}", index + 1, e);
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> accept(index, document, show));
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Page viewer closed; not decoding page {}", index + 1);
+        }
+    }
+
+    private void accept(int index, Document document, boolean show) {
+        // A queued decode may finish after the page was already decoded and edited.
+        Document existing = window.get(index);
+        if (existing == null) {
+            window.put(index, document);
+            existing = document;
+        }
+        if (show && index == requestedIndex && shownIndex != index) {
+            install(index, existing);
+        }
+    }
+}
@@ -2,9 +2,13 @@ package ui;
 
 import config.RemoteConfig;
 import config.Environment;
+import common.BinaryBookFacadeClient;
 import common.RemoteBookFacade;
 import config.ConfigurationManagerRemote;
 import dto.Book;
+import dto.BookChangeEvent;
+import dto.BookSummary;
+import dto.JobStatus;
 import dto.Page;
 
 import javax.swing.*;
@@ -15,12 +19,18 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.rmi.Naming;
 import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
@@ -31,18 +41,22 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.util.logging.Level;
 
-public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient {
+public class RemoteArabicNotepadUI extends JFrame {
     
     private static final long serialVersionUID = 8213028181954831062L;
 
     private static final Logger logger = LoggerFactory.getLogger(RemoteArabicNotepadUI.class);
     private final JPanel mainPanel;
     private final JTextField searchBar;
+    private final SearchController searchController;
     private final JTable bookTable;
     private RemoteBookFacade remoteFacade;
+    private RemoteBookCache bookCache;
     private final BookTableModel bookTableModel;
     private final JLabel statusLabel;
     private JProgressBar progressBar;
+    private JButton cancelJobsButton;
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
 
     private ConfigurationManagerRemote configManager;
     private Environment currentEnvironment;
@@ -93,6 +107,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         bookTableModel = new BookTableModel();
         bookTable = createBookTable();
         searchBar = createSearchBar();
+        searchController = createSearchController();
 
         searchBar.getDocument().addDocumentListener(new DocumentListener() {
             @Override
@@ -119,74 +134,85 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         helperRefreshBookList();
         pack();
         setVisible(true);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                bookCache.close();
+                if (remoteFacade instanceof BinaryBookFacadeClient binaryClient) {
+                    binaryClient.close();
+                }
+            }
+        });
+        bookCache.addChangeListener(event -> {
+            searchController.invalidate();
+            if (event.getType() != BookChangeEvent.Type.UPDATED) {
+                SwingUtilities.invokeLater(this::helperRefreshBookList);
+            }
+        });
     }
 
     private void connectToRemoteBookFacade(RemoteConfig remoteConfig) throws Exception {
         try {
-            logger.info("Attempting to connect to RMI registry at {}:{}", 
-                        remoteConfig.getRmiHost(), 
-                        remoteConfig.getRmiPort());
-            Registry registry = LocateRegistry.getRegistry(
-                remoteConfig.getRmiHost(), 
-                remoteConfig.getRmiPort()
-            );
-            this.remoteFacade = (RemoteBookFacade) registry.lookup("RemoteBookFacade");
+            if (remoteConfig.isBinaryTransport()) {
+                logger.info("Attempting to connect to binary book server at {}:{}",
+                            remoteConfig.getRmiHost(),
+                            remoteConfig.getBinaryPort());
+                this.remoteFacade = new BinaryBookFacadeClient(remoteConfig.getRmiHost(), remoteConfig.getBinaryPort());
+            } else {
+                logger.info("Attempting to connect to RMI registry at {}:{}", 
+                            remoteConfig.getRmiHost(), 
+                            remoteConfig.getRmiPort());
+                Registry registry = LocateRegistry.getRegistry(
+                    remoteConfig.getRmiHost(), 
+                    remoteConfig.getRmiPort()
+                );
+                this.remoteFacade = (RemoteBookFacade) registry.lookup("RemoteBookFacade");
+            }
             
             if (remoteFacade.ping()) {
                 logger.info("Successfully connected to RemoteBook Facade");
             }
-            remoteFacade.registerClient(this);
+            bookCache = new RemoteBookCache(remoteFacade);
+            bookCache.register();
         } catch (NotBoundException | RemoteException e) {
             logger.error("Error in RMI connection", e);
             throw e;
         }
     }
 
-    @Override
-    public void onRegisterClient(boolean result) throws RemoteException {
-        if (result) {
-            logger.info("Client registered successfully on the server");
-        } else {
-            logger.warn("Client registration failed");
-        }
-    }
-
     // Most methods remain the same as ArabicNotepadUI, with minor modifications:
 
-    private void handleSearchUpdate() {
-        String searchText = searchBar.getText().trim();
-
-        if (searchText.isEmpty()) {
-            if (!isRefreshing) {
-                helperRefreshBookList();
+    private SearchController createSearchController() {
+        return new SearchController(remoteFacade::searchBooksByContent, new SearchController.Listener() {
+            @Override
+            public void onSearchStarted(String text) {
+                setStatus("Searching...");
             }
-        } else {
-            performSearch(searchText);
-        }
-    }
 
-    private void performSearch(String searchText) {
-        setStatus("Searching...");
-
-        SwingWorker<List<String>, Void> worker = new SwingWorker<>() {
             @Override
-            protected List<String> doInBackground() throws Exception {
-                return remoteFacade.searchBooksByContent(searchText);
+            public void onResults(String text, List<String> results) {
+                bookTableModel.setSearchResults(results);
+                setStatus("Search completed. " + results.size() + " result(s) found.");
             }
 
             @Override
-            protected void done() {
-                try {
-                    List<String> searchResults = get();
-                    bookTableModel.setSearchResults(searchResults);
-                    setStatus("Search completed. " + searchResults.size() + " result(s) found.");
-                } catch (InterruptedException | ExecutionException ex) {
-                    setStatus("Error during search: " + ex.getMessage());
-                    logger.error("Error during search", ex);
+            public void onCleared() {
+                if (!isRefreshing) {
+                    helperRefreshBookList();
                 }
             }
-        };
-        worker.execute();
+
+            @Override
+            public void onError(String text, Exception error) {
+                setStatus("Error during search: " + error.getMessage());
+                logger.error("Error during search", error);
+            }
+        });
+    }
+
+    private void handleSearchUpdate() {
+        searchController.textChanged(searchBar.getText());
     }
     
     private void assembleStatusPanel() {
@@ -194,9 +220,13 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         progressBar.setStringPainted(true);
         progressBar.setIndeterminate(false);
 
+        cancelJobsButton = createButton("Cancel", this::onCancelJobsAction);
+        cancelJobsButton.setEnabled(false);
+
         JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         statusPanel.add(statusLabel);
         statusPanel.add(progressBar);
+        statusPanel.add(cancelJobsButton);
 
         mainPanel.add(statusPanel, BorderLayout.SOUTH);
     }
@@ -212,6 +242,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         buttonsPanel.add(createButton("Import", this::onImportBookAction));
         buttonsPanel.add(createButton("Create", this::onCreateBookAction));
         buttonsPanel.add(createButton("Analyze", this::onAnalyzeBookAction));
+        buttonsPanel.add(createButton("Analyze Library", this::onAnalyzeLibraryAction));
         buttonsPanel.add(createButton("Delete", this::onDeleteBookAction));
         buttonsPanel.add(createButton("Export", this::onExportBookAction));
 
@@ -293,13 +324,41 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
             SwingWorker<Void, String> worker = new SwingWorker<>() {
                 @Override
                 protected Void doInBackground() throws Exception {
-                    try {
-                        remoteFacade.importBook(path);
-                        publish("Book imported successfully");
-                    } catch (RemoteException ex) {
-                        publish("Error importing book: " + ex.getMessage());
-                        logger.error("Error importing book", ex);
+                    File selected = new File(path);
+                    File[] files = selected.isDirectory() ? selected.listFiles(File::isFile) : new File[]{selected};
+                    if (files == null || files.length == 0) {
+                        publish("No books found in " + path);
+                        return null;
+                    }
+                    long totalBytes = 0;
+                    for (File file : files) {
+                        totalBytes += file.length();
                     }
+                    int imported = 0;
+                    int duplicates = 0;
+                    long uploadedBytes = 0;
+                    for (File file : files) {
+                        long offset = uploadedBytes;
+                        long total = Math.max(1, totalBytes);
+                        setStatus("Uploading " + file.getName() + "...");
+                        try {
+                            BookSummary summary = BookUploader.upload(remoteFacade, file, sent -> SwingUtilities.invokeLater(() -> {
+                                progressBar.setIndeterminate(false);
+                                progressBar.setValue((int) ((offset + sent) * 100 / total));
+                            }));
+                            if (summary != null) {
+                                imported++;
+                                bookCache.invalidate(summary.getTitle());
+                            } else {
+                                duplicates++;
+                            }
+                        } catch (IOException ex) {
+                            publish("Error importing " + file.getName() + ": " + ex.getMessage());
+                            logger.error("Error uploading book {}", file, ex);
+                        }
+                        uploadedBytes += file.length();
+                    }
+                    publish(imported + " book(s) imported" + (duplicates > 0 ? ", " + duplicates + " already in the library" : ""));
                     return null;
                 }
 
@@ -341,6 +400,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
 
         try {
             remoteFacade.insertBook(newBook);
+            bookCache.invalidate(title);
         } catch (RemoteException ex) {
             java.util.logging.Logger.getLogger(RemoteArabicNotepadUI.class.getName()).log(Level.SEVERE, null, ex);
         }
@@ -365,6 +425,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
                 String bookTitle = (String) bookTable.getValueAt(row, 0);
                 try {
                     remoteFacade.deleteBook(bookTitle);
+                    bookCache.invalidate(bookTitle);
                 } catch (RemoteException ex) {
                     java.util.logging.Logger.getLogger(RemoteArabicNotepadUI.class.getName()).log(Level.SEVERE, null, ex);
                 }
@@ -417,7 +478,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
             Book book = null;
             
             try {
-                book = remoteFacade.getBookByName(bookTitle);
+                book = bookCache.getBook(bookTitle);
             } catch (RemoteException ex) {
                 java.util.logging.Logger.getLogger(RemoteArabicNotepadUI.class.getName()).log(Level.SEVERE, null, ex);
             }
@@ -465,6 +526,67 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         }
     }
 
+    private void onAnalyzeLibraryAction(ActionEvent e) {
+        String[] analysisOptions = {
+            "Paper: Mining Quality Phrases from Massive Text Corpora",
+            "PMI: Pointwise Mutual Information",
+            "PKL: Point-wise Kullback-Leibler Divergence"
+        };
+        String selectedOption = (String) JOptionPane.showInputDialog(
+            this,
+            "Choose an analysis method for the whole library:",
+            "Analyze Library",
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            analysisOptions,
+            analysisOptions[0]
+        );
+        if (selectedOption == null) {
+            return;
+        }
+
+        String analysisMethod = selectedOption.split(":")[0].trim();
+        setStatus("Performing library analysis: " + analysisMethod);
+        progressBar.setIndeterminate(true);
+
+        SwingWorker<String, Void> worker = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                JobStatus status = followJob(remoteFacade.submitCorpusAnalysis(analysisMethod, bookCache));
+                if (status.getState() == JobStatus.State.FAILED) {
+                    throw new RemoteException(status.getMessage());
+                }
+                return status.getState() == JobStatus.State.SUCCEEDED ? status.getResult() : null;
+            }
+
+            @Override
+            protected void done() {
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(0);
+                try {
+                    String result = get();
+                    if (result == null) {
+                        setStatus("Library analysis cancelled: " + analysisMethod);
+                        return;
+                    }
+                    setStatus("Library analysis complete: " + analysisMethod);
+                    JTextArea resultArea = new JTextArea(result, 20, 50);
+                    resultArea.setEditable(false);
+                    JOptionPane.showMessageDialog(RemoteArabicNotepadUI.this, new JScrollPane(resultArea),
+                            "Library Analysis Result (" + analysisMethod + ")", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException | ExecutionException ex) {
+                    setStatus("Error during library analysis: " + ex.getMessage());
+                    logger.error("Error performing library analysis", ex);
+                    JOptionPane.showMessageDialog(RemoteArabicNotepadUI.this,
+                            "An error occurred during library analysis: " + ex.getMessage(),
+                            "Analysis Error",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+    }
+
     private void performBatchAnalysis(List<Book> foundBooks, String analysisMethod) {
         setStatus("Performing analysis: " + analysisMethod);
         progressBar.setIndeterminate(true);
@@ -472,13 +594,16 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         SwingWorker<List<String>, Void> worker;
         worker = new SwingWorker<>() {
             @Override
-            protected List<String> doInBackground() {
+            protected List<String> doInBackground() throws InterruptedException {
                 List<String> analysisResults = new ArrayList<>();
                 for (Book book : foundBooks) {
                     String result;
                     result = null;
                     try {
-                        result = remoteFacade.performAnalysis(book, analysisMethod);
+                        JobStatus status = followJob(remoteFacade.submitAnalysis(book, analysisMethod, bookCache));
+                        if (status.getState() == JobStatus.State.SUCCEEDED) {
+                            result = status.getResult();
+                        }
                     } catch (RemoteException ex) {
                         java.util.logging.Logger.getLogger(RemoteArabicNotepadUI.class.getName()).log(Level.SEVERE, null, ex);
                     }
@@ -571,7 +696,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
 
             Book book = null;
             try {
-                book = remoteFacade.getBookByName(bookTitle);
+                book = bookCache.getBook(bookTitle);
             } catch (RemoteException ex) {
                 java.util.logging.Logger.getLogger(RemoteArabicNotepadUI.class.getName()).log(Level.SEVERE, null, ex);
             }
@@ -610,16 +735,16 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         setStatus("Refreshing book list...");
         progressBar.setIndeterminate(true);
 
-        SwingWorker<List<Book>, String> worker = new SwingWorker<>() {
+        SwingWorker<List<BookSummary>, String> worker = new SwingWorker<>() {
             @Override
-            protected List<Book> doInBackground() throws RemoteException {
-                return remoteFacade.getBookList(null);
+            protected List<BookSummary> doInBackground() throws RemoteException {
+                return bookCache.getSummaries();
             }
 
             @Override
             protected void done() {
                 try {
-                    List<Book> books = get();
+                    List<BookSummary> books = get();
                     bookTableModel.setBooks(books);
                     setStatus("Ready");
                 } catch (InterruptedException | ExecutionException ex) {
@@ -635,13 +760,46 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
         worker.execute();
     }
 
+    /**
+     * Waits on the calling background thread for a server job to finish,
+     * mirroring its progress in the status bar while it runs.
+     */
+    private JobStatus followJob(long jobId) throws RemoteException, InterruptedException {
+        activeJobs.add(jobId);
+        SwingUtilities.invokeLater(() -> cancelJobsButton.setEnabled(true));
+        try {
+            return bookCache.awaitJob(jobId, this::showJobProgress);
+        } finally {
+            activeJobs.remove(jobId);
+            SwingUtilities.invokeLater(() -> cancelJobsButton.setEnabled(!activeJobs.isEmpty()));
+        }
+    }
+
+    private void showJobProgress(JobStatus status) {
+        SwingUtilities.invokeLater(() -> {
+            statusLabel.setText(status.getDescription() + ": " + status.getMessage());
+            progressBar.setIndeterminate(status.getTotal() == 0 && !status.getState().isFinished());
+            progressBar.setValue(status.getPercent());
+        });
+    }
+
+    private void onCancelJobsAction(ActionEvent e) {
+        for (long jobId : activeJobs) {
+            try {
+                remoteFacade.cancelJob(jobId);
+            } catch (RemoteException ex) {
+                logger.error("Could not cancel job {}", jobId, ex);
+            }
+        }
+    }
+
     private void setStatus(String message) {
         SwingUtilities.invokeLater(() -> statusLabel.setText(message));
     }
 
     private class BookTableModel extends AbstractTableModel {
 
-        private List<Book> books;
+        private List<BookSummary> books;
         private List<String> searchResults;
         private final String[] bookColumnNames = {"Title", "Author ID"};
         private final String[] searchColumnNames = {"Title", "Matching Sentence"};
@@ -652,7 +810,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
             this.searchResults = new ArrayList<>();
         }
 
-        public void setBooks(List<Book> books) {
+        public void setBooks(List<BookSummary> books) {
             this.books = books != null ? books : new ArrayList<>();
             this.isSearchMode = false;
             fireTableStructureChanged();
@@ -702,7 +860,7 @@ public class RemoteArabicNotepadUI extends JFrame implements ArabicNotepadClient
                 if (rowIndex < 0 || rowIndex >= books.size()) {
                     return null;
                 }
-                Book book = books.get(rowIndex);
+                BookSummary book = books.get(rowIndex);
                 return switch (columnIndex) {
                     case 0 -> book.getTitle();
                     case 1 -> book.getIdauthor();
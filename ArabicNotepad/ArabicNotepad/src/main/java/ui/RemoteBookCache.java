@@ -0,0 +1,286 @@
+package ui;
+
+import common.RemoteBookFacade;
+import dto.Book;
+import dto.BookChangeEvent;
+import dto.BookSummary;
+import dto.JobStatus;
+import dto.Page;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.LruCache;
+
+/**
+ * Client-side cache of books and the catalog, kept coherent by the server:
+ * this object is registered as the client callback and drops entries when a
+ * {@link BookChangeEvent} arrives. Until registration succeeds every call
+ * goes to the server. The registration is a lease that is renewed in the
+ * background; if the server has dropped this client it registers again
+ * and starts from an empty cache, since events may have been missed.
+ * It also receives progress updates for server jobs; see {@link #awaitJob}.
+ */
+public class RemoteBookCache extends UnicastRemoteObject implements ArabicNotepadClient {
+
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_BOOKS = Integer.getInteger("client.cache.books", 32);
+    private static final long RENEW_MILLIS = Long.getLong("client.lease.renew.ms", 20_000L);
+    private static final long JOB_POLL_MILLIS = Long.getLong("client.job.poll.ms", 1_000L);
+    private static final Logger logger = LoggerFactory.getLogger(RemoteBookCache.class);
+
+    private final RemoteBookFacade remoteFacade;
+    private final LruCache<String, Book> books = new LruCache<>(MAX_BOOKS);
+    private final Map<Integer, String> titlesById = new ConcurrentHashMap<>();
+    private final List<Consumer<BookChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+    // Latest known status of the jobs someone is waiting for; also the monitor waiters sleep on.
+    private final Map<Long, JobStatus> watchedJobs = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a fetch that raced with one is not cached.
+    // Invalidations, and the check and store of a fetch, hold cacheLock.
+    private final AtomicLong generation = new AtomicLong();
+    private final Object cacheLock = new Object();
+    private volatile List<BookSummary> summaries;
+    private volatile boolean registered;
+    private long lastSequence;
+    private final AtomicBoolean renewing = new AtomicBoolean();
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RemoteBookCache(RemoteBookFacade remoteFacade) throws RemoteException {
+        super();
+        this.remoteFacade = remoteFacade;
+    }
+
+    public void register() throws RemoteException {
+        remoteFacade.registerClient(this);
+        if (renewing.compareAndSet(false, true)) {
+            leaseRenewer.scheduleWithFixedDelay(this::renewLease, RENEW_MILLIS, RENEW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void close() {
+        leaseRenewer.shutdownNow();
+        registered = false;
+        try {
+            remoteFacade.unregisterClient(this);
+        } catch (RemoteException e) {
+            logger.warn("Could not unregister from the server", e);
+        }
+        try {
+            UnicastRemoteObject.unexportObject(this, true);
+        } catch (NoSuchObjectException e) {
+            logger.debug("Client callback was not exported", e);
+        }
+    }
+
+    private void renewLease() {
+        try {
+            if (remoteFacade.renewLease(this)) {
+                registered = true;
+                return;
+            }
+            logger.warn("Server dropped this client; registering again");
+            registered = false;
+            invalidateAll();
+            remoteFacade.registerClient(this);
+        } catch (RemoteException e) {
+            logger.warn("Lease renewal failed; book caching is paused", e);
+            registered = false;
+            invalidateAll();
+        }
+    }
+
+    public void addChangeListener(Consumer<BookChangeEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public Book getBook(String title) throws RemoteException {
+        if (registered) {
+            Book cached = books.get(title);
+            if (cached != null) {
+                logger.debug("Book '{}' served from cache", title);
+                return copyOf(cached);
+            }
+        }
+        long fetchGeneration = generation.get();
+        Book book = remoteFacade.getBookByName(title);
+        if (book != null) {
+            Book copy = copyOf(book);
+            synchronized (cacheLock) {
+                if (registered && generation.get() == fetchGeneration) {
+                    books.put(title, copy);
+                    titlesById.put(book.getId(), title);
+                }
+            }
+        }
+        return book;
+    }
+
+    // Callers edit the pages they get; the cache keeps what the server sent,
+    // so an edit that was never saved is not served to the next caller.
+    private static Book copyOf(Book book) {
+        List<Page> pages = null;
+        if (book.getPages() != null) {
+            pages = new ArrayList<>(book.getPages().size());
+            for (Page page : book.getPages()) {
+                Page copy = new Page(page.getId(), page.getBookId(), page.getPageNumber(), page.getContent());
+                copy.setVersion(page.getVersion());
+                pages.add(copy);
+            }
+        }
+        return new Book(book.getId(), book.getTitle(), book.getHash(), book.getIdauthor(), pages);
+    }
+
+    public List<BookSummary> getSummaries() throws RemoteException {
+        List<BookSummary> cached = summaries;
+        if (registered && cached != null) {
+            return cached;
+        }
+        long fetchGeneration = generation.get();
+        List<BookSummary> fetched = Collections.unmodifiableList(remoteFacade.getBookSummaries());
+        synchronized (cacheLock) {
+            if (registered && generation.get() == fetchGeneration) {
+                summaries = fetched;
+            }
+        }
+        return fetched;
+    }
+
+    public void invalidate(String title) {
+        synchronized (cacheLock) {
+            generation.incrementAndGet();
+            if (title != null) {
+                books.remove(title);
+            }
+            summaries = null;
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (cacheLock) {
+            generation.incrementAndGet();
+            books.clear();
+            titlesById.clear();
+            summaries = null;
+        }
+    }
+
+    @Override
+    public void onRegisterClient(boolean result) throws RemoteException {
+        registered = result;
+        if (result) {
+            logger.info("Client registered successfully on the server");
+        } else {
+            logger.warn("Client registration failed; book caching is disabled");
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void onBookChanged(BookChangeEvent event) throws RemoteException {
+        synchronized (this) {
+            if (lastSequence != 0 && event.getSequence() != lastSequence + 1) {
+                logger.warn("Missed change events {}..{}; clearing book cache", lastSequence + 1, event.getSequence() - 1);
+                invalidateAll();
+            }
+            lastSequence = event.getSequence();
+        }
+
+        String knownTitle = titlesById.get(event.getBookId());
+        switch (event.getType()) {
+            case CATALOG_CHANGED -> invalidateAll();
+            case UPDATED -> {
+                synchronized (cacheLock) {
+                    generation.incrementAndGet();
+                    if (knownTitle != null) {
+                        books.remove(knownTitle);
+                    }
+                    if (event.getTitle() != null) {
+                        books.remove(event.getTitle());
+                        if (knownTitle != null && !knownTitle.equals(event.getTitle())) {
+                            summaries = null;
+                        }
+                    }
+                }
+            }
+            default -> {
+                invalidate(knownTitle);
+                invalidate(event.getTitle());
+            }
+        }
+        logger.debug("Applied {}", event);
+
+        for (Consumer<BookChangeEvent> listener : listeners) {
+            listener.accept(event);
+        }
+    }
+
+    @Override
+    public void onJobUpdate(JobStatus status) throws RemoteException {
+        watchedJobs.computeIfPresent(status.getJobId(), (id, current) -> newer(current, status));
+        synchronized (watchedJobs) {
+            watchedJobs.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until the job finishes and returns its final status, handing
+     * every newer status to {@code onUpdate} on the calling thread. Pushed
+     * updates wake it at once; the server is also polled every
+     * {@code client.job.poll.ms} in case a callback was lost.
+     */
+    public JobStatus awaitJob(long jobId, Consumer<JobStatus> onUpdate) throws RemoteException, InterruptedException {
+        JobStatus initial = remoteFacade.getJobStatus(jobId);
+        if (initial == null) {
+            throw new RemoteException("Unknown job " + jobId);
+        }
+        watchedJobs.merge(jobId, initial, RemoteBookCache::newer);
+        long seenRevision = -1;
+        try {
+            while (true) {
+                JobStatus latest = watchedJobs.get(jobId);
+                if (latest.getRevision() > seenRevision) {
+                    seenRevision = latest.getRevision();
+                    onUpdate.accept(latest);
+                }
+                if (latest.getState().isFinished()) {
+                    return latest;
+                }
+                synchronized (watchedJobs) {
+                    if (watchedJobs.get(jobId).getRevision() == seenRevision) {
+                        watchedJobs.wait(JOB_POLL_MILLIS);
+                    }
+                }
+                if (watchedJobs.get(jobId).getRevision() == seenRevision) {
+                    JobStatus polled = remoteFacade.getJobStatus(jobId);
+                    if (polled == null) {
+                        throw new RemoteException("Job " + jobId + " is no longer known to the server");
+                    }
+                    watchedJobs.merge(jobId, polled, RemoteBookCache::newer);
+                }
+            }
+        } finally {
+            watchedJobs.remove(jobId);
+        }
+    }
+
+    private static JobStatus newer(JobStatus current, JobStatus candidate) {
+        return candidate.getRevision() > current.getRevision() ? candidate : current;
+    }
+}
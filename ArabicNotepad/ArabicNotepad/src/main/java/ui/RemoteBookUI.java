@@ -2,6 +2,9 @@ package ui;
 
 import dto.Book;
 import dto.Page;
+import dto.PageEdit;
+import dto.PagePatch;
+import dto.PagePatchResult;
 import bl.BookFacade;
 import common.RemoteBookFacade;
 
@@ -10,12 +13,22 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.TextDiff;
 
 public class RemoteBookUI extends JFrame {
 
@@ -30,9 +43,26 @@ public class RemoteBookUI extends JFrame {
     private int currentPageIndex;
     private JLabel pageNumberLabel;
 
+    // Keystrokes are collected for PATCH_DELAY_MS and then sent as one
+    // PagePatch per edited page instead of re-sending the whole book.
+    private static final int PATCH_DELAY_MS = 300;
+    private final Timer patchTimer = new Timer(PATCH_DELAY_MS, e -> flushPendingEdits());
+    private final Set<Page> dirtyPages = new LinkedHashSet<>();
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+    // Last content and version the server confirmed, by page id. Only used on syncExecutor.
+    private final Map<Integer, String> syncedContent = new HashMap<>();
+    private final Map<Integer, Long> syncedVersions = new HashMap<>();
+
     public RemoteBookUI(Book book, RemoteBookFacade remoteFacade) {
         this.remoteFacade = remoteFacade;
         this.book = book;
+        if (book.getPages() != null) {
+            for (Page page : book.getPages()) {
+                syncedContent.put(page.getId(), page.getContent());
+                syncedVersions.put(page.getId(), page.getVersion());
+            }
+        }
+        patchTimer.setRepeats(false);
 
         this.currentPageIndex = 0;
         initializeUI();
@@ -46,6 +76,14 @@ public class RemoteBookUI extends JFrame {
         setSize(800, 600);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                patchTimer.stop();
+                flushPendingEdits();
+                syncExecutor.shutdown();
+            }
+        });
 
         JPanel topPanel = createTopPanel();
         add(topPanel, BorderLayout.NORTH);
@@ -248,14 +286,257 @@ public class RemoteBookUI extends JFrame {
             logger.info("Added new page to book '{}'", book.getTitle());
         } else if (currentPageIndex < pages.size()) {
             Page currentPage = pages.get(currentPageIndex);
-            currentPage.setContent(textArea.getText());
+            String text = textArea.getText();
+            if (!text.equals(currentPage.getContent())) {
+                currentPage.setContent(text);
+                dirtyPages.add(currentPage);
+                patchTimer.restart();
+            }
+        }
+    }
+
+    private void flushPendingEdits() {
+        for (Page page : dirtyPages) {
+            String text = page.getContent();
+            syncExecutor.execute(() -> syncPage(page, text));
+        }
+        dirtyPages.clear();
+    }
+
+    private void syncPage(Page page, String text) {
+        int pageId = page.getId();
+        if (pageId <= 0 || !syncedContent.containsKey(pageId)) {
+            sendWholeBook();
+            return;
+        }
+        String base = syncedContent.get(pageId);
+        long version = syncedVersions.getOrDefault(pageId, 0L);
+        String merged = text;
+        // One retry: after a conflict the local edit is rebased onto the server's content.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            PageEdit edit = TextDiff.diff(base, merged);
+            if (edit == null) {
+                showMergedContent(page, text, merged);
+                return;
+            }
+            PagePatchResult result;
             try {
-                remoteFacade.updateBook(book);
+                result = remoteFacade.applyPagePatch(new PagePatch(book.getId(), pageId, version, List.of(edit)));
             } catch (RemoteException ex) {
-                java.util.logging.Logger.getLogger(RemoteBookUI.class.getName()).log(Level.SEVERE, null, ex);
+                logger.error("Failed to send changes of page {} in book '{}'", pageId, book.getTitle(), ex);
+                showMergedContent(page, text, merged);
+                requeue(List.of(page));
+                return;
+            }
+            switch (result.getStatus()) {
+                case APPLIED -> {
+                    syncedContent.put(pageId, merged);
+                    syncedVersions.put(pageId, result.getVersion());
+                    showMergedContent(page, text, merged);
+                    logger.debug("Page {} of book '{}' saved at version {}", pageId, book.getTitle(), result.getVersion());
+                    return;
+                }
+                case CONFLICT -> {
+                    String remote = result.getContent();
+                    String rebased = TextDiff.rebase(base, merged, remote);
+                    if (rebased == null) {
+                        rebased = askWhichVersionToKeep(pageId, merged, remote);
+                    }
+                    logger.info("Page {} of book '{}' changed on the server; rebased local edits", pageId, book.getTitle());
+                    base = remote;
+                    version = result.getVersion();
+                    syncedContent.put(pageId, base);
+                    syncedVersions.put(pageId, version);
+                    merged = rebased;
+                }
+                case REJECTED -> {
+                    sendWholeBook();
+                    return;
+                }
             }
-            logger.info("Updated content of page {} in book '{}'", currentPageIndex + 1, book.getTitle());
         }
+        logger.warn("Could not save page {} of book '{}' after rebasing; it will be sent with the next edit",
+                pageId, book.getTitle());
+        showMergedContent(page, text, merged);
+        requeue(List.of(page));
+    }
+
+    /** Marks pages whose save failed as edited again, so the next flush sends them. */
+    private void requeue(List<Page> pages) {
+        SwingUtilities.invokeLater(() -> dirtyPages.addAll(pages));
+    }
+
+    /**
+     * Both this window and someone else changed the same text. Lets the user
+     * keep their version or take the server's; runs the dialog on the EDT and
+     * waits for the answer on the sync thread.
+     */
+    private String askWhichVersionToKeep(int pageId, String local, String remote) {
+        String[] choice = {local};
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                if (!isDisplayable()) {
+                    return;
+                }
+                int answer = JOptionPane.showOptionDialog(this,
+                        "Page " + pageId + " was changed by someone else where you were editing.\n"
+                                + "Keep your text, or replace it with theirs?",
+                        "Conflicting edits", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE, null,
+                        new Object[]{"Keep mine", "Take theirs"}, "Keep mine");
+                if (answer == JOptionPane.NO_OPTION) {
+                    choice[0] = remote;
+                }
+            });
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (java.lang.reflect.InvocationTargetException ex) {
+            logger.error("Could not ask how to resolve conflicting edits of page {}", pageId, ex.getCause());
+        }
+        return choice[0];
+    }
+
+    /**
+     * Puts the saved text, which may now include other people's edits, into
+     * the page. Typing done since {@code sent} was taken is rebased onto it;
+     * if that typing overlaps the merged-in edits it is kept as typed and is
+     * sent with the next patch.
+     */
+    private void showMergedContent(Page page, String sent, String saved) {
+        if (sent.equals(saved)) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            String current = page.getContent();
+            String updated = current.equals(sent) ? saved : TextDiff.rebase(sent, current, saved);
+            if (updated == null || updated.equals(current)) {
+                return;
+            }
+            page.setContent(updated);
+            List<Page> pages = book.getPages();
+            if (pages != null && currentPageIndex < pages.size() && pages.get(currentPageIndex) == page) {
+                int caret = Math.min(textArea.getCaretPosition(), updated.length());
+                textArea.setText(updated);
+                textArea.setCaretPosition(caret);
+            }
+            if (!updated.equals(saved)) {
+                dirtyPages.add(page);
+                patchTimer.restart();
+            }
+        });
+    }
+
+    /**
+     * Saves every page at once, for pages the server cannot patch. The pages
+     * are copied on the EDT, sent with the versions they were last synced
+     * at, and on a conflict rebased onto the server's copy and sent once
+     * more; pages that still could not be saved are sent with the next edit.
+     */
+    private void sendWholeBook() {
+        BookSnapshot snapshot = snapshotBook();
+        if (snapshot == null) {
+            return;
+        }
+        for (Page page : snapshot.book().getPages()) {
+            page.setVersion(syncedVersions.getOrDefault(page.getId(), 0L));
+        }
+        if (saveWholeBook(snapshot.book()) || (rebaseOntoServerCopy(snapshot) && saveWholeBook(snapshot.book()))) {
+            return;
+        }
+        logger.warn("Could not save book '{}'; its edited pages will be sent with the next edit", book.getTitle());
+        List<Page> unsaved = new ArrayList<>();
+        List<Page> copies = snapshot.book().getPages();
+        for (int i = 0; i < copies.size(); i++) {
+            Page copy = copies.get(i);
+            if (copy.getId() <= 0 || !Objects.equals(copy.getContent(), syncedContent.get(copy.getId()))) {
+                unsaved.add(snapshot.livePages().get(i));
+            }
+        }
+        requeue(unsaved);
+    }
+
+    private boolean saveWholeBook(Book copy) {
+        Map<Integer, Long> versions;
+        try {
+            versions = remoteFacade.updateBook(copy);
+        } catch (RemoteException ex) {
+            logger.error("Failed to save book '{}'", book.getTitle(), ex);
+            return false;
+        }
+        for (Page page : copy.getPages()) {
+            if (page.getId() > 0 && versions.containsKey(page.getId())) {
+                syncedContent.put(page.getId(), page.getContent());
+                syncedVersions.put(page.getId(), versions.get(page.getId()));
+            }
+        }
+        logger.info("Updated book '{}'", book.getTitle());
+        return true;
+    }
+
+    /**
+     * Reloads the book and rebases the copied pages onto it, the same way a
+     * conflicting patch is rebased. Returns false if the book could not be read.
+     */
+    private boolean rebaseOntoServerCopy(BookSnapshot snapshot) {
+        Book current;
+        try {
+            current = remoteFacade.getBookByName(book.getTitle());
+        } catch (RemoteException ex) {
+            logger.error("Failed to reload book '{}'", book.getTitle(), ex);
+            return false;
+        }
+        if (current == null || current.getPages() == null) {
+            return false;
+        }
+        Map<Integer, Page> remotePages = new HashMap<>();
+        for (Page page : current.getPages()) {
+            remotePages.put(page.getId(), page);
+        }
+        List<Page> copies = snapshot.book().getPages();
+        for (int i = 0; i < copies.size(); i++) {
+            Page copy = copies.get(i);
+            Page remote = remotePages.get(copy.getId());
+            if (copy.getId() <= 0 || remote == null) {
+                continue;
+            }
+            String local = copy.getContent();
+            String base = syncedContent.getOrDefault(copy.getId(), remote.getContent());
+            String rebased = TextDiff.rebase(base, local, remote.getContent());
+            if (rebased == null) {
+                rebased = askWhichVersionToKeep(copy.getId(), local, remote.getContent());
+            }
+            syncedContent.put(copy.getId(), remote.getContent());
+            syncedVersions.put(copy.getId(), remote.getVersion());
+            copy.setContent(rebased);
+            copy.setVersion(remote.getVersion());
+            showMergedContent(snapshot.livePages().get(i), local, rebased);
+        }
+        logger.info("Book '{}' changed on the server; rebased local edits", book.getTitle());
+        return true;
+    }
+
+    /** Copies the pages on the EDT, which is the only thread that changes them. */
+    private BookSnapshot snapshotBook() {
+        BookSnapshot[] snapshot = {null};
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                List<Page> pages = book.getPages() == null ? List.of() : List.copyOf(book.getPages());
+                List<Page> copies = new ArrayList<>(pages.size());
+                for (Page page : pages) {
+                    copies.add(new Page(page.getId(), page.getBookId(), page.getPageNumber(), page.getContent()));
+                }
+                snapshot[0] = new BookSnapshot(
+                        new Book(book.getId(), book.getTitle(), book.getHash(), book.getIdauthor(), copies), pages);
+            });
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (java.lang.reflect.InvocationTargetException ex) {
+            logger.error("Could not copy book '{}' for saving", book.getTitle(), ex.getCause());
+        }
+        return snapshot[0];
+    }
+
+    // A copy of the book for sending, and the pages it was copied from, in the same order.
+    private record BookSnapshot(Book book, List<Page> livePages) {
     }
 
     public static void showBook(Book book, RemoteBookFacade remoteFacade) {
@@ -0,0 +1,145 @@
+package ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+/**
+ * Search-as-you-type behind a search field. Keystrokes are debounced, and a
+ * query that runs supersedes the previous one: its worker is cancelled and a
+ * late result is dropped, so an older keystroke never overwrites a newer
+ * one. When the text extends the last answered query, the earlier results
+ * are narrowed locally instead of asking the backend again, since every
+ * sentence containing the longer text also contains the shorter one.
+ * All methods must be called on the event dispatch thread, except
+ * {@link #invalidate()}.
+ */
+public class SearchController {
+
+    static final int DEBOUNCE_MILLIS = Integer.getInteger("ui.search.debounce.ms", 250);
+    private static final String SENTENCE_MARKER = ", Sentence: ";
+
+    public interface Backend {
+        List<String> search(String text) throws Exception;
+    }
+
+    public interface Listener {
+        void onSearchStarted(String text);
+
+        void onResults(String text, List<String> results);
+
+        /** The search text was cleared; show the full book list again. */
+        void onCleared();
+
+        void onError(String text, Exception error);
+    }
+
+    private final Backend backend;
+    private final Listener listener;
+    private final Timer debounce;
+    private String pendingText = "";
+    private long generation;
+    private long cacheGeneration;
+    private SwingWorker<List<String>, Void> inFlight;
+    private String lastQuery;
+    private List<String> lastResults;
+
+    public SearchController(Backend backend, Listener listener) {
+        this(backend, listener, DEBOUNCE_MILLIS);
+    }
+
+    public SearchController(Backend backend, Listener listener, int debounceMillis) {
+        this.backend = backend;
+        this.listener = listener;
+        this.debounce = new Timer(debounceMillis, e -> runSearch());
+        this.debounce.setRepeats(false);
+    }
+
+    public void textChanged(String text) {
+        pendingText = text == null ? "" : text.trim();
+        debounce.restart();
+    }
+
+    /** Forgets the remembered results, e.g. because books changed. Safe to call from any thread. */
+    public void invalidate() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(this::invalidate);
+            return;
+        }
+        cacheGeneration++;
+        lastQuery = null;
+        lastResults = null;
+    }
+
+    private void runSearch() {
+        String text = pendingText;
+        long request = ++generation;
+        if (inFlight != null) {
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+        if (text.isEmpty()) {
+            // A new search starts from scratch; books may have changed meanwhile.
+            lastQuery = null;
+            lastResults = null;
+            listener.onCleared();
+            return;
+        }
+        if (text.equals(lastQuery)) {
+            listener.onResults(text, lastResults);
+            return;
+        }
+
+        List<String> baseResults = lastQuery != null && text.startsWith(lastQuery) ? lastResults : null;
+        long cacheAtStart = cacheGeneration;
+        listener.onSearchStarted(text);
+        inFlight = new SwingWorker<>() {
+            @Override
+            protected List<String> doInBackground() throws Exception {
+                return baseResults != null ? narrow(baseResults, text) : backend.search(text);
+            }
+
+            @Override
+            protected void done() {
+                if (request != generation || isCancelled()) {
+                    return;
+                }
+                inFlight = null;
+                try {
+                    List<String> results = get();
+                    if (results == null) {
+                        results = new ArrayList<>();
+                    }
+                    if (cacheAtStart == cacheGeneration) {
+                        lastQuery = text;
+                        lastResults = results;
+                    }
+                    listener.onResults(text, results);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    listener.onError(text, cause instanceof Exception exception ? exception : e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        inFlight.execute();
+    }
+
+    /** Keeps the results whose sentence contains the text, as the server's search would. */
+    static List<String> narrow(List<String> results, String text) {
+        String needle = text.toLowerCase();
+        List<String> narrowed = new ArrayList<>();
+        for (String result : results) {
+            int marker = result.indexOf(SENTENCE_MARKER);
+            String sentence = marker >= 0 ? result.substring(marker + SENTENCE_MARKER.length()) : result;
+            if (sentence.toLowerCase().contains(needle)) {
+                narrowed.add(result);
+            }
+        }
+        return narrowed;
+    }
+}
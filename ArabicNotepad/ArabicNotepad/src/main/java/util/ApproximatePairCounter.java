@@ -0,0 +1,128 @@
+package util;
+
+import dto.Book;
+import dto.Page;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-bounded word-pair statistics shared by PMIAnalyzer and PKLAnalyzer.
+ * Word counts stay exact because they grow only with the vocabulary. Pair
+ * counts, which grow quadratically with page length, go into a CountMinSketch,
+ * and a HeavyHitters table keeps the most frequent pairs as scoring
+ * candidates. Memory for pairs is fixed by epsilon, delta and the candidate
+ * count, whatever the book size.
+ */
+public class ApproximatePairCounter {
+
+    public static final double DEFAULT_EPSILON = Double.parseDouble(System.getProperty("analysis.sketch.epsilon", "0.00001"));
+    public static final double DEFAULT_DELTA = Double.parseDouble(System.getProperty("analysis.sketch.delta", "0.01"));
+    public static final int DEFAULT_CANDIDATES = Integer.getInteger("analysis.sketch.candidates", 10_000);
+
+    private final CountMinSketch pairSketch;
+    private final HeavyHitters<String> candidates;
+    private final Map<String, Integer> wordCounts = new HashMap<>();
+    private long totalWords;
+
+    public ApproximatePairCounter() {
+        this(DEFAULT_EPSILON, DEFAULT_DELTA, DEFAULT_CANDIDATES);
+    }
+
+    public ApproximatePairCounter(double epsilon, double delta, int candidates) {
+        this.pairSketch = new CountMinSketch(epsilon, delta);
+        this.candidates = new HeavyHitters<>(candidates);
+    }
+
+    /**
+     * Upper bound on the number of distinct word pairs an exact count of this
+     * book could hold: the sum of n(n-1)/2 over pages, with n a whitespace
+     * token count. Cheap enough to decide between exact and approximate mode.
+     */
+    public static long estimatePairSpace(Book book) {
+        if (book == null || book.getPages() == null) {
+            return 0;
+        }
+        long pairs = 0;
+        for (Page page : book.getPages()) {
+            String content = page.getContent();
+            if (content == null) {
+                continue;
+            }
+            long tokens = 0;
+            boolean inToken = false;
+            for (int i = 0; i < content.length(); i++) {
+                boolean whitespace = Character.isWhitespace(content.charAt(i));
+                if (!whitespace && !inToken) {
+                    tokens++;
+                }
+                inToken = !whitespace;
+            }
+            pairs += tokens * (tokens - 1) / 2;
+        }
+        return pairs;
+    }
+
+    public void addBook(Book book) {
+        for (Page page : book.getPages()) {
+            String content = page.getContent();
+            if (content != null && !content.isEmpty()) {
+                addWords(ArabicTokenizer.tokenizeWords(content));
+            }
+        }
+    }
+
+    public void addWords(List<String> words) {
+        int n = words.size();
+        long[] hashes = new long[n];
+        for (int i = 0; i < n; i++) {
+            String word = words.get(i);
+            wordCounts.merge(word, 1, Integer::sum);
+            hashes[i] = CountMinSketch.hash(word);
+        }
+        totalWords += n;
+
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                long pairHash = CountMinSketch.combine(hashes[i], hashes[j]);
+                int estimate = pairSketch.add(pairHash, 1);
+                if (!candidates.update(pairHash, estimate) && candidates.wouldAdmit(estimate)) {
+                    candidates.insert(pairHash, ArabicTokenizer.makePair(words.get(i), words.get(j)), estimate);
+                }
+            }
+        }
+    }
+
+    public long getTotalWords() {
+        return totalWords;
+    }
+
+    public int getWordCount(String word) {
+        return wordCounts.getOrDefault(word, 0);
+    }
+
+    /**
+     * Scores every candidate pair whose two words were both seen and offers it
+     * to the collector; PMI and PKL differ only in the scoring function.
+     */
+    public void rankCandidates(TopKCollector<String> top, PairScore scoring) {
+        candidates.forEach((pair, pairCount) -> {
+            int separator = pair.indexOf('|');
+            int countA = getWordCount(pair.substring(0, separator));
+            int countB = getWordCount(pair.substring(separator + 1));
+            if (countA > 0 && countB > 0) {
+                top.offer(pair, scoring.score(pairCount, countA, countB, totalWords));
+            }
+        });
+    }
+
+    public String describeError() {
+        return String.format("Approximate pair counts (top %d candidate pairs; counts overestimate by at most %.0f with probability %.2f).",
+                candidates.getCapacity(), pairSketch.getErrorBound(), 1 - pairSketch.getDelta());
+    }
+
+    @FunctionalInterface
+    public interface PairScore {
+        double score(long pairCount, long countA, long countB, long totalWords);
+    }
+}
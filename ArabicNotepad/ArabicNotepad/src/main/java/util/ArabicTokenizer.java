@@ -0,0 +1,46 @@
+package util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tokenization shared by the word-pair and phrase analyzers, so that full and
+ * incremental analyses see exactly the same tokens.
+ */
+public final class ArabicTokenizer {
+
+    private static final Set<String> ARABIC_STOPWORDS = Set.of("و", "في", "على", "من", "إلى", "عن", "ما", "مع");
+
+    private ArabicTokenizer() {
+    }
+
+    /**
+     * Tokens used for word and word-pair statistics (PMI/PKL): single-letter
+     * tokens and stopwords are dropped.
+     */
+    public static List<String> tokenizeWords(String content) {
+        return Arrays.stream(normalize(content).split("\\s+"))
+                     .filter(word -> word.length() > 1 && !ARABIC_STOPWORDS.contains(word))
+                     .collect(Collectors.toList());
+    }
+
+    /**
+     * Tokens used for phrase mining: only blanks and stopwords are dropped.
+     */
+    public static List<String> tokenizePhraseTokens(String content) {
+        return Arrays.stream(normalize(content).split("\\s+"))
+                .filter(token -> !token.isBlank() && !ARABIC_STOPWORDS.contains(token))
+                .collect(Collectors.toList());
+    }
+
+    public static String normalize(String content) {
+        return content.replaceAll("[\u0610-\u061A\u064B-\u065F]", "")
+                      .replaceAll("[^\\p{InArabic}]", " ");
+    }
+
+    public static String makePair(String word1, String word2) {
+        return word1.compareTo(word2) < 0 ? word1 + "|" + word2 : word2 + "|" + word1;
+    }
+}
@@ -0,0 +1,124 @@
+package util;
+
+/**
+ * Count-Min sketch over 64-bit key hashes. With width ceil(e / epsilon) and
+ * depth ceil(ln(1 / delta)), every estimate is at least the true count and
+ * exceeds it by more than epsilon * total with probability at most delta.
+ * Memory is fixed by epsilon and delta, however many distinct keys are added.
+ * Uses conservative update, which only raises the counters that determine the
+ * estimate and gives tighter estimates than plain Count-Min. Not thread-safe.
+ */
+public class CountMinSketch {
+
+    private final double epsilon;
+    private final double delta;
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+    private long total;
+
+    public CountMinSketch(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1) || !(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("epsilon and delta must be in (0, 1): " + epsilon + ", " + delta);
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = width(epsilon);
+        this.depth = depth(delta);
+        this.counters = new int[width * depth];
+    }
+
+    public static long estimatedBytes(double epsilon, double delta) {
+        return (long) width(epsilon) * depth(delta) * Integer.BYTES;
+    }
+
+    /**
+     * Adds count to the key and returns its new estimate.
+     */
+    public int add(long hash, int count) {
+        total += count;
+        int estimate = estimate(hash);
+        int target = estimate + count;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + Math.floorMod(h1 + row * h2, width);
+            if (counters[index] < target) {
+                counters[index] = target;
+            }
+        }
+        return target;
+    }
+
+    public int estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[row * width + Math.floorMod(h1 + row * h2, width)]);
+        }
+        return min;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Maximum overestimate that holds with probability 1 - delta.
+     */
+    public double getErrorBound() {
+        return epsilon * total;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public long estimatedBytes() {
+        return (long) counters.length * Integer.BYTES;
+    }
+
+    /**
+     * 64-bit hash of a string (FNV-1a over UTF-16 units with a final mix), so
+     * the two halves used for double hashing are independent of String.hashCode.
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Order-independent combination of two key hashes, e.g. for word pairs.
+     */
+    public static long combine(long hashA, long hashB) {
+        long low = Math.min(hashA, hashB);
+        long high = Math.max(hashA, hashB);
+        return mix(low * 0x9E3779B97F4A7C15L + high);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int width(double epsilon) {
+        return (int) Math.ceil(Math.E / epsilon);
+    }
+
+    private static int depth(double delta) {
+        return (int) Math.ceil(Math.log(1 / delta));
+    }
+}
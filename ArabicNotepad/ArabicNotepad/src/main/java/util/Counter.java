@@ -0,0 +1,30 @@
+package util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic event counter backed by a {@link LongAdder}, so threads counting
+ * the same event do not contend on one cache line.
+ */
+public class Counter implements CounterMBean {
+
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    @Override
+    public long getCount() {
+        return value.sum();
+    }
+
+    @Override
+    public void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,9 @@
+package util;
+
+/** JMX view of a {@link Counter}, published by {@link MetricsRegistry}. */
+public interface CounterMBean {
+
+    long getCount();
+
+    void reset();
+}
@@ -0,0 +1,184 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity tracker of the keys with the highest counts, fed with
+ * monotonically growing count estimates (e.g. from a CountMinSketch). Keeps an
+ * indexed min-heap, so a key whose estimate beats the current minimum replaces
+ * it in O(log capacity). Keys are 64-bit hashes and the item is created only
+ * when a key is admitted. Not thread-safe.
+ */
+public class HeavyHitters<T> {
+
+    private final int capacity;
+    private final long[] keys;
+    private final long[] counts;
+    private final Object[] items;
+    private final long[] slotKeys;
+    private final int[] slotPositions;
+    private int size;
+
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.items = new Object[capacity];
+        int slots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.slotKeys = new long[slots];
+        this.slotPositions = new int[slots];
+        Arrays.fill(slotPositions, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Raises the count of an already tracked key; returns false if the key is
+     * not tracked.
+     */
+    public boolean update(long key, long count) {
+        int slot = findSlot(key);
+        if (slotPositions[slot] < 0) {
+            return false;
+        }
+        int position = slotPositions[slot];
+        if (count > counts[position]) {
+            counts[position] = count;
+            siftDown(position);
+        }
+        return true;
+    }
+
+    public boolean wouldAdmit(long count) {
+        return size < capacity || count > counts[0];
+    }
+
+    /**
+     * Tracks a key that is not yet tracked, evicting the key with the lowest
+     * count if full. Callers check {@link #wouldAdmit(long)} first.
+     */
+    public void insert(long key, T item, long count) {
+        if (size < capacity) {
+            int position = size++;
+            set(position, key, item, count);
+            siftUp(position);
+            return;
+        }
+        if (count <= counts[0]) {
+            return;
+        }
+        removeSlot(keys[0]);
+        set(0, key, item, count);
+        siftDown(0);
+    }
+
+    public void forEach(Consumer<T> consumer) {
+        for (int i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) items[i];
+            consumer.accept(item, counts[i]);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        Arrays.fill(slotPositions, -1);
+        size = 0;
+    }
+
+    private void set(int position, long key, Object item, long count) {
+        keys[position] = key;
+        items[position] = item;
+        counts[position] = count;
+        int slot = findSlot(key);
+        slotKeys[slot] = key;
+        slotPositions[slot] = position;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[position] <= counts[smallest]) {
+                break;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        long count = counts[a];
+        Object item = items[a];
+        keys[a] = keys[b];
+        counts[a] = counts[b];
+        items[a] = items[b];
+        keys[b] = key;
+        counts[b] = count;
+        items[b] = item;
+        slotPositions[findSlot(keys[a])] = a;
+        slotPositions[findSlot(keys[b])] = b;
+    }
+
+    private int findSlot(long key) {
+        int mask = slotKeys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (slotPositions[slot] >= 0 && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Linear-probing deletion with backward shift, so no tombstones are needed.
+    private void removeSlot(long key) {
+        int mask = slotKeys.length - 1;
+        int slot = findSlot(key);
+        if (slotPositions[slot] < 0) {
+            return;
+        }
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slotPositions[next] < 0) {
+                break;
+            }
+            int home = (int) (slotKeys[next] ^ (slotKeys[next] >>> 32)) & mask;
+            boolean movable = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+            if (movable) {
+                slotKeys[slot] = slotKeys[next];
+                slotPositions[slot] = slotPositions[next];
+                slot = next;
+            }
+        }
+        slotPositions[slot] = -1;
+    }
+
+    @FunctionalInterface
+    public interface Consumer<T> {
+        void accept(T item, long count);
+    }
+}
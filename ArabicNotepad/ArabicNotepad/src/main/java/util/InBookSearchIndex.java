@@ -0,0 +1,184 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search index over the pages of one open book. Every page is kept in a
+ * folded form (no tashkeel or tatweel, hamza forms of alef as plain alef,
+ * lower case) together with the position of each folded character in the
+ * original text, and every pair of adjacent folded characters points to the
+ * pages containing it. A search only scans the pages that contain all pairs
+ * of the query, and returns every match at once as offsets into the
+ * original page text, so a query typed without diacritics finds a fully
+ * vowelled word. Pages can be replaced as they are edited.
+ */
+public class InBookSearchIndex {
+
+    /** A hit in the original text of a page: characters [start, end). */
+    public static final class Match {
+        private final int pageIndex;
+        private final int start;
+        private final int end;
+
+        Match(int pageIndex, int start, int end) {
+            this.pageIndex = pageIndex;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getPageIndex() {
+            return pageIndex;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{page=" + pageIndex + ", start=" + start + ", end=" + end + "}";
+        }
+    }
+
+    private static final class IndexedPage {
+        final String folded;
+        // offsets[i] is where folded character i sits in the original text;
+        // offsets[folded.length()] is the original length.
+        final int[] offsets;
+
+        IndexedPage(String folded, int[] offsets) {
+            this.folded = folded;
+            this.offsets = offsets;
+        }
+    }
+
+    private final List<IndexedPage> pages = new ArrayList<>();
+    private final Map<Integer, BitSet> pagesByPair = new HashMap<>();
+
+    /** Replaces the whole index with the given page texts. */
+    public synchronized void load(List<String> contents) {
+        pages.clear();
+        pagesByPair.clear();
+        for (String content : contents) {
+            pages.add(null);
+            updatePage(pages.size() - 1, content);
+        }
+    }
+
+    /** Re-indexes one page; an index equal to the page count appends a page. */
+    public synchronized void updatePage(int pageIndex, String content) {
+        if (pageIndex < 0 || pageIndex > pages.size()) {
+            throw new IndexOutOfBoundsException("Page " + pageIndex + " of " + pages.size());
+        }
+        if (pageIndex == pages.size()) {
+            pages.add(null);
+        }
+        IndexedPage old = pages.get(pageIndex);
+        if (old != null) {
+            forEachPair(old.folded, pair -> {
+                BitSet set = pagesByPair.get(pair);
+                if (set != null) {
+                    set.clear(pageIndex);
+                    if (set.isEmpty()) {
+                        pagesByPair.remove(pair);
+                    }
+                }
+            });
+        }
+        IndexedPage page = fold(content);
+        pages.set(pageIndex, page);
+        forEachPair(page.folded, pair -> pagesByPair.computeIfAbsent(pair, key -> new BitSet()).set(pageIndex));
+    }
+
+    public synchronized int getPageCount() {
+        return pages.size();
+    }
+
+    /** Every non-overlapping match of the query, in page and then text order. */
+    public synchronized List<Match> search(String query) {
+        List<Match> matches = new ArrayList<>();
+        String needle = query == null ? "" : fold(query.trim()).folded;
+        if (needle.isEmpty()) {
+            return matches;
+        }
+
+        BitSet candidates;
+        if (needle.length() == 1) {
+            candidates = new BitSet();
+            candidates.set(0, pages.size());
+        } else {
+            candidates = null;
+            for (int i = 0; i + 1 < needle.length(); i++) {
+                BitSet set = pagesByPair.get(pair(needle.charAt(i), needle.charAt(i + 1)));
+                if (set == null) {
+                    return matches;
+                }
+                if (candidates == null) {
+                    candidates = (BitSet) set.clone();
+                } else {
+                    candidates.and(set);
+                }
+            }
+        }
+
+        for (int p = candidates.nextSetBit(0); p >= 0; p = candidates.nextSetBit(p + 1)) {
+            IndexedPage page = pages.get(p);
+            for (int at = page.folded.indexOf(needle); at >= 0; at = page.folded.indexOf(needle, at + needle.length())) {
+                matches.add(new Match(p, page.offsets[at], page.offsets[at + needle.length()]));
+            }
+        }
+        return matches;
+    }
+
+    private static IndexedPage fold(String text) {
+        if (text == null) {
+            return new IndexedPage("", new int[]{0});
+        }
+        StringBuilder folded = new StringBuilder(text.length());
+        int[] offsets = new int[text.length() + 1];
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isIgnorable(c)) {
+                continue;
+            }
+            offsets[folded.length()] = i;
+            folded.append(foldChar(c));
+        }
+        offsets[folded.length()] = text.length();
+        return new IndexedPage(folded.toString(), offsets);
+    }
+
+    // Tashkeel, Quranic marks, superscript alef and tatweel; see ArabicTokenizer.normalize.
+    private static boolean isIgnorable(char c) {
+        return (c >= '\u0610' && c <= '\u061A') || (c >= '\u064B' && c <= '\u065F') || c == '\u0670' || c == '\u0640';
+    }
+
+    private static char foldChar(char c) {
+        return switch (c) {
+            case '\u0622', '\u0623', '\u0625', '\u0671' -> '\u0627';
+            default -> Character.toLowerCase(c);
+        };
+    }
+
+    private interface PairConsumer {
+        void accept(int pair);
+    }
+
+    private static void forEachPair(String folded, PairConsumer consumer) {
+        for (int i = 0; i + 1 < folded.length(); i++) {
+            consumer.accept(pair(folded.charAt(i), folded.charAt(i + 1)));
+        }
+    }
+
+    private static int pair(char first, char second) {
+        return (first << 16) | second;
+    }
+}
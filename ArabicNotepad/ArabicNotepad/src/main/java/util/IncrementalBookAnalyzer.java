@@ -0,0 +1,134 @@
+package util;
+
+import dto.Book;
+import dto.Page;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps word, word-pair and phrase counts for one open book and updates them
+ * page by page: when a page changes, its previous contribution is retracted and
+ * the new one added, so PMI/PKL/phrase results never need a whole-book pass.
+ * Results are identical to the full analyzers for the same content.
+ */
+public class IncrementalBookAnalyzer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalBookAnalyzer.class);
+
+    private final Map<String, Integer> wordCounts = new HashMap<>();
+    private final Map<String, Integer> pairCounts = new HashMap<>();
+    private final Map<String, Integer> phraseCounts = new HashMap<>();
+    private final Map<Integer, PageContribution> contributions = new HashMap<>();
+    private int totalWords;
+
+    public void loadBook(Book book) {
+        List<Page> pages = book.getPages();
+        loadPages(book.getTitle(), pages == null ? List.of() : pages.stream().map(Page::getContent).toList());
+    }
+
+    /**
+     * Replaces all counts with those of the given page contents. Takes a
+     * snapshot rather than a Book so callers off the EDT never iterate a page
+     * list the editor is still changing.
+     */
+    public synchronized void loadPages(String title, List<String> contents) {
+        wordCounts.clear();
+        pairCounts.clear();
+        phraseCounts.clear();
+        contributions.clear();
+        totalWords = 0;
+
+        for (int i = 0; i < contents.size(); i++) {
+            updatePage(i, contents.get(i));
+        }
+        logger.info("Loaded live analysis counts for book '{}' ({} pages).", title, contributions.size());
+    }
+
+    public synchronized void updatePage(int pageIndex, String content) {
+        PageContribution previous = contributions.get(pageIndex);
+        if (previous != null) {
+            if (previous.content.equals(content == null ? "" : content)) {
+                return;
+            }
+            apply(previous, -1);
+        }
+
+        PageContribution current = new PageContribution(content);
+        apply(current, 1);
+        contributions.put(pageIndex, current);
+    }
+
+    public synchronized void removePage(int pageIndex) {
+        PageContribution previous = contributions.remove(pageIndex);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    public synchronized String calculatePMI(int topK) {
+        if (contributions.isEmpty()) {
+            return "No content available in the book to calculate PMI.";
+        }
+        return PMIAnalyzer.getInstance().rankPairs(wordCounts, pairCounts, totalWords, topK);
+    }
+
+    public synchronized String calculatePKL(int topK) {
+        if (contributions.isEmpty()) {
+            return "No content available in the book to calculate PKL.";
+        }
+        return PKLAnalyzer.getInstance().rankPairs(wordCounts, pairCounts, totalWords, topK);
+    }
+
+    public synchronized String mineQualityPhrases(int topK) {
+        return QualityPhrasesMiner.getInstance().rankPhrases(phraseCounts, topK);
+    }
+
+    public String performAnalysis(String analysisMethod, int topK) {
+        return switch (analysisMethod) {
+            case "Paper" -> mineQualityPhrases(topK);
+            case "PMI" -> calculatePMI(topK);
+            case "PKL" -> calculatePKL(topK);
+            default -> throw new IllegalArgumentException("Live analysis not supported for: " + analysisMethod);
+        };
+    }
+
+    private void apply(PageContribution page, int delta) {
+        List<String> words = page.words;
+        for (String word : words) {
+            adjust(wordCounts, word, delta);
+        }
+        totalWords += delta * words.size();
+
+        for (int i = 0; i < words.size(); i++) {
+            for (int j = i + 1; j < words.size(); j++) {
+                adjust(pairCounts, ArabicTokenizer.makePair(words.get(i), words.get(j)), delta);
+            }
+        }
+
+        QualityPhrasesMiner.getInstance().countPhrases(page.phraseTokens, phraseCounts, delta);
+    }
+
+    private static void adjust(Map<String, Integer> counts, String key, int delta) {
+        int count = counts.getOrDefault(key, 0) + delta;
+        if (count > 0) {
+            counts.put(key, count);
+        } else {
+            counts.remove(key);
+        }
+    }
+
+    private static class PageContribution {
+        final String content;
+        final List<String> words;
+        final List<String> phraseTokens;
+
+        PageContribution(String content) {
+            this.content = content == null ? "" : content;
+            this.words = this.content.isEmpty() ? List.of() : ArabicTokenizer.tokenizeWords(this.content);
+            this.phraseTokens = ArabicTokenizer.tokenizePhraseTokens(this.content);
+        }
+    }
+}
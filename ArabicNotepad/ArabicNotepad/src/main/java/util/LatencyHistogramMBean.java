@@ -0,0 +1,24 @@
+package util;
+
+/**
+ * JMX view of a {@link LatencyHistogram}, published by {@link MetricsRegistry}.
+ * Percentiles cover everything recorded since start-up or the last reset.
+ */
+public interface LatencyHistogramMBean {
+
+    long getCount();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,207 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide named latency timers and counters. Each metric is published
+ * as an MBean under {@code ArabicNotepad:type=Timer|Counter,name=...} when
+ * first used, and the server logs a one-line summary of the busiest timers
+ * every {@code metrics.report.seconds}. Set {@code metrics.enabled=false}
+ * to leave instrumented objects unwrapped.
+ */
+public class MetricsRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("metrics.enabled", "true"));
+    static final long REPORT_SECONDS = Long.getLong("metrics.report.seconds", 60L);
+    private static final String JMX_DOMAIN = "ArabicNotepad";
+    private static final int SUMMARY_TIMERS = 8;
+
+    private static volatile MetricsRegistry instance;
+
+    private final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    // What the last summary saw, so the next one covers only its own interval. Guarded by this.
+    private final Map<String, long[]> reportedBuckets = new HashMap<>();
+    private final Map<String, Long> reportedCounts = new HashMap<>();
+    private ScheduledExecutorService reporter;
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        MetricsRegistry instance = MetricsRegistry.instance;
+        if (instance == null) {
+            synchronized (MetricsRegistry.class) {
+                instance = MetricsRegistry.instance;
+                if (instance == null) {
+                    MetricsRegistry.instance = instance = new MetricsRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, key -> publish("Timer", key, new LatencyHistogram()));
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> publish("Counter", key, new Counter()));
+    }
+
+    /** Records the time elapsed since {@code startNanos} (from System.nanoTime) under the timer. */
+    public void recordSince(String name, long startNanos) {
+        timer(name).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Wraps the target so every call through the interface is timed as
+     * {@code prefix.methodName}; calls that throw also count towards
+     * {@code prefix.methodName.errors}. Overloads share one timer.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T instrument(Class<T> type, T target, String prefix) {
+        if (!ENABLED || target == null) {
+            return target;
+        }
+        Map<Method, LatencyHistogram> methodTimers = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            methodTimers.put(method, timer(prefix + "." + method.getName()));
+        }
+        InvocationHandler handler = (proxy, method, args) -> {
+            LatencyHistogram methodTimer = methodTimers.get(method);
+            if (methodTimer == null) {
+                return method.invoke(target, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                counter(prefix + "." + method.getName() + ".errors").increment();
+                throw e.getCause();
+            } finally {
+                methodTimer.record(System.nanoTime() - start);
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /** Starts the periodic summary log line; does nothing if already started or disabled. */
+    public synchronized void startReporting() {
+        if (reporter != null || !ENABLED || REPORT_SECONDS <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> logger.info(summarizeInterval()),
+                REPORT_SECONDS, REPORT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Describes what happened since the previous call: the timers that took
+     * the most total time, with their call counts and percentiles, followed
+     * by every counter that moved.
+     */
+    public synchronized String summarizeInterval() {
+        List<Interval> intervals = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> entry : timers.entrySet()) {
+            long[] now = entry.getValue().snapshot();
+            long[] before = reportedBuckets.put(entry.getKey(), now);
+            Interval interval = Interval.between(entry.getKey(), before, now);
+            if (interval.count > 0) {
+                intervals.add(interval);
+            }
+        }
+        intervals.sort(Comparator.comparingDouble((Interval interval) -> interval.totalNanos).reversed());
+
+        StringBuilder summary = new StringBuilder("Metrics since last report:");
+        if (intervals.isEmpty()) {
+            summary.append(" no timed calls");
+        }
+        for (Interval interval : intervals.subList(0, Math.min(SUMMARY_TIMERS, intervals.size()))) {
+            summary.append(String.format(" %s n=%d p50=%.2fms p99=%.2fms max=%.2fms;", interval.name, interval.count,
+                    interval.p50 / 1e6, interval.p99 / 1e6, interval.max / 1e6));
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            long count = entry.getValue().getCount();
+            Long before = reportedCounts.put(entry.getKey(), count);
+            long delta = count - (before == null || before > count ? 0 : before);
+            if (delta != 0) {
+                summary.append(' ').append(entry.getKey()).append("=+").append(delta).append(';');
+            }
+        }
+        return summary.toString();
+    }
+
+    private static <M> M publish(String type, String name, M metric) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN, new Hashtable<>(Map.of(
+                    "type", type, "name", ObjectName.quote(name))));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(metric, objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not publish metric '{}' over JMX", name, e);
+        }
+        return metric;
+    }
+
+    private static final class Interval {
+        final String name;
+        final long count;
+        final double totalNanos;
+        final long p50;
+        final long p99;
+        final long max;
+
+        private Interval(String name, long count, double totalNanos, long p50, long p99, long max) {
+            this.name = name;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        static Interval between(String name, long[] before, long[] now) {
+            long[] delta = new long[now.length];
+            long count = 0;
+            double totalNanos = 0;
+            for (int i = 0; i < now.length; i++) {
+                delta[i] = now[i] - (before == null ? 0 : before[i]);
+                if (delta[i] < 0) {
+                    return between(name, null, now); // reset over JMX since the last report
+                }
+                count += delta[i];
+                totalNanos += (double) delta[i] * LatencyHistogram.lowerBoundOf(i);
+            }
+            return new Interval(name, count, totalNanos, LatencyHistogram.percentileNanos(delta, 50),
+                    LatencyHistogram.percentileNanos(delta, 99), LatencyHistogram.percentileNanos(delta, 100));
+        }
+    }
+}
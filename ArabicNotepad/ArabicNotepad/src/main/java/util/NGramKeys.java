@@ -0,0 +1,76 @@
+package util;
+
+/**
+ * Packs n-grams of token ids into 128-bit keys: a pair is both ids in the
+ * low word (smaller id first), and a phrase is a 3-bit length followed by
+ * up to five 25-bit ids spread over the two words. Used by the off-heap
+ * shards of bl.CorpusAnalysisJob.
+ */
+public final class NGramKeys {
+
+    public static final int MAX_LENGTH = QualityPhrasesMiner.MAX_PHRASE_LENGTH;
+    private static final int ID_BITS = 25;
+    private static final int LENGTH_BITS = 3;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private NGramKeys() {
+    }
+
+    public static int checkId(int id) {
+        if (id > ID_MASK) {
+            throw new IllegalStateException("Vocabulary exceeds " + ID_MASK + " terms; run with -Dcorpus.storage=heap");
+        }
+        return id;
+    }
+
+    public static long pair(int idA, int idB) {
+        int low = Math.min(idA, idB);
+        int high = Math.max(idA, idB);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    public static long packLow(int[] ids, int length) {
+        return pack(ids, length, false);
+    }
+
+    public static long packHigh(int[] ids, int length) {
+        return pack(ids, length, true);
+    }
+
+    // Bit layout, from bit 0 of the low word upwards: length, id0, id1, ...
+    private static long pack(int[] ids, int length, boolean high) {
+        long word = 0;
+        int position = 0;
+        for (int field = -1; field < length; field++) {
+            long value = field < 0 ? length : ids[field] & ID_MASK;
+            int bits = field < 0 ? LENGTH_BITS : ID_BITS;
+            if (high) {
+                if (position + bits > Long.SIZE) {
+                    word |= position >= Long.SIZE ? value << (position - Long.SIZE) : value >>> (Long.SIZE - position);
+                }
+            } else if (position < Long.SIZE) {
+                word |= value << position;
+            }
+            position += bits;
+        }
+        return word;
+    }
+
+    public static int unpack(long high, long low, int[] ids) {
+        int length = (int) (low & ((1L << LENGTH_BITS) - 1));
+        int position = LENGTH_BITS;
+        for (int i = 0; i < length; i++) {
+            long value;
+            if (position + ID_BITS <= Long.SIZE) {
+                value = low >>> position;
+            } else if (position >= Long.SIZE) {
+                value = high >>> (position - Long.SIZE);
+            } else {
+                value = (low >>> position) | (high << (Long.SIZE - position));
+            }
+            ids[i] = (int) (value & ID_MASK);
+            position += ID_BITS;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,143 @@
+package util;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Open-addressing count table with 128-bit keys, stored off-heap in a
+ * MemorySegment so that very large n-gram tables put no pressure on the
+ * garbage collector. Each slot is {keyHigh, keyLow, count}; a zero count
+ * marks an empty slot. The table doubles when it is 60% full, and the old
+ * segment's arena is closed straight away. Writers must be confined to one
+ * thread at a time; the shared arena lets another thread read the table once
+ * writing is done. Call {@link #close()} to release the memory.
+ */
+public class OffHeapCountTable implements AutoCloseable {
+
+    private static final long SLOT_BYTES = 3 * Long.BYTES;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int MIN_CAPACITY = 1024;
+
+    private Arena arena;
+    private MemorySegment slots;
+    private long capacity;
+    private long size;
+
+    public OffHeapCountTable() {
+        this(MIN_CAPACITY);
+    }
+
+    public OffHeapCountTable(long expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1, (long) (expectedSize / LOAD_FACTOR)) - 1) << 1));
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long estimatedBytes() {
+        return capacity * SLOT_BYTES;
+    }
+
+    /**
+     * Adds a positive delta to the key's count. Counts can only grow: a count
+     * falling to zero would turn its slot into a hole in the probe chain.
+     */
+    public long add(long keyHigh, long keyLow, long delta) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("delta must be positive: " + delta);
+        }
+        long slot = find(slots, capacity, keyHigh, keyLow);
+        long offset = slot * SLOT_BYTES;
+        long count = slots.get(ValueLayout.JAVA_LONG, offset + 2 * Long.BYTES);
+        if (count == 0) {
+            slots.set(ValueLayout.JAVA_LONG, offset, keyHigh);
+            slots.set(ValueLayout.JAVA_LONG, offset + Long.BYTES, keyLow);
+            slots.set(ValueLayout.JAVA_LONG, offset + 2 * Long.BYTES, delta);
+            if (++size > capacity * LOAD_FACTOR) {
+                resize();
+            }
+            return delta;
+        }
+        slots.set(ValueLayout.JAVA_LONG, offset + 2 * Long.BYTES, count + delta);
+        return count + delta;
+    }
+
+    public long get(long keyHigh, long keyLow) {
+        long offset = find(slots, capacity, keyHigh, keyLow) * SLOT_BYTES;
+        return slots.get(ValueLayout.JAVA_LONG, offset + 2 * Long.BYTES);
+    }
+
+    public void forEach(Consumer consumer) {
+        for (long slot = 0; slot < capacity; slot++) {
+            long offset = slot * SLOT_BYTES;
+            long count = slots.get(ValueLayout.JAVA_LONG, offset + 2 * Long.BYTES);
+            if (count != 0) {
+                consumer.accept(slots.get(ValueLayout.JAVA_LONG, offset),
+                        slots.get(ValueLayout.JAVA_LONG, offset + Long.BYTES), count);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+            arena = null;
+            slots = null;
+        }
+    }
+
+    private void resize() {
+        Arena oldArena = arena;
+        MemorySegment oldSlots = slots;
+        long oldCapacity = capacity;
+        allocate(oldCapacity << 1);
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            long offset = slot * SLOT_BYTES;
+            long count = oldSlots.get(ValueLayout.JAVA_LONG, offset + 2 * Long.BYTES);
+            if (count != 0) {
+                long keyHigh = oldSlots.get(ValueLayout.JAVA_LONG, offset);
+                long keyLow = oldSlots.get(ValueLayout.JAVA_LONG, offset + Long.BYTES);
+                MemorySegment.copy(oldSlots, offset, slots, find(slots, capacity, keyHigh, keyLow) * SLOT_BYTES, SLOT_BYTES);
+                size++;
+            }
+        }
+        oldArena.close();
+    }
+
+    private void allocate(long newCapacity) {
+        arena = Arena.ofShared();
+        slots = arena.allocate(newCapacity * SLOT_BYTES, Long.BYTES);
+        capacity = newCapacity;
+        size = 0;
+    }
+
+    private static long find(MemorySegment slots, long capacity, long keyHigh, long keyLow) {
+        long mask = capacity - 1;
+        long slot = hash(keyHigh, keyLow) & mask;
+        while (true) {
+            long offset = slot * SLOT_BYTES;
+            if (slots.get(ValueLayout.JAVA_LONG, offset + 2 * Long.BYTES) == 0
+                    || (slots.get(ValueLayout.JAVA_LONG, offset) == keyHigh
+                        && slots.get(ValueLayout.JAVA_LONG, offset + Long.BYTES) == keyLow)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static long hash(long keyHigh, long keyLow) {
+        long h = keyHigh * 0x9E3779B97F4A7C15L + keyLow;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long keyHigh, long keyLow, long count);
+    }
+}
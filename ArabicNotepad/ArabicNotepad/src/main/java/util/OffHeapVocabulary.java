@@ -0,0 +1,200 @@
+package util;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Off-heap String to dense int id dictionary. Term characters live in an
+ * append-only off-heap char buffer, with a per-id offset table next to it.
+ * The lookup index is an open-addressing table of {hash, id} slots. Ids are
+ * assigned in insertion order from 0, so callers can keep per-term data in
+ * plain arrays or pack ids into n-gram keys. Same threading rules as
+ * {@link OffHeapCountTable}.
+ */
+public class OffHeapVocabulary implements AutoCloseable {
+
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int MIN_CAPACITY = 1024;
+    private static final long INDEX_SLOT_BYTES = 2 * Long.BYTES;
+
+    private final Growable chars = new Growable(MIN_CAPACITY * 8L * Character.BYTES);
+    private final Growable offsets = new Growable((MIN_CAPACITY + 1L) * Long.BYTES);
+    private Arena indexArena;
+    private MemorySegment index;
+    private long indexCapacity;
+    private int size;
+    private long charCount;
+
+    public OffHeapVocabulary() {
+        allocateIndex(MIN_CAPACITY);
+        offsets.ensure(Long.BYTES);
+        offsets.segment.set(ValueLayout.JAVA_LONG, 0, 0L);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long estimatedBytes() {
+        return chars.segment.byteSize() + offsets.segment.byteSize() + index.byteSize();
+    }
+
+    /**
+     * Returns the id of the term, or -1 if it has not been added.
+     */
+    public int idOf(String term) {
+        long hash = hash(term);
+        long slot = find(index, indexCapacity, hash, term);
+        long offset = slot * INDEX_SLOT_BYTES;
+        return (int) index.get(ValueLayout.JAVA_LONG, offset + Long.BYTES) - 1;
+    }
+
+    /**
+     * Returns the id of the term, adding it first if needed.
+     */
+    public int add(String term) {
+        long hash = hash(term);
+        long slot = find(index, indexCapacity, hash, term);
+        long offset = slot * INDEX_SLOT_BYTES;
+        long stored = index.get(ValueLayout.JAVA_LONG, offset + Long.BYTES);
+        if (stored != 0) {
+            return (int) stored - 1;
+        }
+        if (size == Integer.MAX_VALUE - 1) {
+            throw new IllegalStateException("Vocabulary is full");
+        }
+
+        int id = size++;
+        chars.ensure((charCount + term.length()) * Character.BYTES);
+        for (int i = 0; i < term.length(); i++) {
+            chars.segment.setAtIndex(ValueLayout.JAVA_CHAR, charCount + i, term.charAt(i));
+        }
+        charCount += term.length();
+        offsets.ensure((size + 1L) * Long.BYTES);
+        offsets.segment.setAtIndex(ValueLayout.JAVA_LONG, size, charCount);
+
+        index.set(ValueLayout.JAVA_LONG, offset, hash);
+        index.set(ValueLayout.JAVA_LONG, offset + Long.BYTES, id + 1L);
+        if (size > indexCapacity * LOAD_FACTOR) {
+            resizeIndex();
+        }
+        return id;
+    }
+
+    public String term(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No term with id " + id);
+        }
+        long start = offsets.segment.getAtIndex(ValueLayout.JAVA_LONG, id);
+        long end = offsets.segment.getAtIndex(ValueLayout.JAVA_LONG, id + 1L);
+        char[] term = new char[(int) (end - start)];
+        for (int i = 0; i < term.length; i++) {
+            term[i] = chars.segment.getAtIndex(ValueLayout.JAVA_CHAR, start + i);
+        }
+        return new String(term);
+    }
+
+    @Override
+    public void close() {
+        chars.close();
+        offsets.close();
+        if (indexArena != null) {
+            indexArena.close();
+            indexArena = null;
+        }
+    }
+
+    private long find(MemorySegment table, long capacity, long hash, String term) {
+        long mask = capacity - 1;
+        long slot = hash & mask;
+        while (true) {
+            long offset = slot * INDEX_SLOT_BYTES;
+            long stored = table.get(ValueLayout.JAVA_LONG, offset + Long.BYTES);
+            if (stored == 0 || (table.get(ValueLayout.JAVA_LONG, offset) == hash && termEquals((int) stored - 1, term))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean termEquals(int id, String term) {
+        long start = offsets.segment.getAtIndex(ValueLayout.JAVA_LONG, id);
+        long end = offsets.segment.getAtIndex(ValueLayout.JAVA_LONG, id + 1L);
+        if (end - start != term.length()) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (chars.segment.getAtIndex(ValueLayout.JAVA_CHAR, start + i) != term.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resizeIndex() {
+        Arena oldArena = indexArena;
+        MemorySegment oldIndex = index;
+        long oldCapacity = indexCapacity;
+        allocateIndex(oldCapacity << 1);
+        long mask = indexCapacity - 1;
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            long offset = slot * INDEX_SLOT_BYTES;
+            if (oldIndex.get(ValueLayout.JAVA_LONG, offset + Long.BYTES) != 0) {
+                long target = oldIndex.get(ValueLayout.JAVA_LONG, offset) & mask;
+                while (index.get(ValueLayout.JAVA_LONG, target * INDEX_SLOT_BYTES + Long.BYTES) != 0) {
+                    target = (target + 1) & mask;
+                }
+                MemorySegment.copy(oldIndex, offset, index, target * INDEX_SLOT_BYTES, INDEX_SLOT_BYTES);
+            }
+        }
+        oldArena.close();
+    }
+
+    private void allocateIndex(long capacity) {
+        indexArena = Arena.ofShared();
+        index = indexArena.allocate(capacity * INDEX_SLOT_BYTES, Long.BYTES);
+        indexCapacity = capacity;
+    }
+
+    private static long hash(String term) {
+        return CountMinSketch.hash(term);
+    }
+
+    /**
+     * Off-heap byte buffer that doubles on demand, freeing the previous
+     * segment's arena after copying.
+     */
+    private static final class Growable {
+        private Arena arena;
+        private MemorySegment segment;
+
+        Growable(long initialBytes) {
+            arena = Arena.ofShared();
+            segment = arena.allocate(initialBytes, Long.BYTES);
+        }
+
+        void ensure(long bytes) {
+            if (bytes <= segment.byteSize()) {
+                return;
+            }
+            long newSize = segment.byteSize();
+            while (newSize < bytes) {
+                newSize <<= 1;
+            }
+            Arena newArena = Arena.ofShared();
+            MemorySegment newSegment = newArena.allocate(newSize, Long.BYTES);
+            MemorySegment.copy(segment, 0, newSegment, 0, segment.byteSize());
+            arena.close();
+            arena = newArena;
+            segment = newSegment;
+        }
+
+        void close() {
+            if (arena != null) {
+                arena.close();
+                arena = null;
+            }
+        }
+    }
+}
@@ -3,13 +3,10 @@ package util;
 import dto.Book;
 import dto.Page;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class PKLAnalyzer {
 
     private static volatile PKLAnalyzer instance;
-    private static final int TOP_PAIR_LIMIT = 20;
-    private static final Set<String> ARABIC_STOPWORDS = Set.of("و", "في", "على", "من", "إلى", "عن", "ما", "مع");
 
     private PKLAnalyzer() {
         // Initialization logic here (if any)
@@ -29,6 +26,10 @@ public class PKLAnalyzer {
     }
     
     public String calculatePKL(Book book) {
+        return calculatePKL(book, TopKCollector.DEFAULT_K);
+    }
+
+    public String calculatePKL(Book book, int topK) {
         if (book == null || book.getPages() == null || book.getPages().isEmpty()) {
             return "No content available in the book to calculate PKL.";
         }
@@ -40,7 +41,7 @@ public class PKLAnalyzer {
         for (Page page : book.getPages()) {
             String content = page.getContent();
             if (content != null && !content.isEmpty()) {
-                List<String> words = tokenize(content);
+                List<String> words = ArabicTokenizer.tokenizeWords(content);
 
                 for (String word : words) {
                     wordCounts.put(word, wordCounts.getOrDefault(word, 0) + 1);
@@ -49,18 +50,38 @@ public class PKLAnalyzer {
 
                 for (int i = 0; i < words.size(); i++) {
                     for (int j = i + 1; j < words.size(); j++) {
-                        String pair = makePair(words.get(i), words.get(j));
+                        String pair = ArabicTokenizer.makePair(words.get(i), words.get(j));
                         pairCounts.put(pair, pairCounts.getOrDefault(pair, 0) + 1);
                     }
                 }
             }
         }
 
+        return rankPairs(wordCounts, pairCounts, totalWords, topK);
+    }
+
+    public String calculatePKLApproximate(Book book, int topK, ApproximatePairCounter counter) {
+        if (book == null || book.getPages() == null || book.getPages().isEmpty()) {
+            return "No content available in the book to calculate PKL.";
+        }
+
+        counter.addBook(book);
+        if (counter.getTotalWords() == 0) {
+            return "No valid words found in the book content to calculate PKL.";
+        }
+
+        TopKCollector<String> topPairs = new TopKCollector<>(topK);
+        counter.rankCandidates(topPairs, PKLAnalyzer::score);
+
+        return formatTopPairs(topPairs, topK) + counter.describeError() + "\n";
+    }
+
+    String rankPairs(Map<String, Integer> wordCounts, Map<String, Integer> pairCounts, int totalWords, int topK) {
         if (totalWords == 0) {
             return "No valid words found in the book content to calculate PKL.";
         }
 
-        Map<String, Double> pklScores = new HashMap<>();
+        TopKCollector<String> topPairs = new TopKCollector<>(topK);
         for (Map.Entry<String, Integer> entry : pairCounts.entrySet()) {
             String pair = entry.getKey();
             int pairCount = entry.getValue();
@@ -70,42 +91,32 @@ public class PKLAnalyzer {
             int countB = wordCounts.getOrDefault(words[1], 0);
 
             if (countA > 0 && countB > 0) {
-                double pPair = (double) pairCount / totalWords;
-                double pA = (double) countA / totalWords;
-                double pB = (double) countB / totalWords;
-
-                double pkl = pPair * Math.log(pPair / (pA * pB));
-                pklScores.put(pair, pkl);
+                topPairs.offer(pair, score(pairCount, countA, countB, totalWords));
             }
         }
 
-        List<Map.Entry<String, Double>> sortedPKLScores = pklScores.entrySet().stream()
-            .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
-            .collect(Collectors.toList());
+        return formatTopPairs(topPairs, topK);
+    }
 
-        StringBuilder result = new StringBuilder();
-        result.append("Top ").append(TOP_PAIR_LIMIT).append(" word pairs by PKL:\n");
-        for (int i = 0; i < Math.min(TOP_PAIR_LIMIT, sortedPKLScores.size()); i++) {
-            Map.Entry<String, Double> entry = sortedPKLScores.get(i);
-            String[] words = entry.getKey().split("\\|");
-            result.append(String.format("%d. (%s, %s) - PKL: %.4f\n", i + 1, words[0], words[1], entry.getValue()));
-        }
+    public static double score(long pairCount, long countA, long countB, long totalWords) {
+        double pPair = (double) pairCount / totalWords;
+        double pA = (double) countA / totalWords;
+        double pB = (double) countB / totalWords;
 
-        return result.toString();
+        return pPair * Math.log(pPair / (pA * pB));
     }
 
-    private List<String> tokenize(String content) {
-        return Arrays.stream(normalize(content).split("\\s+"))
-                     .filter(word -> word.length() > 1 && !ARABIC_STOPWORDS.contains(word))
-                     .collect(Collectors.toList());
-    }
+    public String formatTopPairs(TopKCollector<String> topPairs, int topK) {
+        List<TopKCollector.Scored<String>> topPKLScores = topPairs.toSortedList();
 
-    private String normalize(String content) {
-        return content.replaceAll("[\u0610-\u061A\u064B-\u065F]", "")
-                  .replaceAll("[^\\p{InArabic}]", " ");
-    }
-    
-    private String makePair(String word1, String word2) {
-        return word1.compareTo(word2) < 0 ? word1 + "|" + word2 : word2 + "|" + word1;
+        StringBuilder result = new StringBuilder();
+        result.append("Top ").append(topK).append(" word pairs by PKL:\n");
+        for (int i = 0; i < topPKLScores.size(); i++) {
+            TopKCollector.Scored<String> entry = topPKLScores.get(i);
+            String[] words = entry.getItem().split("\\|");
+            result.append(String.format("%d. (%s, %s) - PKL: %.4f\n", i + 1, words[0], words[1], entry.getScore()));
+        }
+
+        return result.toString();
     }
 }
@@ -3,16 +3,14 @@ package util;
 import dto.Book;
 import dto.Page;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class QualityPhrasesMiner {
 
     private static volatile QualityPhrasesMiner instance;
-    private static final int MIN_PHRASE_LENGTH = 2;
-    private static final int MAX_PHRASE_LENGTH = 5;
-    private static final int MIN_OCCURRENCES = 2;
-    private static final int MAX_TOP_PHRASES = 20;
-    private static final Set<String> ARABIC_STOPWORDS = Set.of("و", "في", "على", "من", "إلى", "عن", "ما", "مع");
+    public static final int MIN_PHRASE_LENGTH = 2;
+    public static final int MAX_PHRASE_LENGTH = 5;
+    public static final int MIN_OCCURRENCES = 2;
 
     private QualityPhrasesMiner() {
         // Initialization logic here (if any)
@@ -32,51 +30,64 @@ public class QualityPhrasesMiner {
     }
     
     public String mineQualityPhrases(Book book) {
+        return mineQualityPhrases(book, TopKCollector.DEFAULT_K);
+    }
+
+    public String mineQualityPhrases(Book book, int topK) {
         Map<String, Integer> phraseFrequency = new HashMap<>();
 
         for (Page page : book.getPages()) {
-            List<String> tokens = tokenize(page.getContent());
-            extractPhrases(tokens, phraseFrequency);
+            List<String> tokens = ArabicTokenizer.tokenizePhraseTokens(page.getContent());
+            countPhrases(tokens, phraseFrequency, 1);
         }
 
-        List<Map.Entry<String, Integer>> sortedPhrases = phraseFrequency.entrySet().stream()
-                .filter(entry -> entry.getValue() >= MIN_OCCURRENCES)
-                .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
-                .limit(MAX_TOP_PHRASES)
-                .collect(Collectors.toList());
+        return rankPhrases(phraseFrequency, topK);
+    }
+
+    String rankPhrases(Map<String, Integer> phraseFrequency, int topK) {
+        TopKCollector<String> topPhrases = new TopKCollector<>(topK);
+        for (Map.Entry<String, Integer> entry : phraseFrequency.entrySet()) {
+            int frequency = entry.getValue();
+            if (frequency >= MIN_OCCURRENCES) {
+                topPhrases.offer(entry.getKey(), frequency);
+            }
+        }
 
-        return formatResults(sortedPhrases);
+        return formatTopPhrases(topPhrases);
     }
 
-    private List<String> tokenize(String content) {
-        return Arrays.stream(normalize(content).split("\\s+"))
-                .filter(token -> !token.isBlank() && !ARABIC_STOPWORDS.contains(token))
-                .collect(Collectors.toList());
+    public String formatTopPhrases(TopKCollector<String> topPhrases) {
+        return formatResults(topPhrases.toSortedList());
     }
 
-    private String normalize(String content) {
-        return content.replaceAll("[\u0610-\u061A\u064B-\u065F]", "")
-                  .replaceAll("[^\\p{InArabic}]", " ");
-    } 
+    void countPhrases(List<String> tokens, Map<String, Integer> phraseFrequency, int delta) {
+        forEachPhrase(tokens, phrase -> {
+            int frequency = phraseFrequency.getOrDefault(phrase, 0) + delta;
+            if (frequency > 0) {
+                phraseFrequency.put(phrase, frequency);
+            } else {
+                phraseFrequency.remove(phrase);
+            }
+        });
+    }
 
-    private void extractPhrases(List<String> tokens, Map<String, Integer> phraseFrequency) {
+    public static void forEachPhrase(List<String> tokens, Consumer<String> action) {
         for (int length = MIN_PHRASE_LENGTH; length <= MAX_PHRASE_LENGTH; length++) {
             for (int i = 0; i <= tokens.size() - length; i++) {
-                String phrase = String.join(" ", tokens.subList(i, i + length));
-                phraseFrequency.put(phrase, phraseFrequency.getOrDefault(phrase, 0) + 1);
+                action.accept(String.join(" ", tokens.subList(i, i + length)));
             }
         }
     }
 
-    private String formatResults(List<Map.Entry<String, Integer>> sortedPhrases) {
+    private String formatResults(List<TopKCollector.Scored<String>> sortedPhrases) {
         if (sortedPhrases.isEmpty()) {
             return "No high-quality phrases found.";
         }
 
         StringBuilder result = new StringBuilder("Top Quality Phrases:\n");
         for (int i = 0; i < sortedPhrases.size(); i++) {
-            Map.Entry<String, Integer> entry = sortedPhrases.get(i);
-            result.append(String.format("%d. %s (Frequency: %d)\n", i + 1, entry.getKey(), entry.getValue()));
+            TopKCollector.Scored<String> entry = sortedPhrases.get(i);
+            result.append(String.format("%d. %s (Frequency: %d)\n", i + 1, entry.getItem(), (long) entry.getScore()));
         }
         return result.toString();
     }
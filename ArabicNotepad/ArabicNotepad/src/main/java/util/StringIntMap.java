@@ -0,0 +1,163 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing String to int counter map. Counts are stored in a primitive
+ * array, so there is no Integer boxing or per-entry node allocation as with
+ * HashMap&lt;String, Integer&gt;. Not thread-safe; intended to be owned by a
+ * single counting thread.
+ */
+public class StringIntMap {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+    // Rough per-key heap cost: String header + backing array header + slot references.
+    private static final long BYTES_PER_KEY = 64;
+
+    private String[] keys;
+    private int[] values;
+    private int[] hashes;
+    private int size;
+    private int threshold;
+    private long keyChars;
+
+    public StringIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public StringIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(String key) {
+        int index = find(key, hash(key));
+        return index >= 0 ? values[index] : 0;
+    }
+
+    public int add(String key, int delta) {
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        int index = hash & mask;
+        while (keys[index] != null) {
+            if (hashes[index] == hash && keys[index].equals(key)) {
+                values[index] += delta;
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        hashes[index] = hash;
+        values[index] = delta;
+        keyChars += key.length();
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return delta;
+    }
+
+    public void addAll(StringIntMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != null) {
+                add(other.keys[i], other.values[i]);
+            }
+        }
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys in natural String order; used to produce sorted runs
+     * that can be merged with spilled partial counts.
+     */
+    public String[] sortedKeys() {
+        String[] sorted = new String[size];
+        int n = 0;
+        for (String key : keys) {
+            if (key != null) {
+                sorted[n++] = key;
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Approximate heap footprint, used to decide when counts should be spilled.
+     */
+    public long estimatedBytes() {
+        return (long) keys.length * (Integer.BYTES * 2 + 8) + size * BYTES_PER_KEY + keyChars * 2;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private int find(String key, int hash) {
+        int mask = keys.length - 1;
+        int index = hash & mask;
+        while (keys[index] != null) {
+            if (hashes[index] == hash && keys[index].equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] oldHashes = hashes;
+        long oldKeyChars = keyChars;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = oldHashes[i] & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                hashes[index] = oldHashes[i];
+                values[index] = oldValues[i];
+                size++;
+            }
+        }
+        keyChars = oldKeyChars;
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new int[capacity];
+        hashes = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+        size = 0;
+        keyChars = 0;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(String key, int value);
+    }
+}
@@ -3,7 +3,6 @@ package util;
 import dto.Book;
 import dto.Page;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -38,6 +37,10 @@ public class TFIDFAnalyzer {
     }
     
     public String calculateTFIDF(Book book) {
+        return calculateTFIDF(book, TopKCollector.DEFAULT_K);
+    }
+
+    public String calculateTFIDF(Book book, int topK) {
         try {
             Path tempDir = Files.createTempDirectory("lucene-tfidf");
             Directory directory = new MMapDirectory(tempDir);
@@ -53,7 +56,8 @@ public class TFIDFAnalyzer {
             }
 
             try (DirectoryReader reader = DirectoryReader.open(directory)) {
-                List<TermScore> termScores = new ArrayList<>();
+                TopKCollector<String> topTerms = new TopKCollector<>(topK);
+                long totalDocs = reader.numDocs();
 
                 for (LeafReaderContext leafContext : reader.leaves()) {
                     LeafReader leafReader = leafContext.reader();
@@ -64,9 +68,7 @@ public class TFIDFAnalyzer {
                         BytesRef term;
 
                         while ((term = termsEnum.next()) != null) {
-                            String termText = term.utf8ToString();
                             long docFreq = termsEnum.docFreq();
-                            long totalDocs = reader.numDocs();
                             double idf = Math.log((double) totalDocs / (1 + docFreq));
 
                             int tf = 0;
@@ -76,18 +78,20 @@ public class TFIDFAnalyzer {
                             }
 
                             double tfidf = tf * idf;
-                            termScores.add(new TermScore(termText, tfidf));
+                            if (topTerms.wouldAccept(tfidf)) {
+                                topTerms.offer(term.utf8ToString(), tfidf);
+                            }
                         }
                     }
                 }
 
-                termScores.sort((a, b) -> Double.compare(b.score, a.score));
+                List<TopKCollector.Scored<String>> termScores = topTerms.toSortedList();
 
                 StringBuilder result = new StringBuilder();
-                result.append("Top 20 terms by TF-IDF:\n");
-                for (int i = 0; i < Math.min(20, termScores.size()); i++) {
-                    TermScore ts = termScores.get(i);
-                    result.append(String.format("%d. %s (TF-IDF: %.4f)\n", i + 1, ts.term, ts.score));
+                result.append("Top ").append(topK).append(" terms by TF-IDF:\n");
+                for (int i = 0; i < termScores.size(); i++) {
+                    TopKCollector.Scored<String> ts = termScores.get(i);
+                    result.append(String.format("%d. %s (TF-IDF: %.4f)\n", i + 1, ts.getItem(), ts.getScore()));
                 }
 
                 return result.toString();
@@ -105,14 +109,4 @@ public class TFIDFAnalyzer {
             return "Error during TF-IDF analysis: " + e.getMessage();
         }
     }
-
-    private static class TermScore {
-        String term;
-        double score;
-
-        TermScore(String term, double score) {
-            this.term = term;
-            this.score = score;
-        }
-    }
 }
@@ -0,0 +1,70 @@
+package util;
+
+import dto.PageEdit;
+
+/**
+ * Minimal single-edit diff between two versions of a text: the common
+ * prefix and suffix are kept and the middle is replaced. For typing, where
+ * changes between two syncs are local, this is as small as a full diff.
+ */
+public final class TextDiff {
+
+    private TextDiff() {
+    }
+
+    /**
+     * Returns the edit turning {@code before} into {@code after}, or null if
+     * they are equal.
+     */
+    public static PageEdit diff(String before, String after) {
+        before = before == null ? "" : before;
+        after = after == null ? "" : after;
+        if (before.equals(after)) {
+            return null;
+        }
+        int limit = Math.min(before.length(), after.length());
+        int prefix = 0;
+        while (prefix < limit && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return new PageEdit(prefix, before.length() - prefix - suffix,
+                after.substring(prefix, after.length() - suffix));
+    }
+
+    /**
+     * Three-way merge: applies the change from {@code base} to {@code local}
+     * on top of {@code remote}, another edit of the same base. Returns the
+     * merged text, or null if both sides changed the same span (or inserted
+     * at the same place), in which case one of them has to be chosen.
+     */
+    public static String rebase(String base, String local, String remote) {
+        local = local == null ? "" : local;
+        remote = remote == null ? "" : remote;
+        PageEdit mine = diff(base, local);
+        PageEdit theirs = diff(base, remote);
+        if (mine == null) {
+            return remote;
+        }
+        if (theirs == null || local.equals(remote)) {
+            return local;
+        }
+        int mineEnd = mine.getOffset() + mine.getDeleteLength();
+        int theirsEnd = theirs.getOffset() + theirs.getDeleteLength();
+        if (mine.getOffset() == theirs.getOffset()
+                || (mine.getOffset() < theirsEnd && theirs.getOffset() < mineEnd)) {
+            return null;
+        }
+        int offset = mine.getOffset();
+        if (offset > theirs.getOffset()) {
+            offset += theirs.getInsert().length() - theirs.getDeleteLength();
+        }
+        StringBuilder merged = new StringBuilder(remote);
+        new PageEdit(offset, mine.getDeleteLength(), mine.getInsert()).applyTo(merged);
+        return merged.toString();
+    }
+}
@@ -0,0 +1,163 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming top-K selection over primitive scores.
+ * <p>
+ * Candidates are offered one at a time while they are scored; only the best
+ * {@code k} are retained in a bounded min-heap, so memory stays O(k) and no
+ * full sort of the candidate set is ever needed. Not thread-safe.
+ */
+public class TopKCollector<T> {
+
+    /** How many results analyses keep when no K is given; set with -Danalysis.topk. */
+    public static final int DEFAULT_K = Math.max(1, Integer.getInteger("analysis.topk", 20));
+
+    private final int capacity;
+    private final double[] scores;
+    private final Object[] items;
+    private int size;
+
+    public TopKCollector(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.capacity = k;
+        this.scores = new double[k];
+        this.items = new Object[k];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Cheap pre-check so callers can skip building the item (e.g. a pair key)
+     * for candidates that would be rejected anyway.
+     */
+    public boolean wouldAccept(double score) {
+        if (Double.isNaN(score)) {
+            return false;
+        }
+        return size < capacity || score > scores[0];
+    }
+
+    public boolean offer(T item, double score) {
+        if (!wouldAccept(score)) {
+            return false;
+        }
+        if (size < capacity) {
+            scores[size] = score;
+            items[size] = item;
+            siftUp(size++);
+        } else {
+            scores[0] = score;
+            items[0] = item;
+            siftDown(0);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the retained candidates ordered from highest to lowest score.
+     * The collector itself is left untouched.
+     */
+    public List<Scored<T>> toSortedList() {
+        int n = size;
+        double[] heapScores = scores.clone();
+        Object[] heapItems = items.clone();
+        @SuppressWarnings("unchecked")
+        Scored<T>[] sorted = (Scored<T>[]) new Scored<?>[n];
+
+        // Repeatedly pop the minimum into the tail: a heap sort limited to k entries.
+        for (int last = n - 1; last >= 0; last--) {
+            @SuppressWarnings("unchecked")
+            T item = (T) heapItems[0];
+            sorted[last] = new Scored<>(item, heapScores[0]);
+            heapScores[0] = heapScores[last];
+            heapItems[0] = heapItems[last];
+            siftDown(heapScores, heapItems, 0, last);
+        }
+
+        List<Scored<T>> result = new ArrayList<>(n);
+        for (Scored<T> scored : sorted) {
+            result.add(scored);
+        }
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            items[i] = null;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int index) {
+        double score = scores[index];
+        Object item = items[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            scores[index] = scores[parent];
+            items[index] = items[parent];
+            index = parent;
+        }
+        scores[index] = score;
+        items[index] = item;
+    }
+
+    private void siftDown(int index) {
+        siftDown(scores, items, index, size);
+    }
+
+    private static void siftDown(double[] heapScores, Object[] heapItems, int index, int length) {
+        if (length == 0) {
+            return;
+        }
+        double score = heapScores[index];
+        Object item = heapItems[index];
+        int half = length >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < length && heapScores[right] < heapScores[child]) {
+                child = right;
+            }
+            if (score <= heapScores[child]) {
+                break;
+            }
+            heapScores[index] = heapScores[child];
+            heapItems[index] = heapItems[child];
+            index = child;
+        }
+        heapScores[index] = score;
+        heapItems[index] = item;
+    }
+
+    public static final class Scored<T> {
+        private final T item;
+        private final double score;
+
+        Scored(T item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package util;
 
 import com.ibm.icu.text.Transliterator;
+import dto.Book;
+import dto.Page;
+import java.io.IOException;
+import java.io.Writer;
 import java.text.Normalizer;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,7 +32,6 @@ public class TransliterationUtil {
         return instance;
     }
 
-    
     private static final String BASIC_RULES = ""
             + "ا > a; "
             + "ب > b; "
@@ -79,8 +83,14 @@ public class TransliterationUtil {
 
     private static final String CUSTOM_RULES = DIACRITIC_RULES + BASIC_RULES;
 
-    private static final Transliterator ARABIC_TO_LATIN_TRANSLITERATOR =
-            Transliterator.createFromRules("Arabic-Latin-Custom", CUSTOM_RULES, Transliterator.FORWARD);
+    private static final RuleTable RULE_TABLE = RuleTable.compile(CUSTOM_RULES);
+
+    // Built on first use only: the table covers the current rules, so ICU is
+    // needed only if the rules stop fitting the table.
+    private static class IcuHolder {
+        static final Transliterator ARABIC_TO_LATIN_TRANSLITERATOR =
+                Transliterator.createFromRules("Arabic-Latin-Custom", CUSTOM_RULES, Transliterator.FORWARD);
+    }
 
     public String translateToRomanEnglish(String arabicText) {
         if (arabicText == null || arabicText.isEmpty()) {
@@ -88,10 +98,12 @@ public class TransliterationUtil {
             return "";
         }
 
-        String normalizedText = Normalizer.normalize(arabicText, Normalizer.Form.NFC);
+        String normalizedText = normalize(arabicText);
 
         try {
-            String transliteratedText = ARABIC_TO_LATIN_TRANSLITERATOR.transliterate(normalizedText);
+            String transliteratedText = RULE_TABLE != null
+                    ? RULE_TABLE.apply(normalizedText, new StringBuilder(normalizedText.length() + 16)).toString()
+                    : IcuHolder.ARABIC_TO_LATIN_TRANSLITERATOR.transliterate(normalizedText);
             logger.debug("Transliterated text: {}", transliteratedText);
             return transliteratedText;
         } catch (Exception e) {
@@ -99,4 +111,181 @@ public class TransliterationUtil {
             return "";
         }
     }
+
+    /**
+     * Transliterates with the ICU rule-based transliterator only. This is the
+     * reference the lookup table must match.
+     */
+    public String translateToRomanEnglishWithIcu(String arabicText) {
+        if (arabicText == null || arabicText.isEmpty()) {
+            return "";
+        }
+        return IcuHolder.ARABIC_TO_LATIN_TRANSLITERATOR.transliterate(normalize(arabicText));
+    }
+
+    /**
+     * Writes the transliteration of every page of the book to the writer, one
+     * page at a time, so the whole book is never held as a single string.
+     * Pages are separated by a blank line, as in exported books.
+     */
+    public void transliterateBook(Book book, Writer writer) throws IOException {
+        List<Page> pages = book.getPages();
+        if (pages == null) {
+            return;
+        }
+        StringBuilder buffer = new StringBuilder();
+        for (Page page : pages) {
+            String content = page.getContent();
+            if (content != null && !content.isEmpty()) {
+                String normalizedText = normalize(content);
+                buffer.setLength(0);
+                if (RULE_TABLE != null) {
+                    RULE_TABLE.apply(normalizedText, buffer);
+                } else {
+                    buffer.append(IcuHolder.ARABIC_TO_LATIN_TRANSLITERATOR.transliterate(normalizedText));
+                }
+                writer.append(buffer);
+            }
+            writer.write("\n\n");
+        }
+        writer.flush();
+    }
+
+    private static String normalize(String text) {
+        return Normalizer.isNormalized(text, Normalizer.Form.NFC) ? text : Normalizer.normalize(text, Normalizer.Form.NFC);
+    }
+
+    /**
+     * Lookup tables compiled from the rule strings: one replacement per Arabic
+     * code point, plus replacements for a letter followed by a mark. Two-char
+     * rules are tried first, because ICU rejects rule sets where a one-char
+     * rule would hide a longer one.
+     */
+    private static final class RuleTable {
+        private static final char BLOCK_START = '\u0600';
+        private static final int BLOCK_SIZE = 0x100;
+
+        private final String[] singles = new String[BLOCK_SIZE];
+        private final String[][] pairs = new String[BLOCK_SIZE][];
+
+        static RuleTable compile(String rules) {
+            RuleTable table = new RuleTable();
+            for (String rule : rules.split(";")) {
+                if (rule.isBlank()) {
+                    continue;
+                }
+                int arrow = rule.indexOf('>');
+                if (arrow < 0 || rule.indexOf('>', arrow + 1) >= 0) {
+                    return unsupported(rule);
+                }
+                String source = rule.substring(0, arrow).strip();
+                String target = unquote(rule.substring(arrow + 1));
+                if (target == null || !table.add(source, target)) {
+                    return unsupported(rule);
+                }
+            }
+            return table;
+        }
+
+        private static RuleTable unsupported(String rule) {
+            logger.warn("Transliteration rule '{}' cannot be table-driven; using ICU.", rule.strip());
+            return null;
+        }
+
+        private boolean add(String source, String target) {
+            for (int i = 0; i < source.length(); i++) {
+                if (!inBlock(source.charAt(i))) {
+                    return false;
+                }
+            }
+            if (source.length() == 1) {
+                int index = source.charAt(0) - BLOCK_START;
+                if (singles[index] == null) {
+                    singles[index] = target;
+                }
+                return true;
+            }
+            if (source.length() == 2) {
+                int first = source.charAt(0) - BLOCK_START;
+                if (pairs[first] == null) {
+                    pairs[first] = new String[BLOCK_SIZE];
+                }
+                int second = source.charAt(1) - BLOCK_START;
+                if (pairs[first][second] == null) {
+                    pairs[first][second] = target;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        // ICU rule text: unquoted whitespace is ignored, '' is a literal quote
+        // and '...' quotes literal text. Any other syntax is rejected.
+        private static String unquote(String text) {
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\'') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '\'') {
+                        result.append('\'');
+                        i++;
+                        continue;
+                    }
+                    int end = i + 1;
+                    while (true) {
+                        if (end >= text.length()) {
+                            return null;
+                        }
+                        if (text.charAt(end) == '\'') {
+                            if (end + 1 < text.length() && text.charAt(end + 1) == '\'') {
+                                result.append('\'');
+                                end += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        result.append(text.charAt(end++));
+                    }
+                    i = end;
+                } else if (Character.isLetterOrDigit(c)) {
+                    result.append(c);
+                } else if (!Character.isWhitespace(c)) {
+                    return null;
+                }
+            }
+            return result.toString();
+        }
+
+        StringBuilder apply(String text, StringBuilder out) {
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (!inBlock(c)) {
+                    out.append(c);
+                    continue;
+                }
+                int index = c - BLOCK_START;
+                String[] next = pairs[index];
+                if (next != null && i + 1 < length && inBlock(text.charAt(i + 1))) {
+                    String pair = next[text.charAt(i + 1) - BLOCK_START];
+                    if (pair != null) {
+                        out.append(pair);
+                        i++;
+                        continue;
+                    }
+                }
+                String single = singles[index];
+                if (single != null) {
+                    out.append(single);
+                } else {
+                    out.append(c);
+                }
+            }
+            return out;
+        }
+
+        private static boolean inBlock(char c) {
+            return c >= BLOCK_START && c < BLOCK_START + BLOCK_SIZE;
+        }
+    }
 }
@@ -2,7 +2,10 @@ package util;
 
 import net.oujda_nlp_team.AlKhalil2Analyzer;
 
+import java.text.Normalizer;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import net.oujda_nlp_team.entity.Result;
 import net.oujda_nlp_team.entity.ResultList;
 import org.slf4j.Logger;
@@ -13,8 +16,26 @@ public class WordAnalyzer {
     private static volatile WordAnalyzer instance;
     private static final Logger logger = LoggerFactory.getLogger(WordAnalyzer.class);
 
+    private static final int CACHE_SIZE = Integer.getInteger("wordanalyzer.cache.size", 10_000);
+    private static final String WARM_UP_WORD = "كتاب";
+    // AlKhalil2Analyzer is a shared singleton that does not document thread
+    // safety, so the warm-up, the EDT and batch lookups take turns calling it.
+    private static final Object ANALYZER_LOCK = new Object();
+
+    private final LruCache<String, String> cache = new LruCache<>(CACHE_SIZE);
+    private final Function<String, String> lookup;
+    private final AtomicBoolean warmUpStarted = new AtomicBoolean();
+
     private WordAnalyzer() {
-        // Initialization logic here (if any)
+        this(WordAnalyzer::analyzeWithAlKhalil);
+    }
+
+    /**
+     * Uses the given lookup instead of AlKhalil; it returns the analysis of a
+     * normalized word, or null on error. Calls into it are serialized as well.
+     */
+    public WordAnalyzer(Function<String, String> lookup) {
+        this.lookup = lookup;
     }
     
     public static WordAnalyzer getInstance() {
@@ -30,8 +51,83 @@ public class WordAnalyzer {
         }
         return instance;
     }
+
+    public void warmUp() {
+        if (!warmUpStarted.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                synchronized (ANALYZER_LOCK) {
+                    AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
+                    if (analyzer != null) {
+                        analyzer.processToken(WARM_UP_WORD);
+                    }
+                }
+                logger.info("AlKhalil analyzer warmed up in {} ms.", (System.nanoTime() - start) / 1_000_000);
+            } catch (Exception e) {
+                logger.error("AlKhalil analyzer warm-up failed.", e);
+            }
+        }, "alkhalil-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
     
     public String analyzeWord(String word) {
+        String key = normalize(word);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String analysis = analyze(key);
+        if (analysis == null) {
+            return "Error during analysis of word: " + word;
+        }
+        cache.put(key, analysis);
+        return analysis;
+    }
+
+    /**
+     * Analyzes a batch of words, looking each distinct normalized word up at
+     * most once and answering repeats and cached words without the analyzer.
+     * Results keep the order of the given words.
+     */
+    public Map<String, String> analyzeWords(List<String> words) {
+        Map<String, String> analyses = new HashMap<>();
+        for (String word : words) {
+            String key = normalize(word);
+            if (analyses.containsKey(key)) {
+                continue;
+            }
+            String analysis = cache.get(key);
+            if (analysis == null) {
+                analysis = analyze(key);
+                if (analysis != null) {
+                    cache.put(key, analysis);
+                }
+            }
+            analyses.put(key, analysis);
+        }
+
+        Map<String, String> results = new LinkedHashMap<>();
+        for (String word : words) {
+            String analysis = analyses.get(normalize(word));
+            results.put(word, analysis != null ? analysis : "Error during analysis of word: " + word);
+        }
+        return results;
+    }
+
+    private String analyze(String word) {
+        if (word.isEmpty()) {
+            return null;
+        }
+        synchronized (ANALYZER_LOCK) {
+            return lookup.apply(word);
+        }
+    }
+
+    private static String analyzeWithAlKhalil(String word) {
         try {
             AlKhalil2Analyzer analyzer = AlKhalil2Analyzer.getInstance();
             if (analyzer != null) {
@@ -44,10 +140,18 @@ public class WordAnalyzer {
 	                String pos = allResults.get(0).getPartOfSpeech();
 	                return "Root: " + root + "\nPOS: " + pos + "\nLemma: " + lemma;
 	            }
+                return "Error during analysis of word: " + word;
             }
         } catch (Exception e) {
-            logger.error("Error during analysis of word: ", word, e);     
+            logger.error("Error during analysis of word: {}", word, e);     
+        }
+        return null;
+    }
+
+    private static String normalize(String word) {
+        if (word == null) {
+            return "";
         }
-        return "Error during analysis of word: " + word;
+        return Normalizer.normalize(word, Normalizer.Form.NFC).replace("ـ", "").trim();
     }
 }